@@ -0,0 +1,109 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.model.TaskListener;
+import hudson.plugins.git.Branch;
+import hudson.plugins.git.Revision;
+import hudson.plugins.git.util.Build;
+import hudson.plugins.git.util.BuildData;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Alauda#prepareNotificationPayload(String)} on a run whose git {@link BuildData} has many branches,
+ * with the {@link NotificationContext} of the run cached, and worked out again because the build data changed.
+ * A Jenkins controller is started for the run, as in the tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationPayloadBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int branches;
+
+    private JenkinsRule jenkins;
+    private FreeStyleBuild run;
+    private BuildData data;
+    private Alauda alauda;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Throwable {
+        jenkins = new JenkinsRule();
+        jenkins.apply(new Statement() {
+            @Override
+            public void evaluate() {
+            }
+        }, Description.createTestDescription(NotificationPayloadBenchmark.class, "benchmark"));
+        jenkins.before();
+
+        FreeStyleProject project = jenkins.createFreeStyleProject("demo");
+        run = jenkins.buildAndAssertSuccess(project);
+
+        data = new BuildData();
+        List<Branch> names = new ArrayList<>(branches);
+        for (int i = 0; i < branches; i++) {
+            names.add(new Branch("origin/branch-" + i, sha1(i)));
+        }
+        data.saveBuild(new Build(new Revision(sha1(0), names), run.getNumber(), Result.SUCCESS));
+        data.addRemoteUrl("https://github.com/alauda/demo.git");
+        run.addAction(data);
+
+        alauda = new Alauda("http://console.alauda.cn", "http://api.alauda.cn", "token", "alauda", "global", "cluster",
+                "default", "project", false).setJenkinsContext(run, null, TaskListener.NULL);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws Throwable {
+        jenkins.after();
+    }
+
+    /**
+     * A copy of the build data, as after a second checkout, so that the context is worked out again.
+     */
+    @State(Scope.Thread)
+    public static class Checkout {
+        @Setup(Level.Invocation)
+        public void setUp(NotificationPayloadBenchmark benchmark) {
+            benchmark.run.replaceAction(benchmark.data.clone());
+        }
+    }
+
+    @Benchmark
+    public Object prepareCached() {
+        return alauda.prepareNotificationPayload("deployed");
+    }
+
+    @Benchmark
+    public Object prepareAfterCheckout(Checkout checkout) {
+        return alauda.prepareNotificationPayload("deployed");
+    }
+
+    private static ObjectId sha1(int i) {
+        return ObjectId.fromString(String.format("%040x", i + 1));
+    }
+}
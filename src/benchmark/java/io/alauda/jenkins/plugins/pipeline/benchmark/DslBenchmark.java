@@ -0,0 +1,125 @@
+package io.alauda.jenkins.plugins.pipeline.benchmark;
+
+import groovy.lang.GroovyShell;
+import groovy.lang.Script;
+import io.alauda.jenkins.plugins.pipeline.utils.DslArgs;
+import io.alauda.jenkins.plugins.pipeline.utils.ImageName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Argument parsing of the DSL methods and image name parsing: {@link DslArgs} and {@link ImageName} against the
+ * Groovy code the DSL used to run, without the CPS transformation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DslBenchmark {
+
+    // AlaudaDSL.parseArgs, Image.initByImageFullName and AlaudaDSL.parseRegistry before DslArgs and ImageName
+    private static final String GROOVY_DSL = ""
+            + "def parseArgs(argsDefine, args) {\n"
+            + "    Map map = [:]\n"
+            + "    if (args == null || args.length == 0) { return map }\n"
+            + "    if (args.length == 1) {\n"
+            + "        if (args[0] instanceof Map) { return args[0] }\n"
+            + "        if (args[0] instanceof String) { map[argsDefine[0]] = args[0].toString(); return map }\n"
+            + "    }\n"
+            + "    if (args instanceof Object[]) {\n"
+            + "        for (def i = 0; i < args.length; i++) { def name = argsDefine[i]; map[name] = args[i].toString() }\n"
+            + "        return map\n"
+            + "    }\n"
+            + "    return map\n"
+            + "}\n"
+            + "def parseImage(String imageFullName) {\n"
+            + "    String[] segments = imageFullName.split('/')\n"
+            + "    String imageRegistry = segments[0]\n"
+            + "    def lastSegment = segments[segments.length - 1]\n"
+            + "    if (!lastSegment.contains(':')) { return [imageRegistry, imageFullName.substring(imageRegistry.length() + 1), 'latest'] }\n"
+            + "    return [imageRegistry, imageFullName.substring(imageRegistry.length() + 1, imageFullName.lastIndexOf(':')),\n"
+            + "            lastSegment.substring(lastSegment.indexOf(':') + 1)]\n"
+            + "}\n"
+            + "def parseRegistry(String url) {\n"
+            + "    String registry\n"
+            + "    String[] urlList = url.split('//')\n"
+            + "    if (urlList.length == 2) { registry = urlList[1] } else { registry = url }\n"
+            + "    return registry.split('/')[0]\n"
+            + "}\n";
+
+    private static final String IMAGE = "index.alauda.cn/alauda/demo-service:v1.4.3";
+    private static final String REGISTRY_URL = "https://index.alauda.cn/v2/alauda";
+
+    private Script groovy;
+    private List<String> names;
+    private Object[] positional;
+    private Object[] named;
+
+    @Setup
+    public void setUp() {
+        groovy = new GroovyShell().parse(GROOVY_DSL);
+        names = Arrays.asList("buildConfigName", "branch", "commitID", "async", "ignoreBuildResult");
+        positional = new Object[]{"demo", "master", "c53701d", true, false};
+        Map<String, Object> args = new HashMap<>();
+        args.put("buildConfigName", "demo");
+        args.put("async", true);
+        named = new Object[]{Collections.unmodifiableMap(args)};
+    }
+
+    @Benchmark
+    public Object parseArgsGroovy() {
+        return groovy.invokeMethod("parseArgs", new Object[]{names, positional});
+    }
+
+    @Benchmark
+    public Object parseArgsJava() {
+        return DslArgs.parse(names, positional);
+    }
+
+    @Benchmark
+    public Object parseNamedArgsGroovy() {
+        return groovy.invokeMethod("parseArgs", new Object[]{names, named});
+    }
+
+    @Benchmark
+    public Object parseNamedArgsJava() {
+        return DslArgs.parse(names, named);
+    }
+
+    @Benchmark
+    public Object imageGroovy() {
+        return groovy.invokeMethod("parseImage", new Object[]{IMAGE});
+    }
+
+    @Benchmark
+    public Object imageJava() throws Exception {
+        return ImageName.parse(IMAGE);
+    }
+
+    @Benchmark
+    public Object registryGroovy() {
+        return groovy.invokeMethod("parseRegistry", new Object[]{REGISTRY_URL});
+    }
+
+    @Benchmark
+    public Object registryJava() {
+        return ImageName.parseRegistry(REGISTRY_URL);
+    }
+}
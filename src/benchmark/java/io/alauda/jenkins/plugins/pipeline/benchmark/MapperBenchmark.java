@@ -0,0 +1,135 @@
+package io.alauda.jenkins.plugins.pipeline.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.alauda.jenkins.plugins.pipeline.dsl.notification.models.NotificationPayload;
+import io.alauda.jenkins.plugins.pipeline.utils.JsonMappers;
+import io.alauda.model.Kubernete;
+import io.alauda.model.ServiceUpdatePayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payload (de)serialization with a new {@link ObjectMapper} per call, as the plugin used to do,
+ * against the shared {@link JsonMappers}. Run with the gc profiler to compare allocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private NotificationPayload notification;
+    private Map<String, Object> service;
+    private Map<String, Object> deployment;
+    private OutputStream sink;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        notification = new NotificationPayload()
+                .setSubject("Jenkins job demo #42 SUCCESS")
+                .setContent("Job demo finished")
+                .setCauseText("Started by timer")
+                .setRepo("https://github.com/alauda/demo.git")
+                .setRepoBranch("master")
+                .setRepoVersion("c53701d")
+                .setJobURL("http://jenkins/job/demo/42/")
+                .setStartedAt(new Date())
+                .setDuration("1 min 12 sec");
+
+        List<Object> containers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> container = new HashMap<>();
+            container.put("name", "container-" + i);
+            container.put("image", "index.alauda.cn/alauda/demo:v1");
+            container.put("env", Collections.singletonList(Collections.singletonMap("name", "KEY_" + i)));
+            containers.add(container);
+        }
+        deployment = new HashMap<>();
+        deployment.put("apiVersion", "extensions/v1beta1");
+        deployment.put("kind", "Deployment");
+        deployment.put("metadata", Collections.singletonMap("name", "demo"));
+        deployment.put("spec", Collections.singletonMap("template",
+                Collections.singletonMap("spec", Collections.singletonMap("containers", containers))));
+
+        // what a YAML file read by the DSL gives for a service update
+        service = new HashMap<>();
+        service.put("kubernetes", Collections.singletonList(deployment));
+
+        sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+                blackhole.consume(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                blackhole.consume(b);
+            }
+        };
+    }
+
+    // Alauda.toJson before JsonMappers
+    @Benchmark
+    public String notificationNewMapper() throws IOException {
+        ObjectMapper jsonMapper = new ObjectMapper();
+        StringWriter sw = new StringWriter();
+        jsonMapper.writeValue(sw, notification);
+        return sw.toString();
+    }
+
+    @Benchmark
+    public String notificationSharedWriter() throws IOException {
+        return JsonMappers.toJson(notification);
+    }
+
+    @Benchmark
+    public void notificationStreamed() throws IOException {
+        JsonMappers.writeTo(notification, sink);
+    }
+
+    // the DSL converters before PayloadEngine: a new mapper and a JSON string round trip
+    @Benchmark
+    public ServiceUpdatePayload serviceRoundTrip() throws IOException {
+        ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return mapper.readValue(mapper.writeValueAsString(service), ServiceUpdatePayload.class);
+    }
+
+    @Benchmark
+    public ServiceUpdatePayload serviceConvert() {
+        return JsonMappers.convert(service, ServiceUpdatePayload.class);
+    }
+
+    @Benchmark
+    public Kubernete componentRoundTrip() throws IOException {
+        ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return mapper.readValue(mapper.writeValueAsString(deployment), Kubernete.class);
+    }
+
+    @Benchmark
+    public Kubernete componentConvert() {
+        return JsonMappers.convert(deployment, Kubernete.class);
+    }
+}
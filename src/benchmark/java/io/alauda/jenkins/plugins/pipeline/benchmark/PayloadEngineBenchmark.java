@@ -0,0 +1,135 @@
+package io.alauda.jenkins.plugins.pipeline.benchmark;
+
+import groovy.lang.GroovyShell;
+import groovy.lang.Script;
+import io.alauda.jenkins.plugins.pipeline.utils.ContainerOverride;
+import io.alauda.jenkins.plugins.pipeline.utils.PayloadEngine;
+import io.alauda.model.Kubernete;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Container merge and YAML image tag rewrite: {@link PayloadEngine} against the Groovy code the DSL used to run.
+ * The Groovy baseline runs without the CPS transformation, which only adds cost to it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadEngineBenchmark {
+
+    // the merge and rewrite AlaudaDSL.Service ran before PayloadEngine
+    private static final String GROOVY_DSL = ""
+            + "def updateContainer(originContainer, newContainer) {\n"
+            + "    if (newContainer.imageTag) { originContainer.setImageTag(newContainer.imageTag) }\n"
+            + "    if (newContainer.envVars != null) { originContainer.addEnvVars(newContainer.envVars) }\n"
+            + "}\n"
+            + "def merge(List originContainers, Map containers) {\n"
+            + "    def firstContainer = originContainers.get(0)\n"
+            + "    if (containers.containsKey('0')) { updateContainer(firstContainer, containers.get('0')) }\n"
+            + "    if (containers.containsKey(firstContainer.name)) { updateContainer(firstContainer, containers.get(firstContainer.name)) }\n"
+            + "    containers.each {\n"
+            + "        for (int i = 0; i < originContainers.size(); i++) {\n"
+            + "            if (it.getKey() == originContainers.get(i).name) { updateContainer(originContainers.get(i), it.getValue()) }\n"
+            + "        }\n"
+            + "    }\n"
+            + "    return originContainers\n"
+            + "}\n"
+            + "def rewrite(yamlMap, image, tag) {\n"
+            + "    for (def res : yamlMap) {\n"
+            + "        if (res.kind.equals('Deployment')) {\n"
+            + "            for (def container : res.spec.template.spec.containers) {\n"
+            + "                if (container.image.startsWith(image + ':')) { container.image = image + ':' + tag }\n"
+            + "            }\n"
+            + "        }\n"
+            + "    }\n"
+            + "    return yamlMap\n"
+            + "}\n";
+
+    @Param({"1", "10", "100"})
+    public int containers;
+
+    private Script groovy;
+    private Map<String, ContainerOverride> overrides;
+
+    private List<Kubernete.Container> origin;
+    private List<Object> manifest;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        groovy = new GroovyShell().parse(GROOVY_DSL);
+        overrides = new LinkedHashMap<>();
+        for (int i = 0; i < containers; i++) {
+            ContainerOverride override = new ContainerOverride();
+            override.setImageTag("v2");
+            override.setEnvVars(new ArrayList<>(Collections.singletonList(new Kubernete.Container.EnvVar("KEY_" + i, "value"))));
+            overrides.put("container-" + i, override);
+        }
+    }
+
+    // both paths change the payload in place
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        origin = new ArrayList<>(containers);
+        List<Object> yamlContainers = new ArrayList<>(containers);
+        for (int i = 0; i < containers; i++) {
+            Map<String, Object> container = new HashMap<>();
+            container.put("name", "container-" + i);
+            container.put("image", "index.alauda.cn/alauda/demo:v1");
+            origin.add(PayloadEngine.convert(container, Kubernete.Container.class));
+            yamlContainers.add(new HashMap<>(container));
+        }
+
+        Map<String, Object> deployment = new HashMap<>();
+        deployment.put("kind", "Deployment");
+        deployment.put("metadata", Collections.singletonMap("name", "demo"));
+        deployment.put("spec", Collections.singletonMap("template",
+                Collections.singletonMap("spec", Collections.singletonMap("containers", yamlContainers))));
+        Map<String, Object> service = new HashMap<>();
+        service.put("kind", "Service");
+        service.put("metadata", Collections.singletonMap("name", "demo"));
+        manifest = new ArrayList<>();
+        manifest.add(deployment);
+        manifest.add(service);
+    }
+
+    @Benchmark
+    public Object mergeGroovy() {
+        return groovy.invokeMethod("merge", new Object[]{origin, overrides});
+    }
+
+    @Benchmark
+    public Object mergeEngine() {
+        return PayloadEngine.mergeContainers(origin, overrides);
+    }
+
+    @Benchmark
+    public Object rewriteGroovy() {
+        return groovy.invokeMethod("rewrite", new Object[]{manifest, "index.alauda.cn/alauda/demo", "v2"});
+    }
+
+    @Benchmark
+    public Object rewriteEngine() {
+        return PayloadEngine.replaceImageTag(manifest, "Deployment", null, "index.alauda.cn/alauda/demo", "v2");
+    }
+}
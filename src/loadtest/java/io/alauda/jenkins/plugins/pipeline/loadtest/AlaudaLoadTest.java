@@ -0,0 +1,189 @@
+package io.alauda.jenkins.plugins.pipeline.loadtest;
+
+import hudson.model.Result;
+import io.alauda.jenkins.plugins.pipeline.AlaudaConfiguration;
+import io.alauda.jenkins.plugins.pipeline.alauda.AlaudaMetrics;
+import org.jenkinsci.plugins.workflow.actions.TimingAction;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.cps.nodes.StepAtomNode;
+import org.jenkinsci.plugins.workflow.graph.FlowGraphWalker;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs {@code loadtest.pipelines} pipelines at the same time against a {@link MockAlaudaServer}, each one starting
+ * a build and deploying a service and a component, and reports the throughput, the latency of the Alauda steps,
+ * the threads of the controller and the requests the API got.
+ * <p>
+ * Only run with the {@code loadtest} profile: {@code mvn -Ploadtest test -Dloadtest.pipelines=50}.
+ * {@code loadtest.latencyMillis} is the highest latency of the API (the lowest is a fifth of it) and
+ * {@code loadtest.errorRate} the share of requests failing with 503, runs are only asserted to succeed without errors.
+ */
+public class AlaudaLoadTest {
+    private static final int PIPELINES = Integer.getInteger("loadtest.pipelines", 20);
+    private static final long LATENCY_MILLIS = Long.getLong("loadtest.latencyMillis", 100);
+    private static final double ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.errorRate", "0"));
+
+    private static final String SCRIPT = "node {\n"
+            + "  alauda.withSpace('global') {\n"
+            + "    alauda.startBuild buildConfigName: 'load-%1$d'\n"
+            + "  }\n"
+            + "  alauda.withCluster('load', 'default') {\n"
+            + "    alauda.withProject('load') {\n"
+            + "      alauda.service('service-%1$d').withImageTag('v2').deploy()\n"
+            + "      alauda.component('load', 'Deployment', 'component-%1$d').withImageTag('v2').deploy()\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n";
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    {
+        jenkins.timeout = 1800;
+    }
+
+    private final MockAlaudaServer server = new MockAlaudaServer();
+
+    @Before
+    public void setUp() throws Exception {
+        server.setLatency(LATENCY_MILLIS / 5, LATENCY_MILLIS).setErrorRate(ERROR_RATE, 503);
+        server.start();
+
+        AlaudaConfiguration config = AlaudaConfiguration.get();
+        config.setApiEndpoint(server.getEndpoint());
+        config.setConsoleURL(server.getEndpoint());
+        config.setApiToken("load");
+        config.setAccount("load");
+        config.setSpaceName("global");
+        config.setClusterName("load");
+        config.setNamespace("default");
+        config.setProjectName("load");
+        config.save();
+
+        jenkins.jenkins.setNumExecutors(PIPELINES);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void concurrentPipelines() throws Exception {
+        List<WorkflowJob> jobs = new ArrayList<>();
+        for (int i = 0; i < PIPELINES; i++) {
+            WorkflowJob job = jenkins.createProject(WorkflowJob.class, "load-" + i);
+            job.setDefinition(new CpsFlowDefinition(String.format(SCRIPT, i), false));
+            jobs.add(job);
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int threadsBefore = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+        long started = System.nanoTime();
+
+        List<Future<WorkflowRun>> futures = new ArrayList<>();
+        for (WorkflowJob job : jobs) {
+            futures.add(job.scheduleBuild2(0));
+        }
+        List<WorkflowRun> runs = new ArrayList<>();
+        for (Future<WorkflowRun> future : futures) {
+            runs.add(future.get());
+        }
+        long elapsed = System.nanoTime() - started;
+
+        Map<String, List<Long>> latencies = new TreeMap<>();
+        int succeeded = 0;
+        for (WorkflowRun run : runs) {
+            if (run.getResult() == Result.SUCCESS) {
+                succeeded++;
+            } else {
+                System.out.println(run + " " + run.getResult() + ":\n" + JenkinsRule.getLog(run));
+            }
+            stepLatencies(run, latencies);
+        }
+
+        report(succeeded, elapsed, latencies, threadsBefore, threads.getPeakThreadCount(), threads.getThreadCount());
+        if (ERROR_RATE == 0) {
+            assertEquals("every pipeline should succeed", PIPELINES, succeeded);
+        }
+    }
+
+    /**
+     * Adds the time every Alauda step of the run took, from its start to the start of the node that follows it.
+     */
+    private static void stepLatencies(WorkflowRun run, Map<String, List<Long>> latencies) {
+        Map<FlowNode, Long> ended = new HashMap<>();
+        List<StepAtomNode> steps = new ArrayList<>();
+        for (FlowNode node : new FlowGraphWalker(run.getExecution())) {
+            for (FlowNode parent : node.getParents()) {
+                ended.put(parent, TimingAction.getStartTime(node));
+            }
+            if (node instanceof StepAtomNode && node.getDisplayFunctionName().startsWith("alauda")) {
+                steps.add((StepAtomNode) node);
+            }
+        }
+        for (StepAtomNode step : steps) {
+            Long end = ended.get(step);
+            if (end != null) {
+                latencies.computeIfAbsent(step.getDisplayFunctionName(), k -> new ArrayList<>())
+                        .add(end - TimingAction.getStartTime(step));
+            }
+        }
+    }
+
+    private void report(int succeeded, long elapsedNanos, Map<String, List<Long>> latencies,
+                        int threadsBefore, int threadsPeak, int threadsAfter) {
+        double seconds = elapsedNanos / 1e9;
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%nAlauda load test: %d pipelines, API latency %d-%d ms, error rate %.3f%n",
+                PIPELINES, LATENCY_MILLIS / 5, LATENCY_MILLIS, ERROR_RATE));
+        report.append(String.format("  succeeded %d/%d in %.1f s, %.2f pipelines/s%n",
+                succeeded, PIPELINES, seconds, succeeded / seconds));
+        report.append(String.format("  controller threads: %d before, %d peak, %d after%n",
+                threadsBefore, threadsPeak, threadsAfter));
+
+        report.append(String.format("  %-28s %8s %10s %10s %10s%n", "step", "count", "p50 ms", "p99 ms", "max ms"));
+        latencies.forEach((step, millis) -> {
+            Collections.sort(millis);
+            report.append(String.format("  %-28s %8d %10d %10d %10d%n", step, millis.size(),
+                    percentile(millis, 0.50), percentile(millis, 0.99), millis.get(millis.size() - 1)));
+        });
+
+        report.append(String.format("  API requests: %d, %.1f/s%n", server.getRequestCount(), server.getRequestCount() / seconds));
+        server.getRequestCounts().forEach((request, count) ->
+                report.append(String.format("    %-28s %8d%n", request, count)));
+
+        report.append(String.format("  %-28s %8s %8s %8s %10s %10s%n", "operation", "calls", "errors", "rejected", "p50 ms", "p99 ms"));
+        AlaudaMetrics.get().getOperations().forEach((name, operation) ->
+                report.append(String.format("  %-28s %8d %8d %8d %10d %10d%n", name, operation.getCalls(),
+                        operation.getErrors(), operation.getRejected(),
+                        operation.getLatencyMillis().getP50(), operation.getLatencyMillis().getP99())));
+        System.out.println(report);
+    }
+
+    private static long percentile(List<Long> sorted, double quantile) {
+        int rank = (int) Math.ceil(quantile * sorted.size());
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, rank - 1)));
+    }
+}
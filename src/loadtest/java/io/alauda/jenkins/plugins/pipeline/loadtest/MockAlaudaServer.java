@@ -0,0 +1,433 @@
+package io.alauda.jenkins.plugins.pipeline.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.alauda.jenkins.plugins.pipeline.utils.JsonMappers;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Alauda API on a local {@link MockWebServer}, for the load tests: builds, services, components and the status of
+ * their application, notifications and integrations.
+ * <p>
+ * Requests are routed by the resource named in their path ({@code builds}, {@code services}, {@code applications},
+ * {@code notifications}, {@code integrations}...) and their method rather than by the exact path, so that the server
+ * keeps up with the paths of the Alauda client. Every resource is created on first use: retrieving service
+ * {@code demo} returns a service with that name and ID running one container. Builds, services and components go
+ * through a {@link Progression} of statuses from the time they were started or updated.
+ * <p>
+ * Every response is delayed by a random latency and a share of them fail with an error status, see
+ * {@link #setLatency} and {@link #setErrorRate}. Requests are counted by resource and method.
+ */
+public class MockAlaudaServer {
+    public static final String BUILD = "build";
+    public static final String SERVICE = "service";
+    public static final String COMPONENT = "component";
+    public static final String APPLICATION_STATUS = "application status";
+    public static final String NOTIFICATION = "notification";
+    public static final String INTEGRATION = "integration";
+    public static final String UNKNOWN = "unknown";
+
+    private static final String IMAGE = "index.alauda.cn/alauda/load:v1";
+
+    private final MockWebServer server = new MockWebServer();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentMap<String, LongAdder> requests = new ConcurrentHashMap<>();
+    // started or updated at, by build ID, service ID and workload ("deployment-name")
+    private final ConcurrentMap<String, Long> builds = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> services = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> workloads = new ConcurrentHashMap<>();
+
+    private volatile long minLatencyMillis;
+    private volatile long maxLatencyMillis;
+    private volatile double errorRate;
+    private volatile int errorCode = 503;
+    private volatile Progression buildProgression = Progression.start("W", 1000).then("I", 5000).end("S");
+    private volatile Progression serviceProgression = Progression.start("Deploying", 3000).end("Running");
+    private volatile Progression componentProgression = Progression.start("Deploying", 3000).end("Running");
+
+    public MockAlaudaServer() {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                return MockAlaudaServer.this.dispatch(request);
+            }
+        });
+    }
+
+    public void start() throws IOException {
+        server.start();
+    }
+
+    public void shutdown() throws IOException {
+        server.shutdown();
+    }
+
+    /**
+     * @return the API endpoint to configure, e.g. {@code http://localhost:40123/}
+     */
+    public String getEndpoint() {
+        return server.url("/").toString();
+    }
+
+    /**
+     * Delays every response by a random time between the bounds, in milliseconds.
+     */
+    public MockAlaudaServer setLatency(long minMillis, long maxMillis) {
+        this.minLatencyMillis = minMillis;
+        this.maxLatencyMillis = Math.max(minMillis, maxMillis);
+        return this;
+    }
+
+    /**
+     * Fails a share of the requests, between 0 and 1, with the status code, e.g. 503 or 429.
+     */
+    public MockAlaudaServer setErrorRate(double rate, int code) {
+        this.errorRate = rate;
+        this.errorCode = code;
+        return this;
+    }
+
+    public MockAlaudaServer setBuildProgression(Progression progression) {
+        this.buildProgression = progression;
+        return this;
+    }
+
+    public MockAlaudaServer setServiceProgression(Progression progression) {
+        this.serviceProgression = progression;
+        return this;
+    }
+
+    public MockAlaudaServer setComponentProgression(Progression progression) {
+        this.componentProgression = progression;
+        return this;
+    }
+
+    /**
+     * @return requests received, keyed by resource and method, e.g. "build POST"
+     */
+    public Map<String, Long> getRequestCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        requests.forEach((k, v) -> counts.put(k, v.sum()));
+        return counts;
+    }
+
+    public long getRequestCount() {
+        long count = 0;
+        for (LongAdder adder : requests.values()) {
+            count += adder.sum();
+        }
+        return count;
+    }
+
+    // region Dispatch
+
+    private MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        List<String> path = segments(request.getPath());
+        String method = request.getMethod();
+        String resource = resource(path);
+        requests.computeIfAbsent(resource + " " + method, k -> new LongAdder()).increment();
+
+        long latency = maxLatencyMillis > minLatencyMillis
+                ? ThreadLocalRandom.current().nextLong(minLatencyMillis, maxLatencyMillis + 1) : minLatencyMillis;
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            return json(errorCode, error("mock_error", "Injected error"));
+        }
+
+        try {
+            switch (resource) {
+                case BUILD:
+                    return build(method, path);
+                case SERVICE:
+                    return service(method, path, request);
+                case APPLICATION_STATUS:
+                    return applicationStatus();
+                case COMPONENT:
+                    return component(method, path, request);
+                case NOTIFICATION:
+                    return json(200, JsonMappers.mapper().createObjectNode());
+                case INTEGRATION:
+                    return integration(path);
+                default:
+                    return json(404, error("resource_not_exist", "No mock for " + method + " " + request.getPath()));
+            }
+        } catch (IOException e) {
+            return json(400, error("invalid_args", e.getMessage()));
+        }
+    }
+
+    private static String resource(List<String> path) {
+        if (path.contains("builds") || path.contains("private-builds")) {
+            return BUILD;
+        }
+        if (path.contains("notifications")) {
+            return NOTIFICATION;
+        }
+        if (path.contains("integrations")) {
+            return INTEGRATION;
+        }
+        if (path.contains("applications") && !path.isEmpty() && path.get(path.size() - 1).equals("status")) {
+            return APPLICATION_STATUS;
+        }
+        if (path.contains("services")) {
+            return SERVICE;
+        }
+        if (path.contains("applications") || path.contains("components") || path.contains("kubernetes")) {
+            return COMPONENT;
+        }
+        return UNKNOWN;
+    }
+
+    private MockResponse build(String method, List<String> path) {
+        String buildID = after(path, path.contains("builds") ? "builds" : "private-builds");
+        switch (method) {
+            case "POST":
+                buildID = "load-build-" + sequence.incrementAndGet();
+                builds.put(buildID, System.currentTimeMillis());
+                ObjectNode started = JsonMappers.mapper().createObjectNode();
+                started.put("build_id", buildID);
+                return json(201, started);
+            case "DELETE":
+                builds.remove(buildID);
+                return new MockResponse().setResponseCode(204);
+            default:
+                if (path.contains("logs")) {
+                    ObjectNode logs = JsonMappers.mapper().createObjectNode();
+                    logs.putArray("logs").addObject()
+                            .put("time", System.currentTimeMillis() / 1000)
+                            .put("message", "step 1/1 : FROM alauda/load");
+                    return json(200, logs);
+                }
+                if (buildID == null || !builds.containsKey(buildID)) {
+                    // an ID the server did not hand out is the namespace of the list
+                    ObjectNode page = JsonMappers.mapper().createObjectNode();
+                    ArrayNode results = page.putArray("results");
+                    builds.keySet().forEach(id -> results.add(buildJson(id)));
+                    return json(200, page);
+                }
+                return json(200, buildJson(buildID));
+        }
+    }
+
+    private ObjectNode buildJson(String buildID) {
+        long startedAt = builds.getOrDefault(buildID, 0L);
+        ObjectNode build = JsonMappers.mapper().createObjectNode();
+        build.put("build_id", buildID);
+        build.put("build_config_name", "load");
+        build.put("created_at", Instant.ofEpochMilli(startedAt).toString());
+        build.put("status", buildProgression.statusAt(System.currentTimeMillis() - startedAt));
+        return build;
+    }
+
+    private MockResponse service(String method, List<String> path, RecordedRequest request) throws IOException {
+        String serviceID = after(path, "services");
+        switch (method) {
+            case "POST":
+                if (serviceID == null) {
+                    JsonNode body = body(request);
+                    serviceID = body.path("resource").path("name").asText(body.path("service_name").asText(null));
+                    if (serviceID == null) {
+                        serviceID = "load-service-" + sequence.incrementAndGet();
+                    }
+                }
+                services.put(serviceID, System.currentTimeMillis());
+                return json(201, serviceJson(serviceID));
+            case "PUT":
+                // update or rollback
+                services.put(serviceID, System.currentTimeMillis());
+                return new MockResponse().setResponseCode(204);
+            case "DELETE":
+                services.remove(serviceID);
+                return new MockResponse().setResponseCode(204);
+            default:
+                return json(200, serviceJson(serviceID));
+        }
+    }
+
+    private ObjectNode serviceJson(String serviceID) {
+        Long updatedAt = services.get(serviceID);
+        String status = updatedAt == null ? serviceProgression.getFinalStatus()
+                : serviceProgression.statusAt(System.currentTimeMillis() - updatedAt);
+        ObjectNode service = JsonMappers.mapper().createObjectNode();
+        service.putObject("resource")
+                .put("uuid", serviceID)
+                .put("name", serviceID)
+                .put("status", status)
+                .put("create_method", "UI");
+        service.putObject("cluster").put("name", "load").put("uuid", "load");
+        service.putObject("namespace").put("name", "default").put("uuid", "default");
+        service.putObject("parent").put("name", "load").put("uuid", "load");
+        service.putArray("kubernetes").add(deployment(serviceID));
+        return service;
+    }
+
+    private MockResponse component(String method, List<String> path, RecordedRequest request) throws IOException {
+        String name = path.isEmpty() ? "component" : path.get(path.size() - 1);
+        if ("PUT".equals(method) || "POST".equals(method)) {
+            JsonNode body = body(request);
+            String kind = body.path("kind").asText("Deployment");
+            name = body.path("metadata").path("name").asText(name);
+            workloads.put(kind.toLowerCase() + "-" + name, System.currentTimeMillis());
+            return new MockResponse().setResponseCode(204);
+        }
+        ObjectNode component = JsonMappers.mapper().createObjectNode();
+        component.putObject("resource").put("name", name).put("uuid", name);
+        component.set("kubernetes", deployment(name));
+        return json(200, component);
+    }
+
+    /**
+     * Status of every workload updated so far, whatever the application, names are unique in a load test.
+     */
+    private MockResponse applicationStatus() {
+        ObjectNode status = JsonMappers.mapper().createObjectNode();
+        status.put("status", componentProgression.getFinalStatus());
+        ObjectNode statuses = status.putObject("workloads");
+        long now = System.currentTimeMillis();
+        workloads.forEach((workload, updatedAt) ->
+                statuses.putObject(workload).put("status", componentProgression.statusAt(now - updatedAt)));
+        return json(200, status);
+    }
+
+    private MockResponse integration(List<String> path) {
+        String uuid = after(path, "integrations");
+        ObjectNode integration = JsonMappers.mapper().createObjectNode();
+        integration.put("uuid", uuid);
+        integration.put("name", uuid);
+        integration.put("type", "Jenkins");
+        integration.put("enabled", true);
+        integration.putObject("fields").put("endpoint", "http://jenkins.load").put("token", "load");
+        return json(200, integration);
+    }
+
+    private static ObjectNode deployment(String name) {
+        ObjectNode deployment = JsonMappers.mapper().createObjectNode();
+        deployment.put("apiVersion", "extensions/v1beta1");
+        deployment.put("kind", "Deployment");
+        deployment.putObject("metadata").put("name", name).put("namespace", "default");
+        ObjectNode spec = deployment.putObject("spec");
+        spec.put("replicas", 1);
+        spec.putObject("template").putObject("spec").putArray("containers").addObject()
+                .put("name", "container-0")
+                .put("image", IMAGE);
+        return deployment;
+    }
+
+    // endregion
+
+    private static JsonNode body(RecordedRequest request) throws IOException {
+        String body = request.getBody().readUtf8();
+        return body.isEmpty() ? JsonMappers.mapper().createObjectNode() : JsonMappers.mapper().readTree(body);
+    }
+
+    private static ObjectNode error(String code, String message) {
+        ObjectNode body = JsonMappers.mapper().createObjectNode();
+        body.putArray("errors").addObject()
+                .put("source", "load")
+                .put("code", code)
+                .put("message", message);
+        return body;
+    }
+
+    private static MockResponse json(int code, JsonNode body) {
+        return new MockResponse()
+                .setResponseCode(code)
+                .setHeader("Content-Type", "application/json")
+                .setBody(body.toString());
+    }
+
+    private static List<String> segments(String path) {
+        int query = path.indexOf('?');
+        List<String> segments = new ArrayList<>();
+        for (String segment : (query < 0 ? path : path.substring(0, query)).split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * @return the segment after the collection, e.g. the ID in {@code /v1/services/{namespace}/{id}}, null if none
+     */
+    private static String after(List<String> path, String collection) {
+        int i = path.indexOf(collection);
+        if (i < 0 || i == path.size() - 1) {
+            return null;
+        }
+        // the namespace may come first, the ID is the last segment that is not an action
+        String last = path.get(path.size() - 1);
+        if (Arrays.asList("logs", "rollback", "status", "start", "stop").contains(last) && path.size() - 2 > i) {
+            return path.get(path.size() - 2);
+        }
+        return last;
+    }
+
+    /**
+     * Statuses a resource goes through, each one for a time, until the final one.
+     */
+    public static final class Progression {
+        private final List<String> statuses = new ArrayList<>();
+        private final List<Long> millis = new ArrayList<>();
+        private String finalStatus;
+
+        private Progression() {
+        }
+
+        public static Progression start(String status, long millis) {
+            return new Progression().then(status, millis);
+        }
+
+        public static Progression of(String finalStatus) {
+            return new Progression().end(finalStatus);
+        }
+
+        public Progression then(String status, long millis) {
+            statuses.add(status);
+            this.millis.add(millis);
+            return this;
+        }
+
+        public Progression end(String status) {
+            this.finalStatus = status;
+            return this;
+        }
+
+        public String getFinalStatus() {
+            return finalStatus;
+        }
+
+        /**
+         * @param elapsed time since the resource was started or updated
+         */
+        public String statusAt(long elapsed) {
+            long until = 0;
+            for (int i = 0; i < statuses.size(); i++) {
+                until += millis.get(i);
+                if (elapsed < until) {
+                    return statuses.get(i);
+                }
+            }
+            return finalStatus;
+        }
+    }
+}
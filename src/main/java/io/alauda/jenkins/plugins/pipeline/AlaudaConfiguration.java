@@ -4,6 +4,7 @@ import com.google.common.base.Strings;
 import hudson.Extension;
 import hudson.Util;
 import hudson.util.FormValidation;
+import io.alauda.jenkins.plugins.pipeline.alauda.AlaudaClients;
 import io.alauda.jenkins.plugins.pipeline.alauda.IAlaudaConfig;
 import jenkins.model.GlobalConfiguration;
 import jenkins.model.GlobalConfigurationCategory;
@@ -39,6 +40,13 @@ public class AlaudaConfiguration extends GlobalConfiguration implements IAlaudaC
                 this.apiEndpoint, this.account, this.clusterName, this.namespace, this.projectName);
     }
 
+    @Override
+    public synchronized void save() {
+        super.save();
+        // shared clients were created with the previous endpoint and credentials
+        AlaudaClients.invalidateAll();
+    }
+
     @Override
     public GlobalConfigurationCategory getCategory() {
         return super.getCategory();
@@ -0,0 +1,40 @@
+package io.alauda.jenkins.plugins.pipeline;
+
+import hudson.Extension;
+import hudson.model.RootAction;
+import io.alauda.jenkins.plugins.pipeline.alauda.AlaudaMetrics;
+import io.alauda.jenkins.plugins.pipeline.utils.JsonMappers;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.IOException;
+
+/**
+ * Serves {@link AlaudaMetrics} as JSON at {@code JENKINS_URL/alauda-metrics/}, for administrators.
+ */
+@Extension
+public class AlaudaMetricsAction implements RootAction {
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Alauda Metrics";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "alauda-metrics";
+    }
+
+    public void doIndex(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Jenkins.getInstance().checkPermission(Jenkins.ADMINISTER);
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.setHeader("Cache-Control", "no-cache");
+        JsonMappers.writeTo(AlaudaMetrics.get(), rsp.getOutputStream());
+    }
+}
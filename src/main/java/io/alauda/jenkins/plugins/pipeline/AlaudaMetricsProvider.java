@@ -0,0 +1,101 @@
+package io.alauda.jenkins.plugins.pipeline;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import hudson.Extension;
+import io.alauda.jenkins.plugins.pipeline.alauda.AlaudaMetrics;
+import jenkins.metrics.api.MetricProvider;
+import jenkins.metrics.api.Metrics;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Publishes {@link AlaudaMetrics} to the Metrics plugin, only loaded when that plugin is installed.
+ * Operations and kinds of waits are added to the registry the first time they are recorded.
+ */
+@Extension(optional = true)
+public class AlaudaMetricsProvider extends MetricProvider {
+    private static final Logger LOGGER = Logger.getLogger(AlaudaMetricsProvider.class.getName());
+
+    private final Map<String, Metric> metrics = new HashMap<>();
+
+    public AlaudaMetricsProvider() {
+        AlaudaMetrics m = AlaudaMetrics.get();
+        gauge(metrics, "alauda.poller.waits", m::getPollerQueueDepth);
+        gauge(metrics, "alauda.poller.resources", m::getPollerResourceCount);
+        gauge(metrics, "alauda.poller.fetches", m::getPollerFetchCount);
+        gauge(metrics, "alauda.poller.deferred", m::getPollerDeferredCount);
+        gauge(metrics, "alauda.ratelimiter.waiting", m::getRateLimiterQueueDepth);
+        gauge(metrics, "alauda.retrybudget.balance", m::getRetryBudgetBalance);
+        gauge(metrics, "alauda.notifications.pending", m::getNotificationQueueDepth);
+        gauge(metrics, "alauda.notifications.latency.mean", m::getNotificationAverageLatencyMillis);
+        m.addListener(new AlaudaMetrics.Listener() {
+            @Override
+            public void onOperation(String name, AlaudaMetrics.Operation operation) {
+                Map<String, Metric> added = new HashMap<>();
+                String prefix = MetricRegistry.name("alauda.api", name);
+                gauge(added, prefix + ".calls", operation::getCalls);
+                gauge(added, prefix + ".errors", operation::getErrors);
+                gauge(added, prefix + ".rejected", operation::getRejected);
+                histogram(added, prefix + ".latency", operation.getLatencyMillis());
+                register(added);
+            }
+
+            @Override
+            public void onWait(String kind, AlaudaMetrics.Wait wait) {
+                Map<String, Metric> added = new HashMap<>();
+                String prefix = MetricRegistry.name("alauda.wait", kind);
+                gauge(added, prefix + ".finished", wait::getFinished);
+                gauge(added, prefix + ".cancelled", wait::getCancelled);
+                histogram(added, prefix + ".polls", wait.getPolls());
+                histogram(added, prefix + ".time", wait.getTimeToFinalMillis());
+                register(added);
+            }
+        });
+    }
+
+    @Nonnull
+    @Override
+    public MetricSet getMetricSet() {
+        return () -> {
+            synchronized (this) {
+                return new HashMap<>(metrics);
+            }
+        };
+    }
+
+    private synchronized void register(Map<String, Metric> added) {
+        MetricRegistry registry = Metrics.metricRegistry();
+        if (registry == null) {
+            // not started yet, the registry takes them from getMetricSet
+            metrics.putAll(added);
+            return;
+        }
+        for (Map.Entry<String, Metric> entry : added.entrySet()) {
+            try {
+                registry.register(entry.getKey(), entry.getValue());
+            } catch (IllegalArgumentException e) {
+                LOGGER.log(Level.FINE, "{0} is already registered", entry.getKey());
+            }
+        }
+    }
+
+    private static void histogram(Map<String, Metric> metrics, String prefix, AlaudaMetrics.Histogram histogram) {
+        gauge(metrics, prefix + ".p50", histogram::getP50);
+        gauge(metrics, prefix + ".p95", histogram::getP95);
+        gauge(metrics, prefix + ".p99", histogram::getP99);
+        gauge(metrics, prefix + ".mean", histogram::getMean);
+        gauge(metrics, prefix + ".max", histogram::getMax);
+    }
+
+    private static <T> void gauge(Map<String, Metric> metrics, String name, Supplier<T> value) {
+        metrics.put(name, (Gauge<T>) value::get);
+    }
+}
@@ -0,0 +1,365 @@
+package io.alauda.jenkins.plugins.pipeline;
+
+import hudson.Util;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Timings of the Alauda builds and deploys of a run, shown at {@code RUN_URL/alauda-timeline/}.
+ * <p>
+ * A deploy goes through the phases {@value #RETRIEVE} of the current spec, {@value #MERGE} (time spent in the pipeline
+ * between the retrieve and the update, building the payload), {@value #UPDATE} call, {@value #ROLLOUT} wait and,
+ * when the rollout failed, {@value #ROLLBACK}. A build goes through {@value #START} and {@value #WAIT}.
+ * Only the start of each deploy and the offsets and durations of its phases are kept, with the run.
+ * The lists are copied on write, as the run is saved, by this action or by Jenkins, while deploys are recorded.
+ */
+public class DeployTimelineAction implements RunAction2 {
+    private static final Logger LOGGER = Logger.getLogger(DeployTimelineAction.class.getName());
+
+    public static final String BUILD = "build";
+    public static final String SERVICE = "service";
+    public static final String COMPONENT = "component";
+
+    public static final String RETRIEVE = "retrieve";
+    public static final String MERGE = "merge";
+    public static final String UPDATE = "update";
+    public static final String ROLLOUT = "rollout";
+    public static final String ROLLBACK = "rollback";
+    public static final String START = "start";
+    public static final String WAIT = "wait";
+
+    public static final String SUCCEEDED = "succeeded";
+    public static final String FAILED = "failed";
+    public static final String TIMEOUT = "timeout";
+    public static final String ROLLED_BACK = "rolled back";
+
+    // oldest first
+    private List<Deploy> deploys = new CopyOnWriteArrayList<>();
+
+    private transient Run<?, ?> run;
+
+    @Initializer(before = InitMilestone.PLUGINS_STARTED)
+    public static void addAliases() {
+        Run.XSTREAM2.alias("alaudaTimeline", DeployTimelineAction.class);
+        Run.XSTREAM2.alias("alaudaDeploy", Deploy.class);
+        Run.XSTREAM2.alias("alaudaPhase", Phase.class);
+    }
+
+    /**
+     * @return the timeline of the run, added to it on first use
+     */
+    public static synchronized DeployTimelineAction of(Run<?, ?> run) {
+        DeployTimelineAction action = run.getAction(DeployTimelineAction.class);
+        if (action == null) {
+            action = new DeployTimelineAction();
+            run.addAction(action);
+        }
+        action.run = run;
+        return action;
+    }
+
+    /**
+     * Starts a deploy with the retrieve of the current spec. A previous retrieve of the same resource that was not
+     * followed by an update, e.g. because the resource was up to date, is dropped.
+     */
+    public synchronized void retrieved(String kind, String id, String name, long started, long ended) {
+        Deploy open = open(kind, id);
+        if (open != null && !open.isDeployed()) {
+            deploys.remove(open);
+        }
+        Deploy deploy = new Deploy(kind, id, name, started);
+        deploy.add(RETRIEVE, started, ended);
+        deploys.add(deploy);
+    }
+
+    /**
+     * Records a phase of the deploy of the resource, starting a deploy when there is none going on.
+     * An update following a retrieve also records the {@value #MERGE} in between.
+     */
+    public synchronized void phase(String kind, String id, String name, String phase, long started, long ended) {
+        Deploy deploy = open(kind, id);
+        if (deploy == null) {
+            deploy = new Deploy(kind, id, name, started);
+            deploys.add(deploy);
+        }
+        if (UPDATE.equals(phase) && deploy.lastPhase(RETRIEVE)) {
+            deploy.add(MERGE, deploy.getStarted() + deploy.getDurationMillis(), started);
+        }
+        deploy.add(phase, started, ended);
+    }
+
+    /**
+     * Records a wait, from the end of the last phase of the deploy until now.
+     *
+     * @param result outcome of the deploy, null when it goes on, e.g. with a rollback
+     */
+    public void waited(String kind, String id, String phase, String result) {
+        synchronized (this) {
+            Deploy deploy = open(kind, id);
+            if (deploy == null) {
+                return;
+            }
+            deploy.add(phase, deploy.getStarted() + deploy.getDurationMillis(), System.currentTimeMillis());
+            if (result == null) {
+                return;
+            }
+            deploy.result = result;
+        }
+        save();
+    }
+
+    private void save() {
+        Run<?, ?> r = run;
+        if (r == null) {
+            return;
+        }
+        try {
+            r.save();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save the Alauda timeline of " + r, e);
+        }
+    }
+
+    private Deploy open(String kind, String id) {
+        for (int i = deploys.size() - 1; i >= 0; i--) {
+            Deploy deploy = deploys.get(i);
+            if (deploy.result == null && deploy.kind.equals(kind) && deploy.id.equals(id)) {
+                return deploy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the deploys and builds that reached Alauda, oldest first
+     */
+    public synchronized List<Deploy> getDeploys() {
+        List<Deploy> deployed = new ArrayList<>();
+        for (Deploy deploy : deploys) {
+            if (deploy.isDeployed()) {
+                deployed.add(deploy);
+            }
+        }
+        return Collections.unmodifiableList(deployed);
+    }
+
+    /**
+     * @return time spent in the phase, summed over the deploys and builds of the run
+     */
+    public long getPhaseMillis(String phase) {
+        long total = 0;
+        for (Deploy deploy : getDeploys()) {
+            total += deploy.getPhaseMillis(phase);
+        }
+        return total;
+    }
+
+    /**
+     * @return time spent in every phase, summed over the deploys and builds of the run
+     */
+    public long getTotalMillis() {
+        long total = 0;
+        for (Deploy deploy : getDeploys()) {
+            total += deploy.getDurationMillis();
+        }
+        return total;
+    }
+
+    /**
+     * @return earliest start of a deploy of the run, the origin of the timeline
+     */
+    public long getOrigin() {
+        List<Deploy> deployed = getDeploys();
+        return deployed.isEmpty() ? 0 : deployed.get(0).getStarted();
+    }
+
+    /**
+     * @return time from the start of the first deploy to the end of the last one
+     */
+    public long getSpanMillis() {
+        long origin = getOrigin();
+        long end = origin;
+        for (Deploy deploy : getDeploys()) {
+            end = Math.max(end, deploy.getStarted() + deploy.getDurationMillis());
+        }
+        return end - origin;
+    }
+
+    /**
+     * @return where the phase starts on the timeline of the run, in percent of its span
+     */
+    public double getLeftPercent(Deploy deploy, Phase phase) {
+        return (deploy.getStarted() + phase.offset - getOrigin()) * 100.0 / Math.max(1, getSpanMillis());
+    }
+
+    /**
+     * @return how long the phase is on the timeline of the run, in percent of its span
+     */
+    public double getWidthPercent(Phase phase) {
+        return phase.duration * 100.0 / Math.max(1, getSpanMillis());
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return getDeploys().isEmpty() ? null : "clock.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Alauda Timeline";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "alauda-timeline";
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+        deploys = deploys == null ? new CopyOnWriteArrayList<>() : new CopyOnWriteArrayList<>(deploys);
+    }
+
+    public static final class Deploy {
+        private final String kind;
+        private final String id;
+        private final String name;
+        private final long started;
+        private List<Phase> phases = new CopyOnWriteArrayList<>();
+        private volatile String result;
+
+        private Deploy(String kind, String id, String name, long started) {
+            this.kind = kind;
+            this.id = id;
+            this.name = name;
+            this.started = started;
+        }
+
+        private void add(String phase, long from, long to) {
+            phases.add(new Phase(phase, Math.max(0, from - started), Math.max(0, to - from)));
+        }
+
+        private Object readResolve() {
+            phases = phases == null ? new CopyOnWriteArrayList<>() : new CopyOnWriteArrayList<>(phases);
+            return this;
+        }
+
+        private boolean lastPhase(String phase) {
+            return !phases.isEmpty() && phases.get(phases.size() - 1).name.equals(phase);
+        }
+
+        /**
+         * @return true once the update or the start of the build was sent
+         */
+        public boolean isDeployed() {
+            for (Phase phase : phases) {
+                if (UPDATE.equals(phase.name) || START.equals(phase.name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public String getKind() {
+            return kind;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getStarted() {
+            return started;
+        }
+
+        public Date getStartedDate() {
+            return new Date(started);
+        }
+
+        /**
+         * @return outcome of the deploy, null while it goes on or when the wait was given up
+         */
+        public String getResult() {
+            return result;
+        }
+
+        public List<Phase> getPhases() {
+            return Collections.unmodifiableList(phases);
+        }
+
+        public long getDurationMillis() {
+            long end = 0;
+            for (Phase phase : phases) {
+                end = Math.max(end, phase.offset + phase.duration);
+            }
+            return end;
+        }
+
+        public String getDurationString() {
+            return Util.getTimeSpanString(getDurationMillis());
+        }
+
+        public long getPhaseMillis(String name) {
+            long total = 0;
+            for (Phase phase : phases) {
+                if (phase.name.equals(name)) {
+                    total += phase.duration;
+                }
+            }
+            return total;
+        }
+    }
+
+    public static final class Phase {
+        private final String name;
+        // from the start of the deploy
+        private final long offset;
+        private final long duration;
+
+        private Phase(String name, long offset, long duration) {
+            this.name = name;
+            this.offset = offset;
+            this.duration = duration;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getOffsetMillis() {
+            return offset;
+        }
+
+        public long getDurationMillis() {
+            return duration;
+        }
+
+        public String getDurationString() {
+            return Util.getTimeSpanString(duration);
+        }
+    }
+}
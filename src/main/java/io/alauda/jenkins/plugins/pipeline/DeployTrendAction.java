@@ -0,0 +1,142 @@
+package io.alauda.jenkins.plugins.pipeline;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Action;
+import hudson.model.Job;
+import hudson.model.Run;
+import jenkins.model.TransientActionFactory;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Build wait and deploy phase times of the last runs of a job, from their {@link DeployTimelineAction},
+ * shown at {@code JOB_URL/alauda-trend/}. The {@code DeployTrendAction.maxRuns} (30) latest runs are shown.
+ */
+public class DeployTrendAction implements Action {
+    private static final int MAX_RUNS = Integer.getInteger(DeployTrendAction.class.getName() + ".maxRuns", 30);
+
+    /**
+     * Phases shown as columns, in timeline order.
+     */
+    private static final List<String> PHASES = Collections.unmodifiableList(Arrays.asList(
+            DeployTimelineAction.START, DeployTimelineAction.WAIT, DeployTimelineAction.RETRIEVE, DeployTimelineAction.MERGE,
+            DeployTimelineAction.UPDATE, DeployTimelineAction.ROLLOUT, DeployTimelineAction.ROLLBACK));
+
+    private final Job<?, ?> job;
+
+    DeployTrendAction(Job<?, ?> job) {
+        this.job = job;
+    }
+
+    public Job<?, ?> getJob() {
+        return job;
+    }
+
+    public List<String> getPhases() {
+        return PHASES;
+    }
+
+    /**
+     * @return the runs with a timeline among the latest ones, newest first
+     */
+    public List<Row> getRows() {
+        List<Row> rows = new ArrayList<>();
+        for (Run<?, ?> run : job.getBuilds().limit(MAX_RUNS)) {
+            DeployTimelineAction timeline = run.getAction(DeployTimelineAction.class);
+            if (timeline != null && !timeline.getDeploys().isEmpty()) {
+                rows.add(new Row(run, timeline));
+            }
+        }
+        long scale = 1;
+        for (Row row : rows) {
+            scale = Math.max(scale, row.total);
+        }
+        for (Row row : rows) {
+            row.scale = scale;
+        }
+        return rows;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "graph.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Alauda Trend";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "alauda-trend";
+    }
+
+    public static final class Row {
+        private final Run<?, ?> run;
+        private final DeployTimelineAction timeline;
+        private final long total;
+        private long scale;
+
+        private Row(Run<?, ?> run, DeployTimelineAction timeline) {
+            this.run = run;
+            this.timeline = timeline;
+            this.total = timeline.getTotalMillis();
+        }
+
+        public Run<?, ?> getRun() {
+            return run;
+        }
+
+        public long getPhaseMillis(String phase) {
+            return timeline.getPhaseMillis(phase);
+        }
+
+        public String getPhaseString(String phase) {
+            return Util.getTimeSpanString(getPhaseMillis(phase));
+        }
+
+        public String getTotalString() {
+            return Util.getTimeSpanString(total);
+        }
+
+        /**
+         * @return share of the phase in the longest run of the trend, in percent
+         */
+        public double getWidthPercent(String phase) {
+            return getPhaseMillis(phase) * 100.0 / scale;
+        }
+    }
+
+    /**
+     * Adds the trend to jobs whose last run, or last completed run, has a timeline.
+     * Only these two runs are looked at, as the factory is asked on every page of the job.
+     */
+    @Extension
+    public static class Factory extends TransientActionFactory<Job> {
+
+        @Override
+        public Class<Job> type() {
+            return Job.class;
+        }
+
+        @Nonnull
+        @Override
+        public Collection<? extends Action> createFor(@Nonnull Job target) {
+            if (hasTimeline(target.getLastBuild()) || hasTimeline(target.getLastCompletedBuild())) {
+                return Collections.singleton(new DeployTrendAction((Job<?, ?>) target));
+            }
+            return Collections.emptyList();
+        }
+
+        private static boolean hasTimeline(Run<?, ?> run) {
+            return run != null && run.getAction(DeployTimelineAction.class) != null;
+        }
+    }
+}
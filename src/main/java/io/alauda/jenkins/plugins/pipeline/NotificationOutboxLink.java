@@ -0,0 +1,56 @@
+package io.alauda.jenkins.plugins.pipeline;
+
+import hudson.Extension;
+import hudson.model.ManagementLink;
+import io.alauda.jenkins.plugins.pipeline.alauda.NotificationOutbox;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+/**
+ * Page of Manage Jenkins showing the {@link NotificationOutbox}: queue depth, delivery latency and dead letters,
+ * which can be sent again or discarded.
+ */
+@Extension
+public class NotificationOutboxLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "notepad.png";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "alauda-notification-outbox";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Alauda Notification Outbox";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Notifications waiting to be sent to Alauda, and the ones that could not be sent.";
+    }
+
+    public NotificationOutbox getOutbox() {
+        return NotificationOutbox.get();
+    }
+
+    @RequirePOST
+    public HttpResponse doRetry(@QueryParameter String id) {
+        Jenkins.getInstance().checkPermission(Jenkins.ADMINISTER);
+        getOutbox().retry(id);
+        return HttpResponses.redirectToDot();
+    }
+
+    @RequirePOST
+    public HttpResponse doDiscard(@QueryParameter String id) {
+        Jenkins.getInstance().checkPermission(Jenkins.ADMINISTER);
+        getOutbox().discard(id);
+        return HttpResponses.redirectToDot();
+    }
+}
@@ -1,38 +1,48 @@
 package io.alauda.jenkins.plugins.pipeline.alauda;
 
 import com.cloudbees.groovy.cps.NonCPS;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import hudson.AbortException;
 import hudson.Launcher;
 import hudson.model.Result;
 import hudson.model.Run;
 import hudson.model.TaskListener;
-import hudson.plugins.git.Revision;
-import hudson.plugins.git.util.BuildData;
 import hudson.triggers.SCMTrigger;
 import hudson.triggers.TimerTrigger;
 import io.alauda.client.*;
+import io.alauda.jenkins.plugins.pipeline.DeployTimelineAction;
 import io.alauda.jenkins.plugins.pipeline.dsl.notification.models.NotificationPayload;
 import io.alauda.model.*;
 import io.alauda.jenkins.plugins.pipeline.dsl.notification.models.NotificationPayloadByParams;
-import jenkins.model.JenkinsLocationConfiguration;
+import io.alauda.jenkins.plugins.pipeline.utils.ContainerOverride;
+import io.alauda.jenkins.plugins.pipeline.utils.JsonMappers;
+import io.alauda.jenkins.plugins.pipeline.utils.ParallelTasks;
+import io.alauda.jenkins.plugins.pipeline.utils.PayloadEngine;
 import net.sf.json.JSONObject;
-import org.joda.time.DateTime;
 
 import java.io.IOException;
 import java.io.PrintStream;
-import java.io.StringWriter;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
+import java.util.stream.Collectors;
 
 public class Alauda {
     private static final java.util.logging.Logger LOGGER = java.util.logging.Logger.getLogger(Alauda.class.getName());
-    private AlaudaClient client;
+    private static final int MAX_READ_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MILLIS = 500;
+    private AlaudaClients.Handle clients;
 
     protected String apiToken;
     protected String account;
@@ -46,11 +56,11 @@ public class Alauda {
     protected Logger logger;
     private String consoleURL;
 
-    private IServiceClient serviceClient;
-    private IComponentClient componentClient;
-    private IBuildClient buildClient;
-    private INotifactionClient notifactionClient;
-    private IIntegrationClient integrationClient;
+    private PollPolicy buildPollPolicy = PollPolicy.BUILD;
+    private PollPolicy servicePollPolicy = PollPolicy.SERVICE;
+    private PollPolicy componentPollPolicy = PollPolicy.COMPONENT;
+    private boolean followBuildLogs;
+    private boolean reuseBuilds;
 
     public Run<?, ?> run;
     public Launcher launcher;
@@ -81,12 +91,7 @@ public class Alauda {
         this.namespace = namespace;
         this.projectName = projectName;
 
-        this.client = new AlaudaClient(endpoint, namespace, apiToken, spaceName, account);
-        this.serviceClient = client.getServiceClient();
-        this.componentClient = client.getComponentClient();
-        this.buildClient = client.getBuildClient();
-        this.notifactionClient = client.getNotifactionClient();
-        this.integrationClient = client.getIntegrationClient();
+        this.clients = AlaudaClients.get(endpoint, apiToken, account, namespace, spaceName);
     }
 
     public Alauda setJenkinsContext(Run<?, ?> run, Launcher launcher, TaskListener listener) {
@@ -103,13 +108,109 @@ public class Alauda {
     // region Build operation
     public void deleteBuild(String buildID) throws IOException {
         logger.printf("Deleting build: %s", buildID);
-        this.buildClient.deleteBuild(buildID);
+        call("deleteBuild", RateLimiter.Family.BUILD, RateLimiter.Priority.MUTATE, () -> {
+            clients.getBuildClient().deleteBuild(buildID);
+            return null;
+        });
         logger.printf("Deleted build: %s", buildID);
     }
 
+    /**
+     * Deletes the builds, at most {@code parallelism} at a time, and prints a summary instead of a line per build.
+     *
+     * @param dryRun only print what would be deleted
+     * @return summary with the number of candidates, deleted, notFound and failed builds, and the error of every failed build
+     */
+    public Map<String, Object> deleteBuilds(List<String> buildIDs, int parallelism, boolean dryRun) throws InterruptedException {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("candidates", buildIDs.size());
+        summary.put("dryRun", dryRun);
+        if (dryRun) {
+            for (String buildID : buildIDs) {
+                logger.printf("Would delete build: %s", buildID);
+            }
+            return summary;
+        }
+
+        logger.printf("Deleting %d builds, parallelism %d", buildIDs.size(), parallelism);
+        List<ParallelTasks.Outcome<Void>> outcomes = ParallelTasks.run(AlaudaScheduler.io(), parallelism,
+                buildIDs.stream()
+                        .map(id -> (Callable<Void>) () -> call("deleteBuild", RateLimiter.Family.BUILD, RateLimiter.Priority.MUTATE, () -> {
+                            clients.getBuildClient().deleteBuild(id);
+                            return null;
+                        }))
+                        .collect(Collectors.toList()));
+
+        int deleted = 0;
+        int notFound = 0;
+        Map<String, String> failures = new LinkedHashMap<>();
+        for (int i = 0; i < buildIDs.size(); i++) {
+            ParallelTasks.Outcome<Void> outcome = outcomes.get(i);
+            if (!outcome.isFailed()) {
+                deleted++;
+            } else if (ApiErrors.statusCode(outcome.getError()) == 404) {
+                notFound++;
+            } else {
+                failures.put(buildIDs.get(i), String.valueOf(outcome.getError().getMessage()));
+            }
+        }
+        summary.put("deleted", deleted);
+        summary.put("notFound", notFound);
+        summary.put("failed", failures.size());
+        summary.put("failures", failures);
+
+        logger.printf("Deleted %d of %d builds, %d already gone, %d failed", deleted, buildIDs.size(), notFound, failures.size());
+        failures.entrySet().stream().limit(20).forEach(f -> logger.printf("  %s: %s", f.getKey(), f.getValue()));
+        if (failures.size() > 20) {
+            logger.printf("  ... and %d more", failures.size() - 20);
+        }
+        return summary;
+    }
+
+    /**
+     * Deletes the builds the retention policy selects, see {@link BuildRetention}.
+     */
+    public Map<String, Object> deleteBuilds(BuildRetention retention, int parallelism, boolean dryRun)
+            throws IOException, InterruptedException {
+        logger.printf("Listing builds to clean up, %s", retention);
+        List<BuildRetention.ListedBuild> builds = listBuilds();
+        List<BuildRetention.ListedBuild> selected = retention.select(builds, System.currentTimeMillis());
+        logger.printf("%d of %d builds selected for deletion", selected.size(), builds.size());
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("listed", builds.size());
+        summary.putAll(deleteBuilds(selected.stream().map(BuildRetention.ListedBuild::getBuildID).collect(Collectors.toList()),
+                parallelism, dryRun));
+        return summary;
+    }
+
+    /**
+     * @return every build of the namespace, read one page at a time
+     */
+    List<BuildRetention.ListedBuild> listBuilds() throws IOException {
+        BuildLister lister = new BuildLister(AlaudaClients.http(), apiEndpoint, apiToken, account);
+        List<BuildRetention.ListedBuild> builds = new ArrayList<>();
+        Map<String, Boolean> seen = new HashMap<>();
+        for (int page = 1; ; page++) {
+            int number = page;
+            List<BuildRetention.ListedBuild> items = call("listBuilds", RateLimiter.Family.BUILD, RateLimiter.Priority.READ, () -> lister.page(number));
+            int added = 0;
+            for (BuildRetention.ListedBuild item : items) {
+                // an endpoint that ignores paging would return the same page forever
+                if (seen.put(item.getBuildID(), Boolean.TRUE) == null) {
+                    builds.add(item);
+                    added++;
+                }
+            }
+            if (items.size() < BuildLister.PAGE_SIZE || added == 0) {
+                return builds;
+            }
+        }
+    }
+
     public void retrieveBuild(String buildID) throws IOException {
         logger.printf("Retrieve build: %s", buildID);
-        this.buildClient.retrieveBuild(buildID);
+        call("retrieveBuild", RateLimiter.Family.BUILD, RateLimiter.Priority.READ, () -> clients.getBuildClient().retrieveBuild(buildID));
     }
 
     @NonCPS
@@ -121,32 +222,270 @@ public class Alauda {
             boolean async,
             boolean ignoreBuildResult)
             throws IOException, InterruptedException {
+        return startBuild(spaceName, buildConfigName, commitID, branch, async, ignoreBuildResult, BuildWatcher.DEFAULT_TIMEOUT_SECONDS);
+    }
+
+    @NonCPS
+    public String startBuild(
+            String spaceName,
+            String buildConfigName,
+            String commitID,
+            String branch,
+            boolean async,
+            boolean ignoreBuildResult,
+            int timeout)
+            throws IOException, InterruptedException {
         if (spaceName == null) {
             spaceName = this.spaceName;
         }
 
-        logger.printf("Build:[%s/%s] Starting", spaceName, buildConfigName);
-
-        String buildID = buildClient.startBuild(buildConfigName, commitID, branch);
+        if (isBuildIndexed(commitID)) {
+            String reused = findReusableBuild(spaceName, buildConfigName, commitID);
+            if (reused != null) {
+                return reused;
+            }
+        }
 
         if (async) {
-            logger.printf("Build:[%s/%s] Started, detail -> %s", spaceName, buildConfigName, getAlaudaBuildURL(buildID));
+            String buildID = triggerBuild(spaceName, buildConfigName, commitID, branch);
+            printBuildStarted(spaceName, buildConfigName, buildID);
             return buildID;
         }
+
+        String buildID = isBuildIndexed(commitID)
+                ? triggerBuildOnce(spaceName, buildConfigName, commitID, branch)
+                : triggerBuild(spaceName, buildConfigName, commitID, branch);
         this.listener.getLogger().flush();
 
-        boolean isSucceed;
+        boolean isSucceed = false;
         try {
             logger.printf("Build:[%s/%s] Waiting build completed...", spaceName, buildConfigName);
-            isSucceed = monitorBuild(buildID);
-        } catch (TimeoutException ex) {
-            logger.printf("Build:[%s/%s] TIMEOUT, detail -> %s", spaceName, buildConfigName, getAlaudaBuildURL(buildID));
-            throw new AbortException("Build Timeout");
-        } catch (InvalidDataException ex) {
-            logger.printf("Build:[%s/%s] response data unexpected, detail -> %s", spaceName, buildConfigName, getAlaudaBuildURL(buildID));
-            throw new AbortException("Build response data unexpected: " + ex);
+            isSucceed = monitorBuild(buildID, timeout);
+        } catch (TimeoutException | InvalidDataException ex) {
+            throw buildAborted(spaceName, buildConfigName, buildID, ex);
+        } finally {
+            if (isBuildIndexed(commitID)) {
+                buildFinished(spaceName, buildConfigName, commitID, buildID, isSucceed);
+            }
+        }
+
+        return completeBuild(spaceName, buildConfigName, buildID, isSucceed, ignoreBuildResult);
+    }
+
+    /**
+     * Starts several builds and waits for all of them with a single {@link BuildGroup}.
+     *
+     * @param failFast stop waiting as soon as one build fails
+     * @return buildID and result of every build, keyed by build config name
+     */
+    @NonCPS
+    public Map<String, Map<String, String>> startBuilds(String spaceName, List<BuildRequest> requests, int parallelism,
+                                                        boolean async, boolean failFast, boolean ignoreBuildResult, int timeout)
+            throws IOException, InterruptedException {
+        if (spaceName == null) {
+            spaceName = this.spaceName;
+        }
+
+        Map<String, Map<String, String>> started = triggerBuilds(spaceName, requests, parallelism);
+        if (async) {
+            return started;
+        }
+
+        CompletableFuture<Map<String, Map<String, String>>> result = new CompletableFuture<>();
+        BuildGroup group = watchBuilds(spaceName, started, timeout, System.currentTimeMillis() + timeout * 1000L, failFast,
+                result::complete);
+        try {
+            return completeBuilds(spaceName, result.get(), ignoreBuildResult);
+        } catch (ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        } finally {
+            group.stop();
+        }
+    }
+
+    /**
+     * Starts the builds, at most {@code parallelism} at a time. A build that could not be started is reported as
+     * {@link BuildRequest#ERROR}, the others as {@link BuildRequest#STARTED}.
+     */
+    public Map<String, Map<String, String>> triggerBuilds(String spaceName, List<BuildRequest> requests, int parallelism)
+            throws InterruptedException {
+        logger.printf("Build: starting %d builds, parallelism %d", requests.size(), parallelism);
+        List<ParallelTasks.Outcome<String>> outcomes = ParallelTasks.run(AlaudaScheduler.io(), parallelism,
+                requests.stream()
+                        .map(r -> (Callable<String>) () -> triggerBuild(spaceName, r.getBuildConfigName(), r.getCommitID(), r.getBranch()))
+                        .collect(Collectors.toList()));
+
+        Map<String, Map<String, String>> results = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BuildRequest request = requests.get(i);
+            ParallelTasks.Outcome<String> outcome = outcomes.get(i);
+            Map<String, String> build = new LinkedHashMap<>();
+            if (outcome.isFailed()) {
+                logger.printf("Build:[%s/%s] failed to start: %s", spaceName, request.getBuildConfigName(), outcome.getError().getMessage());
+                build.put("buildID", null);
+                build.put("result", BuildRequest.ERROR);
+            } else {
+                build.put("buildID", outcome.getValue());
+                build.put("result", BuildRequest.STARTED);
+            }
+            results.put(request.getBuildConfigName(), build);
+        }
+        return results;
+    }
+
+    /**
+     * Waits for the started builds without blocking the calling thread, see {@link BuildGroup}.
+     *
+     * @param deadline time at which the wait times out, in milliseconds since the epoch
+     */
+    public BuildGroup watchBuilds(String spaceName, Map<String, Map<String, String>> started, int timeout, long deadline,
+                                  boolean failFast, BuildGroup.Callback callback) {
+        logger.printf("Build: waiting for %d builds to complete%s...", started.size(), failFast ? ", fail fast" : "");
+        this.listener.getLogger().flush();
+        return new BuildGroup(this, spaceName, started, failFast, callback).start(timeout, deadline);
+    }
+
+    /**
+     * Prints the results of the builds, and fails unless all of them succeeded or the results are ignored.
+     */
+    public Map<String, Map<String, String>> completeBuilds(String spaceName, Map<String, Map<String, String>> results,
+                                                           boolean ignoreBuildResult) throws AbortException {
+        long failed = results.values().stream().filter(build -> !BuildRequest.SUCCEED.equals(build.get("result"))).count();
+        logger.printf("Build: %d of %d builds succeeded", results.size() - failed, results.size());
+        if (failed == 0 || ignoreBuildResult) {
+            return results;
+        }
+        throw new AbortException(String.format("startBuilds: %d of %d builds did not succeed: %s", failed, results.size(), results));
+    }
+
+    /**
+     * @return true when builds of the commit are looked up in, and recorded to, the {@link BuildIndex}
+     */
+    public boolean isBuildIndexed(String commitID) {
+        return reuseBuilds && commitID != null && !commitID.isEmpty();
+    }
+
+    /**
+     * Looks for a succeeded build of the commit in the {@link BuildIndex}, and checks it is still there in Alauda.
+     *
+     * @return the ID of the build, null when the commit has to be built
+     */
+    public String findReusableBuild(String spaceName, String buildConfigName, String commitID) {
+        String key = buildIndexKey(spaceName, buildConfigName, commitID);
+        String buildID = BuildIndex.get().lookup(key);
+        if (buildID == null) {
+            return null;
+        }
+        try {
+            JSONObject build = call("retrieveBuild", RateLimiter.Family.BUILD, RateLimiter.Priority.READ, () -> clients.getBuildClient().retrieveBuild(buildID));
+            if (!isBuildSucceed(getBuildStatus(build))) {
+                BuildIndex.get().forget(key, buildID);
+                return null;
+            }
+        } catch (Exception ex) {
+            if (ApiErrors.classify(ex) != ApiErrors.Kind.TRANSIENT) {
+                // deleted, or not readable anymore
+                BuildIndex.get().forget(key, buildID);
+            }
+            LOGGER.log(Level.FINE, "Not reusing build " + buildID, ex);
+            return null;
+        }
+        try {
+            logger.printf("Build:[%s/%s] Commit %s already built, reusing build %s, detail -> %s",
+                    spaceName, buildConfigName, commitID, buildID, getAlaudaBuildURL(buildID));
+        } catch (IOException ex) {
+            logger.printf("Build:[%s/%s] Commit %s already built, reusing build %s", spaceName, buildConfigName, commitID, buildID);
+        }
+        return buildID;
+    }
+
+    /**
+     * Starts a build of the commit, unless one is being started or waited for already, then it returns that one.
+     * The build must be reported with {@link #buildFinished} once it is over.
+     */
+    public String triggerBuildOnce(String spaceName, String buildConfigName, String commitID, String branch)
+            throws IOException, InterruptedException {
+        String key = buildIndexKey(spaceName, buildConfigName, commitID);
+        while (true) {
+            CompletableFuture<String> running = BuildIndex.get().claim(key);
+            if (running == null) {
+                try {
+                    String buildID = triggerBuild(spaceName, buildConfigName, commitID, branch);
+                    BuildIndex.get().started(key, buildID);
+                    return buildID;
+                } catch (IOException | RuntimeException ex) {
+                    BuildIndex.get().abandon(key, ex);
+                    throw ex;
+                }
+            }
+            try {
+                String buildID = running.get();
+                logger.printf("Build:[%s/%s] Commit %s is already being built, joining build %s",
+                        spaceName, buildConfigName, commitID, buildID);
+                return buildID;
+            } catch (ExecutionException ex) {
+                // the other start failed, try to start it here
+                LOGGER.log(Level.FINE, "Joined start of " + key + " failed", ex.getCause());
+            }
+        }
+    }
+
+    /**
+     * Tracks again a build started by {@link #triggerBuildOnce}, when its wait is resumed.
+     */
+    void buildResumed(String spaceName, String buildConfigName, String commitID, String buildID) {
+        BuildIndex.get().resumed(buildIndexKey(spaceName, buildConfigName, commitID), buildID);
+    }
+
+    public void buildFinished(String spaceName, String buildConfigName, String commitID, String buildID, boolean succeed) {
+        BuildIndex.get().finished(buildIndexKey(spaceName, buildConfigName, commitID), buildID, succeed);
+    }
+
+    private String buildIndexKey(String spaceName, String buildConfigName, String commitID) {
+        return BuildIndex.key(apiEndpoint, account, spaceName, buildConfigName, commitID);
+    }
+
+    /**
+     * Follower copying the log of the build to the console, null when {@link #setFollowBuildLogs} is off.
+     */
+    BuildLogFollower buildLogFollower(String buildID) {
+        if (!followBuildLogs) {
+            return null;
         }
+        return new BuildLogFollower(AlaudaClients.http(), apiEndpoint, apiToken, account, buildID, listener.getLogger());
+    }
 
+    public String triggerBuild(String spaceName, String buildConfigName, String commitID, String branch) throws IOException {
+        logger.printf("Build:[%s/%s] Starting", spaceName, buildConfigName);
+        long started = System.currentTimeMillis();
+        String buildID = call("startBuild", RateLimiter.Family.BUILD, RateLimiter.Priority.MUTATE,
+                () -> clients.getBuildClient().startBuild(buildConfigName, commitID, branch));
+        timelinePhase(DeployTimelineAction.BUILD, buildID, buildConfigName, DeployTimelineAction.START, started);
+        return buildID;
+    }
+
+    public void printBuildStarted(String spaceName, String buildConfigName, String buildID) throws IOException {
+        logger.printf("Build:[%s/%s] Started, detail -> %s", spaceName, buildConfigName, getAlaudaBuildURL(buildID));
+    }
+
+    /**
+     * Waits for the build without blocking the calling thread, the callback is invoked from {@link AlaudaScheduler#io()}.
+     */
+    public BuildWatcher watchBuild(String spaceName, String buildConfigName, String buildID, int timeout, BuildWatcher.Callback callback) {
+        return watchBuild(spaceName, buildConfigName, buildID, timeout, System.currentTimeMillis() + timeout * 1000L, callback);
+    }
+
+    /**
+     * @param deadline time at which the wait times out, in milliseconds since the epoch
+     */
+    public BuildWatcher watchBuild(String spaceName, String buildConfigName, String buildID, int timeout, long deadline,
+                                   BuildWatcher.Callback callback) {
+        logger.printf("Build:[%s/%s] Waiting build completed...", spaceName, buildConfigName);
+        this.listener.getLogger().flush();
+        return new BuildWatcher(this, buildID, timeout, deadline, timelineBuild(buildID, callback)).start();
+    }
+
+    public String completeBuild(String spaceName, String buildConfigName, String buildID, boolean isSucceed, boolean ignoreBuildResult) throws IOException {
         if (ignoreBuildResult) {
             logger.printf("Build:[%s/%s] %s, detail -> %s", spaceName, buildConfigName, isSucceed ? "SUCCEED" : "FAIL", getAlaudaBuildURL(buildID));
             return buildID;
@@ -160,123 +499,218 @@ public class Alauda {
         return buildID;
     }
 
+    public AbortException buildAborted(String spaceName, String buildConfigName, String buildID, Exception ex) throws IOException {
+        if (ex instanceof TimeoutException) {
+            logger.printf("Build:[%s/%s] TIMEOUT, detail -> %s", spaceName, buildConfigName, getAlaudaBuildURL(buildID));
+            return new AbortException("Build Timeout");
+        }
+        logger.printf("Build:[%s/%s] response data unexpected, detail -> %s", spaceName, buildConfigName, getAlaudaBuildURL(buildID));
+        return new AbortException("Build response data unexpected: " + ex);
+    }
+
     String getAlaudaBuildURL(String buildID) throws IOException {
         return AlaudaPath.getBuildUrl(this.getConsoleURL(), buildID);
     }
 
     boolean monitorUpdateComponent(String clusterName, String namespace, String applicationName, String resourceType, String componentName, int timeout) throws InterruptedException, IOException {
-        DateTime deadline = new DateTime().plusMillis(timeout * 1000);
+        long deadline = System.currentTimeMillis() + timeout * 1000L;
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        StatusPoller.Subscription subscription = watchComponent(clusterName, namespace, applicationName, resourceType, componentName,
+                deadline, result);
+        try {
+            return awaitStatus(subscription, result, deadline);
+        } catch (TimeoutException ex) {
+            logger.printf("Timeout, more than %d seconds!", timeout);
+            throw new InterruptedException(String.format("Timeout, more than %d seconds!", timeout));
+        }
+    }
+
+    /**
+     * Follows the component without blocking, the result completes with its final status, or with the error
+     * that ended the wait. Reaching the deadline does not complete the result, callers that block check it themselves.
+     */
+    StatusPoller.Subscription watchComponent(String clusterName, String namespace, String applicationName, String resourceType,
+                                             String componentName, long deadline, CompletableFuture<Boolean> result) {
+        PollPolicy.Schedule schedule = componentPollPolicy.start(deadline - System.currentTimeMillis());
         String workloadName = resourceType.toLowerCase() + "-" + componentName;
-        int sleepMillis = 5000; // 5s
-        int timer = 0;
-        Thread.sleep(2000); //wait 2s for update service start
-        while (true) {
-            if (deadline.isBeforeNow()) {
-                logger.printf("Timeout, more than %d seconds!", timeout);
-                throw new InterruptedException(String.format("Timeout, more than %d seconds!", timeout));
-            }
 
-            ApplicationStatus appStatus;
-            try {
-                timer++;
-                LOGGER.info(String.format("plugin retrieveApplicationStatus [%s, %s, %s] status.", clusterName, namespace, applicationName));
-                appStatus = componentClient.retrieveApplicationStatus(clusterName, namespace, applicationName);
+        ProgressReporter progress = new ProgressReporter(listener.getLogger(),
+                String.format("Get component[%s, %s, %s] status", clusterName, namespace, applicationName));
+
+        StatusPoller.StatusListener<ApplicationStatus> statusListener = new StatusPoller.StatusListener<ApplicationStatus>() {
+
+            @Override
+            public boolean onStatus(ApplicationStatus appStatus) {
                 if (appStatus == null) {
-                    throw new IOException(String.format("Application %s Status can not find.", applicationName));
+                    return printError(new IOException(String.format("Application %s Status can not find.", applicationName)));
                 }
                 ApplicationStatus.ComponentStatus componentStatus = appStatus.getWorkloads().get(workloadName);
                 if (componentStatus == null) {
-                    throw new IOException(String.format("workload %s Status can not find.", workloadName));
-                } else {
-                    String info = String.format("%d. Get component[%s, %s, %s] status: %s %n", timer, clusterName, namespace, applicationName, componentStatus.getStatus());
-                    LOGGER.info(info);
-                    logger.printf(info);
-                    if (componentStatus.isFinalStatus()) {
-                        return componentStatus.isSucc();
-                    }
+                    return printError(new IOException(String.format("workload %s Status can not find.", workloadName)));
                 }
-            } catch (IOException ex) {
-                if (!ex.getMessage().contains("Unexpected code")) {
-                    logger.printf("%d. Monitor status error %s , will try again \n", timer, ex.getMessage());
+                LOGGER.log(Level.FINE, "Component [{0}, {1}, {2}, {3}] status: {4}",
+                        new Object[]{clusterName, namespace, applicationName, workloadName, componentStatus.getStatus()});
+                progress.status(componentStatus.getStatus());
+                schedule.onPhase(componentStatus.getStatus());
+                if (componentStatus.isFinalStatus()) {
+                    progress.finish();
+                    result.complete(componentStatus.isSucc());
+                    return true;
                 }
-            } finally {
-                this.listener.getLogger().flush();
+                return result.isDone();
             }
 
-            Thread.sleep(sleepMillis);
-        }
-    }
+            @Override
+            public boolean onError(Exception ex) {
+                if (failOnPermanentError(ex, result) || failOnTimeout(ex, result)) {
+                    progress.finish();
+                    return true;
+                }
+                return printError(ex);
+            }
 
-    boolean monitorUpdateService(String serviceID, int timeout) throws InterruptedException, IOException {
-        DateTime deadline = new DateTime().plusMillis(timeout * 1000);
-        int sleepMillis = 10000; // 10s
-        int timer = 0;
-        while (true) {
-            if (deadline.isBeforeNow()) {
-                throw new InterruptedException(String.format("Timeout, more than %d seconds!", timeout));
+            private boolean printError(Exception ex) {
+                progress.error(ex.getMessage());
+                return result.isDone();
             }
 
-            ServiceDetails details;
-            try {
-                timer++;
-                details = serviceClient.retrieveService(serviceID);
-                logger.printf("%d. Get service status: %s \n", timer, details.getResource().getStatus());
-                if (details.getResource().isFinalStatus()) {
-                    return details.getResource().isSucc();
-                }
-            } catch (IOException ex) {
-                if (!ex.getMessage().contains("Unexpected code")) {
-                    logger.printf("%d. Monitor status error %s , will try again \n", timer, ex.getMessage());
-                }
-            } finally {
-                this.listener.getLogger().flush();
+            @Override
+            public void onListenerFailure(Throwable cause) {
+                progress.finish();
+                result.completeExceptionally(cause);
             }
+        };
+
+        return StatusPoller.get().subscribe(
+                StatusPoller.applicationKey(apiEndpoint, account, clusterName, namespace, applicationName),
+                () -> {
+                    LOGGER.log(Level.FINE, "Retrieve application status [{0}, {1}, {2}]", new Object[]{clusterName, namespace, applicationName});
+                    return call("retrieveApplicationStatus", RateLimiter.Family.COMPONENT, RateLimiter.Priority.POLL,
+                            () -> clients.getComponentClient().retrieveApplicationStatus(clusterName, namespace, applicationName));
+                },
+                statusListener, schedule);
+    }
 
-            Thread.sleep(sleepMillis);
+    boolean monitorUpdateService(String serviceID, int timeout) throws InterruptedException, IOException {
+        long deadline = System.currentTimeMillis() + timeout * 1000L;
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        StatusPoller.Subscription subscription = watchService(serviceID, deadline, result);
+        try {
+            return awaitStatus(subscription, result, deadline);
+        } catch (TimeoutException ex) {
+            throw new InterruptedException(String.format("Timeout, more than %d seconds!", timeout));
         }
     }
 
-    boolean monitorBuild(String buildID) throws TimeoutException, InterruptedException, IOException, InvalidDataException {
-        int timeoutHours = 2;
-        int timeoutMillis = timeoutHours * 60 * 60 * 1000;
+    /**
+     * Follows the service without blocking, see {@link #watchComponent}.
+     */
+    StatusPoller.Subscription watchService(String serviceID, long deadline, CompletableFuture<Boolean> result) {
+        PollPolicy.Schedule schedule = servicePollPolicy.start(deadline - System.currentTimeMillis());
 
-        int interval = 5000;
-        int timeoutTimes = timeoutMillis / interval;
+        ProgressReporter progress = new ProgressReporter(listener.getLogger(), "Get service status");
 
-        int timer = 0;
-        while (true) {
-            if (timer >= timeoutTimes) {
-                throw new TimeoutException(String.format("Building timeout, more than %d hours!", timeoutHours));
+        StatusPoller.StatusListener<ServiceDetails> statusListener = new StatusPoller.StatusListener<ServiceDetails>() {
+
+            @Override
+            public boolean onStatus(ServiceDetails details) {
+                if (details == null || details.getResource() == null) {
+                    progress.error(String.format("Service %s status can not find.", serviceID));
+                    return result.isDone();
+                }
+                progress.status(details.getResource().getStatus());
+                schedule.onPhase(details.getResource().getStatus());
+                if (details.getResource().isFinalStatus()) {
+                    progress.finish();
+                    result.complete(details.getResource().isSucc());
+                    return true;
+                }
+                return result.isDone();
             }
 
-            this.logger.print(".");
-            JSONObject build = null;
-            try {
-                build = this.buildClient.retrieveBuild(buildID);
-            } catch (IOException ex) {
-                //TODO this is trick for alauda java client
-                if (!ex.getMessage().contains("Unexpected code")) {
-                    logger.printf("Watch build status network error %s , will try again", ex.getMessage());
-                    build = this.buildClient.retrieveBuild(buildID);
+            @Override
+            public boolean onError(Exception ex) {
+                if (failOnPermanentError(ex, result) || failOnTimeout(ex, result)) {
+                    progress.finish();
+                    return true;
                 }
+                progress.error(ex.getMessage());
+                return result.isDone();
+            }
+
+            @Override
+            public void onListenerFailure(Throwable cause) {
+                progress.finish();
+                result.completeExceptionally(cause);
             }
+        };
 
-            if (build == null) {
-                throw new AbortException("Not retrieve build");
+        return StatusPoller.get().subscribe(
+                StatusPoller.serviceKey(apiEndpoint, account, serviceID),
+                () -> call("retrieveService", RateLimiter.Family.SERVICE, RateLimiter.Priority.POLL, () -> clients.getServiceClient().retrieveService(serviceID)),
+                statusListener, schedule);
+    }
+
+    boolean monitorBuild(String buildID, int timeout) throws TimeoutException, InterruptedException, IOException, InvalidDataException {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        BuildWatcher watcher = new BuildWatcher(this, buildID, timeout, timelineBuild(buildID, new BuildWatcher.Callback() {
+            @Override
+            public void onCompleted(boolean succeed) {
+                result.complete(succeed);
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+                result.completeExceptionally(cause);
             }
+        })).start();
 
-            String status = getBuildStatus(build);
-            logger.verbose("Build status: " + status, false);
-            if (isBuildCompleted(status)) {
-                this.listener.getLogger().flush();
-                logger.println();
-                return isBuildSucceed(status);
+        try {
+            return result.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof TimeoutException) {
+                throw (TimeoutException) cause;
+            }
+            if (cause instanceof InvalidDataException) {
+                throw (InvalidDataException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
             }
-            this.listener.getLogger().flush();
-            Thread.sleep(interval);
-            timer++;
+            throw new IOException(cause);
+        } finally {
+            watcher.stop();
         }
+    }
+
+    /**
+     * Blocks until the subscriber completes the result or the deadline is reached, the subscription is always released.
+     */
+    private boolean awaitStatus(StatusPoller.Subscription subscription, CompletableFuture<Boolean> result, long deadline)
+            throws InterruptedException, IOException, TimeoutException {
+        try {
+            return result.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof TimeoutException) {
+                throw (TimeoutException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            subscription.cancel();
+        }
+    }
 
+    String buildStatusKey(String buildID) {
+        return StatusPoller.buildKey(apiEndpoint, account, buildID);
+    }
+
+    Callable<JSONObject> buildFetcher(String buildID) {
+        return () -> call("retrieveBuild", RateLimiter.Family.BUILD, RateLimiter.Priority.POLL, () -> clients.getBuildClient().retrieveBuild(buildID));
     }
 
     String getBuildStatus(JSONObject build) throws InvalidDataException {
@@ -298,15 +732,44 @@ public class Alauda {
 
     // region Notification operation
     public void sendNotification(String spaceName, String name, String body) throws IOException {
-        if (spaceName == null) {
-            spaceName = this.spaceName;
-        }
+        sendNotification(spaceName, name, body, false);
+    }
+
+    /**
+     * @param async queue the notification in the {@link NotificationOutbox} instead of sending it now
+     */
+    public void sendNotification(String spaceName, String name, String body, boolean async) throws IOException {
+        String space = spaceName == null ? this.spaceName : spaceName;
 
         String payload = toJson(prepareNotificationPayload(body));
         LOGGER.info("payload is -> %s " + payload);
-        logger.printf("Notification:[%s/%s] Sending ", spaceName, name);
-        this.notifactionClient.sendNotification(name, payload, spaceName);
-        logger.printf("Notification:[%s/%s] Sended SUCCEED", spaceName, name);
+        if (async) {
+            queueNotification(space, name, false, null, payload);
+            return;
+        }
+        logger.printf("Notification:[%s/%s] Sending ", space, name);
+        deliverNotification(space, name, false, null, payload);
+        logger.printf("Notification:[%s/%s] Sended SUCCEED", space, name);
+    }
+
+    private void queueNotification(String space, String name, boolean withProject, String projectName, String payload) {
+        NotificationOutbox.get().enqueue(new NotificationOutbox.Message(apiEndpoint, account, space, name, withProject, projectName, payload,
+                run == null ? null : run.getFullDisplayName()));
+        logger.printf("Notification:[%s/%s] Queued, it is sent in the background", space, name);
+    }
+
+    /**
+     * Sends a prepared payload, through the notification API with a project when {@code withProject} is set.
+     */
+    void deliverNotification(String space, String name, boolean withProject, String projectName, String payload) throws IOException {
+        call("sendNotification", RateLimiter.Family.NOTIFICATION, RateLimiter.Priority.MUTATE, () -> {
+            if (!withProject) {
+                clients.getNotifactionClient().sendNotification(name, payload, space);
+            } else {
+                clients.getNotifactionClient().sendNotification(name, payload, space, projectName);
+            }
+            return null;
+        });
     }
 
     NotificationPayload prepareNotificationPayload(String body) {
@@ -318,19 +781,9 @@ public class Alauda {
 
         payload.setStatus(resultStr);
 
-        String jenkinsUrl = "";
-        JenkinsLocationConfiguration config = JenkinsLocationConfiguration.get();
-        if (config != null) {
-            jenkinsUrl = config.getUrl();
-            if (jenkinsUrl != null && !jenkinsUrl.endsWith("/")) {
-                jenkinsUrl = jenkinsUrl + "/";
-            }
-        }
-
-        payload.setJobURL(jenkinsUrl + this.run.getUrl());
-
-        String cause = getCause(this.run.getCauses());
-        payload.setCauseText(cause);
+        NotificationContext context = NotificationContext.of(this.run);
+        payload.setJobURL(context.jobURL);
+        payload.setCauseText(context.causeText);
 
         Date startDate = new Date(this.run.getStartTimeInMillis());
         payload.setStartedAt(startDate);
@@ -348,25 +801,14 @@ public class Alauda {
                 this.run.getFullDisplayName());
         payload.setContent(content);
 
-        List<BuildData> actions = this.run.getActions(BuildData.class);
-        if (actions.size() >= 1) {
-            if (actions.size() > 1) {
-                LOGGER.warning(String.format("%s has multi build data action, will use first one.", this.run.getFullDisplayName()));
-            }
-            BuildData data = actions.get(0);
-            if (data.buildsByBranchName.size() >= 1) {
-                String branch = data.buildsByBranchName.keySet().toArray()[0].toString();
-                payload.setRepoBranch(branch);
-                Revision revision = data.buildsByBranchName.get(branch).revision;
-                if (revision != null) {
-                    String commitID = revision.getSha1().name();
-                    payload.setRepoVersion(commitID);
-                }
-            }
-
-            if (data.remoteUrls.size() >= 1) {
-                payload.setRepo(data.remoteUrls.toArray()[0].toString());
-            }
+        if (context.repoBranch != null) {
+            payload.setRepoBranch(context.repoBranch);
+        }
+        if (context.repoVersion != null) {
+            payload.setRepoVersion(context.repoVersion);
+        }
+        if (context.repo != null) {
+            payload.setRepo(context.repo);
         }
 
         String subject = String.format("Jenkins job %s", this.run.getFullDisplayName());
@@ -378,15 +820,25 @@ public class Alauda {
 
 
     public void sendNotificationByParams(String spaceName, String name, String projectName, Map<String, Object> params) throws IOException {
-        if (spaceName == null) {
-            spaceName = this.spaceName;
-        }
+        sendNotificationByParams(spaceName, name, projectName, params, false);
+    }
+
+    /**
+     * @param async queue the notification in the {@link NotificationOutbox} instead of sending it now
+     */
+    public void sendNotificationByParams(String spaceName, String name, String projectName, Map<String, Object> params,
+                                         boolean async) throws IOException {
+        String space = spaceName == null ? this.spaceName : spaceName;
 
         String payload = toJson(prepareNotificationPayload(params));
         LOGGER.info("payload is -> %s " + payload);
-        logger.printf("Notification:[%s/%s] Sending ", spaceName, name);
-        this.notifactionClient.sendNotification(name, payload, spaceName, projectName);
-        logger.printf("Notification:[%s/%s] Sended SUCCEED", spaceName, name);
+        if (async) {
+            queueNotification(space, name, true, projectName, payload);
+            return;
+        }
+        logger.printf("Notification:[%s/%s] Sending ", space, name);
+        deliverNotification(space, name, true, projectName, payload);
+        logger.printf("Notification:[%s/%s] Sended SUCCEED", space, name);
     }
 
     NotificationPayloadByParams prepareNotificationPayload(Map<String, Object> params) {
@@ -398,19 +850,9 @@ public class Alauda {
 
         payload.setParam("status", resultStr);
 
-        String jenkinsUrl = "";
-        JenkinsLocationConfiguration config = JenkinsLocationConfiguration.get();
-        if (config != null) {
-            jenkinsUrl = config.getUrl();
-            if (jenkinsUrl != null && !jenkinsUrl.endsWith("/")) {
-                jenkinsUrl = jenkinsUrl + "/";
-            }
-        }
-
-        payload.setParam("job_url", jenkinsUrl + this.run.getUrl());
-
-        String cause = getCause(this.run.getCauses());
-        payload.setParam("cause_text", cause);
+        NotificationContext context = NotificationContext.of(this.run);
+        payload.setParam("job_url", context.jobURL);
+        payload.setParam("cause_text", context.causeText);
 
         Date startDate = new Date(this.run.getStartTimeInMillis());
         payload.setParam("start_at", startDate.toString());
@@ -428,7 +870,15 @@ public class Alauda {
                 this.run.getFullDisplayName());
         payload.setContent(content);
 
-        getBuildInfo(payload);
+        if (context.repoBranch != null) {
+            payload.setParam("repo_branch", context.repoBranch);
+        }
+        if (context.repoVersion != null) {
+            payload.setParam("repo_version", context.repoVersion);
+        }
+        if (context.repo != null) {
+            payload.setParam("repo", context.repo);
+        }
 
         String subject = String.format("Jenkins job %s", this.run.getFullDisplayName());
         payload.setSubject(subject);
@@ -436,36 +886,16 @@ public class Alauda {
         return payload;
     }
 
-    private void getBuildInfo(NotificationPayloadByParams payload) {
-        List<BuildData> actions = this.run.getActions(BuildData.class);
-        if (actions.size() >= 1) {
-            if (actions.size() > 1) {
-                LOGGER.warning(String.format("%s has multi build data action, will use first one.", this.run.getFullDisplayName()));
-            }
-            BuildData data = actions.get(0);
-            if (data.buildsByBranchName.size() >= 1) {
-                String branch = data.buildsByBranchName.keySet().toArray()[0].toString();
-                payload.setParam("repo_branch", branch);
-                Revision revision = data.buildsByBranchName.get(branch).revision;
-                if (revision != null) {
-                    String commitID = revision.getSha1().name();
-                    payload.setParam("repo_version", commitID);
-                }
-            }
-
-            if (data.remoteUrls.size() >= 1) {
-                payload.setParam("repo", data.remoteUrls.toArray()[0].toString());
-            }
-        }
-    }
-
     // endregion
     
 	// Integration
 	public IntegrationDetails retrieveIntegration(String instanceUUID, String projectName)
 			throws IOException {
-		IntegrationDetails integrationDetails = integrationClient
-				.retrieveIntegration(instanceUUID, projectName, account);
+		IntegrationDetails integrationDetails = ResponseCache.get().lookup(ResponseCache.Resource.INTEGRATION, cacheScope(),
+				instanceUUID + "|" + projectName, IntegrationDetails.class,
+				() -> call("retrieveIntegration", RateLimiter.Family.INTEGRATION, RateLimiter.Priority.READ,
+						() -> clients.getIntegrationClient().retrieveIntegration(instanceUUID, projectName, account)),
+				details -> instanceUUID);
 		if (integrationDetails == null) {
 			throw new IOException("Integration is not found.");
 		}
@@ -474,28 +904,423 @@ public class Alauda {
 
 	// region component operation (application api 2.0)
     public ComponentDetails retrieveComponent(String applicationName, String resourceType, String componentName, String clusterName, String namespace, String projectName) throws IOException {
-        return componentClient.retrieveComponent(applicationName, resourceType, componentName, clusterName, namespace, projectName);
+        return retrieveComponent(applicationName, resourceType, componentName, clusterName, namespace, projectName, false);
     }
 
-    public String updateComponent(String clusterName, String resourceType, String namespace, String applicationName, String componentName, Kubernete payload,
-                                Boolean async, boolean rollbackOnFail, int timeout) throws IOException, InterruptedException {
-        String componentID = payload.getMetadata().getLabels().getOrDefault("service.alauda.io/uuid", "");
-        componentClient.updateComponent(clusterName, resourceType, namespace, componentName, payload);
+    /**
+     * @param fresh skip the {@link ResponseCache}, for reads that decide whether a deploy is needed
+     */
+    public ComponentDetails retrieveComponent(String applicationName, String resourceType, String componentName, String clusterName, String namespace, String projectName,
+                                              boolean fresh) throws IOException {
+        long started = System.currentTimeMillis();
+        ResponseCache.Loader<ComponentDetails> loader = () -> call("retrieveComponent", RateLimiter.Family.COMPONENT, RateLimiter.Priority.READ,
+                () -> clients.getComponentClient().retrieveComponent(applicationName, resourceType, componentName, clusterName, namespace, projectName));
+        ComponentDetails details = fresh ? loader.load() : ResponseCache.get().lookup(ResponseCache.Resource.COMPONENT, cacheScope(),
+                String.join("|", applicationName, projectName, componentCacheID(clusterName, namespace, resourceType, componentName)),
+                ComponentDetails.class, loader, d -> componentCacheID(clusterName, namespace, resourceType, componentName));
+        if (details != null) {
+            timelineRetrieved(DeployTimelineAction.COMPONENT, componentCacheID(clusterName, namespace, resourceType, componentName),
+                    componentName, started);
+        }
+        return details;
+    }
 
-        logger.printf("updateComponent: %s has been started. Show the details -> %s %n", componentName,
-                getAlaudaComponentURL(componentID));
+    /**
+     * @return current status of the component, null when the application or the workload is not found
+     */
+    public ApplicationStatus.ComponentStatus retrieveComponentStatus(String applicationName, String resourceType, String componentName,
+                                                                     String clusterName, String namespace) throws IOException {
+        ApplicationStatus appStatus = call("retrieveApplicationStatus", RateLimiter.Family.COMPONENT, RateLimiter.Priority.READ,
+                () -> clients.getComponentClient().retrieveApplicationStatus(clusterName, namespace, applicationName));
+        if (appStatus == null || appStatus.getWorkloads() == null) {
+            return null;
+        }
+        return appStatus.getWorkloads().get(resourceType.toLowerCase() + "-" + componentName);
+    }
 
+    public String updateComponent(String clusterName, String resourceType, String namespace, String applicationName, String componentName, Kubernete payload,
+                                Boolean async, boolean rollbackOnFail, int timeout) throws IOException, InterruptedException {
+        startComponentUpdate(clusterName, resourceType, namespace, componentName, payload);
         if (async) {
 
             return componentName;
         }
 
         logger.println("waiting for the component to update is complete...");
-        boolean isSucceed = monitorUpdateComponent(clusterName, namespace, applicationName, resourceType, componentName, timeout);
+        String timelineID = componentCacheID(clusterName, namespace, resourceType, componentName);
+        boolean isSucceed;
+        try {
+            isSucceed = monitorUpdateComponent(clusterName, namespace, applicationName, resourceType, componentName, timeout);
+        } catch (InterruptedException | IOException ex) {
+            timelineWaited(DeployTimelineAction.COMPONENT, timelineID, DeployTimelineAction.ROLLOUT, DeployTimelineAction.FAILED);
+            throw ex;
+        }
+        timelineWaited(DeployTimelineAction.COMPONENT, timelineID, DeployTimelineAction.ROLLOUT,
+                isSucceed ? DeployTimelineAction.SUCCEEDED : DeployTimelineAction.FAILED);
         if (isSucceed) {
             return componentName;
         } else {
-            throw new InterruptedException(String.format("Update Component %s failed!", componentName));
+            throw componentFailed(componentName);
+        }
+    }
+
+    /**
+     * Sends the component update without waiting for it.
+     */
+    public String startComponentUpdate(String clusterName, String resourceType, String namespace, String componentName, Kubernete payload) throws IOException {
+        String componentID = payload.getMetadata().getLabels().getOrDefault("service.alauda.io/uuid", "");
+        long started = System.currentTimeMillis();
+        call("updateComponent", RateLimiter.Family.COMPONENT, RateLimiter.Priority.MUTATE, () -> {
+            clients.getComponentClient().updateComponent(clusterName, resourceType, namespace, componentName, payload);
+            return null;
+        });
+        ResponseCache.get().invalidate(ResponseCache.Resource.COMPONENT, cacheScope(),
+                componentCacheID(clusterName, namespace, resourceType, componentName));
+        timelinePhase(DeployTimelineAction.COMPONENT, componentCacheID(clusterName, namespace, resourceType, componentName),
+                componentName, DeployTimelineAction.UPDATE, started);
+
+        logger.printf("updateComponent: %s has been started. Show the details -> %s %n", componentName,
+                getAlaudaComponentURL(componentID));
+        return componentName;
+    }
+
+    InterruptedException componentFailed(String componentName) {
+        return new InterruptedException(String.format("Update Component %s failed!", componentName));
+    }
+
+    /**
+     * Updates several components with at most {@code parallelism} requests in flight,
+     * then waits for all of them with one status poll per application.
+     *
+     * @return status of every component keyed by {@link ComponentUpdate#getKey()}, in the order of {@code updates}
+     */
+    public Map<String, String> updateComponents(String clusterName, String namespace, List<ComponentUpdate> updates, int parallelism,
+                                                Boolean async, boolean rollbackOnFail, int timeout) throws IOException, InterruptedException {
+        Map<String, ComponentDetails> previous = rollbackOnFail && !async
+                ? retrieveComponents(clusterName, namespace, updates, parallelism) : new HashMap<>();
+        Map<String, String> results = startComponents(clusterName, namespace, updates, parallelism);
+        if (async) {
+            return results;
+        }
+
+        logger.println("waiting for the components to update is complete...");
+        List<ComponentUpdate> started = startedComponents(updates, results);
+        long deadline = System.currentTimeMillis() + timeout * 1000L;
+        results.putAll(awaitComponents(watchComponents(clusterName, namespace, started, deadline), deadline));
+        printComponents("Component", results);
+        if (!hasFailedComponents(results)) {
+            return results;
+        }
+
+        if (rollbackOnFail) {
+            List<ComponentUpdate> rolling = startComponentsRollback(clusterName, namespace, started, previous, parallelism);
+            long rollbackDeadline = System.currentTimeMillis() + timeout * 1000L;
+            printComponents("rollback component", awaitComponents(watchComponents(clusterName, namespace, rolling, rollbackDeadline),
+                    rollbackDeadline));
+        }
+        throw componentsFailed(results, rollbackOnFail);
+    }
+
+    /**
+     * Retrieves the current spec of the components, to roll them back to it.
+     *
+     * @return spec of every component that could be retrieved, keyed by {@link ComponentUpdate#getKey()}
+     */
+    public Map<String, ComponentDetails> retrieveComponents(String clusterName, String namespace, List<ComponentUpdate> updates,
+                                                            int parallelism) throws InterruptedException {
+        Map<String, ComponentDetails> previous = new HashMap<>();
+        List<ParallelTasks.Outcome<ComponentDetails>> snapshots = ParallelTasks.run(AlaudaScheduler.io(), parallelism,
+                updates.stream()
+                        .map(u -> (Callable<ComponentDetails>) () -> call("retrieveComponent", RateLimiter.Family.COMPONENT, RateLimiter.Priority.READ,
+                                () -> clients.getComponentClient().retrieveComponent(u.getApplicationName(),
+                                        u.getResourceType(), u.getComponentName(), clusterName, namespace, projectName)))
+                        .collect(Collectors.toList()));
+        for (int i = 0; i < updates.size(); i++) {
+            ParallelTasks.Outcome<ComponentDetails> snapshot = snapshots.get(i);
+            if (snapshot.isFailed() || snapshot.getValue() == null) {
+                logger.printf("Component %s can not be rolled back, retrieve it failed: %s %n", updates.get(i),
+                        snapshot.isFailed() ? snapshot.getError().getMessage() : "not found");
+            } else {
+                previous.put(updates.get(i).getKey(), snapshot.getValue());
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * Sends the component updates, at most {@code parallelism} at a time, without waiting for them.
+     *
+     * @return {@link ComponentUpdate#STARTED} or {@link ComponentUpdate#ERROR} per component, in the order of {@code updates}
+     */
+    public Map<String, String> startComponents(String clusterName, String namespace, List<ComponentUpdate> updates, int parallelism)
+            throws InterruptedException {
+        logger.printf("updateComponents: %d components, parallelism %d %n", updates.size(), parallelism);
+        Map<String, String> results = new LinkedHashMap<>();
+        List<ParallelTasks.Outcome<String>> submitted = ParallelTasks.run(AlaudaScheduler.io(), parallelism,
+                updates.stream()
+                        .map(u -> (Callable<String>) () -> submitComponent(clusterName, namespace, u, u.getPayload()))
+                        .collect(Collectors.toList()));
+        for (int i = 0; i < updates.size(); i++) {
+            ComponentUpdate update = updates.get(i);
+            ParallelTasks.Outcome<String> outcome = submitted.get(i);
+            if (outcome.isFailed()) {
+                logger.printf("updateComponent: %s failed to start: %s %n", update, outcome.getError().getMessage());
+                results.put(update.getKey(), ComponentUpdate.ERROR);
+            } else {
+                results.put(update.getKey(), ComponentUpdate.STARTED);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return the updates {@link #startComponents} sent
+     */
+    public static List<ComponentUpdate> startedComponents(List<ComponentUpdate> updates, Map<String, String> results) {
+        List<ComponentUpdate> started = new ArrayList<>();
+        for (ComponentUpdate update : updates) {
+            if (ComponentUpdate.STARTED.equals(results.get(update.getKey()))) {
+                started.add(update);
+            }
+        }
+        return started;
+    }
+
+    static boolean hasFailedComponents(Map<String, String> results) {
+        return results.values().stream().anyMatch(status -> !ComponentUpdate.SUCCEED.equals(status));
+    }
+
+    public AbortException componentsFailed(Map<String, String> results, boolean rolledBack) {
+        long failed = results.values().stream().filter(status -> !ComponentUpdate.SUCCEED.equals(status)).count();
+        return new AbortException(String.format("updateComponents: %d of %d components failed%s: %s",
+                failed, results.size(), rolledBack ? ", already rollback" : "", results));
+    }
+
+    void printComponents(String what, Map<String, String> results) {
+        for (Map.Entry<String, String> result : results.entrySet()) {
+            logger.printf("%s %s: %s %n", what, result.getKey(), result.getValue());
+        }
+    }
+
+    private String submitComponent(String clusterName, String namespace, ComponentUpdate update, Kubernete payload) throws IOException {
+        String componentID = payload.getMetadata().getLabels().getOrDefault("service.alauda.io/uuid", "");
+        call("updateComponent", RateLimiter.Family.COMPONENT, RateLimiter.Priority.MUTATE, () -> {
+            clients.getComponentClient().updateComponent(clusterName, update.getResourceType(), namespace, update.getComponentName(), payload);
+            return null;
+        });
+        ResponseCache.get().invalidate(ResponseCache.Resource.COMPONENT, cacheScope(),
+                componentCacheID(clusterName, namespace, update.getResourceType(), update.getComponentName()));
+        logger.printf("updateComponent: %s has been started. Show the details -> %s %n", update,
+                getAlaudaComponentURL(componentID));
+        return update.getComponentName();
+    }
+
+    /**
+     * Sends the spec retrieved before the update again, for the components that have one.
+     *
+     * @return the components whose rollback was sent
+     */
+    List<ComponentUpdate> startComponentsRollback(String clusterName, String namespace, List<ComponentUpdate> started,
+                                                  Map<String, ComponentDetails> previous, int parallelism) throws InterruptedException {
+        logger.println("updated components failure, will try to rollback");
+        List<ComponentUpdate> rollbacks = new ArrayList<>();
+        for (ComponentUpdate update : started) {
+            if (previous.containsKey(update.getKey())) {
+                rollbacks.add(update);
+            }
+        }
+
+        List<ParallelTasks.Outcome<String>> submitted = ParallelTasks.run(AlaudaScheduler.io(), parallelism,
+                rollbacks.stream()
+                        .map(u -> (Callable<String>) () -> {
+                            ComponentDetails details = previous.get(u.getKey());
+                            details.updateAnnotation();
+                            return submitComponent(clusterName, namespace, u, details.getKubernetes());
+                        })
+                        .collect(Collectors.toList()));
+        List<ComponentUpdate> rolling = new ArrayList<>();
+        for (int i = 0; i < rollbacks.size(); i++) {
+            if (submitted.get(i).isFailed()) {
+                logger.printf("rollback component %s failure: %s %n", rollbacks.get(i), submitted.get(i).getError().getMessage());
+            } else {
+                rolling.add(rollbacks.get(i));
+            }
+        }
+        return rolling;
+    }
+
+    private Map<String, String> awaitComponents(ComponentsWait wait, long deadline) throws InterruptedException {
+        try {
+            return wait.result.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            wait.expire();
+            return wait.result.getNow(new LinkedHashMap<>());
+        } catch (InterruptedException e) {
+            wait.cancel();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for the components with a single subscription per application, without holding a thread.
+     */
+    ComponentsWait watchComponents(String clusterName, String namespace, List<ComponentUpdate> updates, long deadline) {
+        Map<String, List<ComponentUpdate>> byApplication = new LinkedHashMap<>();
+        for (ComponentUpdate update : updates) {
+            byApplication.computeIfAbsent(update.getApplicationName(), k -> new ArrayList<>()).add(update);
+        }
+
+        List<ComponentsWatch> watches = new ArrayList<>();
+        for (Map.Entry<String, List<ComponentUpdate>> entry : byApplication.entrySet()) {
+            String applicationName = entry.getKey();
+            PollPolicy.Schedule schedule = componentPollPolicy.start(deadline - System.currentTimeMillis());
+            ComponentsWatch watch = new ComponentsWatch(clusterName, namespace, applicationName, entry.getValue(), schedule);
+            watch.subscription = StatusPoller.get().subscribe(
+                    StatusPoller.applicationKey(apiEndpoint, account, clusterName, namespace, applicationName),
+                    () -> call("retrieveApplicationStatus", RateLimiter.Family.COMPONENT, RateLimiter.Priority.POLL,
+                            () -> clients.getComponentClient().retrieveApplicationStatus(clusterName, namespace, applicationName)),
+                    watch, schedule);
+            watches.add(watch);
+        }
+        return new ComponentsWait(updates, watches);
+    }
+
+    /**
+     * The wait of {@link #watchComponents}: {@link #result} completes with {@link ComponentUpdate#SUCCEED},
+     * {@link ComponentUpdate#FAILED}, {@link ComponentUpdate#ERROR} or {@link ComponentUpdate#TIMEOUT} per component
+     * once every application is finished.
+     */
+    static final class ComponentsWait {
+        final CompletableFuture<Map<String, String>> result = new CompletableFuture<>();
+        private final List<ComponentUpdate> updates;
+        private final List<ComponentsWatch> watches;
+
+        private ComponentsWait(List<ComponentUpdate> updates, List<ComponentsWatch> watches) {
+            this.updates = updates;
+            this.watches = watches;
+            CompletableFuture.allOf(watches.stream().map(watch -> watch.finished).toArray(CompletableFuture[]::new))
+                    .whenComplete((finished, error) -> expire());
+        }
+
+        void cancel() {
+            for (ComponentsWatch watch : watches) {
+                StatusPoller.Subscription subscription = watch.subscription;
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+            }
+        }
+
+        /**
+         * Stops waiting, the components still pending are reported as timed out.
+         */
+        void expire() {
+            cancel();
+            Map<String, String> done = new HashMap<>();
+            for (ComponentsWatch watch : watches) {
+                done.putAll(watch.results);
+            }
+            Map<String, String> results = new LinkedHashMap<>();
+            for (ComponentUpdate update : updates) {
+                results.put(update.getKey(), done.getOrDefault(update.getKey(), ComponentUpdate.TIMEOUT));
+            }
+            result.complete(results);
+        }
+    }
+
+    /**
+     * Follows the workloads of one application until all of them reach a final status or the deadline passes.
+     */
+    private class ComponentsWatch implements StatusPoller.StatusListener<ApplicationStatus> {
+        private final String clusterName;
+        private final String namespace;
+        private final String applicationName;
+        private final PollPolicy.Schedule schedule;
+        private final Map<String, ComponentUpdate> pending = new ConcurrentHashMap<>();
+        // by workload, and for the errors of the application
+        private final Map<String, ProgressReporter> progress = new ConcurrentHashMap<>();
+        private final ProgressReporter errors;
+        private final Map<String, String> results = new ConcurrentHashMap<>();
+        private final CompletableFuture<Void> finished = new CompletableFuture<>();
+        private volatile StatusPoller.Subscription subscription;
+
+        private ComponentsWatch(String clusterName, String namespace, String applicationName, List<ComponentUpdate> updates,
+                                PollPolicy.Schedule schedule) {
+            this.clusterName = clusterName;
+            this.namespace = namespace;
+            this.applicationName = applicationName;
+            this.schedule = schedule;
+            for (ComponentUpdate update : updates) {
+                pending.put(update.getWorkloadName(), update);
+                progress.put(update.getWorkloadName(), new ProgressReporter(listener.getLogger(),
+                        String.format("Get component[%s, %s, %s] status", clusterName, namespace, update)));
+            }
+            this.errors = new ProgressReporter(listener.getLogger(), String.format("Monitor status of application %s", applicationName));
+        }
+
+        @Override
+        public boolean onStatus(ApplicationStatus appStatus) {
+            if (appStatus == null) {
+                return printError(new IOException(String.format("Application %s Status can not find.", applicationName)));
+            }
+
+            StringBuilder phase = new StringBuilder();
+            for (Map.Entry<String, ComponentUpdate> entry : pending.entrySet()) {
+                ApplicationStatus.ComponentStatus componentStatus = appStatus.getWorkloads().get(entry.getKey());
+                if (componentStatus == null) {
+                    continue;
+                }
+                ComponentUpdate update = entry.getValue();
+                String status = String.valueOf(componentStatus.getStatus());
+                phase.append(entry.getKey()).append('=').append(status).append(';');
+                ProgressReporter reporter = progress.get(entry.getKey());
+                reporter.status(status);
+                if (componentStatus.isFinalStatus()) {
+                    results.put(update.getKey(), componentStatus.isSucc() ? ComponentUpdate.SUCCEED : ComponentUpdate.FAILED);
+                    pending.remove(entry.getKey());
+                    reporter.finish();
+                }
+            }
+            schedule.onPhase(phase.toString());
+            return isFinished();
+        }
+
+        @Override
+        public boolean onError(Exception ex) {
+            if (ApiErrors.classify(ex) == ApiErrors.Kind.PERMANENT) {
+                errors.println(String.format("Monitor status of application %s failed %s", applicationName, ex.getMessage()));
+                errors.finish();
+                for (ComponentUpdate update : pending.values()) {
+                    results.put(update.getKey(), ComponentUpdate.ERROR);
+                }
+                pending.clear();
+                return isFinished();
+            }
+            return printError(ex);
+        }
+
+        private boolean printError(Exception ex) {
+            errors.error(ex.getMessage());
+            return isFinished();
+        }
+
+        @Override
+        public void onListenerFailure(Throwable cause) {
+            errors.println(String.format("Monitor status of application %s failed %s", applicationName, cause));
+            errors.finish();
+            for (ComponentUpdate update : pending.values()) {
+                results.put(update.getKey(), ComponentUpdate.ERROR);
+            }
+            pending.clear();
+            finished.complete(null);
+        }
+
+        private boolean isFinished() {
+            if (pending.isEmpty() || schedule.isExpired()) {
+                finished.complete(null);
+                return true;
+            }
+            return false;
         }
     }
 
@@ -505,68 +1330,319 @@ public class Alauda {
 
     // region Service operation
     public ServiceDetails retrieveService(String serviceID) throws IOException {
-        return serviceClient.retrieveService(serviceID);
+        return retrieveService(serviceID, false);
+    }
+
+    /**
+     * @param fresh skip the {@link ResponseCache}, for reads that decide whether a deploy is needed
+     */
+    public ServiceDetails retrieveService(String serviceID, boolean fresh) throws IOException {
+        long started = System.currentTimeMillis();
+        ResponseCache.Loader<ServiceDetails> loader = () -> call("retrieveService", RateLimiter.Family.SERVICE, RateLimiter.Priority.READ,
+                () -> clients.getServiceClient().retrieveService(serviceID));
+        ServiceDetails details = fresh ? loader.load() : ResponseCache.get().lookup(ResponseCache.Resource.SERVICE, cacheScope(), serviceID, ServiceDetails.class,
+                loader, d -> serviceID);
+        if (details != null && details.getResource() != null) {
+            timelineRetrieved(DeployTimelineAction.SERVICE, serviceID, serviceID, started);
+        }
+        return details;
     }
 
     public ServiceDetails retrieveService(String serviceName, String clusterName, String namespace, String projectName) throws IOException {
-        return serviceClient.retrieveService(serviceName, clusterName, namespace, projectName);
+        return retrieveService(serviceName, clusterName, namespace, projectName, false);
+    }
+
+    /**
+     * @param fresh skip the {@link ResponseCache}, for reads that decide whether a deploy is needed
+     */
+    public ServiceDetails retrieveService(String serviceName, String clusterName, String namespace, String projectName, boolean fresh) throws IOException {
+        long started = System.currentTimeMillis();
+        ResponseCache.Loader<ServiceDetails> loader = () -> call("retrieveService", RateLimiter.Family.SERVICE, RateLimiter.Priority.READ,
+                () -> clients.getServiceClient().retrieveService(serviceName, clusterName, namespace, projectName));
+        ServiceDetails details = fresh ? loader.load() : ResponseCache.get().lookup(ResponseCache.Resource.SERVICE, cacheScope(),
+                String.join("|", serviceName, clusterName, namespace, projectName), ServiceDetails.class,
+                loader, d -> d.getResource() == null ? null : d.getResource().getUuid());
+        if (details != null && details.getResource() != null) {
+            timelineRetrieved(DeployTimelineAction.SERVICE, details.getResource().getUuid(), serviceName, started);
+        }
+        return details;
     }
 
     public void deleteService(String serviceName, String clusterName, String namespace, String projectName) throws IOException {
-        serviceClient.deleteService(serviceName, clusterName, namespace, projectName);
+        call("deleteService", RateLimiter.Family.SERVICE, RateLimiter.Priority.MUTATE, () -> {
+            clients.getServiceClient().deleteService(serviceName, clusterName, namespace, projectName);
+            return null;
+        });
+        ResponseCache.get().invalidateAll(ResponseCache.Resource.SERVICE, cacheScope());
     }
 
     public String createService(ServiceCreatePayload payload,
                                 Boolean async, int timeout, String projectName) throws IOException, InterruptedException {
-        String serviceID = serviceClient.createService(payload, projectName);
-        logger.printf("createService: %s has been started, Show the details -> %s\n", serviceID, getAlaudaServiceURL(serviceID));
+        String serviceID = startServiceCreate(payload, projectName);
         if (async) {
             return serviceID;
         }
         LOGGER.info("----> monitor the create ---->");
-        boolean isSucceed = monitorUpdateService(serviceID, timeout);
+        boolean isSucceed = monitorServiceRollout(serviceID, timeout, DeployTimelineAction.ROLLOUT, false);
 
         if (isSucceed) {
             return serviceID;
         }
 
         //not success
-        throw new AbortException(String.format("createService: %s has been failed.  Show the details -> %s %n",
-                serviceID, getAlaudaServiceURL(serviceID)));
+        throw serviceFailed("createService", serviceID, false);
 
     }
 
     public String updateService(String serviceID, ServiceUpdatePayload payload,
                                 Boolean async, boolean rollbackOnFail, int timeout) throws IOException, InterruptedException {
-        serviceID = serviceClient.updateService(serviceID, payload);
-        logger.printf("updateService: %s has been started. Show the details -> %s %n", serviceID,
-                getAlaudaServiceURL(serviceID));
+        serviceID = startServiceUpdate(serviceID, payload);
         if (async) {
             return serviceID;
         }
 
         logger.println("waiting for the service to update is complete...");
-        boolean isSucceed = monitorUpdateService(serviceID, timeout);
+        boolean isSucceed = monitorServiceRollout(serviceID, timeout, DeployTimelineAction.ROLLOUT, rollbackOnFail);
         if (isSucceed) {
             return serviceID;
         }
 
         // not success
         if (rollbackOnFail) {
-            logger.println("updated service failure, will try to rollback");
-            serviceClient.rollbackService(serviceID);
-            boolean rollbackSucceed = monitorUpdateService(serviceID, timeout);
-            if (rollbackSucceed) {
-                logger.println("rollbacked service finished");
-            } else {
-                logger.println("rollbacked service failure");
-            }
-            throw new AbortException(String.format("updateService: %s has been failed, already rollback.  Show the details -> %s %n",
-                    serviceID, getAlaudaServiceURL(serviceID)));
+            startServiceRollback(serviceID);
+            boolean rollbackSucceed = monitorServiceRollout(serviceID, timeout, DeployTimelineAction.ROLLBACK, false);
+            printRollbackResult(rollbackSucceed);
+            throw serviceFailed("updateService", serviceID, true);
+        } else {
+            throw serviceFailed("updateService", serviceID, false);
+        }
+    }
+
+    /**
+     * Sends the service creation without waiting for it.
+     *
+     * @return ID of the new service
+     */
+    public String startServiceCreate(ServiceCreatePayload payload, String projectName) throws IOException {
+        long started = System.currentTimeMillis();
+        String serviceID = call("createService", RateLimiter.Family.SERVICE, RateLimiter.Priority.MUTATE,
+                () -> clients.getServiceClient().createService(payload, projectName));
+        ResponseCache.get().invalidateAll(ResponseCache.Resource.SERVICE, cacheScope());
+        timelinePhase(DeployTimelineAction.SERVICE, serviceID, serviceID, DeployTimelineAction.UPDATE, started);
+        logger.printf("createService: %s has been started, Show the details -> %s\n", serviceID, getAlaudaServiceURL(serviceID));
+        return serviceID;
+    }
+
+    /**
+     * Sends the service update without waiting for it.
+     *
+     * @return ID of the updated service
+     */
+    public String startServiceUpdate(String serviceID, ServiceUpdatePayload payload) throws IOException {
+        long started = System.currentTimeMillis();
+        String updatedID = call("updateService", RateLimiter.Family.SERVICE, RateLimiter.Priority.MUTATE,
+                () -> clients.getServiceClient().updateService(serviceID, payload));
+        ResponseCache.get().invalidate(ResponseCache.Resource.SERVICE, cacheScope(), updatedID);
+        timelinePhase(DeployTimelineAction.SERVICE, updatedID, updatedID, DeployTimelineAction.UPDATE, started);
+        logger.printf("updateService: %s has been started. Show the details -> %s %n", updatedID,
+                getAlaudaServiceURL(updatedID));
+        return updatedID;
+    }
+
+    void startServiceRollback(String serviceID) throws IOException {
+        logger.println("updated service failure, will try to rollback");
+        call("rollbackService", RateLimiter.Family.SERVICE, RateLimiter.Priority.MUTATE, () -> {
+            clients.getServiceClient().rollbackService(serviceID);
+            return null;
+        });
+        ResponseCache.get().invalidate(ResponseCache.Resource.SERVICE, cacheScope(), serviceID);
+    }
+
+    void printRollbackResult(boolean succeed) {
+        if (succeed) {
+            logger.println("rollbacked service finished");
+        } else {
+            logger.println("rollbacked service failure");
+        }
+    }
+
+    AbortException serviceFailed(String action, String serviceID, boolean rolledBack) throws IOException {
+        return new AbortException(String.format("%s: %s has been failed%s.  Show the details -> %s %n",
+                action, serviceID, rolledBack ? ", already rollback" : "", getAlaudaServiceURL(serviceID)));
+    }
+
+    /**
+     * Waits for the service like {@link #monitorUpdateService} and records the wait in the timeline of the run.
+     *
+     * @param rollbackFollows the deploy goes on with a rollback when the rollout fails
+     */
+    private boolean monitorServiceRollout(String serviceID, int timeout, String phase, boolean rollbackFollows)
+            throws InterruptedException, IOException {
+        boolean succeed;
+        try {
+            succeed = monitorUpdateService(serviceID, timeout);
+        } catch (InterruptedException | IOException ex) {
+            timelineWaited(DeployTimelineAction.SERVICE, serviceID, phase, DeployTimelineAction.FAILED);
+            throw ex;
+        }
+        String result;
+        if (succeed) {
+            result = DeployTimelineAction.ROLLBACK.equals(phase) ? DeployTimelineAction.ROLLED_BACK : DeployTimelineAction.SUCCEEDED;
+        } else {
+            result = rollbackFollows ? null : DeployTimelineAction.FAILED;
+        }
+        timelineWaited(DeployTimelineAction.SERVICE, serviceID, phase, result);
+        return succeed;
+    }
+
+    // region Deploy timeline, see DeployTimelineAction
+
+    private void timelineRetrieved(String kind, String id, String name, long started) {
+        if (run != null && id != null) {
+            DeployTimelineAction.of(run).retrieved(kind, id, name, started, System.currentTimeMillis());
+        }
+    }
+
+    private void timelinePhase(String kind, String id, String name, String phase, long started) {
+        if (run != null && id != null) {
+            DeployTimelineAction.of(run).phase(kind, id, name, phase, started, System.currentTimeMillis());
+        }
+    }
+
+    private void timelineWaited(String kind, String id, String phase, String result) {
+        if (run != null && id != null) {
+            DeployTimelineAction.of(run).waited(kind, id, phase, result);
+        }
+    }
+
+    /**
+     * Records the end of the wait of a service or component record.
+     *
+     * @param error what ended the wait, null when it got the final status
+     */
+    void timelineWaited(WaitRecord record, boolean succeed, Throwable error) {
+        boolean rollback = record.getKind() == WaitRecord.Kind.SERVICE_ROLLBACK;
+        String result;
+        if (error instanceof TimeoutException) {
+            result = DeployTimelineAction.TIMEOUT;
+        } else if (error != null) {
+            result = DeployTimelineAction.FAILED;
+        } else if (succeed) {
+            result = rollback ? DeployTimelineAction.ROLLED_BACK : DeployTimelineAction.SUCCEEDED;
+        } else {
+            boolean rollbackFollows = record.getKind() == WaitRecord.Kind.SERVICE_UPDATE && record.isRollback();
+            result = rollbackFollows ? null : DeployTimelineAction.FAILED;
+        }
+        String phase = rollback ? DeployTimelineAction.ROLLBACK : DeployTimelineAction.ROLLOUT;
+        if (record.getKind() == WaitRecord.Kind.COMPONENT) {
+            timelineWaited(DeployTimelineAction.COMPONENT, componentCacheID(record.getClusterName(), record.getNamespace(),
+                    record.getResourceType(), record.getId()), phase, result);
         } else {
-            throw new AbortException(String.format("updateService: %s has been failed.  Show the details -> %s %n",
-                    serviceID, getAlaudaServiceURL(serviceID)));
+            timelineWaited(DeployTimelineAction.SERVICE, record.getId(), phase, result);
+        }
+    }
+
+    /**
+     * @return the callback, recording the wait for the build in the timeline of the run first
+     */
+    BuildWatcher.Callback timelineBuild(String buildID, BuildWatcher.Callback callback) {
+        if (run == null) {
+            return callback;
+        }
+        return new BuildWatcher.Callback() {
+            @Override
+            public void onCompleted(boolean succeed) {
+                timelineWaited(DeployTimelineAction.BUILD, buildID, DeployTimelineAction.WAIT,
+                        succeed ? DeployTimelineAction.SUCCEEDED : DeployTimelineAction.FAILED);
+                callback.onCompleted(succeed);
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+                timelineWaited(DeployTimelineAction.BUILD, buildID, DeployTimelineAction.WAIT,
+                        cause instanceof TimeoutException ? DeployTimelineAction.TIMEOUT : DeployTimelineAction.FAILED);
+                callback.onFailure(cause);
+            }
+        };
+    }
+    // endregion
+
+    /**
+     * Every call to the Alauda API goes through here, see {@link RateLimiter} and {@link CircuitBreaker}.
+     * Reads that fail with a {@link ApiErrors.Kind#TRANSIENT transient} error are retried while the
+     * {@link RetryBudget} allows it; mutations are not, since the first attempt may have been applied,
+     * and polls are retried by the next tick anyway.
+     * Each attempt is recorded in {@link AlaudaMetrics} under the operation name.
+     */
+    <T> T call(String operation, RateLimiter.Family family, RateLimiter.Priority priority, RateLimiter.IOCallable<T> call) throws IOException {
+        CircuitBreaker breaker = CircuitBreaker.forEndpoint(apiEndpoint);
+        AlaudaMetrics metrics = AlaudaMetrics.get();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                breaker.acquire(priority);
+            } catch (RateLimiter.RateLimitedException e) {
+                metrics.rejected(operation);
+                throw e;
+            }
+            try {
+                T value = RateLimiter.get().call(apiEndpoint, family, priority, () -> metrics.time(operation, call));
+                breaker.onSuccess();
+                RetryBudget.get().onCall();
+                return value;
+            } catch (IOException | RuntimeException e) {
+                ApiErrors.Kind kind = ApiErrors.classify(e);
+                if (kind == ApiErrors.Kind.THROTTLED) {
+                    metrics.rejected(operation);
+                }
+                breaker.onFailure(kind);
+                if (kind != ApiErrors.Kind.THROTTLED) {
+                    RetryBudget.get().onCall();
+                }
+                if (kind != ApiErrors.Kind.TRANSIENT || priority != RateLimiter.Priority.READ
+                        || attempt >= MAX_READ_ATTEMPTS || !RetryBudget.get().tryRetry()) {
+                    throw e;
+                }
+                LOGGER.log(Level.FINE, String.format("Retrying %s call to %s after: %s", family, apiEndpoint, e.getMessage()));
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS * attempt);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Ends a status wait with the fetch error when it is {@link ApiErrors.Kind#PERMANENT permanent}.
+     *
+     * @return true when the wait is over
+     */
+    private static boolean failOnPermanentError(Exception ex, CompletableFuture<?> result) {
+        if (ApiErrors.classify(ex) != ApiErrors.Kind.PERMANENT) {
+            return false;
+        }
+        result.completeExceptionally(ex instanceof IOException ? ex : new IOException(ex));
+        return true;
+    }
+
+    /**
+     * Completes the result with the {@link TimeoutException} of a poll that did not get a status before the deadline.
+     */
+    private static boolean failOnTimeout(Exception ex, CompletableFuture<?> result) {
+        if (!(ex instanceof TimeoutException)) {
+            return false;
         }
+        result.completeExceptionally(ex);
+        return true;
+    }
+
+    private String cacheScope() {
+        return apiEndpoint + "|" + account + "|" + spaceName;
+    }
+
+    private static String componentCacheID(String clusterName, String namespace, String resourceType, String componentName) {
+        return String.join("/", clusterName, namespace, resourceType, componentName);
     }
 
     private String getAlaudaServiceURL(String serviceID) throws IOException {
@@ -574,6 +1650,123 @@ public class Alauda {
     }
     // endregion
 
+    // region Fan-out deploy
+    /**
+     * Updates the service with the same name in every target, see {@link FanOut}.
+     * The payload of a target is its own service with the container overrides merged in, or, when a full payload is
+     * given, that payload moved to the cluster and namespace of the target.
+     *
+     * @param payload   full payload, e.g. read from YAML, null to apply the overrides
+     * @param overrides changes per container, used when there is no payload
+     * @return completes with the status of every target keyed by {@link DeployTarget#getKey()}, see
+     * {@link FanOut#isThresholdExceeded}
+     */
+    public CompletableFuture<Map<String, String>> deployServiceToTargets(String serviceName, String projectName, ServiceUpdatePayload payload,
+                                                                         Map<String, ContainerOverride> overrides, List<DeployTarget> targets,
+                                                                         FanOut fanOut, boolean rollbackOnFail, int timeout) {
+        logger.printf("deployService: %s to %d targets %n", serviceName, targets.size());
+        return fanOut.start(logger, targets, target -> deployToTarget(() -> {
+            ServiceDetails details = call("retrieveService", RateLimiter.Family.SERVICE, RateLimiter.Priority.READ,
+                    () -> clients.getServiceClient().retrieveService(serviceName, target.getClusterName(), target.getNamespace(), projectName));
+            if (details == null || details.getResource() == null) {
+                throw new AbortException(String.format("service %s is not exists in %s, cannot update it", serviceName, target));
+            }
+            ServiceUpdatePayload targetPayload;
+            if (payload == null) {
+                details.updateContainers(PayloadEngine.mergeContainers(details.retrieveContainers(), overrides));
+                targetPayload = details.convertToServiceUpdatePayload();
+            } else {
+                targetPayload = FanOut.retarget(payload, ServiceUpdatePayload.class, target);
+            }
+            String serviceID = startServiceUpdate(details.getResource().getUuid(), targetPayload);
+            return WaitRecord.forServiceUpdate(serviceID, timeout, rollbackOnFail);
+        })).thenApply(results -> finishFanOut("deployService", serviceName, results));
+    }
+
+    /**
+     * Updates the component in every target, the payload of a target is built as in {@link #deployServiceToTargets}.
+     *
+     * A failed component is not rolled back, as with {@link #updateComponent}.
+     *
+     * @return completes with the status of every target keyed by {@link DeployTarget#getKey()}, see
+     * {@link FanOut#isThresholdExceeded}
+     */
+    public CompletableFuture<Map<String, String>> deployComponentToTargets(String applicationName, String resourceType, String componentName,
+                                                                           String projectName, Kubernete payload,
+                                                                           Map<String, ContainerOverride> overrides, List<DeployTarget> targets,
+                                                                           FanOut fanOut, int timeout) {
+        logger.printf("deployComponent: %s/%s to %d targets %n", applicationName, componentName, targets.size());
+        return fanOut.start(logger, targets, target -> deployToTarget(() -> {
+            Kubernete targetPayload;
+            if (payload == null) {
+                ComponentDetails details = call("retrieveComponent", RateLimiter.Family.COMPONENT, RateLimiter.Priority.READ,
+                        () -> clients.getComponentClient().retrieveComponent(applicationName, resourceType, componentName,
+                                target.getClusterName(), target.getNamespace(), projectName));
+                if (details == null) {
+                    throw new AbortException(String.format("component %s is not exists in %s, cannot update it", componentName, target));
+                }
+                details.updateContainers(PayloadEngine.mergeContainers(details.retrieveContainers(), overrides));
+                details.updateAnnotation();
+                targetPayload = details.getKubernetes();
+            } else {
+                targetPayload = FanOut.retarget(payload, Kubernete.class, target);
+            }
+            startComponentUpdate(target.getClusterName(), resourceType, target.getNamespace(), componentName, targetPayload);
+            return WaitRecord.forComponent(target.getClusterName(), target.getNamespace(), applicationName, resourceType,
+                    componentName, timeout);
+        })).thenApply(results -> finishFanOut("deployComponent", componentName, results));
+    }
+
+    /**
+     * Sends the deploy of one target on {@link AlaudaScheduler#steps()}, then waits for it with a {@link ResumableWait}.
+     * Cancelling the returned future cancels both.
+     */
+    private CompletableFuture<Object> deployToTarget(Callable<WaitRecord> send) {
+        CompletableFuture<Object> deployed = new CompletableFuture<>();
+        Future<?> sending = AlaudaScheduler.steps().submit(() -> {
+            try {
+                WaitRecord record = send.call();
+                ResumableWait wait = ResumableWait.start(this, record, new ResumableWait.Listener() {
+                    @Override
+                    public void onRecord(WaitRecord next) {
+                        // the wait of a fan-out is not resumed after a restart
+                    }
+
+                    @Override
+                    public void onSuccess(Object result) {
+                        deployed.complete(result);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable cause) {
+                        deployed.completeExceptionally(cause);
+                    }
+                });
+                deployed.whenComplete((result, error) -> {
+                    if (deployed.isCancelled()) {
+                        wait.cancel();
+                    }
+                });
+            } catch (Throwable t) {
+                deployed.completeExceptionally(t);
+            }
+        });
+        deployed.whenComplete((result, error) -> {
+            if (deployed.isCancelled()) {
+                sending.cancel(true);
+            }
+        });
+        return deployed;
+    }
+
+    private Map<String, String> finishFanOut(String action, String name, Map<String, String> results) {
+        for (Map.Entry<String, String> result : results.entrySet()) {
+            logger.printf("%s: %s in %s %s %n", action, name, result.getKey(), result.getValue());
+        }
+        return results;
+    }
+    // endregion
+
     // region Setter and Getter
     public String getConsoleURL() {
         if (!consoleURL.endsWith("/")) {
@@ -595,6 +1788,51 @@ public class Alauda {
         this.verbose = verbose;
         return this;
     }
+
+    public boolean isFollowBuildLogs() {
+        return followBuildLogs;
+    }
+
+    public Alauda setFollowBuildLogs(boolean followBuildLogs) {
+        this.followBuildLogs = followBuildLogs;
+        return this;
+    }
+
+    public boolean isReuseBuilds() {
+        return reuseBuilds;
+    }
+
+    public Alauda setReuseBuilds(boolean reuseBuilds) {
+        this.reuseBuilds = reuseBuilds;
+        return this;
+    }
+
+    public PollPolicy getBuildPollPolicy() {
+        return buildPollPolicy;
+    }
+
+    public Alauda setBuildPollPolicy(PollPolicy buildPollPolicy) {
+        this.buildPollPolicy = buildPollPolicy;
+        return this;
+    }
+
+    public PollPolicy getServicePollPolicy() {
+        return servicePollPolicy;
+    }
+
+    public Alauda setServicePollPolicy(PollPolicy servicePollPolicy) {
+        this.servicePollPolicy = servicePollPolicy;
+        return this;
+    }
+
+    public PollPolicy getComponentPollPolicy() {
+        return componentPollPolicy;
+    }
+
+    public Alauda setComponentPollPolicy(PollPolicy componentPollPolicy) {
+        this.componentPollPolicy = componentPollPolicy;
+        return this;
+    }
     // endregion
 
     static String getState(Run run) {
@@ -608,13 +1846,10 @@ public class Alauda {
     }
 
     String toJson(Object object) throws IOException {
-        ObjectMapper jsonMapper = new ObjectMapper();
-        StringWriter sw = new StringWriter();
-        jsonMapper.writeValue(sw, object);
-        return sw.toString();
+        return JsonMappers.toJson(object);
     }
 
-    String getCause(List<hudson.model.Cause> causes) {
+    static String getCause(List<hudson.model.Cause> causes) {
         if (causes == null) {
             LOGGER.log(Level.WARNING, "causes list is empty, will return UNKNOWN");
             return "UNKNOWN";
@@ -0,0 +1,159 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import io.alauda.client.AlaudaClient;
+import io.alauda.client.IBuildClient;
+import io.alauda.client.IComponentClient;
+import io.alauda.client.IIntegrationClient;
+import io.alauda.client.INotifactionClient;
+import io.alauda.client.IServiceClient;
+import okhttp3.OkHttpClient;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Controller-level registry of {@link AlaudaClient}s keyed by (apiEndpoint, token, account, namespace, spaceName).
+ * <p>
+ * Steps share one client, and so one HTTP connection pool, per key instead of creating a client for every call.
+ * Sub-clients are created on first use. Entries idle for longer than {@link #IDLE_MINUTES} are evicted,
+ * and all entries are dropped when the Alauda configuration is saved.
+ */
+public final class AlaudaClients {
+    private static final Logger LOGGER = Logger.getLogger(AlaudaClients.class.getName());
+    private static final long IDLE_MINUTES = Long.getLong(AlaudaClients.class.getName() + ".idleMinutes", 30);
+
+    private static final Map<List<String>, Handle> HANDLES = new ConcurrentHashMap<>();
+    private static volatile boolean sweeping;
+
+    // for the endpoints the Alauda client does not cover, such as build logs
+    private static final OkHttpClient HTTP = new OkHttpClient.Builder()
+            .connectTimeout(10, TimeUnit.SECONDS)
+            .readTimeout(30, TimeUnit.SECONDS)
+            .build();
+
+    private AlaudaClients() {
+    }
+
+    public static Handle get(String endpoint, String token, String account, String namespace, String spaceName) {
+        List<String> key = Arrays.asList(endpoint, token, account, namespace, spaceName);
+        Handle handle = HANDLES.computeIfAbsent(key,
+                k -> new Handle(new AlaudaClient(endpoint, namespace, token, spaceName, account)));
+        handle.touch();
+        scheduleSweep();
+        return handle;
+    }
+
+    public static OkHttpClient http() {
+        return HTTP;
+    }
+
+    /**
+     * Drops every shared client, callers holding a {@link Handle} keep using it until they finish.
+     */
+    public static void invalidateAll() {
+        HANDLES.clear();
+    }
+
+    public static int size() {
+        return HANDLES.size();
+    }
+
+    private static void scheduleSweep() {
+        if (sweeping) {
+            return;
+        }
+        synchronized (AlaudaClients.class) {
+            if (sweeping) {
+                return;
+            }
+            sweeping = true;
+            AlaudaScheduler.get().scheduleWithFixedDelay(AlaudaClients::evictIdle, 5, 5, TimeUnit.MINUTES);
+        }
+    }
+
+    private static void evictIdle() {
+        try {
+            long expired = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(IDLE_MINUTES);
+            Iterator<Handle> it = HANDLES.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().lastUsed < expired) {
+                    it.remove();
+                }
+            }
+        } catch (Throwable t) {
+            LOGGER.log(Level.WARNING, "Failed to evict idle Alauda clients", t);
+        }
+    }
+
+    /**
+     * Shared client with lazily created sub-clients. Racing callers may create a spare sub-client, which is harmless.
+     */
+    public static final class Handle {
+        private final AlaudaClient client;
+        private volatile long lastUsed;
+
+        private volatile IServiceClient serviceClient;
+        private volatile IComponentClient componentClient;
+        private volatile IBuildClient buildClient;
+        private volatile INotifactionClient notifactionClient;
+        private volatile IIntegrationClient integrationClient;
+
+        private Handle(AlaudaClient client) {
+            this.client = client;
+        }
+
+        private void touch() {
+            lastUsed = System.currentTimeMillis();
+        }
+
+        public AlaudaClient getClient() {
+            return client;
+        }
+
+        public IServiceClient getServiceClient() {
+            IServiceClient c = serviceClient;
+            if (c == null) {
+                serviceClient = c = client.getServiceClient();
+            }
+            return c;
+        }
+
+        public IComponentClient getComponentClient() {
+            IComponentClient c = componentClient;
+            if (c == null) {
+                componentClient = c = client.getComponentClient();
+            }
+            return c;
+        }
+
+        public IBuildClient getBuildClient() {
+            IBuildClient c = buildClient;
+            if (c == null) {
+                buildClient = c = client.getBuildClient();
+            }
+            return c;
+        }
+
+        public INotifactionClient getNotifactionClient() {
+            INotifactionClient c = notifactionClient;
+            if (c == null) {
+                notifactionClient = c = client.getNotifactionClient();
+            }
+            return c;
+        }
+
+        public IIntegrationClient getIntegrationClient() {
+            IIntegrationClient c = integrationClient;
+            if (c == null) {
+                integrationClient = c = client.getIntegrationClient();
+            }
+            return c;
+        }
+    }
+}
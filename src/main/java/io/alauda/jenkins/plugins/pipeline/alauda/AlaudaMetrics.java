@@ -0,0 +1,427 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Controller-wide counters and latency histograms of the Alauda API calls and status waits.
+ * <p>
+ * Every call made by {@link Alauda} is recorded under its operation name (startBuild, retrieveBuild, updateService...):
+ * number of calls, errors by {@link ApiErrors.Kind kind} and by exception class, calls rejected by {@link RateLimiter}
+ * or {@link CircuitBreaker} and a latency histogram. Every wait of {@link StatusPoller} is recorded under the kind of
+ * resource it waits for: number of polls until the final status and the time it took.
+ * <p>
+ * The figures are published as the MBean {@value #OBJECT_NAME}, at {@code JENKINS_URL/alauda-metrics/} and to the
+ * Metrics plugin when it is installed.
+ */
+public final class AlaudaMetrics implements AlaudaMetricsMXBean {
+    private static final Logger LOGGER = Logger.getLogger(AlaudaMetrics.class.getName());
+    public static final String OBJECT_NAME = "io.alauda.jenkins:type=AlaudaMetrics";
+
+    /**
+     * Upper bounds of the latency buckets, in milliseconds. Waits for a build can take hours.
+     */
+    static final long[] MILLIS_BUCKETS = {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000,
+            300000, 900000, 1800000, 3600000, 7200000};
+    static final long[] POLL_BUCKETS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 5000};
+
+    private static final AlaudaMetrics INSTANCE = new AlaudaMetrics();
+
+    /**
+     * Told when an operation or a kind of wait is recorded for the first time, e.g. to publish its figures.
+     */
+    public interface Listener {
+        void onOperation(String name, Operation operation);
+
+        void onWait(String kind, Wait wait);
+    }
+
+    private final ConcurrentMap<String, Operation> operations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Wait> waits = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    AlaudaMetrics() {
+    }
+
+    public static AlaudaMetrics get() {
+        return INSTANCE;
+    }
+
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            LOGGER.log(Level.FINE, "{0} is already registered", OBJECT_NAME);
+        } catch (JMException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to register " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * Calls the operation and records its latency and its error, if any.
+     */
+    public <T> T time(String operation, RateLimiter.IOCallable<T> call) throws IOException {
+        Operation stats = operation(operation);
+        long started = System.nanoTime();
+        try {
+            return call.call();
+        } catch (IOException | RuntimeException e) {
+            stats.failed(e);
+            throw e;
+        } finally {
+            stats.latency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+    }
+
+    /**
+     * Records a call that never reached the API, it was rejected by {@link RateLimiter} or {@link CircuitBreaker}.
+     */
+    public void rejected(String operation) {
+        operation(operation).rejected.increment();
+    }
+
+    /**
+     * Records a wait that got its final status.
+     *
+     * @param polls  statuses delivered to the wait, the final one included
+     * @param millis time from the start of the wait to the final status
+     */
+    public void waitFinished(String kind, int polls, long millis) {
+        Wait stats = wait(kind);
+        stats.polls.record(polls);
+        stats.timeToFinal.record(millis);
+    }
+
+    /**
+     * Records a wait given up before its final status, e.g. on timeout or when the step was aborted.
+     */
+    public void waitCancelled(String kind) {
+        wait(kind).cancelled.increment();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+        operations.forEach(listener::onOperation);
+        waits.forEach(listener::onWait);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private Operation operation(String name) {
+        Operation stats = operations.get(name);
+        if (stats != null) {
+            return stats;
+        }
+        Operation created = new Operation();
+        stats = operations.putIfAbsent(name, created);
+        if (stats != null) {
+            return stats;
+        }
+        for (Listener listener : listeners) {
+            listener.onOperation(name, created);
+        }
+        return created;
+    }
+
+    private Wait wait(String kind) {
+        Wait stats = waits.get(kind);
+        if (stats != null) {
+            return stats;
+        }
+        Wait created = new Wait();
+        stats = waits.putIfAbsent(kind, created);
+        if (stats != null) {
+            return stats;
+        }
+        for (Listener listener : listeners) {
+            listener.onWait(kind, created);
+        }
+        return created;
+    }
+
+    // region Statistics
+
+    @Override
+    public Map<String, Operation> getOperations() {
+        return new TreeMap<>(operations);
+    }
+
+    @Override
+    public Map<String, Wait> getWaits() {
+        return new TreeMap<>(waits);
+    }
+
+    @Override
+    public int getPollerQueueDepth() {
+        return StatusPoller.get().getQueueDepth();
+    }
+
+    @Override
+    public int getPollerResourceCount() {
+        return StatusPoller.get().getResourceCount();
+    }
+
+    @Override
+    public long getPollerFetchCount() {
+        return StatusPoller.get().getFetchCount();
+    }
+
+    @Override
+    public long getPollerDeferredCount() {
+        return StatusPoller.get().getDeferredCount();
+    }
+
+    @Override
+    public long getPollerMaxTickMillis() {
+        return StatusPoller.get().getMaxTickMillis();
+    }
+
+    @Override
+    public int getRateLimiterQueueDepth() {
+        return RateLimiter.get().getQueueDepth();
+    }
+
+    @Override
+    public Map<String, RateLimiter.Stats> getRateLimits() {
+        return RateLimiter.get().getStats();
+    }
+
+    @Override
+    public Map<String, String> getCircuitStates() {
+        Map<String, String> states = new TreeMap<>();
+        CircuitBreaker.all().forEach((endpoint, breaker) -> states.put(endpoint, breaker.getState().name()));
+        return states;
+    }
+
+    @Override
+    public double getRetryBudgetBalance() {
+        return RetryBudget.get().getBalance();
+    }
+
+    @Override
+    public long getRetryBudgetExhaustedCount() {
+        return RetryBudget.get().getExhaustedCount();
+    }
+
+    @Override
+    public Map<String, Long> getCacheHits() {
+        Map<String, Long> hits = new LinkedHashMap<>();
+        for (ResponseCache.Resource resource : ResponseCache.Resource.values()) {
+            hits.put(resource.name(), resource.getHits());
+        }
+        return hits;
+    }
+
+    @Override
+    public Map<String, Long> getCacheMisses() {
+        Map<String, Long> misses = new LinkedHashMap<>();
+        for (ResponseCache.Resource resource : ResponseCache.Resource.values()) {
+            misses.put(resource.name(), resource.getMisses());
+        }
+        return misses;
+    }
+
+    @Override
+    public int getNotificationQueueDepth() {
+        return NotificationOutbox.get().getQueueDepth();
+    }
+
+    @Override
+    public long getNotificationAverageLatencyMillis() {
+        return NotificationOutbox.get().getAverageLatencyMillis();
+    }
+
+    public static final class Operation {
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final ConcurrentMap<String, LongAdder> errorsByKind = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, LongAdder> errorsByClass = new ConcurrentHashMap<>();
+        private final Histogram latency = new Histogram(MILLIS_BUCKETS);
+
+        private Operation() {
+        }
+
+        private void failed(Exception error) {
+            errors.increment();
+            errorsByKind.computeIfAbsent(ApiErrors.classify(error).name(), k -> new LongAdder()).increment();
+            errorsByClass.computeIfAbsent(error.getClass().getName(), k -> new LongAdder()).increment();
+        }
+
+        /**
+         * @return calls that reached the API, failed ones included
+         */
+        public long getCalls() {
+            return latency.getCount();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getRejected() {
+            return rejected.sum();
+        }
+
+        public Map<String, Long> getErrorsByKind() {
+            return sums(errorsByKind);
+        }
+
+        public Map<String, Long> getErrorsByClass() {
+            return sums(errorsByClass);
+        }
+
+        public Histogram getLatencyMillis() {
+            return latency;
+        }
+    }
+
+    public static final class Wait {
+        private final LongAdder cancelled = new LongAdder();
+        private final Histogram polls = new Histogram(POLL_BUCKETS);
+        private final Histogram timeToFinal = new Histogram(MILLIS_BUCKETS);
+
+        private Wait() {
+        }
+
+        /**
+         * @return waits that got their final status
+         */
+        public long getFinished() {
+            return timeToFinal.getCount();
+        }
+
+        public long getCancelled() {
+            return cancelled.sum();
+        }
+
+        public Histogram getPolls() {
+            return polls;
+        }
+
+        public Histogram getTimeToFinalMillis() {
+            return timeToFinal;
+        }
+    }
+
+    /**
+     * Histogram with fixed buckets, the last one holds the values above the highest bound.
+     * Percentiles are the upper bound of the bucket they fall in.
+     */
+    public static final class Histogram {
+        private final long[] bounds;
+        private final LongAdder[] counts;
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        Histogram(long[] bounds) {
+            this.bounds = bounds;
+            this.counts = new LongAdder[bounds.length + 1];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        void record(long value) {
+            int i = 0;
+            while (i < bounds.length && value > bounds[i]) {
+                i++;
+            }
+            counts[i].increment();
+            sum.add(value);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        public long getCount() {
+            long count = 0;
+            for (LongAdder c : counts) {
+                count += c.sum();
+            }
+            return count;
+        }
+
+        public long getSum() {
+            return sum.sum();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        public long getMean() {
+            long count = getCount();
+            return count == 0 ? 0 : getSum() / count;
+        }
+
+        public long getP50() {
+            return percentile(0.50);
+        }
+
+        public long getP95() {
+            return percentile(0.95);
+        }
+
+        public long getP99() {
+            return percentile(0.99);
+        }
+
+        /**
+         * @return counts keyed by the upper bound of their bucket, "+Inf" for the last one
+         */
+        public Map<String, Long> getBuckets() {
+            Map<String, Long> buckets = new LinkedHashMap<>();
+            for (int i = 0; i < counts.length; i++) {
+                buckets.put(i < bounds.length ? String.valueOf(bounds[i]) : "+Inf", counts[i].sum());
+            }
+            return buckets;
+        }
+
+        long percentile(double quantile) {
+            long[] snapshot = new long[counts.length];
+            long count = 0;
+            for (int i = 0; i < counts.length; i++) {
+                snapshot[i] = counts[i].sum();
+                count += snapshot[i];
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < snapshot.length; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return i < bounds.length ? Math.min(bounds[i], getMax()) : getMax();
+                }
+            }
+            return getMax();
+        }
+    }
+    // endregion
+
+    private static Map<String, Long> sums(Map<String, LongAdder> adders) {
+        Map<String, Long> sums = new TreeMap<>();
+        adders.forEach((k, v) -> sums.put(k, v.sum()));
+        return sums;
+    }
+}
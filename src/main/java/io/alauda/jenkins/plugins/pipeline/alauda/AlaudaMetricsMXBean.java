@@ -0,0 +1,53 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link AlaudaMetrics}, registered as {@value AlaudaMetrics#OBJECT_NAME}.
+ */
+public interface AlaudaMetricsMXBean {
+
+    /**
+     * @return API call statistics keyed by operation, e.g. "retrieveBuild"
+     */
+    Map<String, AlaudaMetrics.Operation> getOperations();
+
+    /**
+     * @return status wait statistics keyed by kind of resource: "build", "service" or "application"
+     */
+    Map<String, AlaudaMetrics.Wait> getWaits();
+
+    int getPollerQueueDepth();
+
+    int getPollerResourceCount();
+
+    long getPollerFetchCount();
+
+    long getPollerDeferredCount();
+
+    long getPollerMaxTickMillis();
+
+    int getRateLimiterQueueDepth();
+
+    /**
+     * @return rate limiter statistics keyed by "family/priority"
+     */
+    Map<String, RateLimiter.Stats> getRateLimits();
+
+    /**
+     * @return state of the circuit breaker of each API endpoint
+     */
+    Map<String, String> getCircuitStates();
+
+    double getRetryBudgetBalance();
+
+    long getRetryBudgetExhaustedCount();
+
+    Map<String, Long> getCacheHits();
+
+    Map<String, Long> getCacheMisses();
+
+    int getNotificationQueueDepth();
+
+    long getNotificationAverageLatencyMillis();
+}
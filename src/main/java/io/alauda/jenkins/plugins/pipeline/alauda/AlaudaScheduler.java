@@ -0,0 +1,75 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controller-wide scheduler for Alauda status checks.
+ * Waiting steps schedule short callbacks here instead of holding a thread while they sleep.
+ * <p>
+ * Scheduler threads must never block: the status fetches of {@link StatusPoller} and the build log polls, which are
+ * HTTP calls, run on the separate {@link #io()} pool, and the steps that do not hold a thread while they wait send
+ * their operation and finish their wait on {@link #steps()}, as rate limited calls may wait there for minutes.
+ */
+public final class AlaudaScheduler {
+    private static final int POOL_SIZE = Integer.getInteger(AlaudaScheduler.class.getName() + ".poolSize", 4);
+    private static final int IO_POOL_SIZE = Integer.getInteger(AlaudaScheduler.class.getName() + ".ioPoolSize", 8);
+    private static final int STEPS_POOL_SIZE = Integer.getInteger(AlaudaScheduler.class.getName() + ".stepsPoolSize", 16);
+
+    private AlaudaScheduler() {
+    }
+
+    public static ScheduledExecutorService get() {
+        return Holder.EXECUTOR;
+    }
+
+    /**
+     * @return bounded pool for status fetches and the calls sent together with
+     * {@link io.alauda.jenkins.plugins.pipeline.utils.ParallelTasks}, tasks beyond {@code AlaudaScheduler.ioPoolSize} (8)
+     * wait in line
+     */
+    public static ExecutorService io() {
+        return IoHolder.EXECUTOR;
+    }
+
+    /**
+     * @return bounded pool for the blocking work of resumable steps, tasks beyond {@code AlaudaScheduler.stepsPoolSize}
+     * (16) wait in line
+     */
+    public static ExecutorService steps() {
+        return StepsHolder.EXECUTOR;
+    }
+
+    private static class Holder {
+        private static final ScheduledExecutorService EXECUTOR = create();
+
+        private static ScheduledExecutorService create() {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(POOL_SIZE,
+                    new NamingThreadFactory(new DaemonThreadFactory(), "AlaudaScheduler"));
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+    }
+
+    private static class IoHolder {
+        private static final ExecutorService EXECUTOR = bounded(IO_POOL_SIZE, "AlaudaScheduler.io");
+    }
+
+    private static class StepsHolder {
+        private static final ExecutorService EXECUTOR = bounded(STEPS_POOL_SIZE, "AlaudaScheduler.steps");
+    }
+
+    static ExecutorService bounded(int size, String name) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamingThreadFactory(new DaemonThreadFactory(), name));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,63 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tells errors of Alauda API calls that may go away by themselves from those that will not.
+ * <p>
+ * The Alauda client reports HTTP errors as an {@link IOException} with the response in its message,
+ * such as "Unexpected code Response{protocol=http/1.1, code=503, ...}", so the status code is read from there.
+ */
+public final class ApiErrors {
+    private static final Pattern CODE = Pattern.compile("code[= ](\\d{3})\\b");
+
+    public enum Kind {
+        /**
+         * Network errors, timeouts, 408, 429 and 5xx: the same call may succeed later.
+         */
+        TRANSIENT,
+        /**
+         * Other 4xx and errors in the data: retrying will not help, the API itself is fine.
+         */
+        PERMANENT,
+        /**
+         * The call was not made, see {@link RateLimiter.RateLimitedException}.
+         */
+        THROTTLED
+    }
+
+    private ApiErrors() {
+    }
+
+    public static Kind classify(Throwable error) {
+        if (error instanceof RateLimiter.RateLimitedException) {
+            return Kind.THROTTLED;
+        }
+        int code = statusCode(error);
+        if (code > 0) {
+            return code == 408 || code == 429 || code >= 500 ? Kind.TRANSIENT : Kind.PERMANENT;
+        }
+        return error instanceof IOException ? Kind.TRANSIENT : Kind.PERMANENT;
+    }
+
+    /**
+     * @return the HTTP status code found in the error or its causes, -1 when there is none
+     */
+    public static int statusCode(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            String message = t.getMessage();
+            if (message != null && message.contains("code")) {
+                Matcher matcher = CODE.matcher(message);
+                if (matcher.find()) {
+                    return Integer.parseInt(matcher.group(1));
+                }
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,136 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Waits for several builds at once. Each build is followed by a quiet {@link BuildWatcher}, so all of them share
+ * the ticks of {@link StatusPoller} and no thread is held; the callback runs once, when every build is over,
+ * or as soon as one of them fails when fail fast is set.
+ */
+public final class BuildGroup {
+
+    public interface Callback {
+        /**
+         * @param results buildID and result of every build, keyed by build config name
+         */
+        void onCompleted(Map<String, Map<String, String>> results);
+    }
+
+    private final Alauda alauda;
+    private final String spaceName;
+    private final boolean failFast;
+    private final Callback callback;
+    private final List<BuildWatcher> watchers = new ArrayList<>();
+
+    // guarded by this
+    private final Map<String, Map<String, String>> results;
+    private int pending;
+    private boolean done;
+
+    BuildGroup(Alauda alauda, String spaceName, Map<String, Map<String, String>> started, boolean failFast, Callback callback) {
+        this.alauda = alauda;
+        this.spaceName = spaceName;
+        this.failFast = failFast;
+        this.callback = callback;
+        this.results = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, String>> entry : started.entrySet()) {
+            this.results.put(entry.getKey(), new LinkedHashMap<>(entry.getValue()));
+        }
+    }
+
+    BuildGroup start(int timeout, long deadline) {
+        synchronized (this) {
+            for (Map.Entry<String, Map<String, String>> entry : results.entrySet()) {
+                if (!BuildRequest.STARTED.equals(entry.getValue().get("result"))) {
+                    continue;
+                }
+                String buildConfigName = entry.getKey();
+                String buildID = entry.getValue().get("buildID");
+                watchers.add(new BuildWatcher(alauda, buildID, timeout, deadline, alauda.timelineBuild(buildID, new BuildWatcher.Callback() {
+                    @Override
+                    public void onCompleted(boolean succeed) {
+                        finished(buildConfigName, succeed ? BuildRequest.SUCCEED : BuildRequest.FAILED);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable cause) {
+                        alauda.logger.printf("Build:[%s/%s] %s", spaceName, buildConfigName, cause.getMessage());
+                        finished(buildConfigName, cause instanceof TimeoutException ? BuildRequest.TIMEOUT : BuildRequest.ERROR);
+                    }
+                })).quiet());
+            }
+            pending = watchers.size();
+        }
+        if (pending == 0 || (failFast && hasFailure())) {
+            complete();
+            return this;
+        }
+        for (BuildWatcher watcher : new ArrayList<>(watchers)) {
+            watcher.start();
+        }
+        return this;
+    }
+
+    public void stop() {
+        List<BuildWatcher> all;
+        synchronized (this) {
+            all = new ArrayList<>(watchers);
+        }
+        for (BuildWatcher watcher : all) {
+            watcher.stop();
+        }
+    }
+
+    private void finished(String buildConfigName, String result) {
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            Map<String, String> build = results.get(buildConfigName);
+            build.put("result", result);
+            pending--;
+            try {
+                alauda.logger.printf("Build:[%s/%s] %s, detail -> %s", spaceName, buildConfigName, result,
+                        alauda.getAlaudaBuildURL(build.get("buildID")));
+            } catch (IOException e) {
+                alauda.logger.printf("Build:[%s/%s] %s", spaceName, buildConfigName, result);
+            }
+            alauda.listener.getLogger().flush();
+            if (pending > 0 && !(failFast && !BuildRequest.SUCCEED.equals(result))) {
+                return;
+            }
+        }
+        complete();
+    }
+
+    private synchronized boolean hasFailure() {
+        return results.values().stream().anyMatch(build -> BuildRequest.ERROR.equals(build.get("result")));
+    }
+
+    private void complete() {
+        Map<String, Map<String, String>> snapshot = new LinkedHashMap<>();
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            done = true;
+            for (Map.Entry<String, Map<String, String>> entry : results.entrySet()) {
+                Map<String, String> build = new LinkedHashMap<>(entry.getValue());
+                if (BuildRequest.STARTED.equals(build.get("result"))) {
+                    build.put("result", BuildRequest.RUNNING);
+                }
+                snapshot.put(entry.getKey(), build);
+            }
+            if (pending > 0) {
+                alauda.logger.printf("Build: fail fast, stop waiting for %d builds still running", pending);
+            }
+        }
+        stop();
+        callback.onCompleted(snapshot);
+    }
+}
@@ -0,0 +1,190 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import hudson.XmlFile;
+import jenkins.model.Jenkins;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Remembers, on the controller, which Alauda build succeeded for a commit of a build config, so that
+ * {@code reuseIfBuilt} can hand it out instead of building the same commit again.
+ * <p>
+ * Entries are kept in {@code JENKINS_HOME/io.alauda.jenkins.plugins.pipeline.alauda.BuildIndex.xml} and expire after
+ * {@code BuildIndex.ttlHours} (168). Only the {@code BuildIndex.maxEntries} (1000) most recent are kept.
+ * Builds being started or waited for are tracked in memory, so that a second request for the same commit joins them.
+ */
+public final class BuildIndex {
+    private static final Logger LOGGER = Logger.getLogger(BuildIndex.class.getName());
+    private static final long TTL_MILLIS = TimeUnit.HOURS.toMillis(Long.getLong(BuildIndex.class.getName() + ".ttlHours", 168));
+    private static final int MAX_ENTRIES = Integer.getInteger(BuildIndex.class.getName() + ".maxEntries", 1000);
+
+    private static final BuildIndex INSTANCE = new BuildIndex(null);
+
+    private final File file;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    // guarded by this, loaded on first use
+    private Entries entries;
+
+    BuildIndex(File file) {
+        this(file, TTL_MILLIS, MAX_ENTRIES);
+    }
+
+    BuildIndex(File file, long ttlMillis, int maxEntries) {
+        this.file = file;
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    public static BuildIndex get() {
+        return INSTANCE;
+    }
+
+    static String key(String endpoint, String account, String spaceName, String buildConfigName, String commitID) {
+        return String.join("/", Arrays.asList(endpoint, account, spaceName, buildConfigName, commitID));
+    }
+
+    /**
+     * @return the succeeded build recorded for the key, null when there is none or it expired
+     */
+    synchronized String lookup(String key) {
+        Entry entry = entries().builds.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.succeededAt > ttlMillis) {
+            forget(key, entry.buildID);
+            return null;
+        }
+        return entry.buildID;
+    }
+
+    /**
+     * Drops the entry of the key if it still points to the build, e.g. because the build was deleted in Alauda.
+     */
+    synchronized void forget(String key, String buildID) {
+        Entry entry = entries().builds.get(key);
+        if (entry != null && entry.buildID.equals(buildID)) {
+            entries.builds.remove(key);
+            save();
+        }
+    }
+
+    /**
+     * Claims the start of the build of the key.
+     *
+     * @return null when the caller must start the build and then call {@link #started} or {@link #abandon},
+     * otherwise the ID of the build another caller is starting
+     */
+    CompletableFuture<String> claim(String key) {
+        return inFlight.putIfAbsent(key, new CompletableFuture<>());
+    }
+
+    void started(String key, String buildID) {
+        CompletableFuture<String> claimed = inFlight.get(key);
+        if (claimed != null) {
+            claimed.complete(buildID);
+        }
+    }
+
+    void abandon(String key, Throwable cause) {
+        CompletableFuture<String> claimed = inFlight.remove(key);
+        if (claimed != null) {
+            claimed.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Tracks a build that was started before, e.g. when a wait is resumed after a restart.
+     */
+    void resumed(String key, String buildID) {
+        inFlight.putIfAbsent(key, CompletableFuture.completedFuture(buildID));
+    }
+
+    /**
+     * Records the end of the build: it is no longer in flight, and it can be reused if it succeeded.
+     */
+    void finished(String key, String buildID, boolean succeed) {
+        inFlight.computeIfPresent(key, (k, claimed) ->
+                claimed.isDone() && !claimed.isCompletedExceptionally() && buildID.equals(claimed.join()) ? null : claimed);
+        if (!succeed) {
+            return;
+        }
+        synchronized (this) {
+            entries().builds.remove(key);
+            entries.builds.put(key, new Entry(buildID, System.currentTimeMillis()));
+            while (entries.builds.size() > maxEntries) {
+                entries.builds.remove(entries.builds.keySet().iterator().next());
+            }
+            save();
+        }
+    }
+
+    private Entries entries() {
+        if (entries != null) {
+            return entries;
+        }
+        entries = new Entries();
+        XmlFile xml = xmlFile();
+        if (xml != null && xml.exists()) {
+            try {
+                xml.unmarshal(entries);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to load " + xml, e);
+            }
+        }
+        if (entries.builds == null) {
+            entries.builds = new LinkedHashMap<>();
+        }
+        return entries;
+    }
+
+    private void save() {
+        XmlFile xml = xmlFile();
+        if (xml == null) {
+            return;
+        }
+        try {
+            xml.write(entries);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save " + xml, e);
+        }
+    }
+
+    private XmlFile xmlFile() {
+        if (file != null) {
+            return new XmlFile(file);
+        }
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return null;
+        }
+        return new XmlFile(new File(jenkins.getRootDir(), BuildIndex.class.getName() + ".xml"));
+    }
+
+    private static final class Entries {
+        // oldest first
+        private LinkedHashMap<String, Entry> builds = new LinkedHashMap<>();
+    }
+
+    private static final class Entry {
+        private final String buildID;
+        private final long succeededAt;
+
+        private Entry(String buildID, long succeededAt) {
+            this.buildID = buildID;
+            this.succeededAt = succeededAt;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.alauda.jenkins.plugins.pipeline.utils.JsonMappers;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the builds of a namespace one page at a time.
+ * <p>
+ * The Alauda client has no API to list builds, the build list endpoint is called directly and can be changed with
+ * the {@code BuildLister.path} system property. A page is {"results": [...]} or a bare array, every item has
+ * {@code build_id}, {@code build_config_name}, {@code created_at} and {@code status}.
+ */
+class BuildLister {
+    private static final String PATH = System.getProperty(BuildLister.class.getName() + ".path",
+            "/v1/private-builds/{namespace}/");
+    static final int PAGE_SIZE = Integer.getInteger(BuildLister.class.getName() + ".pageSize", 100);
+
+    private final OkHttpClient http;
+    private final HttpUrl url;
+    private final String token;
+
+    BuildLister(OkHttpClient http, String endpoint, String token, String namespace) throws IOException {
+        this.http = http;
+        HttpUrl base = HttpUrl.parse(endpoint);
+        if (base == null) {
+            throw new IOException("Invalid Alauda API endpoint " + endpoint);
+        }
+        this.url = base.resolve(PATH.replace("{namespace}", namespace));
+        this.token = token;
+    }
+
+    /**
+     * @param page first page is 1
+     * @return the builds of the page, fewer than {@link #PAGE_SIZE} on the last page
+     */
+    List<BuildRetention.ListedBuild> page(int page) throws IOException {
+        HttpUrl pageUrl = url.newBuilder()
+                .setQueryParameter("page", String.valueOf(page))
+                .setQueryParameter("page_size", String.valueOf(PAGE_SIZE))
+                .build();
+        try (Response response = http.newCall(new Request.Builder()
+                .url(pageUrl)
+                .header("Authorization", "Token " + token)
+                .get()
+                .build()).execute()) {
+            ResponseBody body = response.body();
+            if (response.code() == 404 && page > 1) {
+                // paged past the end
+                return new ArrayList<>();
+            }
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("Unexpected code " + response.code() + " listing builds from " + pageUrl);
+            }
+            try (Reader reader = body.charStream()) {
+                return parse(JsonMappers.mapper().readTree(reader));
+            }
+        }
+    }
+
+    static List<BuildRetention.ListedBuild> parse(JsonNode page) {
+        JsonNode items = page != null && page.isObject() ? page.path("results") : page;
+        List<BuildRetention.ListedBuild> builds = new ArrayList<>();
+        if (items == null || !items.isArray()) {
+            return builds;
+        }
+        for (JsonNode item : items) {
+            String buildID = item.path("build_id").asText(null);
+            if (buildID == null) {
+                continue;
+            }
+            builds.add(new BuildRetention.ListedBuild(buildID, item.path("build_config_name").asText(null),
+                    parseTime(item.path("created_at").asText(null)), item.path("status").asText(null)));
+        }
+        return builds;
+    }
+
+    static long parseTime(String time) {
+        if (time == null || time.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Instant.parse(time).toEpochMilli();
+        } catch (DateTimeParseException ignored) {
+            // not in UTC
+        }
+        try {
+            return OffsetDateTime.parse(time).toInstant().toEpochMilli();
+        } catch (DateTimeParseException ignored) {
+            // no offset
+        }
+        try {
+            return LocalDateTime.parse(time).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.alauda.jenkins.plugins.pipeline.utils.JsonMappers;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Copies the log of an Alauda build into the Jenkins console while the build runs.
+ * <p>
+ * Each poll asks only for the lines after the last one already printed and streams the response into a buffered
+ * writer that is flushed once per poll, so memory does not grow with the log.
+ * The Alauda client has no log API, the build logs endpoint is called directly and can be changed with the
+ * {@code BuildLogFollower.path} system property. Failures never fail the build: after
+ * {@link #MAX_FAILURES} failed polls in a row the follower gives up and says so once.
+ */
+public class BuildLogFollower {
+    private static final Logger LOGGER = Logger.getLogger(BuildLogFollower.class.getName());
+    private static final String PATH = System.getProperty(BuildLogFollower.class.getName() + ".path",
+            "/v1/private-builds/{namespace}/{buildID}/logs");
+    static final int MAX_FAILURES = 3;
+
+    private final OkHttpClient http;
+    private final String endpoint;
+    private final HttpUrl url;
+    private final String token;
+    private final Writer out;
+
+    private final AtomicBoolean polling = new AtomicBoolean();
+    // guarded by this
+    private long lastTime;
+    private int seenAtLastTime;
+    private int failures;
+    private volatile boolean closed;
+
+    BuildLogFollower(OkHttpClient http, String endpoint, String token, String namespace, String buildID, PrintStream console) {
+        this.http = http;
+        this.endpoint = endpoint;
+        HttpUrl base = HttpUrl.parse(endpoint);
+        this.url = base == null ? null : base.resolve(PATH.replace("{namespace}", namespace).replace("{buildID}", buildID));
+        this.token = token;
+        this.out = new BufferedWriter(new OutputStreamWriter(console, StandardCharsets.UTF_8), 8192);
+        this.closed = this.url == null;
+    }
+
+    /**
+     * Fetches the new lines on {@link AlaudaScheduler#io()}, unless a fetch is still running.
+     */
+    public void pollAsync() {
+        if (closed || !polling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            AlaudaScheduler.io().execute(() -> {
+                try {
+                    poll();
+                } finally {
+                    polling.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            polling.set(false);
+            LOGGER.log(Level.FINE, "Cannot schedule build log poll", e);
+        }
+    }
+
+    /**
+     * Runs {@link #close()} on {@link AlaudaScheduler#io()}, then {@code then}, also when the last poll cannot be
+     * scheduled.
+     */
+    public void closeAsync(Runnable then) {
+        try {
+            AlaudaScheduler.io().execute(() -> {
+                try {
+                    close();
+                } finally {
+                    then.run();
+                }
+            });
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.FINE, "Cannot schedule the last build log poll", e);
+            cancel();
+            then.run();
+        }
+    }
+
+    /**
+     * Prints the lines written since the last poll, then stops following.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        poll();
+        closed = true;
+    }
+
+    /**
+     * Stops following without printing anything more.
+     */
+    public void cancel() {
+        closed = true;
+    }
+
+    synchronized void poll() {
+        if (closed) {
+            return;
+        }
+        try {
+            // runs on scheduler threads, so it never waits for the rate limit
+            RateLimiter.get().acquire(endpoint, RateLimiter.Family.BUILD, RateLimiter.Priority.POLL);
+        } catch (IOException e) {
+            // the API is busy, the next tick catches up
+            LOGGER.log(Level.FINE, "Build log poll skipped", e);
+            return;
+        }
+        HttpUrl.Builder request = url.newBuilder();
+        if (lastTime > 0) {
+            request.setQueryParameter("start_time", String.valueOf(lastTime));
+        }
+        try (Response response = http.newCall(new Request.Builder()
+                .url(request.build())
+                .header("Authorization", "Token " + token)
+                .get()
+                .build()).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("Unexpected code " + response.code());
+            }
+            try (JsonParser parser = JsonMappers.factory().createParser(body.charStream())) {
+                copyLines(parser);
+            }
+            failures = 0;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Failed to fetch build log from " + url, e);
+            if (++failures >= MAX_FAILURES) {
+                closed = true;
+                try {
+                    out.write(String.format("Build log is not available (%s), see the Alauda console%n", e.getMessage()));
+                    out.flush();
+                } catch (IOException ignored) {
+                    // the console is gone
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads {"logs": [{"time": 1, "message": "..."}, ...]} or a bare array of such items, one item at a time.
+     * Lines with the time of the last poll were asked for again, the ones already printed are skipped.
+     * The console is flushed once the page is read.
+     */
+    synchronized void copyLines(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                token = parser.nextToken();
+                if ("logs".equals(field) && token == JsonToken.START_ARRAY) {
+                    break;
+                }
+                parser.skipChildren();
+            }
+        }
+        if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+            return;
+        }
+
+        int skip = seenAtLastTime;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            long time = 0;
+            String message = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("time".equals(field)) {
+                    time = parser.getValueAsLong();
+                } else if ("message".equals(field)) {
+                    message = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (time == lastTime && skip > 0) {
+                skip--;
+                continue;
+            }
+            if (time != lastTime) {
+                lastTime = time;
+                seenAtLastTime = 0;
+                skip = 0;
+            }
+            seenAtLastTime++;
+            if (message != null) {
+                out.write(message);
+                if (!message.endsWith("\n")) {
+                    out.write('\n');
+                }
+            }
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,51 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import java.io.Serializable;
+
+/**
+ * One build config of a multi-build start, see {@link Alauda#startBuilds}.
+ */
+public class BuildRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String SUCCEED = "SUCCEED";
+    public static final String FAILED = "FAILED";
+    public static final String TIMEOUT = "TIMEOUT";
+    public static final String STARTED = "STARTED";
+    public static final String ERROR = "ERROR";
+    // still running when the wait stopped because another build failed
+    public static final String RUNNING = "RUNNING";
+
+    private final String buildConfigName;
+    private final String branch;
+    private final String commitID;
+
+    public BuildRequest(String buildConfigName, String branch, String commitID) {
+        this.buildConfigName = buildConfigName;
+        this.branch = branch;
+        this.commitID = commitID;
+    }
+
+    public String getBuildConfigName() {
+        return buildConfigName;
+    }
+
+    public String getBranch() {
+        return branch;
+    }
+
+    public String getCommitID() {
+        return commitID;
+    }
+
+    @Override
+    public String toString() {
+        if (commitID != null) {
+            return String.format("%s@%s", buildConfigName, commitID);
+        }
+        if (branch != null) {
+            return String.format("%s:%s", buildConfigName, branch);
+        }
+        return buildConfigName;
+    }
+}
@@ -0,0 +1,125 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Which Alauda builds a cleanup deletes, see {@link Alauda#deleteBuilds(BuildRetention, int, boolean)}.
+ * <p>
+ * The last {@code keepLast} builds of every build config are always kept. Of the others, those older than
+ * {@code olderThanDays} are deleted, or all of them when no age is given. Builds still running, and builds
+ * whose creation time is unknown, are never deleted.
+ */
+public class BuildRetention implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String buildConfigName;
+    private final int keepLast;
+    private final int olderThanDays;
+
+    /**
+     * @param buildConfigName only builds of this build config, all of them when null
+     * @param keepLast        builds to keep per build config, -1 to keep none for their number
+     * @param olderThanDays   only builds created more than this many days ago, -1 for any age
+     */
+    public BuildRetention(String buildConfigName, int keepLast, int olderThanDays) {
+        if (keepLast < 0 && olderThanDays < 0) {
+            throw new IllegalArgumentException("a retention policy needs keepLast or olderThanDays");
+        }
+        this.buildConfigName = buildConfigName;
+        this.keepLast = keepLast;
+        this.olderThanDays = olderThanDays;
+    }
+
+    public String getBuildConfigName() {
+        return buildConfigName;
+    }
+
+    public int getKeepLast() {
+        return keepLast;
+    }
+
+    public int getOlderThanDays() {
+        return olderThanDays;
+    }
+
+    /**
+     * @return the builds to delete, oldest first within each build config
+     */
+    public List<ListedBuild> select(List<ListedBuild> builds, long now) {
+        Map<String, List<ListedBuild>> byConfig = new LinkedHashMap<>();
+        for (ListedBuild build : builds) {
+            if (buildConfigName != null && !buildConfigName.equals(build.getBuildConfigName())) {
+                continue;
+            }
+            byConfig.computeIfAbsent(build.getBuildConfigName(), k -> new ArrayList<>()).add(build);
+        }
+
+        long cutoff = olderThanDays < 0 ? Long.MAX_VALUE : now - TimeUnit.DAYS.toMillis(olderThanDays);
+        List<ListedBuild> selected = new ArrayList<>();
+        for (List<ListedBuild> configBuilds : byConfig.values()) {
+            configBuilds.sort(Comparator.comparingLong(ListedBuild::getCreatedAt).reversed());
+            for (int i = configBuilds.size() - 1; i >= Math.max(keepLast, 0); i--) {
+                ListedBuild build = configBuilds.get(i);
+                if (build.getCreatedAt() <= 0 || !build.isCompleted()) {
+                    continue;
+                }
+                if (build.getCreatedAt() < cutoff) {
+                    selected.add(build);
+                }
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("buildConfig:%s, keepLast:%d, olderThanDays:%d",
+                buildConfigName == null ? "*" : buildConfigName, keepLast, olderThanDays);
+    }
+
+    /**
+     * A build as listed by {@link BuildLister}.
+     */
+    public static class ListedBuild {
+        private final String buildID;
+        private final String buildConfigName;
+        private final long createdAt;
+        private final String status;
+
+        public ListedBuild(String buildID, String buildConfigName, long createdAt, String status) {
+            this.buildID = buildID;
+            this.buildConfigName = buildConfigName;
+            this.createdAt = createdAt;
+            this.status = status;
+        }
+
+        public String getBuildID() {
+            return buildID;
+        }
+
+        public String getBuildConfigName() {
+            return buildConfigName;
+        }
+
+        /**
+         * @return creation time in milliseconds since the epoch, 0 when unknown
+         */
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        boolean isCompleted() {
+            return "F".equals(status) || "D".equals(status) || "S".equals(status);
+        }
+    }
+}
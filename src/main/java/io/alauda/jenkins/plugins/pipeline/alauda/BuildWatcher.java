@@ -0,0 +1,179 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import hudson.AbortException;
+import net.sf.json.JSONObject;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Watches an Alauda build through {@link StatusPoller}.
+ * No thread is held between two status checks, and builds watched by several pipelines are fetched once per tick.
+ * When the build log is followed, new log lines are printed on every tick, otherwise the status is printed by a
+ * {@link ProgressReporter} when it changes.
+ */
+public class BuildWatcher implements StatusPoller.StatusListener<JSONObject> {
+    public static final int DEFAULT_TIMEOUT_SECONDS = 2 * 60 * 60;
+
+    public interface Callback {
+        void onCompleted(boolean succeed);
+
+        void onFailure(Throwable cause);
+    }
+
+    private final Alauda alauda;
+    private final String buildID;
+    private final Callback callback;
+    private final int timeout;
+    private final PollPolicy.Schedule schedule;
+    private final BuildLogFollower logs;
+    private final ProgressReporter progress;
+
+    private volatile boolean stopped;
+    // the callback was told the outcome
+    private volatile boolean notified;
+    // stop() was called, the completion is not reported even when the last log lines are still being fetched
+    private volatile boolean cancelled;
+    private boolean quiet;
+    private volatile StatusPoller.Subscription subscription;
+
+    BuildWatcher(Alauda alauda, String buildID, int timeout, Callback callback) {
+        this(alauda, buildID, timeout, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeout), callback);
+    }
+
+    BuildWatcher(Alauda alauda, String buildID, int timeout, long deadline, Callback callback) {
+        this.alauda = alauda;
+        this.buildID = buildID;
+        this.callback = callback;
+        this.timeout = timeout;
+        this.schedule = alauda.getBuildPollPolicy().start(deadline - System.currentTimeMillis());
+        this.logs = alauda.buildLogFollower(buildID);
+        this.progress = new ProgressReporter(alauda.listener.getLogger(), String.format("Build %s status", buildID));
+    }
+
+    /**
+     * Prints nothing on ticks, for builds waited for along with others.
+     */
+    BuildWatcher quiet() {
+        this.quiet = true;
+        return this;
+    }
+
+    BuildWatcher start() {
+        subscription = StatusPoller.get().subscribe(alauda.buildStatusKey(buildID), alauda.buildFetcher(buildID), this, schedule);
+        return this;
+    }
+
+    public void stop() {
+        cancelled = true;
+        stopped = true;
+        StatusPoller.Subscription s = subscription;
+        if (s != null) {
+            s.cancel();
+        }
+        if (logs != null) {
+            logs.cancel();
+        }
+    }
+
+    public String getBuildID() {
+        return buildID;
+    }
+
+    @Override
+    public boolean onStatus(JSONObject build) {
+        if (isFinished()) {
+            return true;
+        }
+
+        if (logs != null) {
+            logs.pollAsync();
+        }
+        try {
+            if (build == null) {
+                throw new AbortException("Not retrieve build");
+            }
+            String status = alauda.getBuildStatus(build);
+            if (logs == null && !quiet) {
+                progress.status(status);
+            }
+            schedule.onPhase(status);
+            if (alauda.isBuildCompleted(status)) {
+                stopped = true;
+                notified = true;
+                boolean succeed = alauda.isBuildSucceed(status);
+                if (logs != null) {
+                    // the last lines are fetched off the poller thread, and printed before the result
+                    logs.closeAsync(() -> completed(succeed));
+                } else {
+                    completed(succeed);
+                }
+                return true;
+            }
+            return false;
+        } catch (Exception e) {
+            fail(e);
+            return true;
+        }
+    }
+
+    private void completed(boolean succeed) {
+        progress.finish();
+        if (cancelled) {
+            return;
+        }
+        try {
+            callback.onCompleted(succeed);
+        } catch (RuntimeException e) {
+            callback.onFailure(e);
+        }
+    }
+
+    @Override
+    public boolean onError(Exception error) {
+        if (isFinished()) {
+            return true;
+        }
+
+        String message = error.getMessage();
+        if (ApiErrors.classify(error) == ApiErrors.Kind.PERMANENT) {
+            fail(new AbortException("Not retrieve build: " + message));
+            return true;
+        }
+
+        progress.error(message);
+        return false;
+    }
+
+    @Override
+    public void onListenerFailure(Throwable cause) {
+        if (!notified) {
+            fail(cause);
+        }
+    }
+
+    private void fail(Throwable cause) {
+        finish();
+        notified = true;
+        callback.onFailure(cause);
+    }
+
+    private void finish() {
+        stopped = true;
+        if (logs != null) {
+            logs.cancel();
+        }
+        progress.finish();
+    }
+
+    private boolean isFinished() {
+        if (stopped) {
+            return true;
+        }
+        if (schedule.isExpired()) {
+            fail(new TimeoutException(String.format("Building timeout, more than %d seconds!", timeout)));
+            return true;
+        }
+        return false;
+    }
+}
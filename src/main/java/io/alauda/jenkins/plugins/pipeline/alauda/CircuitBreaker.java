@@ -0,0 +1,155 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stops calling an Alauda API endpoint that keeps failing, controller-wide.
+ * <p>
+ * After {@code CircuitBreaker.failures} transient failures in a row the circuit opens. While it is open no call
+ * reaches the endpoint: status polls are deferred to a later tick, other calls wait until the endpoint is back.
+ * Once {@code CircuitBreaker.openSeconds} have passed a single call is let through as a probe; it closes the
+ * circuit if it succeeds, and opens it again for twice as long (up to {@code CircuitBreaker.maxOpenSeconds}) if not.
+ */
+public final class CircuitBreaker {
+    private static final Logger LOGGER = Logger.getLogger(CircuitBreaker.class.getName());
+    private static final String PREFIX = CircuitBreaker.class.getName();
+    private static final int FAILURES = Integer.getInteger(PREFIX + ".failures", 5);
+    private static final long OPEN_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong(PREFIX + ".openSeconds", 15));
+    private static final long MAX_OPEN_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong(PREFIX + ".maxOpenSeconds", 300));
+    private static final long MAX_WAIT_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong(PREFIX + ".maxWaitSeconds", 600));
+
+    private static final Map<String, CircuitBreaker> BREAKERS = new ConcurrentHashMap<>();
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String endpoint;
+
+    // guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openMillis = OPEN_MILLIS;
+    private long retryAt;
+    private boolean probing;
+
+    private final AtomicLong openCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private CircuitBreaker(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public static CircuitBreaker forEndpoint(String endpoint) {
+        return BREAKERS.computeIfAbsent(endpoint, CircuitBreaker::new);
+    }
+
+    /**
+     * @return the breaker of every endpoint called so far, keyed by endpoint
+     */
+    public static Map<String, CircuitBreaker> all() {
+        return new TreeMap<>(BREAKERS);
+    }
+
+    /**
+     * Returns when the call may go ahead. Every permit must be followed by {@link #onSuccess()} or {@link #onFailure}.
+     *
+     * @throws RateLimiter.RateLimitedException when the circuit is open, right away for polls,
+     *                                          after {@code CircuitBreaker.maxWaitSeconds} for other calls
+     */
+    synchronized void acquire(RateLimiter.Priority priority) throws IOException {
+        long deadline = System.currentTimeMillis() + MAX_WAIT_MILLIS;
+        while (true) {
+            if (state == State.CLOSED) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (!probing && now >= retryAt) {
+                probing = true;
+                state = State.HALF_OPEN;
+                LOGGER.log(Level.FINE, "Probing Alauda API at {0}", endpoint);
+                return;
+            }
+            if (priority == RateLimiter.Priority.POLL || now >= deadline) {
+                rejectedCount.incrementAndGet();
+                throw new RateLimiter.RateLimitedException(String.format("Alauda API at %s is unavailable, waiting for it to recover",
+                        endpoint), priority == RateLimiter.Priority.POLL);
+            }
+            // woken up by the probe, or when the next probe is due
+            long wait = probing ? deadline - now : Math.min(retryAt, deadline) - now;
+            try {
+                wait(Math.max(1, wait));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the Alauda API to recover");
+            }
+        }
+    }
+
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            LOGGER.log(Level.INFO, "Alauda API at {0} is back", endpoint);
+            state = State.CLOSED;
+            openMillis = OPEN_MILLIS;
+            probing = false;
+            notifyAll();
+        }
+    }
+
+    synchronized void onFailure(ApiErrors.Kind kind) {
+        if (kind == ApiErrors.Kind.PERMANENT) {
+            // the endpoint answered
+            onSuccess();
+            return;
+        }
+        if (kind == ApiErrors.Kind.THROTTLED) {
+            // the call was not made, let another one probe
+            if (probing) {
+                probing = false;
+                notifyAll();
+            }
+            return;
+        }
+
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN) {
+            openMillis = Math.min(openMillis * 2, MAX_OPEN_MILLIS);
+            open();
+        } else if (state == State.CLOSED && consecutiveFailures >= FAILURES) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        probing = false;
+        retryAt = System.currentTimeMillis() + openMillis;
+        openCount.incrementAndGet();
+        LOGGER.log(Level.WARNING, "Alauda API at {0} failed {1} times in a row, calls are paused for {2} seconds",
+                new Object[]{endpoint, consecutiveFailures, TimeUnit.MILLISECONDS.toSeconds(openMillis)});
+        notifyAll();
+    }
+
+    // region Statistics
+    public synchronized State getState() {
+        return state;
+    }
+
+    public long getOpenCount() {
+        return openCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+    // endregion
+}
@@ -0,0 +1,63 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import io.alauda.model.Kubernete;
+
+import java.io.Serializable;
+
+/**
+ * One component of a multi-component deploy, see {@link Alauda#updateComponents}.
+ * The payload is not kept when the update is saved with a {@link WaitRecord}.
+ */
+public class ComponentUpdate implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String SUCCEED = "SUCCEED";
+    public static final String FAILED = "FAILED";
+    public static final String TIMEOUT = "TIMEOUT";
+    public static final String STARTED = "STARTED";
+    public static final String ERROR = "ERROR";
+
+    private final String applicationName;
+    private final String resourceType;
+    private final String componentName;
+    private final transient Kubernete payload;
+
+    public ComponentUpdate(String applicationName, String resourceType, String componentName, Kubernete payload) {
+        this.applicationName = applicationName;
+        this.resourceType = resourceType;
+        this.componentName = componentName;
+        this.payload = payload;
+    }
+
+    public String getApplicationName() {
+        return applicationName;
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public String getComponentName() {
+        return componentName;
+    }
+
+    public Kubernete getPayload() {
+        return payload;
+    }
+
+    /**
+     * @return key of this component in the results of a multi-component deploy
+     */
+    public String getKey() {
+        return applicationName + "/" + componentName;
+    }
+
+    String getWorkloadName() {
+        return resourceType.toLowerCase() + "-" + componentName;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s/%s/%s", applicationName, resourceType, componentName);
+    }
+}
@@ -0,0 +1,53 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import java.io.Serializable;
+
+/**
+ * A cluster and namespace a fan-out deploy goes to.
+ */
+public class DeployTarget implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String SUCCEED = "SUCCEED";
+    public static final String FAILED = "FAILED";
+    public static final String SKIPPED = "SKIPPED";
+
+    private final String clusterName;
+    private final String namespace;
+
+    public DeployTarget(String clusterName, String namespace) {
+        this.clusterName = clusterName;
+        this.namespace = namespace;
+    }
+
+    /**
+     * Parses "cluster" or "cluster/namespace", the namespace falls back to {@code defaultNamespace}.
+     */
+    public static DeployTarget parse(String target, String defaultNamespace) {
+        int slash = target.indexOf('/');
+        if (slash < 0) {
+            return new DeployTarget(target.trim(), defaultNamespace);
+        }
+        return new DeployTarget(target.substring(0, slash).trim(), target.substring(slash + 1).trim());
+    }
+
+    public String getClusterName() {
+        return clusterName;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * @return key of this target in the results of a fan-out deploy
+     */
+    public String getKey() {
+        return clusterName + "/" + namespace;
+    }
+
+    @Override
+    public String toString() {
+        return getKey();
+    }
+}
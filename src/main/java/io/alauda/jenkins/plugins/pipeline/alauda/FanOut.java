@@ -0,0 +1,216 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.alauda.jenkins.plugins.pipeline.utils.JsonMappers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deploys a service or a component to several clusters, wave after wave.
+ * <p>
+ * The targets of a wave are deployed concurrently, so a wave takes as long as its slowest cluster.
+ * The next wave only starts when the failures so far are within {@code maxFailures}; otherwise the remaining
+ * targets are skipped.
+ * <p>
+ * No thread is held while a target rolls out: the next target of a wave starts when the deploy of another one
+ * completes.
+ */
+public class FanOut {
+
+    public interface Deployer {
+        /**
+         * @return completes when the target rolled out, exceptionally when the deploy failed
+         */
+        CompletableFuture<?> deploy(DeployTarget target);
+    }
+
+    private final List<Integer> waves;
+    private final int maxFailures;
+    private final int parallelism;
+
+    /**
+     * @param waves       sizes of the leading waves, the targets left over form the last wave
+     * @param maxFailures failed targets tolerated before the remaining waves are skipped
+     * @param parallelism targets deployed at the same time within a wave
+     */
+    public FanOut(List<Integer> waves, int maxFailures, int parallelism) {
+        this.waves = waves == null ? new ArrayList<>() : waves;
+        this.maxFailures = maxFailures;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Splits the targets into waves, in order.
+     */
+    public static List<List<DeployTarget>> plan(List<DeployTarget> targets, List<Integer> waves) {
+        List<List<DeployTarget>> plan = new ArrayList<>();
+        int from = 0;
+        if (waves != null) {
+            for (Integer size : waves) {
+                if (from >= targets.size()) {
+                    break;
+                }
+                if (size == null || size < 1) {
+                    throw new IllegalArgumentException("every wave should have at least one target");
+                }
+                int to = Math.min(targets.size(), from + size);
+                plan.add(new ArrayList<>(targets.subList(from, to)));
+                from = to;
+            }
+        }
+        if (from < targets.size()) {
+            plan.add(new ArrayList<>(targets.subList(from, targets.size())));
+        }
+        return plan;
+    }
+
+    /**
+     * Starts the first wave.
+     * Cancelling the returned future cancels the deploys in flight and starts no more of them.
+     *
+     * @return completes with {@link DeployTarget#SUCCEED}, {@link DeployTarget#FAILED} or {@link DeployTarget#SKIPPED}
+     * per target key
+     */
+    CompletableFuture<Map<String, String>> start(Alauda.Logger logger, List<DeployTarget> targets, Deployer deployer) {
+        Rollout rollout = new Rollout(logger, plan(targets, waves), deployer);
+        for (DeployTarget target : targets) {
+            rollout.results.put(target.getKey(), DeployTarget.SKIPPED);
+        }
+        rollout.wave(0);
+        return rollout.done;
+    }
+
+    private final class Rollout {
+        private final Alauda.Logger logger;
+        private final List<List<DeployTarget>> plan;
+        private final Deployer deployer;
+        private final Map<String, String> results = Collections.synchronizedMap(new LinkedHashMap<>());
+        private final CompletableFuture<Map<String, String>> done = new CompletableFuture<>();
+        private final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private Rollout(Alauda.Logger logger, List<List<DeployTarget>> plan, Deployer deployer) {
+            this.logger = logger;
+            this.plan = plan;
+            this.deployer = deployer;
+            done.whenComplete((results, error) -> {
+                if (done.isCancelled()) {
+                    inFlight.forEach(deploy -> deploy.cancel(true));
+                }
+            });
+        }
+
+        private void wave(int i) {
+            for (; i < plan.size() && failures.get() > maxFailures; i++) {
+                logger.printf("Wave %d/%d skipped, %d targets failed: %s %n", i + 1, plan.size(), failures.get(), plan.get(i));
+            }
+            if (i >= plan.size() || done.isDone()) {
+                synchronized (results) {
+                    done.complete(new LinkedHashMap<>(results));
+                }
+                return;
+            }
+
+            int index = i;
+            List<DeployTarget> wave = plan.get(index);
+            logger.printf("Wave %d/%d deploying to %s %n", index + 1, plan.size(), wave);
+            AtomicInteger next = new AtomicInteger();
+            AtomicInteger lanes = new AtomicInteger(Math.min(parallelism, wave.size()));
+            Runnable waveDone = () -> {
+                if (lanes.decrementAndGet() == 0) {
+                    wave(index + 1);
+                }
+            };
+            for (int lane = lanes.get(); lane > 0; lane--) {
+                deployNext(wave, next, waveDone);
+            }
+        }
+
+        // one lane of a wave: deploys its targets one after the other
+        private void deployNext(List<DeployTarget> wave, AtomicInteger next, Runnable waveDone) {
+            int i = next.getAndIncrement();
+            if (i >= wave.size() || done.isDone()) {
+                waveDone.run();
+                return;
+            }
+            DeployTarget target = wave.get(i);
+            CompletableFuture<?> deploy;
+            try {
+                deploy = deployer.deploy(target);
+            } catch (RuntimeException e) {
+                deploy = new CompletableFuture<>();
+                deploy.completeExceptionally(e);
+            }
+            inFlight.add(deploy);
+            CompletableFuture<?> started = deploy;
+            deploy.whenComplete((result, error) -> {
+                inFlight.remove(started);
+                if (error != null) {
+                    failures.incrementAndGet();
+                    results.put(target.getKey(), DeployTarget.FAILED);
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    logger.printf("Deploy to %s failed: %s %n", target, cause.getMessage());
+                } else {
+                    results.put(target.getKey(), DeployTarget.SUCCEED);
+                }
+                deployNext(wave, next, waveDone);
+            });
+        }
+    }
+
+    /**
+     * @return true when more than {@code maxFailures} targets failed, the remaining waves were skipped then
+     */
+    public boolean isThresholdExceeded(Map<String, String> results) {
+        int failures = 0;
+        for (String status : results.values()) {
+            if (DeployTarget.FAILED.equals(status)) {
+                failures++;
+            }
+        }
+        return failures > maxFailures;
+    }
+
+    /**
+     * Copies the payload for a target: the {@code cluster} and {@code namespace} a service payload names, and every
+     * {@code metadata.namespace} in it, are set to the ones of the target.
+     */
+    static <T> T retarget(T payload, Class<T> type, DeployTarget target) {
+        JsonNode tree = JsonMappers.toTree(payload);
+        setName(tree, "cluster", target.getClusterName());
+        setName(tree, "namespace", target.getNamespace());
+        setNamespace(tree, target.getNamespace());
+        return JsonMappers.convert(tree, type);
+    }
+
+    private static void setName(JsonNode node, String field, String name) {
+        JsonNode reference = node.get(field);
+        if (reference != null && reference.isObject() && reference.has("name")) {
+            ((ObjectNode) reference).put("name", name);
+        }
+    }
+
+    private static void setNamespace(JsonNode node, String namespace) {
+        if (node.isObject()) {
+            JsonNode metadata = node.get("metadata");
+            if (metadata != null && metadata.isObject() && metadata.has("namespace")) {
+                ((ObjectNode) metadata).put("namespace", namespace);
+            }
+        }
+        if (node.isContainerNode()) {
+            for (JsonNode child : node) {
+                setNamespace(child, namespace);
+            }
+        }
+    }
+}
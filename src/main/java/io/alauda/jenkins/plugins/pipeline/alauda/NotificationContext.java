@@ -0,0 +1,117 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import hudson.model.Run;
+import hudson.plugins.git.Revision;
+import hudson.plugins.git.util.Build;
+import hudson.plugins.git.util.BuildData;
+import jenkins.model.JenkinsLocationConfiguration;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.logging.Logger;
+
+/**
+ * What notifications of a run say about the run and its sources: job URL, cause and git data.
+ * <p>
+ * It is worked out once per run and kept as long as the run is in memory, the next notifications of the run only
+ * check the git {@link BuildData} actions did not change, e.g. after a second checkout or a checkout of a newer commit
+ * of the same branch. Status and duration change
+ * during the run and are not part of it.
+ */
+final class NotificationContext {
+    private static final Logger LOGGER = Logger.getLogger(NotificationContext.class.getName());
+    private static final Map<Run<?, ?>, NotificationContext> CACHE = Collections.synchronizedMap(new WeakHashMap<>());
+
+    final String jobURL;
+    final String causeText;
+    final String repoBranch;
+    final String repoVersion;
+    final String repo;
+
+    // what the git data was taken from
+    private final int buildDataCount;
+    private final int buildDataIdentity;
+    private final int branchCount;
+    private final int remoteCount;
+    private final String lastBuiltVersion;
+
+    private NotificationContext(Run<?, ?> run, List<BuildData> actions) {
+        String jenkinsUrl = "";
+        JenkinsLocationConfiguration config = JenkinsLocationConfiguration.get();
+        if (config != null) {
+            jenkinsUrl = config.getUrl();
+            if (jenkinsUrl != null && !jenkinsUrl.endsWith("/")) {
+                jenkinsUrl = jenkinsUrl + "/";
+            }
+        }
+        this.jobURL = jenkinsUrl + run.getUrl();
+        this.causeText = Alauda.getCause(run.getCauses());
+
+        this.buildDataCount = actions.size();
+        String branch = null;
+        String version = null;
+        String remote = null;
+        BuildData data = actions.isEmpty() ? null : actions.get(0);
+        if (data != null) {
+            if (actions.size() > 1) {
+                LOGGER.warning(String.format("%s has multi build data action, will use first one.", run.getFullDisplayName()));
+            }
+            Iterator<String> branches = data.buildsByBranchName.keySet().iterator();
+            if (branches.hasNext()) {
+                branch = branches.next();
+                version = versionOf(data, branch);
+            }
+            Iterator<String> remotes = data.remoteUrls.iterator();
+            if (remotes.hasNext()) {
+                remote = remotes.next();
+            }
+        }
+        this.repoBranch = branch;
+        this.repoVersion = version;
+        this.repo = remote;
+        this.buildDataIdentity = System.identityHashCode(data);
+        this.branchCount = data == null ? 0 : data.buildsByBranchName.size();
+        this.remoteCount = data == null ? 0 : data.remoteUrls.size();
+        this.lastBuiltVersion = data == null ? null : sha1(data.getLastBuiltRevision());
+    }
+
+    private static String versionOf(BuildData data, String branch) {
+        Build build = data.buildsByBranchName.get(branch);
+        return build == null ? null : sha1(build.revision);
+    }
+
+    private static String sha1(Revision revision) {
+        return revision == null ? null : revision.getSha1().name();
+    }
+
+    static NotificationContext of(Run<?, ?> run) {
+        List<BuildData> actions = run.getActions(BuildData.class);
+        NotificationContext context = CACHE.get(run);
+        if (context == null || !context.matches(actions)) {
+            context = new NotificationContext(run, actions);
+            CACHE.put(run, context);
+        }
+        return context;
+    }
+
+    private boolean matches(List<BuildData> actions) {
+        if (actions.size() != buildDataCount) {
+            return false;
+        }
+        BuildData data = actions.isEmpty() ? null : actions.get(0);
+        if (System.identityHashCode(data) != buildDataIdentity) {
+            return false;
+        }
+        if (data == null) {
+            return true;
+        }
+        // a new commit of the same branch only changes the revisions
+        return data.buildsByBranchName.size() == branchCount && data.remoteUrls.size() == remoteCount
+                && Objects.equals(sha1(data.getLastBuiltRevision()), lastBuiltVersion)
+                && (repoBranch == null || Objects.equals(versionOf(data, repoBranch), repoVersion));
+    }
+}
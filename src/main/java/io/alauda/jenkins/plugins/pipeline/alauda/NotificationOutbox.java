@@ -0,0 +1,432 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import hudson.XmlFile;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import io.alauda.jenkins.plugins.pipeline.AlaudaConfiguration;
+import io.alauda.jenkins.plugins.pipeline.utils.ParallelTasks;
+import jenkins.model.Jenkins;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends Alauda notifications in the background, so that a slow or failing notification service neither delays
+ * nor fails the pipeline.
+ * <p>
+ * Every queued message is written to {@code JENKINS_HOME/alauda-notification-outbox} before the step returns, and is
+ * deleted once sent, so messages survive a restart. A dispatcher sends the due messages every
+ * {@code NotificationOutbox.tickSeconds}, grouped per notification: the messages of a notification are sent in
+ * order on one thread, and a failure holds back the rest of the group until the next attempt. Transient failures
+ * are retried with a backoff doubling from {@code NotificationOutbox.backoffSeconds} up to
+ * {@code NotificationOutbox.maxBackoffSeconds}; after {@code NotificationOutbox.maxAttempts} attempts, or on a
+ * permanent error, the message is moved to the dead letters, where an administrator can retry or discard it.
+ * The API token is not stored, the one of the global configuration is used when sending.
+ */
+public final class NotificationOutbox {
+    private static final Logger LOGGER = Logger.getLogger(NotificationOutbox.class.getName());
+    private static final String PREFIX = NotificationOutbox.class.getName();
+    private static final long TICK_SECONDS = Long.getLong(PREFIX + ".tickSeconds", 2);
+    private static final int PARALLELISM = Integer.getInteger(PREFIX + ".parallelism", 4);
+    private static final int MAX_ATTEMPTS = Integer.getInteger(PREFIX + ".maxAttempts", 8);
+    private static final long BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong(PREFIX + ".backoffSeconds", 5));
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong(PREFIX + ".maxBackoffSeconds", 600));
+    private static final String DIRECTORY = "alauda-notification-outbox";
+
+    private static final NotificationOutbox INSTANCE = new NotificationOutbox(null, NotificationOutbox::deliver);
+
+    public interface Sender {
+        void send(Message message) throws IOException;
+    }
+
+    private final File directory;
+    private final Sender sender;
+
+    // guarded by this
+    private final Map<String, Message> pending = new LinkedHashMap<>();
+    private final Map<String, Message> dead = new LinkedHashMap<>();
+    private boolean loaded;
+    private ScheduledExecutorService dispatcher;
+    private ScheduledFuture<?> ticker;
+
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong retriedCount = new AtomicLong();
+    private final AtomicLong deadLetteredCount = new AtomicLong();
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+    private volatile long lastLatencyMillis;
+    private volatile long maxLatencyMillis;
+
+    /**
+     * @param directory where messages are kept, JENKINS_HOME when null
+     */
+    NotificationOutbox(File directory, Sender sender) {
+        this.directory = directory;
+        this.sender = sender;
+    }
+
+    public static NotificationOutbox get() {
+        return INSTANCE;
+    }
+
+    @Initializer(after = InitMilestone.JOB_LOADED)
+    public static void resumeAfterRestart() {
+        if (INSTANCE.getQueueDepth() > 0) {
+            INSTANCE.start();
+        }
+    }
+
+    /**
+     * Keeps the message on disk and sends it in the background.
+     */
+    public void enqueue(Message message) {
+        synchronized (this) {
+            load();
+            pending.put(message.id, message);
+            save(message, false);
+        }
+        start();
+    }
+
+    /**
+     * Sends a dead letter again, from its first attempt.
+     */
+    public synchronized boolean retry(String id) {
+        load();
+        Message message = dead.remove(id);
+        if (message == null) {
+            return false;
+        }
+        delete(message, true);
+        message.attempts = 0;
+        message.nextAttemptAt = 0;
+        pending.put(id, message);
+        save(message, false);
+        start();
+        return true;
+    }
+
+    public synchronized boolean discard(String id) {
+        load();
+        Message message = dead.remove(id);
+        if (message == null) {
+            return false;
+        }
+        delete(message, true);
+        return true;
+    }
+
+    synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        dispatcher = new ScheduledThreadPoolExecutor(1, new NamingThreadFactory(new DaemonThreadFactory(), "AlaudaNotificationOutbox"));
+        ticker = dispatcher.scheduleWithFixedDelay(this::dispatch, 0, TICK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Sends every due message once. Rounds never overlap, the dispatcher has a single thread.
+     */
+    void dispatch() {
+        try {
+            long now = System.currentTimeMillis();
+            Map<String, List<Message>> groups = new LinkedHashMap<>();
+            synchronized (this) {
+                load();
+                // a message waiting for its next attempt holds back the later ones of its notification,
+                // also those queued after it failed
+                Set<String> waiting = new HashSet<>();
+                for (Message message : pending.values()) {
+                    String key = message.groupKey();
+                    if (waiting.contains(key)) {
+                        continue;
+                    }
+                    if (message.nextAttemptAt > now) {
+                        waiting.add(key);
+                        continue;
+                    }
+                    groups.computeIfAbsent(key, k -> new ArrayList<>()).add(message);
+                }
+            }
+            if (groups.isEmpty()) {
+                return;
+            }
+
+            List<Callable<Void>> tasks = new ArrayList<>(groups.size());
+            for (List<Message> group : groups.values()) {
+                group.sort(Comparator.comparingLong(m -> m.enqueuedAt));
+                tasks.add(() -> {
+                    sendGroup(group);
+                    return null;
+                });
+            }
+            ParallelTasks.run(AlaudaScheduler.io(), PARALLELISM, tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            LOGGER.log(Level.WARNING, "Alauda notification dispatch failed", t);
+        }
+    }
+
+    private void sendGroup(List<Message> group) {
+        for (int i = 0; i < group.size(); i++) {
+            Message message = group.get(i);
+            try {
+                sender.send(message);
+            } catch (IOException | RuntimeException e) {
+                failed(message, e, group.subList(i + 1, group.size()));
+                return;
+            }
+            delivered(message);
+        }
+    }
+
+    private synchronized void delivered(Message message) {
+        pending.remove(message.id);
+        delete(message, false);
+        long latency = System.currentTimeMillis() - message.enqueuedAt;
+        lastLatencyMillis = latency;
+        if (latency > maxLatencyMillis) {
+            maxLatencyMillis = latency;
+        }
+        totalLatencyMillis.addAndGet(latency);
+        deliveredCount.incrementAndGet();
+    }
+
+    private synchronized void failed(Message message, Exception error, List<Message> heldBack) {
+        message.attempts++;
+        message.lastError = String.valueOf(error.getMessage());
+        if (ApiErrors.classify(error) == ApiErrors.Kind.PERMANENT || message.attempts >= MAX_ATTEMPTS) {
+            LOGGER.log(Level.WARNING, String.format("Notification %s of %s moved to dead letters after %d attempts: %s",
+                    message.name, message.run, message.attempts, message.lastError));
+            pending.remove(message.id);
+            delete(message, false);
+            dead.put(message.id, message);
+            save(message, true);
+            deadLetteredCount.incrementAndGet();
+        } else {
+            long backoff = Math.min(MAX_BACKOFF_MILLIS, BACKOFF_MILLIS << Math.min(message.attempts - 1, 20));
+            message.nextAttemptAt = System.currentTimeMillis() + backoff;
+            save(message, false);
+            retriedCount.incrementAndGet();
+        }
+        // keep the order of the notification, the next ones wait for this one
+        for (Message next : heldBack) {
+            next.nextAttemptAt = Math.max(next.nextAttemptAt, message.nextAttemptAt);
+        }
+    }
+
+    private static void deliver(Message message) throws IOException {
+        AlaudaConfiguration config = AlaudaConfiguration.get();
+        new Alauda(config.getConsoleURL(), message.endpoint, config.getApiToken(), message.account, message.spaceName,
+                null, null, message.projectName, false)
+                .deliverNotification(message.spaceName, message.name, message.withProject, message.projectName, message.payload);
+    }
+
+    // region Persistence
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        File root = root();
+        if (root == null) {
+            return;
+        }
+        loadFrom(root, pending);
+        loadFrom(new File(root, "dead"), dead);
+    }
+
+    private static void loadFrom(File dir, Map<String, Message> into) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".xml"));
+        if (files == null) {
+            return;
+        }
+        List<Message> messages = new ArrayList<>();
+        for (File file : files) {
+            try {
+                messages.add((Message) new XmlFile(file).read());
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to load notification " + file, e);
+            }
+        }
+        messages.sort(Comparator.comparingLong(m -> m.enqueuedAt));
+        for (Message message : messages) {
+            into.put(message.id, message);
+        }
+    }
+
+    private void save(Message message, boolean deadLetter) {
+        XmlFile file = file(message, deadLetter);
+        if (file == null) {
+            return;
+        }
+        try {
+            file.write(message);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save notification " + file, e);
+        }
+    }
+
+    private void delete(Message message, boolean deadLetter) {
+        XmlFile file = file(message, deadLetter);
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    private XmlFile file(Message message, boolean deadLetter) {
+        File root = root();
+        if (root == null) {
+            return null;
+        }
+        return new XmlFile(new File(deadLetter ? new File(root, "dead") : root, message.id + ".xml"));
+    }
+
+    private File root() {
+        if (directory != null) {
+            return directory;
+        }
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        return jenkins == null ? null : new File(jenkins.getRootDir(), DIRECTORY);
+    }
+    // endregion
+
+    // region Statistics
+    public synchronized int getQueueDepth() {
+        load();
+        return pending.size();
+    }
+
+    /**
+     * @return age of the oldest message waiting to be sent, in milliseconds, 0 when there is none
+     */
+    public synchronized long getOldestPendingMillis() {
+        load();
+        long now = System.currentTimeMillis();
+        return pending.values().stream().mapToLong(m -> now - m.enqueuedAt).max().orElse(0);
+    }
+
+    public synchronized List<Message> getDeadLetters() {
+        load();
+        return new ArrayList<>(dead.values());
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount.get();
+    }
+
+    public long getRetriedCount() {
+        return retriedCount.get();
+    }
+
+    public long getDeadLetteredCount() {
+        return deadLetteredCount.get();
+    }
+
+    /**
+     * @return time from enqueue to delivery of the last message sent, in milliseconds
+     */
+    public long getLastLatencyMillis() {
+        return lastLatencyMillis;
+    }
+
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis;
+    }
+
+    public long getAverageLatencyMillis() {
+        long delivered = deliveredCount.get();
+        return delivered == 0 ? 0 : totalLatencyMillis.get() / delivered;
+    }
+    // endregion
+
+    /**
+     * A prepared notification payload waiting to be sent.
+     */
+    public static final class Message {
+        private final String id;
+        private final String endpoint;
+        private final String account;
+        private final String spaceName;
+        private final String name;
+        // alaudaSendNotification sends with a project, alaudaNotify without
+        private final boolean withProject;
+        private final String projectName;
+        private final String payload;
+        // the Jenkins run that sent it, for the administrator
+        private final String run;
+        private final long enqueuedAt;
+        private int attempts;
+        private long nextAttemptAt;
+        private String lastError;
+
+        public Message(String endpoint, String account, String spaceName, String name, boolean withProject, String projectName,
+                       String payload, String run) {
+            this.id = UUID.randomUUID().toString();
+            this.endpoint = endpoint;
+            this.account = account;
+            this.spaceName = spaceName;
+            this.name = name;
+            this.withProject = withProject;
+            this.projectName = projectName;
+            this.payload = payload;
+            this.run = run;
+            this.enqueuedAt = System.currentTimeMillis();
+        }
+
+        String groupKey() {
+            return String.join("|", endpoint, account, String.valueOf(spaceName), name);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getSpaceName() {
+            return spaceName;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getRun() {
+            return run;
+        }
+
+        public long getEnqueuedAt() {
+            return enqueuedAt;
+        }
+
+        public Date getEnqueuedDate() {
+            return new Date(enqueuedAt);
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public String getLastError() {
+            return lastError;
+        }
+    }
+}
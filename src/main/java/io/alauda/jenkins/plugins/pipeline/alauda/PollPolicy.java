@@ -0,0 +1,110 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Describes how often a status wait polls the Alauda API.
+ * <p>
+ * Polling starts fast, backs off exponentially with jitter up to a cap, and goes back to the fast interval
+ * whenever the watched resource moves to a new phase. Each wait gets its own {@link Schedule} with a deadline.
+ */
+public class PollPolicy implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final PollPolicy BUILD = new PollPolicy(0, 2000, 30000, 1.5, 0.2);
+    public static final PollPolicy SERVICE = new PollPolicy(0, 2000, 20000, 1.5, 0.2);
+    // wait 2s for update component start
+    public static final PollPolicy COMPONENT = new PollPolicy(2000, 2000, 15000, 1.5, 0.2);
+
+    private final long initialDelayMillis;
+    private final long intervalMillis;
+    private final long maxIntervalMillis;
+    private final double multiplier;
+    private final double jitter;
+
+    public PollPolicy(long initialDelayMillis, long intervalMillis, long maxIntervalMillis, double multiplier, double jitter) {
+        if (intervalMillis <= 0 || maxIntervalMillis < intervalMillis) {
+            throw new IllegalArgumentException("interval should be positive and not bigger than max interval");
+        }
+        if (multiplier < 1 || jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("multiplier should be at least 1 and jitter should be in [0, 1)");
+        }
+        this.initialDelayMillis = initialDelayMillis;
+        this.intervalMillis = intervalMillis;
+        this.maxIntervalMillis = maxIntervalMillis;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+    }
+
+    public Schedule start(long timeoutMillis) {
+        return new Schedule(System.currentTimeMillis() + timeoutMillis);
+    }
+
+    // region Getter
+    public long getInitialDelayMillis() {
+        return initialDelayMillis;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public long getMaxIntervalMillis() {
+        return maxIntervalMillis;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+    // endregion
+
+    public class Schedule {
+        private final long deadline;
+        private long current = intervalMillis;
+        private Object phase;
+
+        private Schedule(long deadline) {
+            this.deadline = deadline;
+        }
+
+        public long getInitialDelayMillis() {
+            return initialDelayMillis;
+        }
+
+        public synchronized long nextDelayMillis() {
+            long delay = current;
+            current = Math.min(maxIntervalMillis, (long) (current * multiplier));
+            if (jitter > 0) {
+                delay = (long) (delay * (1 + jitter * (ThreadLocalRandom.current().nextDouble() * 2 - 1)));
+            }
+            return Math.max(0, Math.min(delay, getRemainingMillis()));
+        }
+
+        /**
+         * Tightens polling again when the status of the watched resource changed since the last call.
+         */
+        public synchronized void onPhase(Object phase) {
+            if (this.phase != null && !this.phase.equals(phase)) {
+                current = intervalMillis;
+            }
+            this.phase = phase;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public long getRemainingMillis() {
+            return Math.max(0, deadline - System.currentTimeMillis());
+        }
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() > deadline;
+        }
+    }
+}
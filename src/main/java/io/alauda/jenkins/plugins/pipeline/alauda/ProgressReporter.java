@@ -0,0 +1,121 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Progress of a status wait on the console of a run, printed when the status changes instead of on every poll.
+ * <p>
+ * The same status seen again is only counted, and printed with its count ("Running ×37") every
+ * {@code ProgressReporter.heartbeatSeconds} (60) while it lasts. Errors are coalesced the same way.
+ * Consoles are not flushed for every line: the ones written to are flushed together by {@link AlaudaScheduler} every
+ * {@code ProgressReporter.flushMillis} (2000), and right away when the wait finishes.
+ */
+public final class ProgressReporter {
+    private static final long HEARTBEAT_MILLIS = TimeUnit.SECONDS.toMillis(
+            Long.getLong(ProgressReporter.class.getName() + ".heartbeatSeconds", 60));
+    private static final long FLUSH_MILLIS = Long.getLong(ProgressReporter.class.getName() + ".flushMillis", 2000);
+
+    private static final Set<PrintStream> DIRTY = ConcurrentHashMap.newKeySet();
+    private static volatile boolean flushing;
+
+    private final PrintStream out;
+    private final String label;
+
+    private int polls;
+    private String last;
+    private boolean lastError;
+    private int seen;
+    private long printedAt;
+
+    /**
+     * @param label what is reported, e.g. "Get service status"
+     */
+    public ProgressReporter(PrintStream out, String label) {
+        this.out = out;
+        this.label = label;
+    }
+
+    public synchronized void status(String status) {
+        report(String.valueOf(status), false);
+    }
+
+    /**
+     * Reports an error the wait goes on after.
+     */
+    public synchronized void error(String message) {
+        report(String.valueOf(message), true);
+    }
+
+    /**
+     * Prints a line at once, e.g. the final outcome of the wait.
+     */
+    public synchronized void println(String line) {
+        out.println(line);
+        written();
+    }
+
+    /**
+     * Flushes the console, the wait is over.
+     */
+    public synchronized void finish() {
+        DIRTY.remove(out);
+        out.flush();
+    }
+
+    /**
+     * @return statuses and errors reported so far
+     */
+    public synchronized int getPolls() {
+        return polls;
+    }
+
+    private void report(String value, boolean error) {
+        polls++;
+        long now = System.currentTimeMillis();
+        if (value.equals(last) && error == lastError) {
+            seen++;
+            if (now - printedAt < HEARTBEAT_MILLIS) {
+                return;
+            }
+        } else {
+            last = value;
+            lastError = error;
+            seen = 1;
+        }
+        String count = seen > 1 ? " ×" + seen : "";
+        if (error) {
+            out.printf("%d. %s error %s%s, will try again%n", polls, label, value, count);
+        } else {
+            out.printf("%d. %s: %s%s%n", polls, label, value, count);
+        }
+        printedAt = now;
+        written();
+    }
+
+    private void written() {
+        DIRTY.add(out);
+        if (flushing) {
+            return;
+        }
+        synchronized (ProgressReporter.class) {
+            if (flushing) {
+                return;
+            }
+            flushing = true;
+            AlaudaScheduler.get().scheduleWithFixedDelay(ProgressReporter::flushAll, FLUSH_MILLIS, FLUSH_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    static void flushAll() {
+        for (Iterator<PrintStream> it = DIRTY.iterator(); it.hasNext(); ) {
+            PrintStream stream = it.next();
+            it.remove();
+            stream.flush();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Controller-wide limit on the calls made to the Alauda API.
+ * <p>
+ * There is a token bucket per API endpoint and {@link Family}. Mutating calls and reads that find the bucket empty
+ * wait in line, mutating calls first, on the calling thread for up to {@code RateLimiter.maxWaitSeconds}, so that a
+ * burst of pipelines is slowed down instead of failing on the API side. They are only made from step threads and
+ * {@link AlaudaScheduler#io()}, never from scheduler threads.
+ * Status polls never wait: when no token is free, or higher priority calls are waiting, they are deferred
+ * to a later tick of {@link StatusPoller}, which fails the waits whose deadline passed meanwhile.
+ * <p>
+ * Limits are set per family with the system properties {@code RateLimiter.<family>.permitsPerSecond} and
+ * {@code RateLimiter.<family>.burst}, e.g. {@code RateLimiter.build.permitsPerSecond=5}.
+ * A call waiting longer than {@code RateLimiter.maxWaitSeconds} is rejected.
+ */
+public final class RateLimiter {
+    private static final Logger LOGGER = Logger.getLogger(RateLimiter.class.getName());
+    private static final String PREFIX = RateLimiter.class.getName();
+    private static final long MAX_WAIT_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong(PREFIX + ".maxWaitSeconds", 300));
+    private static final RateLimiter INSTANCE = new RateLimiter();
+
+    public enum Family {
+        BUILD(5, 10),
+        SERVICE(10, 20),
+        COMPONENT(10, 20),
+        NOTIFICATION(5, 10),
+        INTEGRATION(5, 10);
+
+        private final double permitsPerSecond;
+        private final int burst;
+
+        Family(double permitsPerSecond, int burst) {
+            String name = name().toLowerCase(Locale.ENGLISH);
+            String rate = System.getProperty(PREFIX + "." + name + ".permitsPerSecond");
+            this.permitsPerSecond = rate == null ? permitsPerSecond : Double.parseDouble(rate);
+            this.burst = Integer.getInteger(PREFIX + "." + name + ".burst", burst);
+        }
+
+        public double getPermitsPerSecond() {
+            return permitsPerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+    }
+
+    /**
+     * In order of precedence.
+     */
+    public enum Priority {
+        /**
+         * Calls that change something: start a build, update a service or a component.
+         */
+        MUTATE,
+        /**
+         * Reads the pipeline needs to go on.
+         */
+        READ,
+        /**
+         * Status polls, never wait.
+         */
+        POLL
+    }
+
+    public interface IOCallable<T> {
+        T call() throws IOException;
+    }
+
+    /**
+     * Thrown when a call is not made: a status poll is deferred, or a call waited longer than allowed
+     * for a token or for an open {@link CircuitBreaker}.
+     */
+    public static class RateLimitedException extends IOException {
+        private final boolean deferred;
+
+        RateLimitedException(String message, boolean deferred) {
+            super(message);
+            this.deferred = deferred;
+        }
+
+        /**
+         * @return true when the call was a status poll that should simply be made again later
+         */
+        public boolean isDeferred() {
+            return deferred;
+        }
+    }
+
+    private final Map<List<Object>, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Map<List<Object>, Stats> stats = new ConcurrentHashMap<>();
+
+    private RateLimiter() {
+    }
+
+    public static RateLimiter get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Makes the call once the bucket of the endpoint and family grants it.
+     */
+    public <T> T call(String endpoint, Family family, Priority priority, IOCallable<T> call) throws IOException {
+        acquire(endpoint, family, priority);
+        return call.call();
+    }
+
+    void acquire(String endpoint, Family family, Priority priority) throws IOException {
+        Bucket bucket = buckets.computeIfAbsent(Arrays.asList(endpoint, family), k -> new Bucket(family));
+        Stats s = stats.computeIfAbsent(Arrays.asList(family, priority), k -> new Stats());
+
+        if (priority == Priority.POLL) {
+            if (!bucket.tryAcquire()) {
+                s.deferred.incrementAndGet();
+                throw new RateLimitedException(String.format("Alauda %s API is busy, status poll deferred", family), true);
+            }
+            s.granted.incrementAndGet();
+            return;
+        }
+
+        long started = System.nanoTime();
+        try {
+            if (!bucket.acquire(priority, MAX_WAIT_MILLIS)) {
+                s.rejected.incrementAndGet();
+                throw new RateLimitedException(String.format("Alauda %s API is busy, waited more than %d seconds",
+                        family, TimeUnit.MILLISECONDS.toSeconds(MAX_WAIT_MILLIS)), false);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the Alauda API rate limit");
+        }
+        long waited = System.nanoTime() - started;
+        s.granted.incrementAndGet();
+        s.record(waited);
+        if (waited > TimeUnit.SECONDS.toNanos(1)) {
+            LOGGER.log(Level.FINE, "{0} {1} call to {2} waited {3} ms for the rate limit",
+                    new Object[]{priority, family, endpoint, TimeUnit.NANOSECONDS.toMillis(waited)});
+        }
+    }
+
+    // region Statistics
+
+    /**
+     * @return calls currently waiting for a token, on every endpoint
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Bucket bucket : buckets.values()) {
+            depth += bucket.waiting();
+        }
+        return depth;
+    }
+
+    /**
+     * @return counters keyed by "family/priority", e.g. "BUILD/MUTATE"
+     */
+    public Map<String, Stats> getStats() {
+        Map<String, Stats> snapshot = new TreeMap<>();
+        for (Map.Entry<List<Object>, Stats> entry : stats.entrySet()) {
+            snapshot.put(entry.getKey().get(0) + "/" + entry.getKey().get(1), entry.getValue());
+        }
+        return snapshot;
+    }
+
+    public static final class Stats {
+        private final AtomicLong granted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong deferred = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        private void record(long waited) {
+            waitNanos.addAndGet(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+        }
+
+        public long getGranted() {
+            return granted.get();
+        }
+
+        public long getRejected() {
+            return rejected.get();
+        }
+
+        public long getDeferred() {
+            return deferred.get();
+        }
+
+        public long getTotalWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(waitNanos.get());
+        }
+
+        public long getMaxWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+        }
+    }
+    // endregion
+
+    /**
+     * Token bucket with a line of waiters ordered by priority, then by arrival.
+     */
+    private static final class Bucket {
+        private final double permitsPerNano;
+        private final int burst;
+
+        // guarded by this
+        private double tokens;
+        private long refilled = System.nanoTime();
+        private long sequence;
+        private final PriorityQueue<Waiter> line = new PriorityQueue<>();
+
+        private Bucket(Family family) {
+            this.permitsPerNano = family.getPermitsPerSecond() / TimeUnit.SECONDS.toNanos(1);
+            this.burst = Math.max(1, family.getBurst());
+            this.tokens = this.burst;
+        }
+
+        synchronized boolean tryAcquire() {
+            refill();
+            if (line.isEmpty() && tokens >= 1) {
+                tokens--;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized boolean acquire(Priority priority, long maxWaitMillis) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+            Waiter me = new Waiter(priority, sequence++);
+            line.add(me);
+            try {
+                while (true) {
+                    refill();
+                    if (line.peek() == me && tokens >= 1) {
+                        tokens--;
+                        return true;
+                    }
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0) {
+                        return false;
+                    }
+                    long wait = line.peek() == me ? (long) Math.ceil((1 - tokens) / permitsPerNano) : left;
+                    TimeUnit.NANOSECONDS.timedWait(this, Math.max(1, Math.min(wait, left)));
+                }
+            } finally {
+                line.remove(me);
+                notifyAll();
+            }
+        }
+
+        synchronized int waiting() {
+            return line.size();
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - refilled) * permitsPerNano);
+            refilled = now;
+        }
+    }
+
+    private static final class Waiter implements Comparable<Waiter> {
+        private final Priority priority;
+        private final long sequence;
+
+        private Waiter(Priority priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Waiter o) {
+            int c = priority.compareTo(o.priority);
+            return c != 0 ? c : Long.compare(sequence, o.sequence);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import io.alauda.jenkins.plugins.pipeline.utils.JsonMappers;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded read-through cache in front of the service, component and integration lookups.
+ * <p>
+ * Entries expire after a per-resource TTL and are dropped when the plugin changes the same resource.
+ * Callers own the objects they get: values are copied when they are stored and when they are returned,
+ * because the DSL merges its changes into the retrieved details.
+ * The Alauda client does not expose response headers, so entries are not revalidated with ETags.
+ */
+public final class ResponseCache {
+    private static final Logger LOGGER = Logger.getLogger(ResponseCache.class.getName());
+    private static final int MAX_ENTRIES = Integer.getInteger(ResponseCache.class.getName() + ".maxEntries", 512);
+    private static final ResponseCache INSTANCE = new ResponseCache();
+
+    public enum Resource {
+        SERVICE(10),
+        COMPONENT(10),
+        INTEGRATION(300);
+
+        private final long ttlMillis;
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+
+        Resource(long defaultTtlSeconds) {
+            long seconds = Long.getLong(ResponseCache.class.getName() + "." + name().toLowerCase() + "TtlSeconds", defaultTtlSeconds);
+            this.ttlMillis = TimeUnit.SECONDS.toMillis(seconds);
+        }
+
+        public long getTtlMillis() {
+            return ttlMillis;
+        }
+
+        public long getHits() {
+            return hits.get();
+        }
+
+        public long getMisses() {
+            return misses.get();
+        }
+    }
+
+    public interface Loader<T> {
+        T load() throws IOException;
+    }
+
+    // guarded by this
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private ResponseCache() {
+    }
+
+    public static ResponseCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a copy of the cached value, or loads, stores and returns it. Null values are never cached.
+     *
+     * @param scope identifies the client, so different endpoints and accounts never share entries
+     * @param idOf  id of the resource in the value, used to drop lookups by name when the resource changes
+     */
+    public <T> T lookup(Resource resource, String scope, String key, Class<T> type, Loader<T> loader, Function<T, String> idOf)
+            throws IOException {
+        String cacheKey = resource + "|" + scope + "|" + key;
+        long now = System.currentTimeMillis();
+        Entry cached;
+        synchronized (this) {
+            cached = entries.get(cacheKey);
+            if (cached != null && cached.expiresAt < now) {
+                entries.remove(cacheKey);
+                cached = null;
+            }
+        }
+        if (cached != null) {
+            T copy = copy(cached.value, type);
+            if (copy != null) {
+                resource.hits.incrementAndGet();
+                return copy;
+            }
+        }
+
+        resource.misses.incrementAndGet();
+        T value = loader.load();
+        if (value != null && resource.ttlMillis > 0) {
+            T stored = copy(value, type);
+            if (stored != null) {
+                synchronized (this) {
+                    entries.put(cacheKey, new Entry(resource, scope, idOf.apply(value), stored, now + resource.ttlMillis));
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Drops every entry of the resource with the given id, whether it was looked up by id or by name.
+     */
+    public synchronized void invalidate(Resource resource, String scope, String id) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (e.resource == resource && e.scope.equals(scope) && Objects.equals(e.id, id)) {
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void invalidateAll(Resource resource, String scope) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (e.resource == resource && e.scope.equals(scope)) {
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private <T> T copy(Object value, Class<T> type) {
+        try {
+            return JsonMappers.convert(value, type);
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.FINE, "Cannot copy " + type.getName() + ", it will not be cached", e);
+            return null;
+        }
+    }
+
+    private static final class Entry {
+        private final Resource resource;
+        private final String scope;
+        private final String id;
+        private final Object value;
+        private final long expiresAt;
+
+        private Entry(Resource resource, String scope, String id, Object value, long expiresAt) {
+            this.resource = resource;
+            this.scope = scope;
+            this.id = id;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Waits for the operation of a {@link WaitRecord} without holding a thread, and finishes it the way the blocking
+ * step would: a failed service update, or multi-component deploy, is rolled back when asked, a failed build is
+ * reported with its URL.
+ * Starting from a record restored after a restart is the same as starting right after the operation was sent.
+ * The wait is finished on {@link AlaudaScheduler#steps()}, never on the poller or scheduler thread that ended it,
+ * as finishing it calls the Alauda API.
+ */
+public final class ResumableWait {
+
+    public interface Listener {
+        /**
+         * The wait moved on to a new record, e.g. the rollback of a failed update. It should be saved.
+         */
+        void onRecord(WaitRecord record);
+
+        void onSuccess(Object result);
+
+        void onFailure(Throwable cause);
+    }
+
+    private final Alauda alauda;
+    private final Listener listener;
+
+    private volatile boolean cancelled;
+    private volatile StatusPoller.Subscription subscription;
+    private volatile BuildWatcher watcher;
+    private volatile BuildGroup group;
+    private volatile Alauda.ComponentsWait components;
+    private volatile ScheduledFuture<?> timer;
+
+    private ResumableWait(Alauda alauda, Listener listener) {
+        this.alauda = alauda;
+        this.listener = listener;
+    }
+
+    public static ResumableWait start(Alauda alauda, WaitRecord record, Listener listener) {
+        ResumableWait wait = new ResumableWait(alauda, listener);
+        wait.watch(record);
+        return wait;
+    }
+
+    public void cancel() {
+        cancelled = true;
+        release();
+    }
+
+    private void release() {
+        StatusPoller.Subscription s = subscription;
+        if (s != null) {
+            s.cancel();
+        }
+        BuildWatcher w = watcher;
+        if (w != null) {
+            w.stop();
+        }
+        BuildGroup g = group;
+        if (g != null) {
+            g.stop();
+        }
+        Alauda.ComponentsWait c = components;
+        if (c != null) {
+            c.cancel();
+        }
+        ScheduledFuture<?> t = timer;
+        if (t != null) {
+            t.cancel(false);
+        }
+    }
+
+    private void watch(WaitRecord record) {
+        if (cancelled) {
+            return;
+        }
+        if (record.getKind() == WaitRecord.Kind.BUILD) {
+            watchBuild(record);
+            return;
+        }
+        if (record.getKind() == WaitRecord.Kind.BUILDS) {
+            watchBuilds(record);
+            return;
+        }
+        if (record.getKind() == WaitRecord.Kind.COMPONENTS || record.getKind() == WaitRecord.Kind.COMPONENTS_ROLLBACK) {
+            watchComponents(record);
+            return;
+        }
+
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        long remaining = record.getDeadline() - System.currentTimeMillis();
+        timer = AlaudaScheduler.get().schedule(() -> result.completeExceptionally(new TimeoutException()),
+                Math.max(0, remaining), TimeUnit.MILLISECONDS);
+        if (record.getKind() == WaitRecord.Kind.COMPONENT) {
+            subscription = alauda.watchComponent(record.getClusterName(), record.getNamespace(), record.getApplicationName(),
+                    record.getResourceType(), record.getId(), record.getDeadline(), result);
+        } else {
+            subscription = alauda.watchService(record.getId(), record.getDeadline(), result);
+        }
+        result.whenCompleteAsync((succeed, error) -> {
+            release();
+            if (cancelled) {
+                return;
+            }
+            alauda.timelineWaited(record, Boolean.TRUE.equals(succeed), error);
+            try {
+                if (error instanceof TimeoutException) {
+                    alauda.logger.printf("Timeout, more than %d seconds!", record.getTimeout());
+                    listener.onFailure(new InterruptedException(String.format("Timeout, more than %d seconds!", record.getTimeout())));
+                } else if (error != null) {
+                    listener.onFailure(error);
+                } else {
+                    finish(record, succeed);
+                }
+            } catch (Throwable t) {
+                listener.onFailure(t);
+            }
+        }, AlaudaScheduler.steps());
+    }
+
+    private void finish(WaitRecord record, boolean succeed) throws Exception {
+        String id = record.getId();
+        switch (record.getKind()) {
+            case COMPONENT:
+                if (succeed) {
+                    listener.onSuccess(id);
+                } else {
+                    listener.onFailure(alauda.componentFailed(id));
+                }
+                break;
+            case SERVICE_CREATE:
+                if (succeed) {
+                    listener.onSuccess(id);
+                } else {
+                    listener.onFailure(alauda.serviceFailed("createService", id, false));
+                }
+                break;
+            case SERVICE_UPDATE:
+                if (succeed) {
+                    listener.onSuccess(id);
+                } else if (record.isRollback()) {
+                    alauda.startServiceRollback(id);
+                    WaitRecord rollback = record.rollingBack();
+                    listener.onRecord(rollback);
+                    watch(rollback);
+                } else {
+                    listener.onFailure(alauda.serviceFailed("updateService", id, false));
+                }
+                break;
+            case SERVICE_ROLLBACK:
+                alauda.printRollbackResult(succeed);
+                listener.onFailure(alauda.serviceFailed("updateService", id, true));
+                break;
+            default:
+                throw new IllegalStateException("Unexpected wait " + record);
+        }
+    }
+
+    private void watchComponents(WaitRecord record) {
+        Alauda.ComponentsWait wait = alauda.watchComponents(record.getClusterName(), record.getNamespace(), record.getComponents(),
+                record.getDeadline());
+        components = wait;
+        timer = AlaudaScheduler.get().schedule(wait::expire, Math.max(0, record.getDeadline() - System.currentTimeMillis()),
+                TimeUnit.MILLISECONDS);
+        wait.result.whenCompleteAsync((statuses, error) -> {
+            release();
+            if (cancelled) {
+                return;
+            }
+            try {
+                if (error != null) {
+                    listener.onFailure(error);
+                } else {
+                    finishComponents(record, statuses);
+                }
+            } catch (Throwable t) {
+                listener.onFailure(t);
+            }
+        }, AlaudaScheduler.steps());
+    }
+
+    private void finishComponents(WaitRecord record, Map<String, String> statuses) throws Exception {
+        if (record.getKind() == WaitRecord.Kind.COMPONENTS_ROLLBACK) {
+            alauda.printComponents("rollback component", statuses);
+            listener.onFailure(alauda.componentsFailed(record.getResults(), true));
+            return;
+        }
+
+        Map<String, String> results = new LinkedHashMap<>(record.getResults());
+        results.putAll(statuses);
+        alauda.printComponents("Component", results);
+        if (!Alauda.hasFailedComponents(results)) {
+            listener.onSuccess(results);
+            return;
+        }
+        if (!record.isRollback()) {
+            listener.onFailure(alauda.componentsFailed(results, false));
+            return;
+        }
+        if (record.getPrevious().isEmpty()) {
+            alauda.logger.println("components are not rolled back, no spec to roll back to was retrieved or kept over a restart of Jenkins");
+            listener.onFailure(alauda.componentsFailed(results, false));
+            return;
+        }
+        List<ComponentUpdate> rolling = alauda.startComponentsRollback(record.getClusterName(), record.getNamespace(),
+                record.getComponents(), record.getPrevious(), record.getParallelism());
+        WaitRecord rollback = record.rollingBack(rolling, results);
+        listener.onRecord(rollback);
+        watch(rollback);
+    }
+
+    private void watchBuilds(WaitRecord record) {
+        String spaceName = record.getSpaceName();
+        group = alauda.watchBuilds(spaceName, record.getBuilds(), record.getTimeout(), record.getDeadline(), record.isFailFast(),
+                results -> later(() -> {
+                    if (cancelled) {
+                        return;
+                    }
+                    try {
+                        listener.onSuccess(alauda.completeBuilds(spaceName, results, record.isIgnoreBuildResult()));
+                    } catch (Throwable t) {
+                        listener.onFailure(t);
+                    }
+                }));
+    }
+
+    private void watchBuild(WaitRecord record) {
+        String spaceName = record.getSpaceName();
+        String buildConfigName = record.getBuildConfigName();
+        String buildID = record.getId();
+        String commitID = record.getIndexedCommitID();
+        if (commitID != null) {
+            alauda.buildResumed(spaceName, buildConfigName, commitID, buildID);
+        }
+        alauda.setFollowBuildLogs(record.isFollowLogs());
+        watcher = alauda.watchBuild(spaceName, buildConfigName, buildID, record.getTimeout(), record.getDeadline(),
+                new BuildWatcher.Callback() {
+                    @Override
+                    public void onCompleted(boolean succeed) {
+                        later(() -> {
+                            if (commitID != null) {
+                                alauda.buildFinished(spaceName, buildConfigName, commitID, buildID, succeed);
+                            }
+                            try {
+                                listener.onSuccess(alauda.completeBuild(spaceName, buildConfigName, buildID, succeed, record.isIgnoreBuildResult()));
+                            } catch (Throwable t) {
+                                listener.onFailure(t);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onFailure(Throwable failure) {
+                        later(() -> {
+                            Throwable cause = failure;
+                            if (commitID != null) {
+                                alauda.buildFinished(spaceName, buildConfigName, commitID, buildID, false);
+                            }
+                            if (cause instanceof TimeoutException || cause instanceof Alauda.InvalidDataException) {
+                                try {
+                                    cause = alauda.buildAborted(spaceName, buildConfigName, buildID, (Exception) cause);
+                                } catch (Throwable t) {
+                                    cause = t;
+                                }
+                            }
+                            listener.onFailure(cause);
+                        });
+                    }
+                });
+    }
+
+    private void later(Runnable finish) {
+        try {
+            AlaudaScheduler.steps().execute(finish);
+        } catch (RejectedExecutionException e) {
+            listener.onFailure(e);
+        }
+    }
+}
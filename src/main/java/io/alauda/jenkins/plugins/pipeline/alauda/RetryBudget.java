@@ -0,0 +1,61 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Controller-wide cap on retried Alauda API calls.
+ * <p>
+ * Every call that reaches the API adds {@code RetryBudget.ratio} of a retry to the budget, up to
+ * {@code RetryBudget.max}, and every retry spends one. When the API is failing for everybody, retries stop
+ * on their own instead of multiplying the load.
+ */
+public final class RetryBudget {
+    private static final String PREFIX = RetryBudget.class.getName();
+    private static final double RATIO = Double.parseDouble(System.getProperty(PREFIX + ".ratio", "0.1"));
+    private static final double MAX = Double.parseDouble(System.getProperty(PREFIX + ".max", "50"));
+    private static final RetryBudget INSTANCE = new RetryBudget();
+
+    // guarded by this
+    private double balance = MAX / 5;
+
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+
+    private RetryBudget() {
+    }
+
+    public static RetryBudget get() {
+        return INSTANCE;
+    }
+
+    synchronized void onCall() {
+        balance = Math.min(MAX, balance + RATIO);
+    }
+
+    /**
+     * @return true when a retry may be made, it is then paid for
+     */
+    synchronized boolean tryRetry() {
+        if (balance >= 1) {
+            balance--;
+            retried.incrementAndGet();
+            return true;
+        }
+        exhausted.incrementAndGet();
+        return false;
+    }
+
+    // region Statistics
+    public synchronized double getBalance() {
+        return balance;
+    }
+
+    public long getRetriedCount() {
+        return retried.get();
+    }
+
+    public long getExhaustedCount() {
+        return exhausted.get();
+    }
+    // endregion
+}
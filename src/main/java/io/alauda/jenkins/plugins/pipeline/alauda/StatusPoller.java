@@ -0,0 +1,346 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Controller-wide registry of status waits.
+ * <p>
+ * Every waiter subscribes with the key of the resource it is waiting for (a build, a service or an application).
+ * A single ticker fetches each distinct resource that is due at most once per tick and fans the result out
+ * to all of its subscribers, so overlapping waits share one request stream to the Alauda API.
+ * <p>
+ * The ticker only hands the due resources over to {@link AlaudaScheduler#io()}, a resource whose fetch is still
+ * running is skipped until it completes, so a slow API never holds the scheduler threads.
+ */
+public final class StatusPoller {
+    private static final Logger LOGGER = Logger.getLogger(StatusPoller.class.getName());
+    private static final long TICK_MILLIS = Long.getLong(StatusPoller.class.getName() + ".tickMillis", 1000);
+    private static final StatusPoller INSTANCE = new StatusPoller();
+
+    public interface StatusListener<T> {
+        /**
+         * @return true when the wait is over and no further status is wanted
+         */
+        boolean onStatus(T status);
+
+        /**
+         * @return true when the wait is over and no further status is wanted
+         */
+        boolean onError(Exception error);
+
+        /**
+         * The listener threw from {@link #onStatus} or {@link #onError}, the wait is over and should fail with the cause.
+         */
+        void onListenerFailure(Throwable cause);
+    }
+
+    // guarded by this
+    private final Map<String, List<Subscription>> subscriptions = new HashMap<>();
+    // keys whose fetch is running
+    private final Set<String> inFlight = new HashSet<>();
+    private ScheduledFuture<?> ticker;
+
+    private final AtomicLong tickCount = new AtomicLong();
+    private final AtomicLong fetchCount = new AtomicLong();
+    private final AtomicLong deliveryCount = new AtomicLong();
+    private final AtomicLong deferredCount = new AtomicLong();
+    private volatile long lastPollNanos;
+    private volatile long maxPollNanos;
+
+    private StatusPoller() {
+    }
+
+    public static StatusPoller get() {
+        return INSTANCE;
+    }
+
+    public static String buildKey(String endpoint, String account, String buildID) {
+        return String.format("%s|%s|build|%s", endpoint, account, buildID);
+    }
+
+    public static String serviceKey(String endpoint, String account, String serviceID) {
+        return String.format("%s|%s|service|%s", endpoint, account, serviceID);
+    }
+
+    public static String applicationKey(String endpoint, String account, String clusterName, String namespace, String applicationName) {
+        return String.format("%s|%s|application|%s/%s/%s", endpoint, account, clusterName, namespace, applicationName);
+    }
+
+    /**
+     * Registers a wait. The fetcher is only used when this subscription is the first due one for its key in a tick,
+     * the schedule decides when the subscription is due again.
+     */
+    public synchronized <T> Subscription subscribe(String key, Callable<? extends T> fetcher, StatusListener<? super T> listener,
+                                                   PollPolicy.Schedule schedule) {
+        Subscription subscription = new Subscription(key, fetcher, listener, schedule,
+                System.currentTimeMillis() + schedule.getInitialDelayMillis());
+        subscriptions.computeIfAbsent(key, k -> new ArrayList<>()).add(subscription);
+        if (ticker == null) {
+            ticker = AlaudaScheduler.get().scheduleWithFixedDelay(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return subscription;
+    }
+
+    private synchronized void remove(Subscription subscription) {
+        List<Subscription> list = subscriptions.get(subscription.key);
+        if (list == null) {
+            return;
+        }
+        list.remove(subscription);
+        if (list.isEmpty()) {
+            subscriptions.remove(subscription.key);
+        }
+    }
+
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+
+            List<List<Subscription>> due = new ArrayList<>();
+            synchronized (this) {
+                for (Map.Entry<String, List<Subscription>> entry : subscriptions.entrySet()) {
+                    if (inFlight.contains(entry.getKey())) {
+                        continue;
+                    }
+                    List<Subscription> ready = null;
+                    for (Subscription s : entry.getValue()) {
+                        if (s.nextDue <= now) {
+                            if (ready == null) {
+                                ready = new ArrayList<>();
+                            }
+                            ready.add(s);
+                        }
+                    }
+                    if (ready != null) {
+                        inFlight.add(entry.getKey());
+                        due.add(ready);
+                    }
+                }
+            }
+
+            for (List<Subscription> ready : due) {
+                try {
+                    AlaudaScheduler.io().execute(() -> poll(ready));
+                } catch (RejectedExecutionException e) {
+                    released(ready);
+                    throw e;
+                }
+            }
+            tickCount.incrementAndGet();
+        } catch (Throwable t) {
+            LOGGER.log(Level.WARNING, "Alauda status poll tick failed", t);
+        } finally {
+            synchronized (this) {
+                if (subscriptions.isEmpty() && ticker != null) {
+                    ticker.cancel(false);
+                    ticker = null;
+                }
+            }
+        }
+    }
+
+    private void poll(List<Subscription> ready) {
+        long started = System.nanoTime();
+        try {
+            fetchAndDeliver(ready);
+        } catch (Throwable t) {
+            LOGGER.log(Level.WARNING, "Alauda status poll failed for " + ready.get(0).key, t);
+        } finally {
+            released(ready);
+            long elapsed = System.nanoTime() - started;
+            lastPollNanos = elapsed;
+            if (elapsed > maxPollNanos) {
+                maxPollNanos = elapsed;
+            }
+        }
+    }
+
+    private synchronized void released(List<Subscription> ready) {
+        inFlight.remove(ready.get(0).key);
+    }
+
+    private void fetchAndDeliver(List<Subscription> ready) {
+        Object status = null;
+        Exception error = null;
+        try {
+            fetchCount.incrementAndGet();
+            status = ready.get(0).fetcher.call();
+        } catch (RateLimiter.RateLimitedException e) {
+            if (e.isDeferred()) {
+                // the API is busy, ask again on the next tick without bothering the listeners,
+                // unless their deadline passed: they may never get a status otherwise
+                deferredCount.incrementAndGet();
+                List<Subscription> expired = new ArrayList<>();
+                long next = System.currentTimeMillis() + TICK_MILLIS;
+                for (Subscription s : ready) {
+                    if (s.schedule.isExpired()) {
+                        expired.add(s);
+                    } else {
+                        s.nextDue = next;
+                    }
+                }
+                if (!expired.isEmpty()) {
+                    deliver(expired, null, new TimeoutException("No status of " + ready.get(0).key
+                            + " before the deadline, the Alauda API is busy: " + e.getMessage()));
+                }
+                return;
+            }
+            error = e;
+        } catch (Exception e) {
+            error = e;
+        }
+        deliver(ready, status, error);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliver(List<Subscription> ready, Object status, Exception error) {
+        long now = System.currentTimeMillis();
+        for (Subscription s : ready) {
+            if (s.cancelled) {
+                continue;
+            }
+            boolean done;
+            try {
+                StatusListener<Object> listener = (StatusListener<Object>) s.listener;
+                done = error == null ? listener.onStatus(status) : listener.onError(error);
+            } catch (Throwable t) {
+                LOGGER.log(Level.WARNING, "Alauda status listener failed for " + s.key, t);
+                listenerFailed(s, t);
+                done = true;
+            }
+            deliveryCount.incrementAndGet();
+            s.polls++;
+            if (done) {
+                s.finish(now);
+            } else if (error instanceof TimeoutException) {
+                // the listener wants to go on after its deadline, there is nothing left to wait for
+                s.finish(now);
+            } else {
+                s.nextDue = now + s.schedule.nextDelayMillis();
+            }
+        }
+    }
+
+    private static void listenerFailed(Subscription s, Throwable cause) {
+        try {
+            s.listener.onListenerFailure(cause);
+        } catch (Throwable t) {
+            LOGGER.log(Level.WARNING, "Alauda status listener failed to end the wait for " + s.key, t);
+        }
+    }
+
+    /**
+     * @return the kind of resource of a key, e.g. "build"
+     */
+    static String kind(String key) {
+        String[] parts = key.split("\\|", 4);
+        return parts.length > 2 ? parts[2] : key;
+    }
+
+    // region Statistics
+
+    /**
+     * @return number of waits currently registered
+     */
+    public synchronized int getQueueDepth() {
+        int depth = 0;
+        for (List<Subscription> list : subscriptions.values()) {
+            depth += list.size();
+        }
+        return depth;
+    }
+
+    /**
+     * @return number of distinct resources currently polled
+     */
+    public synchronized int getResourceCount() {
+        return subscriptions.size();
+    }
+
+    public long getTickCount() {
+        return tickCount.get();
+    }
+
+    public long getFetchCount() {
+        return fetchCount.get();
+    }
+
+    public long getDeliveryCount() {
+        return deliveryCount.get();
+    }
+
+    /**
+     * @return fetches put off by {@link RateLimiter}
+     */
+    public long getDeferredCount() {
+        return deferredCount.get();
+    }
+
+    /**
+     * @return time the last poll of a resource took, fetch and delivery to its subscribers
+     */
+    public long getLastTickMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastPollNanos);
+    }
+
+    /**
+     * @return longest poll of a resource, fetch and delivery to its subscribers
+     */
+    public long getMaxTickMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxPollNanos);
+    }
+    // endregion
+
+    public final class Subscription {
+        private final String key;
+        private final Callable<?> fetcher;
+        private final StatusListener<?> listener;
+        private final PollPolicy.Schedule schedule;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile long nextDue;
+        private volatile boolean cancelled;
+        // only updated by the tick polling the subscription
+        private volatile int polls;
+
+        private Subscription(String key, Callable<?> fetcher, StatusListener<?> listener, PollPolicy.Schedule schedule, long nextDue) {
+            this.key = key;
+            this.fetcher = fetcher;
+            this.listener = listener;
+            this.schedule = schedule;
+            this.nextDue = nextDue;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                remove(this);
+                AlaudaMetrics.get().waitCancelled(kind(key));
+            }
+        }
+
+        private void finish(long now) {
+            if (!cancelled) {
+                cancelled = true;
+                remove(this);
+                AlaudaMetrics.get().waitFinished(kind(key), polls, now - createdAt);
+            }
+        }
+    }
+}
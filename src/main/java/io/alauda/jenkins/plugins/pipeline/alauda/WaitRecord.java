@@ -0,0 +1,270 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import io.alauda.model.ComponentDetails;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a step needs to pick up waiting for an Alauda operation it has already started, for instance after
+ * Jenkins restarted: the operation, its deadline and what to do when it fails. Payloads are not kept,
+ * the operation is never sent again.
+ */
+public class WaitRecord implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Kind {
+        BUILD, BUILDS, SERVICE_CREATE, SERVICE_UPDATE, SERVICE_ROLLBACK, COMPONENT, COMPONENTS, COMPONENTS_ROLLBACK
+    }
+
+    private final Kind kind;
+    // build ID, service ID or component name, build config names of a multi-build start
+    private final String id;
+    private final int timeout;
+    private final long deadline;
+    private boolean rollback;
+
+    // builds
+    private String spaceName;
+    private String buildConfigName;
+    private boolean ignoreBuildResult;
+    private boolean followLogs;
+    // commit the build is recorded for in the BuildIndex, null when it is not
+    private String indexedCommitID;
+
+    // multi-build starts, keyed by build config name
+    private LinkedHashMap<String, Map<String, String>> builds;
+    private boolean failFast;
+
+    // components
+    private String clusterName;
+    private String namespace;
+    private String applicationName;
+    private String resourceType;
+
+    // multi-component deploys: the components waited for, and the status of every component of the deploy
+    private ArrayList<ComponentUpdate> components;
+    private LinkedHashMap<String, String> results;
+    private int parallelism;
+    // specs to roll back to, not kept over a restart
+    private transient Map<String, ComponentDetails> previous;
+
+    private WaitRecord(Kind kind, String id, int timeout) {
+        this.kind = kind;
+        this.id = id;
+        this.timeout = timeout;
+        this.deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeout);
+    }
+
+    public static WaitRecord forBuild(String spaceName, String buildConfigName, String buildID, int timeout,
+                                      boolean ignoreBuildResult, boolean followLogs) {
+        WaitRecord record = new WaitRecord(Kind.BUILD, buildID, timeout);
+        record.spaceName = spaceName;
+        record.buildConfigName = buildConfigName;
+        record.ignoreBuildResult = ignoreBuildResult;
+        record.followLogs = followLogs;
+        return record;
+    }
+
+    /**
+     * @return this build record, with the build recorded in the {@link BuildIndex} for the commit once it is over
+     */
+    public WaitRecord indexedFor(String commitID) {
+        this.indexedCommitID = commitID;
+        return this;
+    }
+
+    /**
+     * @param builds buildID and start result of every build, keyed by build config name
+     */
+    public static WaitRecord forBuilds(String spaceName, Map<String, Map<String, String>> builds, int timeout,
+                                       boolean ignoreBuildResult, boolean failFast) {
+        WaitRecord record = new WaitRecord(Kind.BUILDS, String.join(", ", builds.keySet()), timeout);
+        record.spaceName = spaceName;
+        record.builds = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, String>> build : builds.entrySet()) {
+            record.builds.put(build.getKey(), new LinkedHashMap<>(build.getValue()));
+        }
+        record.ignoreBuildResult = ignoreBuildResult;
+        record.failFast = failFast;
+        return record;
+    }
+
+    public static WaitRecord forServiceCreate(String serviceID, int timeout) {
+        return new WaitRecord(Kind.SERVICE_CREATE, serviceID, timeout);
+    }
+
+    public static WaitRecord forServiceUpdate(String serviceID, int timeout, boolean rollback) {
+        WaitRecord record = new WaitRecord(Kind.SERVICE_UPDATE, serviceID, timeout);
+        record.rollback = rollback;
+        return record;
+    }
+
+    public static WaitRecord forComponent(String clusterName, String namespace, String applicationName, String resourceType,
+                                          String componentName, int timeout) {
+        WaitRecord record = new WaitRecord(Kind.COMPONENT, componentName, timeout);
+        record.clusterName = clusterName;
+        record.namespace = namespace;
+        record.applicationName = applicationName;
+        record.resourceType = resourceType;
+        return record;
+    }
+
+    /**
+     * @param components the updates that were sent
+     * @param results    status of every component of the deploy, see {@link Alauda#startComponents}
+     * @param previous   specs to roll back to, when {@code rollback} is set
+     */
+    public static WaitRecord forComponents(String clusterName, String namespace, List<ComponentUpdate> components,
+                                           Map<String, String> results, int timeout, boolean rollback, int parallelism,
+                                           Map<String, ComponentDetails> previous) {
+        WaitRecord record = new WaitRecord(Kind.COMPONENTS, keys(components), timeout);
+        record.clusterName = clusterName;
+        record.namespace = namespace;
+        record.components = new ArrayList<>(components);
+        record.results = new LinkedHashMap<>(results);
+        record.rollback = rollback;
+        record.parallelism = parallelism;
+        record.previous = previous;
+        return record;
+    }
+
+    /**
+     * @param rolling components whose rollback was sent
+     * @param results status of every component of the deploy that failed
+     * @return the record of the rollback started after this multi-component deploy failed
+     */
+    WaitRecord rollingBack(List<ComponentUpdate> rolling, Map<String, String> results) {
+        WaitRecord record = new WaitRecord(Kind.COMPONENTS_ROLLBACK, keys(rolling), timeout);
+        record.clusterName = clusterName;
+        record.namespace = namespace;
+        record.components = new ArrayList<>(rolling);
+        record.results = new LinkedHashMap<>(results);
+        return record;
+    }
+
+    private static String keys(List<ComponentUpdate> components) {
+        List<String> keys = new ArrayList<>();
+        for (ComponentUpdate component : components) {
+            keys.add(component.getKey());
+        }
+        return String.join(", ", keys);
+    }
+
+    /**
+     * @return the record of the rollback started after this service update failed, with a deadline of its own
+     */
+    WaitRecord rollingBack() {
+        return new WaitRecord(Kind.SERVICE_ROLLBACK, id, timeout);
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case BUILD:
+                return String.format("build %s of %s/%s", id, spaceName, buildConfigName);
+            case BUILDS:
+                return String.format("builds of %s/[%s]", spaceName, id);
+            case COMPONENT:
+                return String.format("component %s/%s/%s/%s", clusterName, namespace, applicationName, id);
+            case COMPONENTS:
+                return String.format("components %s/%s/[%s]", clusterName, namespace, id);
+            case COMPONENTS_ROLLBACK:
+                return String.format("rollback of components %s/%s/[%s]", clusterName, namespace, id);
+            case SERVICE_ROLLBACK:
+                return String.format("rollback of service %s", id);
+            default:
+                return String.format("service %s", id);
+        }
+    }
+
+    // region Getter
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public boolean isRollback() {
+        return rollback;
+    }
+
+    public String getSpaceName() {
+        return spaceName;
+    }
+
+    public String getBuildConfigName() {
+        return buildConfigName;
+    }
+
+    public boolean isIgnoreBuildResult() {
+        return ignoreBuildResult;
+    }
+
+    public boolean isFollowLogs() {
+        return followLogs;
+    }
+
+    public String getIndexedCommitID() {
+        return indexedCommitID;
+    }
+
+    public Map<String, Map<String, String>> getBuilds() {
+        return builds;
+    }
+
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    public String getClusterName() {
+        return clusterName;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public String getApplicationName() {
+        return applicationName;
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public List<ComponentUpdate> getComponents() {
+        return components;
+    }
+
+    public Map<String, String> getResults() {
+        return results;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return specs to roll back to, empty after a restart
+     */
+    public Map<String, ComponentDetails> getPrevious() {
+        return previous == null ? new HashMap<>() : previous;
+    }
+    // endregion
+}
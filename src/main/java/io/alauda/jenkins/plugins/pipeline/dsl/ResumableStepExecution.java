@@ -0,0 +1,239 @@
+package io.alauda.jenkins.plugins.pipeline.dsl;
+
+import hudson.AbortException;
+import hudson.Launcher;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import io.alauda.jenkins.plugins.pipeline.AlaudaConfiguration;
+import io.alauda.jenkins.plugins.pipeline.alauda.Alauda;
+import io.alauda.jenkins.plugins.pipeline.alauda.AlaudaScheduler;
+import io.alauda.jenkins.plugins.pipeline.alauda.IAlaudaConfig;
+import io.alauda.jenkins.plugins.pipeline.alauda.ResumableWait;
+import io.alauda.jenkins.plugins.pipeline.alauda.WaitRecord;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepExecutionImpl;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs a step that sends an operation to Alauda and then waits for it, in a way that survives a restart of Jenkins.
+ * <p>
+ * Once the operation is sent, only a {@link WaitRecord} and the Alauda settings of the step are kept with the
+ * execution. After a restart the wait carries on from the record, the operation is not sent again.
+ * No thread is held while waiting, see {@link ResumableWait}.
+ * <p>
+ * A step that waits for several operations may instead return a future of its result. Such a wait is not kept,
+ * after a restart the step fails as if it had been interrupted before the operation was confirmed.
+ */
+public abstract class ResumableStepExecution extends AbstractStepExecutionImpl {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(ResumableStepExecution.class.getName());
+
+    private Config config;
+    private volatile WaitRecord record;
+
+    private transient volatile Future<?> task;
+    private transient volatile CompletableFuture<?> pending;
+    private transient volatile ResumableWait wait;
+
+    /**
+     * @return the step being run
+     */
+    protected abstract IAlaudaConfig getStep();
+
+    /**
+     * Sends the operation, on {@link AlaudaScheduler#steps()}.
+     *
+     * @return the {@link WaitRecord} to wait for, a {@link CompletableFuture} of the result that does not survive a
+     * restart, or the result of the step when there is nothing to wait for
+     */
+    protected abstract Object begin(Alauda alauda) throws Exception;
+
+    @Override
+    public boolean start() throws Exception {
+        IAlaudaConfig step = getStep();
+        config = new Config(step);
+        Alauda alauda = newAlauda(step);
+        task = AlaudaScheduler.steps().submit(() -> {
+            try {
+                Object started = begin(alauda);
+                if (started instanceof CompletableFuture) {
+                    await((CompletableFuture<?>) started);
+                    return;
+                }
+                if (!(started instanceof WaitRecord)) {
+                    getContext().onSuccess(started);
+                    return;
+                }
+                record = (WaitRecord) started;
+                getContext().saveState();
+                follow(alauda);
+            } catch (Throwable t) {
+                getContext().onFailure(t);
+            }
+        });
+        return false;
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        WaitRecord r = record;
+        if (r == null) {
+            // the operation may or may not have reached Alauda, sending it again could deploy twice
+            getContext().onFailure(new AbortException("Jenkins restarted before the Alauda operation was confirmed, "
+                    + "check it in Alauda and run the step again if needed"));
+            return;
+        }
+        try {
+            Alauda alauda = newAlauda(config);
+            alauda.listener.getLogger().println("Resuming wait for " + r);
+            follow(alauda);
+        } catch (Throwable t) {
+            getContext().onFailure(t);
+        }
+    }
+
+    @Override
+    public void stop(@Nonnull Throwable cause) throws Exception {
+        ResumableWait w = wait;
+        if (w != null) {
+            w.cancel();
+        }
+        Future<?> t = task;
+        if (t != null) {
+            t.cancel(true);
+        }
+        CompletableFuture<?> p = pending;
+        if (p != null) {
+            p.cancel(true);
+        }
+        getContext().onFailure(cause);
+    }
+
+    private void await(CompletableFuture<?> result) {
+        pending = result;
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                // stopped, the context has already been told
+                return;
+            }
+            if (error != null) {
+                getContext().onFailure(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                getContext().onSuccess(value);
+            }
+        });
+    }
+
+    private void follow(Alauda alauda) {
+        wait = ResumableWait.start(alauda, record, new ResumableWait.Listener() {
+            @Override
+            public void onRecord(WaitRecord next) {
+                record = next;
+                getContext().saveState();
+            }
+
+            @Override
+            public void onSuccess(Object result) {
+                getContext().onSuccess(result);
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+                getContext().onFailure(cause);
+            }
+        });
+    }
+
+    private Alauda newAlauda(IAlaudaConfig config) throws IOException, InterruptedException {
+        TaskListener listener = getContext().get(TaskListener.class);
+        Run<?, ?> run = getContext().get(Run.class);
+        Launcher launcher = null;
+        try {
+            launcher = getContext().get(Launcher.class);
+        } catch (IOException e) {
+            // not needed to wait, and there may be no agent after a restart
+            LOGGER.log(Level.FINE, "No launcher for " + run, e);
+        }
+        return new Alauda(config).setJenkinsContext(run, launcher, listener);
+    }
+
+    /**
+     * Alauda settings of the step. The API token is not kept, the current one from the global configuration is used.
+     */
+    private static final class Config implements IAlaudaConfig, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String consoleURL;
+        private final String apiEndpoint;
+        private final String account;
+        private final String spaceName;
+        private final String clusterName;
+        private final String namespace;
+        private final String projectName;
+        private final boolean verbose;
+
+        private Config(IAlaudaConfig config) {
+            this.consoleURL = config.getConsoleURL();
+            this.apiEndpoint = config.getApiEndpoint();
+            this.account = config.getAccount();
+            this.spaceName = config.getSpaceName();
+            this.clusterName = config.getClusterName();
+            this.namespace = config.getNamespace();
+            this.projectName = config.getProjectName();
+            this.verbose = config.isVerbose();
+        }
+
+        @Override
+        public String getConsoleURL() {
+            return consoleURL;
+        }
+
+        @Override
+        public String getApiEndpoint() {
+            return apiEndpoint;
+        }
+
+        @Override
+        public String getApiToken() {
+            return AlaudaConfiguration.get().getApiToken();
+        }
+
+        @Override
+        public String getAccount() {
+            return account;
+        }
+
+        @Override
+        public String getSpaceName() {
+            return spaceName;
+        }
+
+        @Override
+        public String getClusterName() {
+            return clusterName;
+        }
+
+        @Override
+        public String getNamespace() {
+            return namespace;
+        }
+
+        @Override
+        public String getProjectName() {
+            return projectName;
+        }
+
+        @Override
+        public boolean isVerbose() {
+            return verbose;
+        }
+    }
+}
@@ -7,9 +7,11 @@ import hudson.model.*;
 import hudson.util.FormValidation;
 import io.alauda.jenkins.plugins.pipeline.AlaudaConfiguration;
 import io.alauda.jenkins.plugins.pipeline.alauda.Alauda;
+import io.alauda.jenkins.plugins.pipeline.alauda.BuildWatcher;
 import io.alauda.jenkins.plugins.pipeline.alauda.IAlaudaConfig;
 import io.alauda.jenkins.plugins.pipeline.dsl.AlaudaBaseStep;
 import io.alauda.jenkins.plugins.pipeline.dsl.build.AlaudaBuilderExecution;
+import io.alauda.jenkins.plugins.pipeline.utils.Converter;
 import io.alauda.jenkins.plugins.pipeline.utils.MissingJenkinsConfigException;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.workflow.steps.AbstractStepDescriptorImpl;
@@ -35,6 +37,9 @@ public class AlaudaBuilder extends AlaudaBaseStep {
     protected String branch;
     protected String commitID;
     protected Boolean ignoreBuildResult;
+    protected int timeout = BuildWatcher.DEFAULT_TIMEOUT_SECONDS;
+    protected boolean followLogs;
+    protected boolean reuseIfBuilt;
 
 
     @DataBoundConstructor
@@ -44,17 +49,19 @@ public class AlaudaBuilder extends AlaudaBaseStep {
     }
 
     public String toString() {
-        return String.format("alaudaBuild apiEndpoint:%s, namespace:%s, branch:%s, commitID:%s, async:%b",
-                this.getApiEndpoint(), this.getNamespace(), this.getBranch(), this.getCommitID(), this.getAsync());
+        return String.format("alaudaBuild apiEndpoint:%s, namespace:%s, branch:%s, commitID:%s, async:%b, timeout:%d",
+                this.getApiEndpoint(), this.getNamespace(), this.getBranch(), this.getCommitID(), this.getAsync(), this.getTimeout());
     }
 
     public Object doIt(@Nonnull Run<?, ?> run, @Nonnull Launcher launcher, @Nonnull TaskListener listener) throws InterruptedException, IOException {
         String buildID = new Alauda((IAlaudaConfig) this)
                 .setJenkinsContext(run, launcher, listener)
+                .setFollowBuildLogs(this.isFollowLogs())
+                .setReuseBuilds(this.isReuseIfBuilt())
                 .startBuild(
                         this.getSpaceName(), this.getBuildConfigName(),
                         this.getCommitID(), this.getBranch(), this.getAsync(),
-                        this.getIgnoreBuildResult());
+                        this.getIgnoreBuildResult(), this.getTimeout());
         return buildID;
     }
 
@@ -136,6 +143,19 @@ public class AlaudaBuilder extends AlaudaBaseStep {
                 }
             }
 
+            int timeout = Converter.getDataAsInt(arguments, "timeout", BuildWatcher.DEFAULT_TIMEOUT_SECONDS);
+            step.setTimeout(timeout);
+
+            if (arguments.containsKey("followLogs")) {
+                Object followLogs = arguments.get("followLogs");
+                step.setFollowLogs(followLogs != null && followLogs.toString().toLowerCase().equals("true"));
+            }
+
+            if (arguments.containsKey("reuseIfBuilt")) {
+                Object reuseIfBuilt = arguments.get("reuseIfBuilt");
+                step.setReuseIfBuilt(reuseIfBuilt != null && reuseIfBuilt.toString().toLowerCase().equals("true"));
+            }
+
             return step;
         }
 
@@ -165,6 +185,33 @@ public class AlaudaBuilder extends AlaudaBaseStep {
         this.ignoreBuildResult = ignoreBuildResult;
     }
 
+    public int getTimeout() {
+        return timeout;
+    }
+
+    @DataBoundSetter
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    public boolean isFollowLogs() {
+        return followLogs;
+    }
+
+    @DataBoundSetter
+    public void setFollowLogs(boolean followLogs) {
+        this.followLogs = followLogs;
+    }
+
+    public boolean isReuseIfBuilt() {
+        return reuseIfBuilt;
+    }
+
+    @DataBoundSetter
+    public void setReuseIfBuilt(boolean reuseIfBuilt) {
+        this.reuseIfBuilt = reuseIfBuilt;
+    }
+
     @CheckForNull
     public String getBuildConfigName() {
         return buildConfigName;
@@ -1,51 +1,59 @@
 package io.alauda.jenkins.plugins.pipeline.dsl.build;
 
-import hudson.EnvVars;
-import hudson.FilePath;
-import hudson.Launcher;
-import hudson.model.Computer;
-import hudson.model.Executor;
-import hudson.model.Run;
-import hudson.model.TaskListener;
-import io.alauda.jenkins.plugins.pipeline.dsl.build.AlaudaBuilder;
-import org.jenkinsci.plugins.workflow.steps.AbstractSynchronousNonBlockingStepExecution;
-import org.jenkinsci.plugins.workflow.steps.AbstractSynchronousStepExecution;
-import org.jenkinsci.plugins.workflow.steps.StepContextParameter;
+import io.alauda.jenkins.plugins.pipeline.alauda.Alauda;
+import io.alauda.jenkins.plugins.pipeline.alauda.AlaudaScheduler;
+import io.alauda.jenkins.plugins.pipeline.alauda.BuildWatcher;
+import io.alauda.jenkins.plugins.pipeline.alauda.IAlaudaConfig;
+import io.alauda.jenkins.plugins.pipeline.alauda.WaitRecord;
+import io.alauda.jenkins.plugins.pipeline.dsl.ResumableStepExecution;
 
 import javax.inject.Inject;
 
-public class AlaudaBuilderExecution extends AbstractSynchronousNonBlockingStepExecution<Object> {
+/**
+ * Runs alaudaStartBuild without occupying a thread while the build is running.
+ * The build is triggered on {@link AlaudaScheduler#steps()} and its status is checked by a {@link BuildWatcher};
+ * after a restart of Jenkins the step goes on waiting for the same build.
+ */
+public class AlaudaBuilderExecution extends ResumableStepExecution {
 
     private static final long serialVersionUID = 1L;
 
-    @StepContextParameter
-    private transient TaskListener listener;
-    @StepContextParameter
-    private transient Launcher launcher;
-    @StepContextParameter
-    private transient EnvVars envVars;
-    @StepContextParameter
-    private transient Run<?, ?> runObj;
-    @StepContextParameter
-    private transient FilePath filePath;
-    // included for future use
-    @StepContextParameter
-    private transient Executor executor;
-    // included for future use
-    @StepContextParameter
-    private transient Computer computer;
-
-    @StepContextParameter
-    private transient Run build;
-
     @Inject
     private transient AlaudaBuilder step;
 
     @Override
-    protected Object run() throws Exception{
-        listener.getLogger().println("Running alauda build");
-        return step.doIt(build, launcher, listener);
-
+    protected IAlaudaConfig getStep() {
+        return step;
     }
 
+    @Override
+    protected Object begin(Alauda alauda) throws Exception {
+        alauda.listener.getLogger().println("Running alauda build");
+
+        String spaceName = step.getSpaceName();
+        String buildConfigName = step.getBuildConfigName();
+        String commitID = step.getCommitID();
+        alauda.setReuseBuilds(step.isReuseIfBuilt());
+        boolean indexed = alauda.isBuildIndexed(commitID);
+        if (indexed) {
+            String reused = alauda.findReusableBuild(spaceName, buildConfigName, commitID);
+            if (reused != null) {
+                return reused;
+            }
+        }
+
+        if (step.getAsync()) {
+            String buildID = alauda.triggerBuild(spaceName, buildConfigName, commitID, step.getBranch());
+            alauda.printBuildStarted(spaceName, buildConfigName, buildID);
+            return buildID;
+        }
+        if (!indexed) {
+            String buildID = alauda.triggerBuild(spaceName, buildConfigName, commitID, step.getBranch());
+            return WaitRecord.forBuild(spaceName, buildConfigName, buildID, step.getTimeout(),
+                    step.getIgnoreBuildResult(), step.isFollowLogs());
+        }
+        String buildID = alauda.triggerBuildOnce(spaceName, buildConfigName, commitID, step.getBranch());
+        return WaitRecord.forBuild(spaceName, buildConfigName, buildID, step.getTimeout(),
+                step.getIgnoreBuildResult(), step.isFollowLogs()).indexedFor(commitID);
+    }
 }
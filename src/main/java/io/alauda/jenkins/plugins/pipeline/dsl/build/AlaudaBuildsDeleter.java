@@ -0,0 +1,153 @@
+package io.alauda.jenkins.plugins.pipeline.dsl.build;
+
+import hudson.Extension;
+import hudson.Launcher;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import io.alauda.jenkins.plugins.pipeline.alauda.Alauda;
+import io.alauda.jenkins.plugins.pipeline.alauda.BuildRetention;
+import io.alauda.jenkins.plugins.pipeline.alauda.IAlaudaConfig;
+import io.alauda.jenkins.plugins.pipeline.dsl.AlaudaBaseStep;
+import io.alauda.jenkins.plugins.pipeline.utils.Converter;
+import io.alauda.jenkins.plugins.pipeline.utils.MissingJenkinsConfigException;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepDescriptorImpl;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deletes many builds at once, either the given ones or the ones a {@link BuildRetention} selects,
+ * see {@link Alauda#deleteBuilds(List, int, boolean)}. Returns a summary of the deletion.
+ */
+public class AlaudaBuildsDeleter extends AlaudaBaseStep {
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    private List<String> buildIDs;
+    private BuildRetention retention;
+    private int parallelism = DEFAULT_PARALLELISM;
+    private boolean dryRun;
+
+    @DataBoundConstructor
+    public AlaudaBuildsDeleter() throws MissingJenkinsConfigException {
+        super();
+    }
+
+    // region Setter and Getter
+    public List<String> getBuildIDs() {
+        return buildIDs;
+    }
+
+    @DataBoundSetter
+    public void setBuildIDs(List<String> buildIDs) {
+        this.buildIDs = buildIDs;
+    }
+
+    public BuildRetention getRetention() {
+        return retention;
+    }
+
+    public void setRetention(BuildRetention retention) {
+        this.retention = retention;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @DataBoundSetter
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public boolean getDryRun() {
+        return dryRun;
+    }
+
+    @DataBoundSetter
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+    // endregion
+
+    public String toString() {
+        return String.format("alaudaDeleteBuilds: buildIDs:%d, retention:%s, parallelism:%d, dryRun:%b",
+                buildIDs == null ? 0 : buildIDs.size(), retention, parallelism, dryRun);
+    }
+
+    @Override
+    public Object doIt(@Nonnull Run<?, ?> run, @Nonnull Launcher launcher, @Nonnull TaskListener listener) throws InterruptedException, IOException {
+        Alauda alauda = new Alauda((IAlaudaConfig) this).setJenkinsContext(run, launcher, listener);
+        if (retention != null) {
+            return alauda.deleteBuilds(retention, parallelism, dryRun);
+        }
+        return alauda.deleteBuilds(buildIDs, parallelism, dryRun);
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends AbstractStepDescriptorImpl {
+
+        public DescriptorImpl() {
+            super(AlaudaBaseStep.AlaudaStepExecution.class);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "alaudaDeleteBuilds";
+        }
+
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return "Alauda delete builds";
+        }
+
+        @Override
+        public Step newInstance(Map<String, Object> arguments) throws Exception {
+            if (arguments == null)
+                throw new IllegalArgumentException("arguments missed");
+
+            AlaudaBuildsDeleter step = new AlaudaBuildsDeleter();
+
+            Object buildIDs = arguments.get("buildIDs");
+            int keepLast = Converter.getDataAsInt(arguments, "keepLast", -1);
+            int olderThanDays = Converter.getDataAsInt(arguments, "olderThanDays", -1);
+            if (buildIDs != null) {
+                if (!(buildIDs instanceof List)) {
+                    throw new IllegalArgumentException("argument 'buildIDs' should be a list of build IDs");
+                }
+                if (keepLast >= 0 || olderThanDays >= 0) {
+                    throw new IllegalArgumentException("give either buildIDs or a retention policy, not both");
+                }
+                List<String> ids = new ArrayList<>();
+                for (Object id : (List<?>) buildIDs) {
+                    if (id != null && !id.toString().isEmpty()) {
+                        ids.add(id.toString());
+                    }
+                }
+                step.setBuildIDs(ids);
+            } else {
+                if (keepLast < 0 && olderThanDays < 0) {
+                    throw new IllegalArgumentException("need to specify buildIDs, keepLast or olderThanDays");
+                }
+                step.setRetention(new BuildRetention(Converter.getDataAsString(arguments, "buildConfigName"), keepLast, olderThanDays));
+            }
+
+            int parallelism = Converter.getDataAsInt(arguments, "parallelism", DEFAULT_PARALLELISM);
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("argument 'parallelism' should be at least 1");
+            }
+            step.setParallelism(parallelism);
+
+            step.setDryRun(Converter.getDataAsBool(arguments, "dryRun"));
+            step.setVerbose(Converter.getDataAsBool(arguments, "verbose"));
+
+            return step;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package io.alauda.jenkins.plugins.pipeline.dsl.build;
+
+import com.google.common.base.Strings;
+import hudson.Extension;
+import hudson.Launcher;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import io.alauda.jenkins.plugins.pipeline.alauda.Alauda;
+import io.alauda.jenkins.plugins.pipeline.alauda.BuildRequest;
+import io.alauda.jenkins.plugins.pipeline.alauda.BuildWatcher;
+import io.alauda.jenkins.plugins.pipeline.alauda.IAlaudaConfig;
+import io.alauda.jenkins.plugins.pipeline.dsl.AlaudaBaseStep;
+import io.alauda.jenkins.plugins.pipeline.utils.Converter;
+import io.alauda.jenkins.plugins.pipeline.utils.MissingJenkinsConfigException;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepDescriptorImpl;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Starts several build configs at once and waits for all of them, see {@link Alauda#startBuilds}.
+ * Returns the buildID and result of every build keyed by build config name.
+ */
+public class AlaudaMultiBuilder extends AlaudaBaseStep {
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private List<BuildRequest> builds = new ArrayList<>();
+    private int parallelism = DEFAULT_PARALLELISM;
+    private boolean async;
+    private boolean failFast;
+    private boolean ignoreBuildResult;
+    private int timeout = BuildWatcher.DEFAULT_TIMEOUT_SECONDS;
+
+    @DataBoundConstructor
+    public AlaudaMultiBuilder() throws MissingJenkinsConfigException {
+        super();
+    }
+
+    // region Setter and Getter
+    public List<BuildRequest> getBuilds() {
+        return builds;
+    }
+
+    @DataBoundSetter
+    public void setBuilds(List<BuildRequest> builds) {
+        this.builds = builds;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @DataBoundSetter
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public boolean getAsync() {
+        return async;
+    }
+
+    @DataBoundSetter
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public boolean getFailFast() {
+        return failFast;
+    }
+
+    @DataBoundSetter
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    public boolean getIgnoreBuildResult() {
+        return ignoreBuildResult;
+    }
+
+    @DataBoundSetter
+    public void setIgnoreBuildResult(boolean ignoreBuildResult) {
+        this.ignoreBuildResult = ignoreBuildResult;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    @DataBoundSetter
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    @DataBoundSetter
+    public void setSpaceName(String name) {
+        if (name != null) {
+            this.spaceName = name;
+        }
+    }
+    // endregion
+
+    public String toString() {
+        return String.format("alaudaStartBuilds: spaceName:%s, builds:%s, parallelism:%d, failFast:%b",
+                this.getSpaceName(), this.getBuilds(), this.getParallelism(), this.getFailFast());
+    }
+
+    @Override
+    public Object doIt(@Nonnull Run<?, ?> run, @Nonnull Launcher launcher, @Nonnull TaskListener listener) throws InterruptedException, IOException {
+        return new Alauda((IAlaudaConfig) this)
+                .setJenkinsContext(run, launcher, listener)
+                .startBuilds(getSpaceName(), getBuilds(), getParallelism(), getAsync(), getFailFast(), getIgnoreBuildResult(), getTimeout());
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends AbstractStepDescriptorImpl {
+
+        public DescriptorImpl() {
+            super(AlaudaMultiBuilderExecution.class);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "alaudaStartBuilds";
+        }
+
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return "alaudaStartBuilds";
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Step newInstance(Map<String, Object> arguments) throws Exception {
+            if (arguments == null)
+                throw new IllegalArgumentException("arguments missed");
+
+            Object builds = arguments.get("builds");
+            if (!(builds instanceof List) || ((List) builds).isEmpty()) {
+                throw new IllegalArgumentException("argument 'builds' should be a list of builds");
+            }
+
+            List<BuildRequest> requests = new ArrayList<>();
+            Set<String> names = new HashSet<>();
+            for (Object item : (List) builds) {
+                String buildConfigName;
+                String branch = null;
+                String commitID = null;
+                if (item instanceof Map) {
+                    Map<String, Object> build = (Map<String, Object>) item;
+                    buildConfigName = Converter.getDataAsString(build, "buildConfigName");
+                    branch = Converter.getDataAsString(build, "branch");
+                    commitID = Converter.getDataAsString(build, "commitID");
+                } else {
+                    buildConfigName = item == null ? null : item.toString();
+                }
+                if (Strings.isNullOrEmpty(buildConfigName)) {
+                    throw new IllegalArgumentException("need to specify buildConfigName for every build");
+                }
+                if (!names.add(buildConfigName)) {
+                    throw new IllegalArgumentException(String.format("build config %s is given more than once", buildConfigName));
+                }
+                requests.add(new BuildRequest(buildConfigName, Strings.emptyToNull(branch), Strings.emptyToNull(commitID)));
+            }
+
+            AlaudaMultiBuilder step = new AlaudaMultiBuilder();
+            step.setBuilds(requests);
+
+            if (arguments.containsKey("spaceName")) {
+                step.setSpaceName(Converter.getDataAsString(arguments, "spaceName"));
+            }
+
+            int parallelism = Converter.getDataAsInt(arguments, "parallelism", DEFAULT_PARALLELISM);
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("argument 'parallelism' should be at least 1");
+            }
+            step.setParallelism(parallelism);
+
+            step.setAsync(Converter.getDataAsBool(arguments, "async"));
+            step.setFailFast(Converter.getDataAsBool(arguments, "failFast"));
+            step.setIgnoreBuildResult(Converter.getDataAsBool(arguments, "ignoreBuildResult"));
+            step.setTimeout(Converter.getDataAsInt(arguments, "timeout", BuildWatcher.DEFAULT_TIMEOUT_SECONDS));
+            step.setVerbose(Converter.getDataAsBool(arguments, "verbose"));
+
+            return step;
+        }
+    }
+}
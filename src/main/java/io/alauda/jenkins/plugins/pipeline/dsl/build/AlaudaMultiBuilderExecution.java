@@ -0,0 +1,37 @@
+package io.alauda.jenkins.plugins.pipeline.dsl.build;
+
+import io.alauda.jenkins.plugins.pipeline.alauda.Alauda;
+import io.alauda.jenkins.plugins.pipeline.alauda.BuildGroup;
+import io.alauda.jenkins.plugins.pipeline.alauda.IAlaudaConfig;
+import io.alauda.jenkins.plugins.pipeline.alauda.WaitRecord;
+import io.alauda.jenkins.plugins.pipeline.dsl.ResumableStepExecution;
+
+import javax.inject.Inject;
+import java.util.Map;
+
+/**
+ * Runs alaudaStartBuilds. All the builds are waited for by one {@link BuildGroup}, and the wait survives
+ * a restart of Jenkins.
+ */
+public class AlaudaMultiBuilderExecution extends ResumableStepExecution {
+
+    private static final long serialVersionUID = 1L;
+
+    @Inject
+    private transient AlaudaMultiBuilder step;
+
+    @Override
+    protected IAlaudaConfig getStep() {
+        return step;
+    }
+
+    @Override
+    protected Object begin(Alauda alauda) throws Exception {
+        String spaceName = step.getSpaceName();
+        Map<String, Map<String, String>> started = alauda.triggerBuilds(spaceName, step.getBuilds(), step.getParallelism());
+        if (step.getAsync()) {
+            return started;
+        }
+        return WaitRecord.forBuilds(spaceName, started, step.getTimeout(), step.getIgnoreBuildResult(), step.getFailFast());
+    }
+}
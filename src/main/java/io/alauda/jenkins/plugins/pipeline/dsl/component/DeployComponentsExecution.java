@@ -0,0 +1,53 @@
+package io.alauda.jenkins.plugins.pipeline.dsl.component;
+
+import io.alauda.jenkins.plugins.pipeline.alauda.Alauda;
+import io.alauda.jenkins.plugins.pipeline.alauda.ComponentUpdate;
+import io.alauda.jenkins.plugins.pipeline.alauda.IAlaudaConfig;
+import io.alauda.jenkins.plugins.pipeline.alauda.WaitRecord;
+import io.alauda.jenkins.plugins.pipeline.dsl.ResumableStepExecution;
+import io.alauda.model.ComponentDetails;
+
+import javax.inject.Inject;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs alaudaDeployComponents, the wait for the components survives a restart of Jenkins.
+ * The specs to roll back to do not, components that fail after a restart are not rolled back.
+ */
+public class DeployComponentsExecution extends ResumableStepExecution {
+
+    private static final long serialVersionUID = 1L;
+
+    @Inject
+    private transient DeployComponentsStep step;
+
+    @Override
+    protected IAlaudaConfig getStep() {
+        return step;
+    }
+
+    @Override
+    protected Object begin(Alauda alauda) throws Exception {
+        String clusterName = step.getClusterName();
+        String namespace = step.getNamespace();
+        List<ComponentUpdate> updates = step.getComponents();
+        boolean rollback = step.getRollback() && !step.getAsync();
+
+        Map<String, ComponentDetails> previous = rollback
+                ? alauda.retrieveComponents(clusterName, namespace, updates, step.getParallelism()) : new HashMap<>();
+        Map<String, String> results = alauda.startComponents(clusterName, namespace, updates, step.getParallelism());
+        if (step.getAsync()) {
+            return results;
+        }
+
+        List<ComponentUpdate> started = Alauda.startedComponents(updates, results);
+        if (started.isEmpty()) {
+            throw alauda.componentsFailed(results, false);
+        }
+        alauda.listener.getLogger().println("waiting for the components to update is complete...");
+        return WaitRecord.forComponents(clusterName, namespace, started, results, step.getTimeout(), rollback,
+                step.getParallelism(), previous);
+    }
+}
@@ -0,0 +1,184 @@
+package io.alauda.jenkins.plugins.pipeline.dsl.component;
+
+import com.google.common.base.Strings;
+import hudson.Extension;
+import hudson.Launcher;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import io.alauda.jenkins.plugins.pipeline.alauda.Alauda;
+import io.alauda.jenkins.plugins.pipeline.alauda.ComponentUpdate;
+import io.alauda.jenkins.plugins.pipeline.alauda.IAlaudaConfig;
+import io.alauda.jenkins.plugins.pipeline.dsl.AlaudaBaseStep;
+import io.alauda.jenkins.plugins.pipeline.utils.Converter;
+import io.alauda.jenkins.plugins.pipeline.utils.MissingJenkinsConfigException;
+import io.alauda.model.Kubernete;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepDescriptorImpl;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deploys several components at once, see {@link Alauda#updateComponents}.
+ * Returns the status of every component keyed by "applicationName/componentName".
+ * In a pipeline it runs as {@link DeployComponentsExecution}.
+ */
+public class DeployComponentsStep extends AlaudaBaseStep {
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private List<ComponentUpdate> components = new ArrayList<>();
+    private int parallelism = DEFAULT_PARALLELISM;
+    private boolean async;
+    private boolean rollback;
+    private int timeout;
+
+    @DataBoundConstructor
+    public DeployComponentsStep() throws MissingJenkinsConfigException {
+        super();
+    }
+
+    // region Setter and Getter
+    public List<ComponentUpdate> getComponents() {
+        return components;
+    }
+
+    @DataBoundSetter
+    public void setComponents(List<ComponentUpdate> components) {
+        this.components = components;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @DataBoundSetter
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public boolean getAsync() {
+        return async;
+    }
+
+    @DataBoundSetter
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public boolean getRollback() {
+        return rollback;
+    }
+
+    @DataBoundSetter
+    public void setRollback(boolean rollback) {
+        this.rollback = rollback;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    @DataBoundSetter
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+    // endregion
+
+    public String toString() {
+        return String.format("alaudaDeployComponents: clusterName:%s, namespace:%s, components:%s, parallelism:%d",
+                this.getClusterName(),
+                this.getNamespace(),
+                this.getComponents(),
+                this.getParallelism()
+        );
+    }
+
+    @Override
+    public Object doIt(@Nonnull Run<?, ?> run, @Nonnull Launcher launcher, @Nonnull TaskListener listener) throws InterruptedException, IOException {
+        Alauda alauda = new Alauda((IAlaudaConfig) this).setJenkinsContext(run, launcher, listener);
+
+        return alauda.updateComponents(clusterName, namespace, components, parallelism, getAsync(), rollback, getTimeout());
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends AbstractStepDescriptorImpl {
+
+        public DescriptorImpl() {
+            super(DeployComponentsExecution.class);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "alaudaDeployComponents";
+        }
+
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return "Alauda deploy components";
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Step newInstance(Map<String, Object> arguments) throws Exception {
+            if (arguments == null)
+                throw new IllegalArgumentException("arguments missed");
+
+            Object components = arguments.get("components");
+            if (!(components instanceof List) || ((List) components).isEmpty()) {
+                throw new IllegalArgumentException("argument 'components' should be a list of components");
+            }
+
+            List<ComponentUpdate> updates = new ArrayList<>();
+            for (Object item : (List) components) {
+                if (!(item instanceof Map)) {
+                    throw new IllegalArgumentException("every item of 'components' should be a map");
+                }
+                Map<String, Object> component = (Map<String, Object>) item;
+                String applicationName = Converter.getDataAsString(component, "applicationName");
+                String resourceType = Converter.getDataAsString(component, "resourceType");
+                String componentName = Converter.getDataAsString(component, "componentName");
+                if (Strings.isNullOrEmpty(applicationName) || Strings.isNullOrEmpty(resourceType) || Strings.isNullOrEmpty(componentName)) {
+                    throw new IllegalArgumentException("Arguments missed: applicationName, resourceType and componentName is needed for every component");
+                }
+                Object payload = component.get("payload");
+                if (payload == null) {
+                    throw new IllegalArgumentException(String.format("argument 'payload' of component %s is not allowed to be null", componentName));
+                }
+                updates.add(new ComponentUpdate(applicationName, resourceType, componentName, (Kubernete) payload));
+            }
+
+            DeployComponentsStep step = new DeployComponentsStep();
+            step.setComponents(updates);
+
+            String clusterName = Converter.getDataAsString(arguments, "clusterName");
+            step.setClusterName(clusterName);
+
+            String namespace = Converter.getDataAsString(arguments, "namespace");
+            step.setNamespace(namespace);
+
+            int parallelism = Converter.getDataAsInt(arguments, "parallelism", DEFAULT_PARALLELISM);
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("argument 'parallelism' should be at least 1");
+            }
+            step.setParallelism(parallelism);
+
+            boolean async = Converter.getDataAsBool(arguments, "async");
+            step.setAsync(async);
+
+            boolean rollback = Converter.getDataAsBool(arguments, "rollback");
+            step.setRollback(rollback);
+
+            int timeout = Converter.getDataAsInt(arguments, "timeout", 600);
+            step.setTimeout(timeout);
+
+            return step;
+        }
+    }
+
+}
@@ -0,0 +1,36 @@
+package io.alauda.jenkins.plugins.pipeline.dsl.component;
+
+import io.alauda.jenkins.plugins.pipeline.alauda.Alauda;
+import io.alauda.jenkins.plugins.pipeline.alauda.IAlaudaConfig;
+import io.alauda.jenkins.plugins.pipeline.alauda.WaitRecord;
+import io.alauda.jenkins.plugins.pipeline.dsl.ResumableStepExecution;
+
+import javax.inject.Inject;
+
+/**
+ * Runs alaudaDeployComponent, the wait for the component survives a restart of Jenkins.
+ */
+public class DeployExecution extends ResumableStepExecution {
+
+    private static final long serialVersionUID = 1L;
+
+    @Inject
+    private transient DeployStep step;
+
+    @Override
+    protected IAlaudaConfig getStep() {
+        return step;
+    }
+
+    @Override
+    protected Object begin(Alauda alauda) throws Exception {
+        String componentName = alauda.startComponentUpdate(step.getClusterName(), step.getResourceType(), step.getNamespace(),
+                step.getComponentName(), step.getPayload());
+        if (step.getAsync()) {
+            return componentName;
+        }
+        alauda.listener.getLogger().println("waiting for the component to update is complete...");
+        return WaitRecord.forComponent(step.getClusterName(), step.getNamespace(), step.getApplicationName(),
+                step.getResourceType(), componentName, step.getTimeout());
+    }
+}
@@ -132,7 +132,7 @@ public class DeployStep extends AlaudaBaseStep{
     public static final class DescriptorImpl extends AbstractStepDescriptorImpl {
 
         public DescriptorImpl() {
-            super(AlaudaBaseStep.AlaudaStepExecution.class);
+            super(DeployExecution.class);
         }
 
         @Override
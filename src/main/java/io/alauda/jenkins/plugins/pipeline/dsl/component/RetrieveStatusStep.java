@@ -0,0 +1,117 @@
+package io.alauda.jenkins.plugins.pipeline.dsl.component;
+
+import com.google.common.base.Strings;
+import hudson.Extension;
+import hudson.Launcher;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import io.alauda.jenkins.plugins.pipeline.alauda.Alauda;
+import io.alauda.jenkins.plugins.pipeline.alauda.IAlaudaConfig;
+import io.alauda.jenkins.plugins.pipeline.dsl.AlaudaBaseStep;
+import io.alauda.jenkins.plugins.pipeline.utils.Converter;
+import io.alauda.jenkins.plugins.pipeline.utils.MissingJenkinsConfigException;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepDescriptorImpl;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Reads the current status of a component, never from the cache.
+ * Returns null when the application or the component is not found.
+ */
+public class RetrieveStatusStep extends AlaudaBaseStep {
+    private String applicationName;
+    private String resourceType;
+    private String componentName;
+
+    @DataBoundConstructor
+    public RetrieveStatusStep() throws MissingJenkinsConfigException {
+        super();
+    }
+
+    @Override
+    public Object doIt(@Nonnull Run<?, ?> run, @Nonnull Launcher launcher, @Nonnull TaskListener listener) throws IOException {
+        Alauda alauda = new Alauda((IAlaudaConfig) this)
+                .setJenkinsContext(run, launcher, listener);
+        return alauda.retrieveComponentStatus(applicationName, resourceType, componentName, clusterName, namespace);
+    }
+
+    public String getApplicationName() {
+        return applicationName;
+    }
+
+    @DataBoundSetter
+    public void setApplicationName(String applicationName) {
+        this.applicationName = applicationName;
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    @DataBoundSetter
+    public void setResourceType(String resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    public String getComponentName() {
+        return componentName;
+    }
+
+    @DataBoundSetter
+    public void setComponentName(String componentName) {
+        this.componentName = componentName;
+    }
+
+    @Extension
+    public static class DescriptorImpl extends AbstractStepDescriptorImpl {
+
+        public DescriptorImpl() {
+            super(AlaudaStepExecution.class);
+        }
+
+        @Override
+        public Step newInstance(Map<String, Object> arguments) throws Exception {
+            if (arguments == null)
+                throw new IllegalArgumentException("Arguments missed");
+
+            String applicationName = Converter.getDataAsString(arguments, "applicationName");
+            String resourceType = Converter.getDataAsString(arguments, "resourceType");
+            String componentName = Converter.getDataAsString(arguments, "componentName");
+
+            if (Strings.isNullOrEmpty(applicationName) || Strings.isNullOrEmpty(resourceType) || Strings.isNullOrEmpty(componentName)) {
+                throw new IllegalArgumentException("Arguments missed: applicationName, resourceType and componentName is needed");
+            }
+
+            RetrieveStatusStep step = new RetrieveStatusStep();
+            step.setApplicationName(applicationName);
+            step.setResourceType(resourceType);
+            step.setComponentName(componentName);
+            step.setClusterName(Converter.getDataAsString(arguments, "clusterName"));
+            step.setNamespace(Converter.getDataAsString(arguments, "namespace"));
+            step.setProjectName(Converter.getDataAsString(arguments, "projectName"));
+            return step;
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "alaudaRetrieveComponentStatus";
+        }
+
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return "Retrieve the Component status";
+        }
+
+        @Override
+        public boolean isAdvanced() {
+            return true;
+        }
+
+    }
+}
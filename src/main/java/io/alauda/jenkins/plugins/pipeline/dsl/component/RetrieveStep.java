@@ -25,6 +25,7 @@ public class RetrieveStep extends AlaudaBaseStep {
     private String applicationName;
     private String resourceType;
     private String componentName;
+    private boolean fresh;
 
     @DataBoundConstructor
     public RetrieveStep() throws MissingJenkinsConfigException {
@@ -35,7 +36,7 @@ public class RetrieveStep extends AlaudaBaseStep {
     public Object doIt(@Nonnull Run<?, ?> run, @Nonnull Launcher launcher, @Nonnull TaskListener listener) throws IOException {
         Alauda alauda = new Alauda((IAlaudaConfig) this)
                 .setJenkinsContext(run, launcher, listener);
-        return alauda.retrieveComponent(applicationName, resourceType, componentName, clusterName, namespace, projectName);
+        return alauda.retrieveComponent(applicationName, resourceType, componentName, clusterName, namespace, projectName, fresh);
     }
 
     public String getApplicationName() {
@@ -65,6 +66,18 @@ public class RetrieveStep extends AlaudaBaseStep {
         this.componentName = componentName;
     }
 
+    public boolean isFresh() {
+        return fresh;
+    }
+
+    /**
+     * @param fresh read the component from the API even when a copy from the last seconds is cached
+     */
+    @DataBoundSetter
+    public void setFresh(boolean fresh) {
+        this.fresh = fresh;
+    }
+
     @Extension
     public static class DescriptorImpl extends AbstractStepDescriptorImpl {
 
@@ -96,6 +109,7 @@ public class RetrieveStep extends AlaudaBaseStep {
             step.setClusterName(clusterName);
             step.setNamespace(namespace);
             step.setProjectName(projectName);
+            step.setFresh(Converter.getDataAsBool(arguments, "fresh"));
 
             return step;
         }
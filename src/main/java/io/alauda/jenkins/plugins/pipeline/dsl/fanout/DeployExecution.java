@@ -0,0 +1,29 @@
+package io.alauda.jenkins.plugins.pipeline.dsl.fanout;
+
+import io.alauda.jenkins.plugins.pipeline.alauda.Alauda;
+import io.alauda.jenkins.plugins.pipeline.alauda.IAlaudaConfig;
+import io.alauda.jenkins.plugins.pipeline.dsl.ResumableStepExecution;
+
+import javax.inject.Inject;
+
+/**
+ * Runs alaudaFanOutDeploy without holding a thread while the targets roll out.
+ * The waits of the targets are not kept, a restart of Jenkins during the fan-out fails the step.
+ */
+public class DeployExecution extends ResumableStepExecution {
+
+    private static final long serialVersionUID = 1L;
+
+    @Inject
+    private transient DeployStep step;
+
+    @Override
+    protected IAlaudaConfig getStep() {
+        return step;
+    }
+
+    @Override
+    protected Object begin(Alauda alauda) throws Exception {
+        return step.start(alauda);
+    }
+}
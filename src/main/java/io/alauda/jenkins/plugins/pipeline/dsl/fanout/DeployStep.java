@@ -0,0 +1,348 @@
+package io.alauda.jenkins.plugins.pipeline.dsl.fanout;
+
+import com.google.common.base.Strings;
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.Launcher;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import io.alauda.jenkins.plugins.pipeline.alauda.Alauda;
+import io.alauda.jenkins.plugins.pipeline.alauda.DeployTarget;
+import io.alauda.jenkins.plugins.pipeline.alauda.FanOut;
+import io.alauda.jenkins.plugins.pipeline.alauda.IAlaudaConfig;
+import io.alauda.jenkins.plugins.pipeline.dsl.AlaudaBaseStep;
+import io.alauda.jenkins.plugins.pipeline.utils.ContainerOverride;
+import io.alauda.jenkins.plugins.pipeline.utils.Converter;
+import io.alauda.jenkins.plugins.pipeline.utils.MissingJenkinsConfigException;
+import io.alauda.model.Kubernete;
+import io.alauda.model.ServiceUpdatePayload;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepDescriptorImpl;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Deploys one service or component to several clusters, see {@link FanOut}.
+ * Either a full payload is given, or container overrides that are merged into the current spec of each target.
+ * Returns the status of every target keyed by "clusterName/namespace". When more than {@code maxFailures} targets
+ * failed the step fails, the status of every target is in the log and in the message then.
+ */
+public class DeployStep extends AlaudaBaseStep {
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    private List<DeployTarget> targets = new ArrayList<>();
+    private List<Integer> waves = new ArrayList<>();
+    private int maxFailures;
+    private int parallelism = DEFAULT_PARALLELISM;
+    private boolean rollback;
+    private int timeout;
+    // used when there is no payload
+    private Map<String, ContainerOverride> overrides;
+
+    // service
+    private String serviceName;
+    private ServiceUpdatePayload servicePayload;
+
+    // component
+    private String applicationName;
+    private String resourceType;
+    private String componentName;
+    private Kubernete componentPayload;
+
+    @DataBoundConstructor
+    public DeployStep() throws MissingJenkinsConfigException {
+        super();
+    }
+
+    // region Setter and Getter
+    public List<DeployTarget> getTargets() {
+        return targets;
+    }
+
+    @DataBoundSetter
+    public void setTargets(List<DeployTarget> targets) {
+        this.targets = targets;
+    }
+
+    public List<Integer> getWaves() {
+        return waves;
+    }
+
+    @DataBoundSetter
+    public void setWaves(List<Integer> waves) {
+        this.waves = waves;
+    }
+
+    public int getMaxFailures() {
+        return maxFailures;
+    }
+
+    @DataBoundSetter
+    public void setMaxFailures(int maxFailures) {
+        this.maxFailures = maxFailures;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @DataBoundSetter
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public boolean getRollback() {
+        return rollback;
+    }
+
+    @DataBoundSetter
+    public void setRollback(boolean rollback) {
+        this.rollback = rollback;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    @DataBoundSetter
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    public Map<String, ContainerOverride> getOverrides() {
+        return overrides;
+    }
+
+    @DataBoundSetter
+    public void setOverrides(Map<String, ContainerOverride> overrides) {
+        this.overrides = overrides;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    @DataBoundSetter
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    public ServiceUpdatePayload getServicePayload() {
+        return servicePayload;
+    }
+
+    @DataBoundSetter
+    public void setServicePayload(ServiceUpdatePayload servicePayload) {
+        this.servicePayload = servicePayload;
+    }
+
+    public String getApplicationName() {
+        return applicationName;
+    }
+
+    @DataBoundSetter
+    public void setApplicationName(String applicationName) {
+        this.applicationName = applicationName;
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    @DataBoundSetter
+    public void setResourceType(String resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    public String getComponentName() {
+        return componentName;
+    }
+
+    @DataBoundSetter
+    public void setComponentName(String componentName) {
+        this.componentName = componentName;
+    }
+
+    public Kubernete getComponentPayload() {
+        return componentPayload;
+    }
+
+    @DataBoundSetter
+    public void setComponentPayload(Kubernete componentPayload) {
+        this.componentPayload = componentPayload;
+    }
+    // endregion
+
+    public String toString() {
+        return String.format("alaudaFanOutDeploy: targets:%s, waves:%s, maxFailures:%d, serviceName:%s, componentName:%s",
+                this.getTargets(),
+                this.getWaves(),
+                this.getMaxFailures(),
+                this.getServiceName(),
+                this.getComponentName()
+        );
+    }
+
+    @Override
+    public Object doIt(@Nonnull Run<?, ?> run, @Nonnull Launcher launcher, @Nonnull TaskListener listener) throws InterruptedException, IOException {
+        Alauda alauda = new Alauda((IAlaudaConfig) this).setJenkinsContext(run, launcher, listener);
+        CompletableFuture<Map<String, String>> results = start(alauda);
+        try {
+            return results.get();
+        } catch (InterruptedException e) {
+            results.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AbortException) {
+                throw (AbortException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Starts the fan-out, the returned future fails with an {@link AbortException} when more than {@code maxFailures}
+     * targets failed.
+     */
+    CompletableFuture<Map<String, String>> start(Alauda alauda) {
+        FanOut fanOut = new FanOut(waves, maxFailures, parallelism);
+        CompletableFuture<Map<String, String>> results;
+        if (serviceName != null) {
+            results = alauda.deployServiceToTargets(serviceName, projectName, servicePayload, overrides, targets, fanOut,
+                    rollback, getTimeout());
+        } else {
+            results = alauda.deployComponentToTargets(applicationName, resourceType, componentName, projectName, componentPayload,
+                    overrides, targets, fanOut, getTimeout());
+        }
+        return results.thenApply(statuses -> {
+            if (fanOut.isThresholdExceeded(statuses)) {
+                String message = String.format("%s failed in more than %d targets: %s",
+                        serviceName != null ? serviceName : componentName, maxFailures, statuses);
+                alauda.listener.error(message);
+                throw new CompletionException(new AbortException(message));
+            }
+            return statuses;
+        });
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends AbstractStepDescriptorImpl {
+
+        public DescriptorImpl() {
+            super(DeployExecution.class);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "alaudaFanOutDeploy";
+        }
+
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return "Alauda deploy to several clusters";
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Step newInstance(Map<String, Object> arguments) throws Exception {
+            if (arguments == null)
+                throw new IllegalArgumentException("arguments missed");
+
+            DeployStep step = new DeployStep();
+
+            // targets without a namespace, and the project, fall back to the Alauda configuration
+            String namespace = Converter.getDataAsString(arguments, "namespace");
+            if (!Strings.isNullOrEmpty(namespace)) {
+                step.setNamespace(namespace);
+            }
+            String projectName = Converter.getDataAsString(arguments, "projectName");
+            if (!Strings.isNullOrEmpty(projectName)) {
+                step.setProjectName(projectName);
+            }
+
+            Object targets = arguments.get("targets");
+            if (!(targets instanceof List) || ((List) targets).isEmpty()) {
+                throw new IllegalArgumentException("argument 'targets' should be a list of 'cluster' or 'cluster/namespace'");
+            }
+            List<DeployTarget> deployTargets = new ArrayList<>();
+            for (Object target : (List) targets) {
+                if (target == null || Strings.isNullOrEmpty(target.toString())) {
+                    throw new IllegalArgumentException("every target should have a cluster name");
+                }
+                deployTargets.add(DeployTarget.parse(target.toString(), step.getNamespace()));
+            }
+            step.setTargets(deployTargets);
+
+            Object waves = arguments.get("waves");
+            if (waves instanceof List) {
+                List<Integer> sizes = new ArrayList<>();
+                for (Object size : (List) waves) {
+                    sizes.add(Integer.parseInt(size.toString()));
+                }
+                FanOut.plan(deployTargets, sizes);
+                step.setWaves(sizes);
+            }
+
+            step.setMaxFailures(Converter.getDataAsInt(arguments, "maxFailures", 0));
+            int parallelism = Converter.getDataAsInt(arguments, "parallelism", DEFAULT_PARALLELISM);
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("argument 'parallelism' should be at least 1");
+            }
+            step.setParallelism(parallelism);
+            step.setRollback(Converter.getDataAsBool(arguments, "rollback"));
+            step.setTimeout(Converter.getDataAsInt(arguments, "timeout", 600));
+
+            Object payload = arguments.get("payload");
+            Object overrides = arguments.get("overrides");
+            if (payload == null && overrides instanceof Map) {
+                Map<String, ContainerOverride> containerOverrides = new HashMap<>();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) overrides).entrySet()) {
+                    if (!(entry.getValue() instanceof ContainerOverride)) {
+                        throw new IllegalArgumentException("argument 'overrides' should map container names to ContainerOverride");
+                    }
+                    containerOverrides.put(String.valueOf(entry.getKey()), (ContainerOverride) entry.getValue());
+                }
+                step.setOverrides(containerOverrides);
+            }
+
+            if (payload instanceof ServiceUpdatePayload || (payload == null && arguments.containsKey("serviceName"))) {
+                String serviceName = Converter.getDataAsString(arguments, "serviceName");
+                if (Strings.isNullOrEmpty(serviceName)) {
+                    throw new IllegalArgumentException("argument 'serviceName' missed");
+                }
+                step.setServiceName(serviceName);
+                step.setServicePayload((ServiceUpdatePayload) payload);
+            } else if (payload instanceof Kubernete || payload == null) {
+                String applicationName = Converter.getDataAsString(arguments, "applicationName");
+                String resourceType = Converter.getDataAsString(arguments, "resourceType");
+                String componentName = Converter.getDataAsString(arguments, "componentName");
+                if (Strings.isNullOrEmpty(applicationName) || Strings.isNullOrEmpty(resourceType) || Strings.isNullOrEmpty(componentName)) {
+                    throw new IllegalArgumentException("Arguments missed: applicationName, resourceType and componentName is needed");
+                }
+                step.setApplicationName(applicationName);
+                step.setResourceType(resourceType);
+                step.setComponentName(componentName);
+                step.setComponentPayload((Kubernete) payload);
+            } else {
+                throw new IllegalArgumentException("argument 'payload' should be a ServiceUpdatePayload or a Kubernete");
+            }
+            if (payload == null && step.getOverrides() == null) {
+                throw new IllegalArgumentException("argument 'payload' or 'overrides' missed");
+            }
+
+            return step;
+        }
+    }
+
+}
@@ -36,6 +36,15 @@ public class AlaudaNotifier extends AlaudaBaseStep {
         this.name = name;
     }
 
+    public boolean getAsync() {
+        return async;
+    }
+
+    @DataBoundSetter
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
     @DataBoundSetter
     public void setSpaceName(String name){
         if(name != null){
@@ -54,12 +63,14 @@ public class AlaudaNotifier extends AlaudaBaseStep {
 
     protected String name;
     protected String body;
+    // queue in the NotificationOutbox instead of sending now
+    protected boolean async;
 
     @Override
     public Object doIt(@Nonnull Run<?, ?> run, @Nonnull Launcher launcher, @Nonnull TaskListener listener) throws IOException {
         new Alauda(this)
                 .setJenkinsContext(run, launcher, listener)
-                .sendNotification(this.getSpaceName(), name, body);
+                .sendNotification(this.getSpaceName(), name, body, async);
         return true;
     }
 
@@ -109,6 +120,11 @@ public class AlaudaNotifier extends AlaudaBaseStep {
                 step.setVerbose(verbose);
             }
 
+            if (arguments.containsKey("async")) {
+                Object async = arguments.get("async");
+                step.setAsync(async != null && async.toString().toLowerCase().equals("true"));
+            }
+
             return step;
         }
 
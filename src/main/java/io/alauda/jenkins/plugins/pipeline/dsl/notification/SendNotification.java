@@ -23,6 +23,8 @@ public class SendNotification extends AlaudaBaseStep {
 
     protected String name;
     protected Map<String, Object> params;
+    // queue in the NotificationOutbox instead of sending now
+    protected boolean async;
 
     @DataBoundConstructor
     public SendNotification(String name) throws MissingJenkinsConfigException {
@@ -39,6 +41,15 @@ public class SendNotification extends AlaudaBaseStep {
         this.name = name;
     }
 
+    public boolean getAsync() {
+        return async;
+    }
+
+    @DataBoundSetter
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
     @DataBoundSetter
     public void setSpaceName(String name){
         if(name != null){
@@ -59,7 +70,7 @@ public class SendNotification extends AlaudaBaseStep {
     public Object doIt(@Nonnull Run<?, ?> run, @Nonnull Launcher launcher, @Nonnull TaskListener listener) throws IOException {
         new Alauda(this)
                 .setJenkinsContext(run, launcher, listener)
-                .sendNotificationByParams(this.getSpaceName(), name, this.getProjectName(), params);
+                .sendNotificationByParams(this.getSpaceName(), name, this.getProjectName(), params, async);
         return true;
     }
 
@@ -116,6 +127,11 @@ public class SendNotification extends AlaudaBaseStep {
                 step.setVerbose(verbose);
             }
 
+            if (arguments.containsKey("async")) {
+                Object async = arguments.get("async");
+                step.setAsync(async != null && async.toString().toLowerCase().equals("true"));
+            }
+
             return step;
         }
 
@@ -0,0 +1,43 @@
+package io.alauda.jenkins.plugins.pipeline.dsl.service;
+
+import com.google.common.base.Strings;
+import io.alauda.jenkins.plugins.pipeline.alauda.Alauda;
+import io.alauda.jenkins.plugins.pipeline.alauda.IAlaudaConfig;
+import io.alauda.jenkins.plugins.pipeline.alauda.WaitRecord;
+import io.alauda.jenkins.plugins.pipeline.dsl.ResumableStepExecution;
+
+import javax.inject.Inject;
+
+/**
+ * Runs alaudaDeployService, the wait for the service survives a restart of Jenkins.
+ */
+public class DeployExecution extends ResumableStepExecution {
+
+    private static final long serialVersionUID = 1L;
+
+    @Inject
+    private transient DeployStep step;
+
+    @Override
+    protected IAlaudaConfig getStep() {
+        return step;
+    }
+
+    @Override
+    protected Object begin(Alauda alauda) throws Exception {
+        if (!Strings.isNullOrEmpty(step.getServiceID())) {
+            String serviceID = alauda.startServiceUpdate(step.getServiceID(), step.getUpdatePayload());
+            if (step.getAsync()) {
+                return serviceID;
+            }
+            alauda.listener.getLogger().println("waiting for the service to update is complete...");
+            return WaitRecord.forServiceUpdate(serviceID, step.getTimeout(), step.getRollback());
+        }
+
+        String serviceID = alauda.startServiceCreate(step.getCreatePayload(), step.getProjectName());
+        if (step.getAsync()) {
+            return serviceID;
+        }
+        return WaitRecord.forServiceCreate(serviceID, step.getTimeout());
+    }
+}
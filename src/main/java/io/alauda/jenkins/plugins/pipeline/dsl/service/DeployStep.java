@@ -90,7 +90,7 @@ public class DeployStep extends AlaudaBaseStep {
     public static final class DescriptorImpl extends AbstractStepDescriptorImpl {
 
         public DescriptorImpl() {
-            super(AlaudaStepExecution.class);
+            super(DeployExecution.class);
         }
 
         @Override
@@ -24,6 +24,7 @@ public class RetrieveStep extends AlaudaBaseStep {
     private static final Logger LOGGER = Logger.getLogger(RetrieveStep.class.getName());
     private String serviceID;
     private String serviceName;
+    private boolean fresh;
 
     @DataBoundConstructor
     public RetrieveStep() throws MissingJenkinsConfigException {
@@ -35,9 +36,9 @@ public class RetrieveStep extends AlaudaBaseStep {
         Alauda alauda = new Alauda((IAlaudaConfig) this)
                 .setJenkinsContext(run, launcher, listener);
         if (!Strings.isNullOrEmpty(serviceID)) {
-            return alauda.retrieveService(serviceID);
+            return alauda.retrieveService(serviceID, fresh);
         }else{
-            return alauda.retrieveService(serviceName, clusterName, namespace, projectName);
+            return alauda.retrieveService(serviceName, clusterName, namespace, projectName, fresh);
         }
     }
 
@@ -59,6 +60,18 @@ public class RetrieveStep extends AlaudaBaseStep {
         this.serviceName = serviceName;
     }
 
+    public boolean isFresh() {
+        return fresh;
+    }
+
+    /**
+     * @param fresh read the service from the API even when a copy from the last seconds is cached
+     */
+    @DataBoundSetter
+    public void setFresh(boolean fresh) {
+        this.fresh = fresh;
+    }
+
     @Extension
     public static class DescriptorImpl extends AbstractStepDescriptorImpl {
 
@@ -91,6 +104,7 @@ public class RetrieveStep extends AlaudaBaseStep {
                 step.setNamespace(namespace);
                 step.setProjectName(projectName);
             }
+            step.setFresh(Converter.getDataAsBool(arguments, "fresh"));
             return step;
         }
 
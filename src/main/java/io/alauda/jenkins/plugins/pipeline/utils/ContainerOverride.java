@@ -0,0 +1,108 @@
+package io.alauda.jenkins.plugins.pipeline.utils;
+
+import com.google.common.base.Strings;
+import io.alauda.model.Kubernete;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Changes the DSL asks for on one container, see {@link PayloadEngine#mergeContainers}.
+ * Unset fields leave the container as it is.
+ */
+public class ContainerOverride implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String image;
+    private String imageTag;
+    private List<Kubernete.Container.EnvVar> envVars = new ArrayList<>();
+    private List<Kubernete.Container.EnvFrom> envFroms = new ArrayList<>();
+    private String command;
+    private String args;
+
+    public ContainerOverride() {
+    }
+
+    public ContainerOverride(String image, String imageTag, List<Kubernete.Container.EnvVar> envVars,
+                             List<Kubernete.Container.EnvFrom> envFroms, String command, String args) {
+        this.image = image;
+        this.imageTag = imageTag;
+        this.envVars = envVars;
+        this.envFroms = envFroms;
+        this.command = command;
+        this.args = args;
+    }
+
+    void applyTo(Kubernete.Container container) {
+        if (!Strings.isNullOrEmpty(image)) {
+            container.setImage(image);
+        }
+        if (!Strings.isNullOrEmpty(imageTag)) {
+            container.setImageTag(imageTag);
+        }
+        if (envVars != null) {
+            container.addEnvVars(envVars);
+        }
+        if (envFroms != null) {
+            container.addEnvFroms(envFroms);
+        }
+        if (!Strings.isNullOrEmpty(command)) {
+            container.setCommand(new ArrayList<>(Collections.singletonList(command)));
+        }
+        if (!Strings.isNullOrEmpty(args)) {
+            container.setArgs(new ArrayList<>(Collections.singletonList(args)));
+        }
+    }
+
+    // region Setter and Getter
+    public String getImage() {
+        return image;
+    }
+
+    public void setImage(String image) {
+        this.image = image;
+    }
+
+    public String getImageTag() {
+        return imageTag;
+    }
+
+    public void setImageTag(String imageTag) {
+        this.imageTag = imageTag;
+    }
+
+    public List<Kubernete.Container.EnvVar> getEnvVars() {
+        return envVars;
+    }
+
+    public void setEnvVars(List<Kubernete.Container.EnvVar> envVars) {
+        this.envVars = envVars;
+    }
+
+    public List<Kubernete.Container.EnvFrom> getEnvFroms() {
+        return envFroms;
+    }
+
+    public void setEnvFroms(List<Kubernete.Container.EnvFrom> envFroms) {
+        this.envFroms = envFroms;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public void setCommand(String command) {
+        this.command = command;
+    }
+
+    public String getArgs() {
+        return args;
+    }
+
+    public void setArgs(String args) {
+        this.args = args;
+    }
+    // endregion
+}
@@ -0,0 +1,44 @@
+package io.alauda.jenkins.plugins.pipeline.utils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the arguments of DSL methods in plain Java, they are parsed on every DSL call.
+ */
+public final class DslArgs {
+
+    private DslArgs() {
+    }
+
+    /**
+     * Names the arguments of a DSL call. A single map is the named arguments and is returned as is, a single string
+     * is the first argument. Otherwise every argument is named after its position and kept as a string.
+     *
+     * @param names names of the positional arguments, in order
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<Object, Object> parse(List<?> names, Object[] args) {
+        Map<Object, Object> map = new LinkedHashMap<>();
+        if (args == null || args.length == 0) {
+            return map;
+        }
+
+        if (args.length == 1) {
+            if (args[0] instanceof Map) {
+                return (Map<Object, Object>) args[0];
+            }
+            if (args[0] instanceof String) {
+                map.put(names.get(0), args[0]);
+                return map;
+            }
+        }
+
+        for (int i = 0; i < args.length; i++) {
+            Object name = i < names.size() ? names.get(i) : null;
+            map.put(name, String.valueOf(args[i]));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,146 @@
+package io.alauda.jenkins.plugins.pipeline.utils;
+
+import hudson.AbortException;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Docker build commands of {@code alauda.build().startBuildImage()} for each layer cache mode, and the cache hits of
+ * a BuildKit build read from its plain progress output.
+ * <ul>
+ * <li>{@value #NONE}: classic {@code docker build}, with the local layer cache of the agent</li>
+ * <li>{@value #INLINE}: BuildKit build that reads the cache from the cache image and embeds its cache metadata in the
+ * image, which is also tagged as the cache image</li>
+ * <li>{@value #REGISTRY}: {@code docker buildx} build that reads and writes every layer, intermediate stages included,
+ * to the cache image, through a {@code docker-container} builder named {@value #BUILDER}</li>
+ * </ul>
+ * The cache image is {@code registry/repository:buildcache} of the image built unless another one is given.
+ */
+public final class ImageCache {
+    public static final String NONE = "none";
+    public static final String INLINE = "inline";
+    public static final String REGISTRY = "registry";
+
+    static final String BUILDER = "alauda-cache";
+    private static final String CACHE_TAG = "buildcache";
+
+    // "#5 [2/6] RUN make" declares a Dockerfile step, "#5 CACHED" marks it as cached
+    private static final Pattern STEP = Pattern.compile("^#(\\d+) \\[[^\\]]*\\d+/\\d+\\]", Pattern.MULTILINE);
+    private static final Pattern CACHED = Pattern.compile("^#(\\d+) CACHED\\s*$", Pattern.MULTILINE);
+
+    private ImageCache() {
+    }
+
+    /**
+     * @param mode cache mode, {@value #NONE} when null or empty
+     * @throws AbortException when the mode is unknown
+     */
+    public static String mode(String mode) throws AbortException {
+        if (mode == null || mode.trim().isEmpty()) {
+            return NONE;
+        }
+        String m = mode.trim().toLowerCase();
+        if (NONE.equals(m) || INLINE.equals(m) || REGISTRY.equals(m)) {
+            return m;
+        }
+        throw new AbortException("Unknown cache mode " + mode + ", it should be one of none, inline, registry");
+    }
+
+    /**
+     * @return the cache image of the image, e.g. "index.alauda.cn/alauda/demo:buildcache" for "index.alauda.cn/alauda/demo:v1"
+     */
+    public static String cacheRef(String imageFullName) throws AbortException {
+        ImageName image = ImageName.parse(imageFullName);
+        return image.getRegistry() + "/" + image.getRepository() + ":" + CACHE_TAG;
+    }
+
+    /**
+     * @param useCache false to build every layer again, the cache is still written in the BuildKit modes
+     * @param cacheRef cache image, only used in the BuildKit modes
+     */
+    public static String buildCommand(String mode, boolean useCache, String imageFullName, String cacheRef,
+                                      String dockerfile, String context) {
+        StringBuilder command = new StringBuilder();
+        switch (mode) {
+            case INLINE:
+                command.append("DOCKER_BUILDKIT=1 docker build --progress=plain");
+                if (useCache) {
+                    command.append(" --cache-from ").append(cacheRef);
+                } else {
+                    command.append(" --no-cache");
+                }
+                command.append(" --build-arg BUILDKIT_INLINE_CACHE=1 -t ").append(cacheRef);
+                break;
+            case REGISTRY:
+                command.append("docker buildx build --builder ").append(BUILDER).append(" --progress=plain --load");
+                if (useCache) {
+                    command.append(" --cache-from type=registry,ref=").append(cacheRef);
+                } else {
+                    command.append(" --no-cache");
+                }
+                command.append(" --cache-to type=registry,ref=").append(cacheRef).append(",mode=max");
+                break;
+            default:
+                command.append("docker build --no-cache=").append(!useCache);
+        }
+        return command.append(" -t ").append(imageFullName)
+                .append(" -f ").append(dockerfile)
+                .append(' ').append(context)
+                .toString();
+    }
+
+    /**
+     * @return command creating the builder of the {@value #REGISTRY} mode when it does not exist yet
+     */
+    public static String builderCommand() {
+        return "docker buildx inspect " + BUILDER + " >/dev/null 2>&1 || docker buildx create --name " + BUILDER
+                + " --driver docker-container";
+    }
+
+    /**
+     * Runs the build with its output streamed to the console and kept in the log file, for {@link #summarize}.
+     * Jenkins runs {@code sh} with {@code -e}, and {@code pipefail} is not POSIX, so the status of the build is passed
+     * through {@code log.status} and returned once {@code tee} is done.
+     *
+     * @return shell line failing with the status of the build
+     */
+    public static String loggedCommand(String command, String log) {
+        String status = log + ".status";
+        return "{ " + command + " || echo $? > " + status + "; } 2>&1 | tee " + log
+                + "; if [ -s " + status + " ]; then exit $(cat " + status + "); fi";
+    }
+
+    /**
+     * @return shell line removing the files of {@link #loggedCommand}
+     */
+    public static String removeLogCommand(String log) {
+        return "rm -f " + log + " " + log + ".status";
+    }
+
+    /**
+     * @param log plain progress output of a BuildKit build
+     * @return e.g. "Layer cache: 5 of 7 steps cached (71%)"
+     */
+    public static String summarize(String log) {
+        Set<String> steps = new HashSet<>();
+        Matcher step = STEP.matcher(log);
+        while (step.find()) {
+            steps.add(step.group(1));
+        }
+        int cached = 0;
+        Set<String> seen = new HashSet<>();
+        Matcher hit = CACHED.matcher(log);
+        while (hit.find()) {
+            if (steps.contains(hit.group(1)) && seen.add(hit.group(1))) {
+                cached++;
+            }
+        }
+        if (steps.isEmpty()) {
+            return "Layer cache: no build steps found in the build output";
+        }
+        return String.format("Layer cache: %d of %d steps cached (%d%%)", cached, steps.size(), cached * 100 / steps.size());
+    }
+}
@@ -0,0 +1,69 @@
+package io.alauda.jenkins.plugins.pipeline.utils;
+
+import hudson.AbortException;
+
+import java.util.regex.Pattern;
+
+/**
+ * Parts of a docker image name written as {@code registry/repository[:tag]}.
+ */
+public final class ImageName {
+    private static final String LATEST = "latest";
+    private static final Pattern SCHEME_SEPARATOR = Pattern.compile("//");
+
+    private final String registry;
+    private final String repository;
+    private final String tag;
+
+    private ImageName(String registry, String repository, String tag) {
+        this.registry = registry;
+        this.repository = repository;
+        this.tag = tag;
+    }
+
+    /**
+     * @param fullName e.g. "index.alauda.cn/alauda/demo:v1", the tag is "latest" when there is none
+     * @throws AbortException when there is no registry part
+     */
+    public static ImageName parse(String fullName) throws AbortException {
+        String[] segments = fullName.split("/");
+        if (segments.length < 2) {
+            throw new AbortException(fullName + " is invalid, format should be imageRegistry/imageRepository:imageTag");
+        }
+        String registry = segments[0];
+        String lastSegment = segments[segments.length - 1];
+        int colon = lastSegment.indexOf(':');
+        if (colon < 0) {
+            return new ImageName(registry, fullName.substring(registry.length() + 1), LATEST);
+        }
+        return new ImageName(registry, fullName.substring(registry.length() + 1, fullName.lastIndexOf(':')),
+                lastSegment.substring(colon + 1));
+    }
+
+    /**
+     * @param url a registry URL, with or without scheme and path, e.g. "https://index.alauda.cn/v2/"
+     * @return the host of the registry, e.g. "index.alauda.cn"
+     */
+    public static String parseRegistry(String url) {
+        String[] parts = SCHEME_SEPARATOR.split(url);
+        String registry = parts.length == 2 ? parts[1] : url;
+        return registry.split("/")[0];
+    }
+
+    public String getRegistry() {
+        return registry;
+    }
+
+    public String getRepository() {
+        return repository;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    @Override
+    public String toString() {
+        return registry + "/" + repository + ":" + tag;
+    }
+}
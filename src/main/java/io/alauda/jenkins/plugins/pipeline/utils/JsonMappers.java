@@ -0,0 +1,81 @@
+package io.alauda.jenkins.plugins.pipeline.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The one Jackson configuration used for Alauda payloads.
+ * <p>
+ * An {@link ObjectMapper} is expensive to create and keeps per-type serializers once it has seen a type,
+ * so the plugin shares a single instance, and keeps one {@link ObjectReader} and {@link ObjectWriter}
+ * per payload type. All of them are thread-safe. Unknown properties are ignored when reading,
+ * since the Alauda API adds fields that the client model does not have.
+ */
+public final class JsonMappers {
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final ConcurrentMap<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+
+    private JsonMappers() {
+    }
+
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    /**
+     * Factory for streaming parsers and generators with the shared configuration.
+     */
+    public static JsonFactory factory() {
+        return MAPPER.getFactory();
+    }
+
+    public static ObjectReader reader(Class<?> type) {
+        return READERS.computeIfAbsent(type, MAPPER::readerFor);
+    }
+
+    public static ObjectWriter writer(Class<?> type) {
+        return WRITERS.computeIfAbsent(type, MAPPER::writerFor);
+    }
+
+    /**
+     * Converts maps read from YAML or JSON into a payload class, or a payload into maps.
+     * Jackson copies the value through a token buffer, no JSON string is built.
+     */
+    public static <T> T convert(Object value, Class<T> type) {
+        return MAPPER.convertValue(value, type);
+    }
+
+    public static JsonNode toTree(Object value) {
+        return MAPPER.valueToTree(value);
+    }
+
+    public static String toJson(Object value) throws IOException {
+        if (value == null) {
+            return "null";
+        }
+        return writer(value.getClass()).writeValueAsString(value);
+    }
+
+    /**
+     * Writes the value straight to the stream, for request bodies that do not need a JSON string.
+     */
+    public static void writeTo(Object value, OutputStream out) throws IOException {
+        if (value == null) {
+            MAPPER.writeValue(out, null);
+            return;
+        }
+        writer(value.getClass()).writeValue(out, value);
+    }
+}
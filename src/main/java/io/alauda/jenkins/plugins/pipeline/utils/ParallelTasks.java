@@ -0,0 +1,99 @@
+package io.alauda.jenkins.plugins.pipeline.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Runs blocking calls with at most {@code parallelism} of them in flight, on a shared pool.
+ * <p>
+ * The calling thread runs tasks too, and the pool threads only help: a call never waits for a pool thread to become
+ * free, so it cannot deadlock when the pool is busy, e.g. with the tasks of other calls or the caller itself.
+ */
+public final class ParallelTasks {
+
+    private ParallelTasks() {
+    }
+
+    /**
+     * Runs every task and waits for all of them.
+     *
+     * @param executor    shared pool lending threads to the call, up to {@code parallelism - 1} of them
+     * @return one outcome per task, in the order of {@code tasks}
+     */
+    public static <T> List<Outcome<T>> run(ExecutorService executor, int parallelism, List<? extends Callable<T>> tasks)
+            throws InterruptedException {
+        int size = tasks.size();
+        AtomicReferenceArray<Outcome<T>> done = new AtomicReferenceArray<>(size);
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch remaining = new CountDownLatch(size);
+        Runnable worker = () -> {
+            for (int i = next.getAndIncrement(); i < size; i = next.getAndIncrement()) {
+                done.set(i, call(tasks.get(i)));
+                remaining.countDown();
+            }
+        };
+
+        List<Future<?>> helpers = new ArrayList<>();
+        boolean finished = false;
+        try {
+            for (int i = Math.min(parallelism, size) - 1; i > 0; i--) {
+                helpers.add(executor.submit(worker));
+            }
+            worker.run();
+            remaining.await();
+            finished = true;
+        } finally {
+            // helpers that did not get a thread yet have nothing left to do
+            next.set(size);
+            for (Future<?> helper : helpers) {
+                helper.cancel(!finished);
+            }
+        }
+
+        List<Outcome<T>> outcomes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            outcomes.add(done.get(i));
+        }
+        return outcomes;
+    }
+
+    private static <T> Outcome<T> call(Callable<T> task) {
+        try {
+            return Outcome.of(task.call(), null);
+        } catch (Throwable t) {
+            return Outcome.of(null, t);
+        }
+    }
+
+    public static final class Outcome<T> {
+        private final T value;
+        private final Throwable error;
+
+        private Outcome(T value, Throwable error) {
+            this.value = value;
+            this.error = error;
+        }
+
+        static <T> Outcome<T> of(T value, Throwable error) {
+            return new Outcome<>(value, error);
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isFailed() {
+            return error != null;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package io.alauda.jenkins.plugins.pipeline.utils;
+
+import io.alauda.model.Kubernete;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds deploy payloads for the DSL in plain Java, so that merging many containers or rewriting large manifests
+ * does not run statement by statement through CPS.
+ */
+public final class PayloadEngine {
+    /**
+     * Key of the override for the first container, used when the DSL calls withContainer() without a name.
+     */
+    public static final String FIRST_CONTAINER = "0";
+
+    private PayloadEngine() {
+    }
+
+    /**
+     * Applies the overrides to the containers in place. {@link #FIRST_CONTAINER} goes to the first container,
+     * every other override to every container with its name, e.g. the same container in several resources.
+     * Overrides without a matching container are ignored.
+     */
+    public static List<Kubernete.Container> mergeContainers(List<Kubernete.Container> containers, Map<String, ContainerOverride> overrides) {
+        if (containers == null || containers.isEmpty() || overrides == null || overrides.isEmpty()) {
+            return containers;
+        }
+
+        Map<String, List<Kubernete.Container>> byName = new HashMap<>(containers.size() * 2);
+        for (Kubernete.Container container : containers) {
+            byName.computeIfAbsent(container.getName(), name -> new ArrayList<>(1)).add(container);
+        }
+
+        ContainerOverride first = overrides.get(FIRST_CONTAINER);
+        if (first != null) {
+            first.applyTo(containers.get(0));
+        }
+        for (Map.Entry<String, ContainerOverride> override : overrides.entrySet()) {
+            if (FIRST_CONTAINER.equals(override.getKey())) {
+                continue;
+            }
+            for (Kubernete.Container container : byName.getOrDefault(override.getKey(), Collections.emptyList())) {
+                override.getValue().applyTo(container);
+            }
+        }
+        return containers;
+    }
+
+    /**
+     * Rewrites "image:anyTag" to "image:tag" in the containers of every matching resource, in one pass over
+     * the documents read from a YAML file. The documents are changed in place.
+     *
+     * @param documents    what readYaml returned, a list of resources or a single resource
+     * @param kind         only resources of this kind are changed, null for any kind
+     * @param resourceName only resources with this metadata.name are changed, null for any name
+     */
+    public static Object replaceImageTag(Object documents, String kind, String resourceName, String image, String tag) {
+        if (image == null || tag == null) {
+            return documents;
+        }
+        String prefix = image + ":";
+        String replacement = prefix + tag;
+        for (Object document : asList(documents)) {
+            if (!(document instanceof Map)) {
+                continue;
+            }
+            Map<?, ?> resource = (Map<?, ?>) document;
+            if (kind != null && !kind.equals(resource.get("kind"))) {
+                continue;
+            }
+            if (resourceName != null && !resourceName.equals(get(resource, "metadata", "name"))) {
+                continue;
+            }
+            Object containers = get(resource, "spec", "template", "spec", "containers");
+            for (Object container : asList(containers)) {
+                if (container instanceof Map) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> c = (Map<String, Object>) container;
+                    Object current = c.get("image");
+                    if (current instanceof String && ((String) current).startsWith(prefix)) {
+                        c.put("image", replacement);
+                    }
+                }
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * Converts maps read from YAML or JSON into a payload class, without going through a JSON string.
+     */
+    public static <T> T convert(Object value, Class<T> type) {
+        return JsonMappers.convert(value, type);
+    }
+
+    private static List<?> asList(Object value) {
+        if (value instanceof List) {
+            return (List<?>) value;
+        }
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(value);
+    }
+
+    private static Object get(Map<?, ?> map, String... path) {
+        Object current = map;
+        for (String key : path) {
+            if (!(current instanceof Map)) {
+                return null;
+            }
+            current = ((Map<?, ?>) current).get(key);
+        }
+        return current;
+    }
+}
@@ -0,0 +1,131 @@
+package io.alauda.jenkins.plugins.pipeline.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Compares deploy payloads so that deploys which would not change anything can be skipped.
+ * <p>
+ * Payloads are compared in canonical form: object keys sorted and null values dropped.
+ */
+public final class SpecDiff {
+    // fields the server fills in or defaults, at any depth, they are no change when only the current spec has them
+    private static final Set<String> SERVER_FIELDS = new HashSet<>(Arrays.asList(
+            "status", "uid", "uuid", "resourceVersion", "generation", "creationTimestamp", "selfLink", "managedFields",
+            "deployment.kubernetes.io/revision", "kubectl.kubernetes.io/last-applied-configuration",
+            "imagePullPolicy", "terminationMessagePath", "terminationMessagePolicy", "dnsPolicy", "restartPolicy",
+            "schedulerName", "securityContext", "terminationGracePeriodSeconds", "revisionHistoryLimit",
+            "progressDeadlineSeconds"));
+
+    private SpecDiff() {
+    }
+
+    /**
+     * @return hex SHA-256 of the canonical JSON of the payload
+     */
+    public static String digest(Object payload) throws JsonProcessingException {
+        byte[] json = JsonMappers.mapper().writeValueAsBytes(canonical(JsonMappers.toTree(payload)));
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            StringBuilder hex = new StringBuilder();
+            for (byte b : sha.digest(json)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every JRE ships SHA-256, fall back to the canonical JSON itself
+            return new String(json, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Lists the fields set in {@code desired} that are missing or different in {@code current}, and the fields
+     * removed from {@code current}. Fields only set in {@code current} are no change when the server fills them in,
+     * such as {@code status}, {@code metadata.resourceVersion} or defaults like {@code imagePullPolicy}.
+     * Arrays of the same size are compared item by item, other arrays as a whole.
+     *
+     * @return paths of the changed fields, e.g. "spec.template.spec.containers[0].image", empty when nothing changed
+     */
+    public static List<String> changes(Object current, Object desired) {
+        List<String> paths = new ArrayList<>();
+        collect("", JsonMappers.toTree(current), JsonMappers.toTree(desired), paths);
+        return paths;
+    }
+
+    private static void collect(String path, JsonNode current, JsonNode desired, List<String> paths) {
+        if (desired == null || desired.isNull()) {
+            return;
+        }
+        if (current == null || current.isNull()) {
+            paths.add(path);
+            return;
+        }
+
+        if (desired.isObject() && current.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = desired.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String child = path.isEmpty() ? field.getKey() : path + "." + field.getKey();
+                collect(child, current.get(field.getKey()), field.getValue(), paths);
+            }
+            Iterator<Map.Entry<String, JsonNode>> removed = current.fields();
+            while (removed.hasNext()) {
+                Map.Entry<String, JsonNode> field = removed.next();
+                if (!field.getValue().isNull() && !desired.has(field.getKey()) && !SERVER_FIELDS.contains(field.getKey())) {
+                    paths.add(path.isEmpty() ? field.getKey() : path + "." + field.getKey());
+                }
+            }
+            return;
+        }
+
+        if (desired.isArray() && current.isArray() && desired.size() == current.size()) {
+            for (int i = 0; i < desired.size(); i++) {
+                collect(path + "[" + i + "]", current.get(i), desired.get(i), paths);
+            }
+            return;
+        }
+
+        if (!canonical(current).equals(canonical(desired))) {
+            paths.add(path);
+        }
+    }
+
+    private static JsonNode canonical(JsonNode node) {
+        if (node.isObject()) {
+            Map<String, JsonNode> sorted = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (!field.getValue().isNull()) {
+                    sorted.put(field.getKey(), canonical(field.getValue()));
+                }
+            }
+            ObjectNode result = JsonNodeFactory.instance.objectNode();
+            result.setAll(sorted);
+            return result;
+        }
+        if (node.isArray()) {
+            ArrayNode result = JsonNodeFactory.instance.arrayNode();
+            for (JsonNode item : node) {
+                result.add(canonical(item));
+            }
+            return result;
+        }
+        return node;
+    }
+}
@@ -1,11 +1,8 @@
 package io.alauda.jenkins.plugins.pipeline
 
 import com.cloudbees.groovy.cps.NonCPS
-import com.fasterxml.jackson.databind.DeserializationFeature
 import com.google.common.base.Strings
-import com.fasterxml.jackson.databind.ObjectMapper
 import groovy.json.JsonSlurperClassic
-import groovy.json.JsonOutput
 import hudson.AbortException
 import io.alauda.model.ComponentDetails
 import org.jenkinsci.plugins.workflow.cps.CpsScript
@@ -14,6 +11,12 @@ import io.alauda.model.ServiceCreatePayload
 import io.alauda.model.ServiceDetails
 import io.alauda.model.ServiceUpdatePayload
 import io.alauda.model.IntegrationDetails
+import io.alauda.jenkins.plugins.pipeline.utils.ContainerOverride
+import io.alauda.jenkins.plugins.pipeline.utils.DslArgs
+import io.alauda.jenkins.plugins.pipeline.utils.ImageCache
+import io.alauda.jenkins.plugins.pipeline.utils.ImageName
+import io.alauda.jenkins.plugins.pipeline.utils.PayloadEngine
+import io.alauda.jenkins.plugins.pipeline.utils.SpecDiff
 
 import org.yaml.snakeyaml.Yaml
 
@@ -36,33 +39,7 @@ class AlaudaDSL implements Serializable {
 
     @NonCPS
     def parseArgs(argsDefine, args) {
-        Map map = [:]
-
-        if (args == null || args.length == 0) {
-            return map;
-        }
-
-        if (args.length == 1) {
-            if (args[0] instanceof Map) {
-                return args[0]
-            }
-
-            if (args[0] instanceof String) {
-                map[argsDefine[0]] = args[0].toString();
-                return map;
-            }
-        }
-
-
-        if (args instanceof Object[]) {
-            for (def i = 0; i < args.length; i++) {
-                def name = argsDefine[i]
-                map[name] = args[i].toString();
-            }
-
-            return map;
-        }
-        return map;
+        return DslArgs.parse(argsDefine, args)
     }
 
     void verbose(boolean verbose) {
@@ -228,7 +205,7 @@ class AlaudaDSL implements Serializable {
 
     // region build operation
     String startBuild(Object... args) {
-        def argsDefine = ["buildConfigName", "commitID", "branch", "async", "ignoreBuildResult"]
+        def argsDefine = ["buildConfigName", "commitID", "branch", "async", "ignoreBuildResult", "timeout", "followLogs", "reuseIfBuilt"]
         Map map = parseArgs(argsDefine, args)
 
         String buildConfigName = map.get("buildConfigName", "");
@@ -240,6 +217,9 @@ class AlaudaDSL implements Serializable {
         String branch = map.get("branch", null);
         boolean async = map.get("async", false);
         boolean ignoreBuildResult = map.get("ignoreBuildResult", false);
+        def timeout = map.get("timeout", 7200);
+        boolean followLogs = Boolean.valueOf(map.get("followLogs", false).toString());
+        boolean reuseIfBuilt = Boolean.valueOf(map.get("reuseIfBuilt", false).toString());
 
         return script.alaudaStartBuild(
                 spaceName: spaceName(),
@@ -248,18 +228,62 @@ class AlaudaDSL implements Serializable {
                 branch: branch,
                 async: async,
                 ignoreBuildResult: ignoreBuildResult,
+                timeout: timeout,
+                followLogs: followLogs,
+                reuseIfBuilt: reuseIfBuilt,
                 verbose: this.isVerbose)
 
     }
 
+    // builds: list of build config names, or of maps with buildConfigName, branch and commitID
+    // returns [buildConfigName: [buildID: ..., result: ...]]
+    Map startBuilds(List builds, Object... args) {
+        def argsDefine = ["parallelism", "async", "failFast", "ignoreBuildResult", "timeout"]
+        Map map = parseArgs(argsDefine, args)
+
+        if (builds == null || builds.isEmpty()) {
+            throw new AbortException("Missing argument builds")
+        }
+
+        return script.alaudaStartBuilds(
+                spaceName: spaceName(),
+                builds: builds,
+                parallelism: map.get("parallelism", 4),
+                async: Boolean.valueOf(map.get("async", false).toString()),
+                failFast: Boolean.valueOf(map.get("failFast", false).toString()),
+                ignoreBuildResult: Boolean.valueOf(map.get("ignoreBuildResult", false).toString()),
+                timeout: map.get("timeout", 7200),
+                verbose: this.isVerbose)
+    }
+
     String deleteBuild(String buildID) {
         script.alaudaDeleteBuild(buildID: buildID)
     }
+
+    // deleteBuilds(["id1", "id2"]) or deleteBuilds([keepLast: 10, olderThanDays: 30, buildConfigName: "api"])
+    Map deleteBuilds(Object... args) {
+        def argsDefine = ["buildIDs", "keepLast", "olderThanDays", "buildConfigName", "parallelism", "dryRun"]
+        Map map
+        if (args != null && args.length == 1 && args[0] instanceof List) {
+            map = [buildIDs: args[0]]
+        } else {
+            map = parseArgs(argsDefine, args)
+        }
+
+        Map params = [dryRun: Boolean.valueOf(map.get("dryRun", false).toString()), parallelism: map.get("parallelism", 8)]
+        for (String name : ["buildIDs", "keepLast", "olderThanDays", "buildConfigName"]) {
+            if (map.containsKey(name)) {
+                params.put(name, map.get(name))
+            }
+        }
+        params.put("verbose", this.isVerbose)
+        return script.alaudaDeleteBuilds(params)
+    }
     // endregion
 
     // region notification operation
     void notify(Object... args) {
-        def argsDefine = ["name", "body"]
+        def argsDefine = ["name", "body", "async"]
         Map map = parseArgs(argsDefine, args)
         if (!map.containsKey("name")) {
             throw new AbortException("Missing argument name")
@@ -269,6 +293,7 @@ class AlaudaDSL implements Serializable {
                 spaceName: spaceName(),
                 name: map.getOrDefault("name", ""),
                 body: map.getOrDefault("body", null),
+                async: Boolean.valueOf(map.getOrDefault("async", false).toString()),
                 verbose: this.isVerbose
         )
     }
@@ -373,12 +398,17 @@ class AlaudaDSL implements Serializable {
     }
 
 //    @NonCPS
-    def ServiceDetails retrieveServiceDetails(String serviceName, String clusterName, String namespace, String projectName) {
-        ServiceDetails details = script.alaudaRetrieveService serviceName: serviceName, clusterName: clusterName, namespace: namespace, projectName: projectName
+    def ServiceDetails retrieveServiceDetails(String serviceName, String clusterName, String namespace, String projectName, boolean fresh = false) {
+        ServiceDetails details = script.alaudaRetrieveService serviceName: serviceName, clusterName: clusterName, namespace: namespace, projectName: projectName, fresh: fresh
         script.println(details)
         return details;
     }
 
+    // a service whose spec did not change is only left alone when its last deploy finished well
+    boolean isSettled(ServiceDetails details) {
+        return details.getResource() != null && details.getResource().isFinalStatus() && details.getResource().isSucc()
+    }
+
     @NonCPS
     def retrieveService(String serviceID) {
         script.println("alauda.retrieveService serviceID: '${serviceID}')")
@@ -470,6 +500,11 @@ class AlaudaDSL implements Serializable {
             this.timeout = timeout;
         }
 
+        // seconds to wait for the rollout, 600 when withTimeout is not called
+        int deployTimeout() {
+            return this.timeout > 0 ? this.timeout : 600
+        }
+
         // select the first container defined in service
         @Override
         Container withContainer() {
@@ -519,66 +554,78 @@ class AlaudaDSL implements Serializable {
             return this;
         }
 
-        def updateContainer(Kubernete.Container originContainer, Container newContainer) {
-            if (!Strings.isNullOrEmpty(newContainer.image)) {
-                originContainer.setImage(newContainer.image)
-            }
-            if (!Strings.isNullOrEmpty(newContainer.imageTag)) {
-                originContainer.setImageTag(newContainer.imageTag)
-            }
-            if (newContainer.envVars != null) {
-                originContainer.addEnvVars(newContainer.envVars)
-            }
-            if (newContainer.envFroms != null) {
-                originContainer.addEnvFroms(newContainer.envFroms)
-            }
-            if (!Strings.isNullOrEmpty(newContainer.command)) {
-                originContainer.setCommand([newContainer.command])
-            }
-            if (!Strings.isNullOrEmpty(newContainer.args)) {
-                originContainer.setArgs([newContainer.args])
+        // changes set by with... keyed by container name, "0" is the first container
+        @NonCPS
+        Map<String, ContainerOverride> containerOverrides() {
+            Map<String, ContainerOverride> overrides = new HashMap<>()
+            for (Map.Entry<String, Container> entry : containers.entrySet()) {
+                overrides.put(entry.getKey(), entry.getValue().toOverride())
             }
+            return overrides
         }
 
         @NonCPS
         def autoReplaceImageTagInYamlMap(yamlMap){
-            for(def res : yamlMap){
-                if(res.kind.equals('Deployment')){
-                    def containers = res.spec.template.spec.containers
-                    for(def container : containers){
-                        if(container.image.startsWith(this.imageWillUpdate+":")){
-                            container.image = this.imageWillUpdate + ":" + this.imageTagUpdateTo
-                        }
-                    }
-                }
-            }
-            return yamlMap
+            return PayloadEngine.replaceImageTag(yamlMap, "Deployment", null, this.imageWillUpdate, this.imageTagUpdateTo)
         }
 
         @NonCPS
         def ServiceCreatePayload convertCreatePaylod(payload){
-            String jsonStr = new JsonOutput().toJson(payload)
-            def objectMapper = new ObjectMapper();
-            objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,false)
-            return objectMapper.readValue(jsonStr, ServiceCreatePayload.class)
+            return PayloadEngine.convert(payload, ServiceCreatePayload.class)
         }
 
         @NonCPS
         def ServiceUpdatePayload convertUpdatePaylod(payload){
-            String jsonStr = new JsonOutput().toJson(payload)
-            def objectMapper = new ObjectMapper();
-            objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,false)
-            return objectMapper.readValue(jsonStr, ServiceUpdatePayload.class)
+            return PayloadEngine.convert(payload, ServiceUpdatePayload.class)
+        }
+
+        // merge the containers set by with... into the retrieved service
+        ServiceUpdatePayload updatePayload(ServiceDetails service) {
+            List<Kubernete.Container> originContainers = PayloadEngine.mergeContainers(service.retrieveContainers(), containerOverrides())
+            service.updateContainers(originContainers)
+            ServiceUpdatePayload payload = service.convertToServiceUpdatePayload()
+            println("${payload}")
+            return payload
+        }
+
+        def yamlPayload() {
+            def yamlMap = alauda.script.readYaml(file:this.yamlFile)
+            def kubes = this.autoReplaceImageTagInYamlMap(yamlMap)
+            def payload = [
+                    "resource":["name": name],
+                    "cluster":["name": alauda.cluster()],
+                    "namespace":["name": alauda.namespace()],
+                    "kubernetes": kubes
+            ]
+            println("${payload}")
+            return payload
+        }
+
+        // used by alauda.deployToClusters(): the yaml payload, or the overrides merged into the service of each target
+        Map toFanOut() {
+            if(this.yamlFile == null || this.yamlFile==""){
+                return [serviceName: name, projectName: alauda.project(), overrides: containerOverrides()]
+            }
+            return [serviceName: name, projectName: alauda.project(), payload: convertUpdatePaylod(yamlPayload())]
+        }
+
+        String getName() {
+            return name
+        }
+
+        boolean getRollback() {
+            return rollback
         }
 
         @Override
         String deploy(Object... args) {
             println("deploy()")
 
-            def argsDefine = ["async"]
+            def argsDefine = ["async", "force"]
             Map map = alauda.parseArgs(argsDefine, args)
-            boolean async = map.get("async", false);
-            ServiceDetails service = alauda.retrieveServiceDetails(this.name, alauda.cluster(), alauda.namespace(), alauda.project());
+            boolean async = Boolean.valueOf(map.get("async", false).toString());
+            boolean force = Boolean.valueOf(map.get("force", false).toString());
+            ServiceDetails service = alauda.retrieveServiceDetails(this.name, alauda.cluster(), alauda.namespace(), alauda.project(), true);
 
             // no yaml , must update service
             if(this.yamlFile == null || this.yamlFile==""){
@@ -586,56 +633,43 @@ class AlaudaDSL implements Serializable {
                     throw new Exception(String.format("service %s is not exists, cannot update it", this.name) )
                 }
 
-                List<Kubernete.Container> originContainers = service.retrieveContainers();
-
-                def firstContainer = originContainers.get(0);
-                Container zeroContainer;
-                if (containers.containsKey("0")) {
-                    zeroContainer = containers.get("0")
-                    updateContainer(firstContainer, zeroContainer)
-                    containers.remove(zeroContainer)
-                }
-                if (containers.containsKey(firstContainer.name)) {
-                    zeroContainer = containers.get(firstContainer.name)
-                    updateContainer(firstContainer, zeroContainer)
-                    containers.remove(firstContainer.name)
-                }
-
-                containers.each {
-                    for (int i = 0; i < originContainers.size(); i++) {
-                        if (it.getKey() == originContainers.get(i).name) {
-                            updateContainer(originContainers.get(i), it.getValue())
-                        }
+                String before = SpecDiff.digest(service.convertToServiceUpdatePayload())
+                ServiceUpdatePayload payload = updatePayload(service)
+                if (!force && SpecDiff.digest(payload) == before) {
+                    if (alauda.isSettled(service)) {
+                        println("service ${name} is up to date, skip deploy")
+                        return service.getResource().getUuid()
                     }
+                    println("service ${name} runs this spec but is ${service.getResource()?.getStatus()}, deploy it again")
                 }
-
-                service.updateContainers(originContainers)
-                ServiceUpdatePayload payload = service.convertToServiceUpdatePayload()
-                println("${payload}")
-                alauda.script.alaudaDeployService serviceID: service.getResource().getUuid(), payload: payload, async: async, rollback:rollback
+                alauda.script.alaudaDeployService serviceID: service.getResource().getUuid(), payload: payload, async: async, rollback:rollback, timeout: deployTimeout()
 
                 return service.getResource().getUuid();
             }
 
             // use yaml , create service or update service
-
-            def yamlMap = alauda.script.readYaml(file:this.yamlFile)
-            def kubes = this.autoReplaceImageTagInYamlMap(yamlMap)
-            def payload = [
-                    "resource":["name": name],
-                    "cluster":["name": alauda.cluster()],
-                    "namespace":["name": alauda.namespace()],
-                    "kubernetes": kubes
-            ]
-            println("${payload}")
+            def payload = yamlPayload()
 
             if(service == null){
                 // will create it
-                def serviceID = alauda.script.alaudaDeployService serviceName: this.name, payload: convertCreatePaylod(payload), async: async, project: alauda.project()
+                def serviceID = alauda.script.alaudaDeployService serviceName: this.name, payload: convertCreatePaylod(payload), async: async, project: alauda.project(), timeout: deployTimeout()
                 return serviceID
             }else{
                 // will update it
-                alauda.script.alaudaDeployService serviceID: service.getResource().getUuid(), payload: convertUpdatePaylod(payload), async: async, rollback:rollback
+                ServiceUpdatePayload updatePayload = convertUpdatePaylod(payload)
+                if (!force) {
+                    List<String> changes = SpecDiff.changes(service.convertToServiceUpdatePayload(), updatePayload)
+                    if (changes.isEmpty() && alauda.isSettled(service)) {
+                        println("service ${name} is up to date, skip deploy")
+                        return service.getResource().getUuid()
+                    }
+                    if (changes.isEmpty()) {
+                        println("service ${name} runs this spec but is ${service.getResource()?.getStatus()}, deploy it again")
+                    } else {
+                        println("changes: ${changes}")
+                    }
+                }
+                alauda.script.alaudaDeployService serviceID: service.getResource().getUuid(), payload: updatePayload, async: async, rollback:rollback, timeout: deployTimeout()
                 return service.getResource().getUuid()
             }
         }
@@ -653,13 +687,84 @@ class AlaudaDSL implements Serializable {
     }
 
     @NonCPS
-    def retrieveComponentDetails(String applicationName, String resourceType, String componentName, String clusterName, String namespace) {
+    def retrieveComponentDetails(String applicationName, String resourceType, String componentName, String clusterName, String namespace, boolean fresh = false) {
         ComponentDetails details = script.alaudaRetrieveComponent applicationName: applicationName, resourceType: resourceType,
-                componentName: componentName, clusterName: clusterName, namespace: namespace
+                componentName: componentName, clusterName: clusterName, namespace: namespace, fresh: fresh
         script.println(details)
         return details;
     }
 
+    // same as isSettled(ServiceDetails), the status of a component comes from its application
+    boolean isComponentSettled(String applicationName, String resourceType, String componentName, String clusterName, String namespace) {
+        def status = script.alaudaRetrieveComponentStatus applicationName: applicationName, resourceType: resourceType,
+                componentName: componentName, clusterName: clusterName, namespace: namespace
+        if (status == null || !(status.isFinalStatus() && status.isSucc())) {
+            script.println("component ${componentName} status: ${status?.getStatus()}")
+            return false
+        }
+        return true
+    }
+
+    // deploy one service or component to several clusters, targets are "cluster" or "cluster/namespace".
+    // the changes are applied to the current spec of each target, waves: [1] deploys to the first one alone before the others
+    def deployToClusters(List<String> targets, def resource, Object... args) {
+        script.println("deployToClusters('$targets')")
+
+        def argsDefine = ["waves", "maxFailures", "parallelism", "rollback", "timeout"]
+        Map map = parseArgs(argsDefine, args)
+        if (targets == null || targets.isEmpty()) {
+            throw new AbortException("Missing argument targets")
+        }
+
+        String first = targets.get(0)
+        String firstCluster = first.contains("/") ? first.substring(0, first.indexOf("/")) : first
+        String firstNamespace = first.contains("/") ? first.substring(first.indexOf("/") + 1) : namespace()
+        Map deployment = withCluster(firstCluster, firstNamespace) {
+            return resource.toFanOut()
+        }
+
+        Map stepArgs = [targets: targets, namespace: namespace(), projectName: project(), waves: map.get("waves", []),
+                        maxFailures: map.get("maxFailures", 0), parallelism: map.get("parallelism", 8),
+                        rollback: Boolean.valueOf(map.get("rollback", resource.getRollback()).toString()),
+                        timeout: map.get("timeout", resource.deployTimeout())]
+        stepArgs.putAll(deployment)
+        return script.alaudaFanOutDeploy(stepArgs)
+    }
+
+    // deploy several components together, at most `parallelism` updates run at the same time
+    def deployComponents(List<Component> components, Object... args) {
+        script.println("deployComponents()")
+
+        def argsDefine = ["parallelism", "async", "rollback", "timeout", "force"]
+        Map map = parseArgs(argsDefine, args)
+        boolean force = Boolean.valueOf(map.get("force", false).toString())
+        List<Map> deployments = []
+        List<String> unchanged = []
+        boolean rollback = false
+        int timeout = 0
+        for (Component component : components) {
+            Map deployment = component.toDeployment(force)
+            if (deployment == null) {
+                unchanged.add(component.applicationName + "/" + component.name)
+                continue
+            }
+            deployments.add(deployment)
+            rollback = rollback || component.getRollback()
+            timeout = Math.max(timeout, component.deployTimeout())
+        }
+
+        Map results = [:]
+        if (!deployments.isEmpty()) {
+            results = script.alaudaDeployComponents(clusterName: cluster(), namespace: namespace(), components: deployments,
+                    parallelism: map.get("parallelism", 4), async: Boolean.valueOf(map.get("async", false).toString()),
+                    rollback: Boolean.valueOf(map.get("rollback", rollback).toString()), timeout: map.get("timeout", timeout))
+        }
+        for (String key : unchanged) {
+            results.put(key, "UNCHANGED")
+        }
+        return results
+    }
+
     def component(String applicationName, String resourceType, String componentName) {
         script.printf("alauda.component('%s, %s, %s')", applicationName, resourceType, componentName)
         new Component(alauda: this, applicationName: applicationName, resourceType: resourceType, name: componentName)
@@ -735,6 +840,11 @@ class AlaudaDSL implements Serializable {
             this.timeout = timeout;
         }
 
+        // seconds to wait for the rollout, 600 when withTimeout is not called
+        int deployTimeout() {
+            return this.timeout > 0 ? this.timeout : 600
+        }
+
 // select the first container defined in Component
         @Override
         Container withContainer() {
@@ -784,96 +894,68 @@ class AlaudaDSL implements Serializable {
             return this;
         }
 
-        def updateContainer(Kubernete.Container originContainer, Container newContainer) {
-            if (!Strings.isNullOrEmpty(newContainer.image)) {
-                originContainer.setImage(newContainer.image)
-            }
-            if (!Strings.isNullOrEmpty(newContainer.imageTag)) {
-                originContainer.setImageTag(newContainer.imageTag)
-            }
-            if (newContainer.envVars != null) {
-                originContainer.addEnvVars(newContainer.envVars)
-            }
-            if (newContainer.envFroms != null) {
-                originContainer.addEnvFroms(newContainer.envFroms)
-            }
-            if (!Strings.isNullOrEmpty(newContainer.command)) {
-                originContainer.setCommand([newContainer.command])
-            }
-            if (!Strings.isNullOrEmpty(newContainer.args)) {
-                originContainer.setArgs([newContainer.args])
+        // changes set by with... keyed by container name, "0" is the first container
+        @NonCPS
+        Map<String, ContainerOverride> containerOverrides() {
+            Map<String, ContainerOverride> overrides = new HashMap<>()
+            for (Map.Entry<String, Container> entry : containers.entrySet()) {
+                overrides.put(entry.getKey(), entry.getValue().toOverride())
             }
+            return overrides
         }
 
         @NonCPS
         def autoReplaceImageTagInYamlMap(yamlMap, componentName){
-            for(def res : yamlMap){
-                if(res.metadata.name.equals(componentName)){
-                    def containers = res.spec.template.spec.containers
-                    for(def container : containers){
-                        if(container.image.startsWith(this.imageWillUpdate+":")){
-                            container.image = this.imageWillUpdate + ":" + this.imageTagUpdateTo
-                        }
-                    }
-                }
-            }
-            return yamlMap
+            return PayloadEngine.replaceImageTag(yamlMap, null, componentName, this.imageWillUpdate, this.imageTagUpdateTo)
         }
 
         @NonCPS
         def Kubernete convertKubernetePaylod(payload){
-            String jsonStr = new JsonOutput().toJson(payload)
-            def objectMapper = new ObjectMapper();
-            objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,false)
-            return objectMapper.readValue(jsonStr, Kubernete.class)
+            return PayloadEngine.convert(payload, Kubernete.class)
         }
 
         @Override
         String deploy(Object... args) {
             println("deploy()")
 
-            def argsDefine = ["async"]
+            def argsDefine = ["async", "force"]
             Map map = alauda.parseArgs(argsDefine, args)
-            boolean async = map.get("async", false);
-            ComponentDetails component = alauda.retrieveComponentDetails(this.applicationName, this.resourceType, this.name, alauda.cluster(), alauda.namespace());
+            boolean async = Boolean.valueOf(map.get("async", false).toString());
+            Kubernete kube = prepare(Boolean.valueOf(map.get("force", false).toString()))
+            if (kube == null) {
+                return name
+            }
 
+            alauda.script.alaudaDeployComponent clusterName: alauda.cluster(), resourceType: resourceType, applicationName: this.applicationName,
+                    componentName: name, namespace: alauda.namespace(), payload: kube, async: async, rollback:rollback, timeout: deployTimeout()
+
+            return kube.getMetadata().getName();
+        }
+
+        // build the payload deploy() would send, used by deploy() and alauda.deployComponents()
+        // returns null when the component already runs this spec, unless force is set
+        Kubernete prepare(boolean force = false) {
             // no yaml , must update service
             if(this.yamlFile == null || this.yamlFile==""){
+                ComponentDetails component = alauda.retrieveComponentDetails(this.applicationName, this.resourceType, this.name, alauda.cluster(), alauda.namespace(), true);
                 if(component == null){
                     throw new Exception(String.format("component %s is not exists, cannot update it", this.name) )
                 }
+                String before = SpecDiff.digest(component.getKubernetes())
 
-                List<Kubernete.Container> originContainers = component.retrieveContainers();
-
-                def firstContainer = originContainers.get(0);
-                Container zeroContainer;
-                if (containers.containsKey("0")) {
-                    zeroContainer = containers.get("0")
-                    updateContainer(firstContainer, zeroContainer)
-                    containers.remove(zeroContainer)
-                }
-                if (containers.containsKey(firstContainer.name)) {
-                    zeroContainer = containers.get(firstContainer.name)
-                    updateContainer(firstContainer, zeroContainer)
-                    containers.remove(firstContainer.name)
-                }
-
-                containers.each {
-                    for (int i = 0; i < originContainers.size(); i++) {
-                        if (it.getKey() == originContainers.get(i).name) {
-                            updateContainer(originContainers.get(i), it.getValue())
-                        }
+                List<Kubernete.Container> originContainers = PayloadEngine.mergeContainers(component.retrieveContainers(), containerOverrides())
+                component.updateContainers(originContainers)
+                if (!force && SpecDiff.digest(component.getKubernetes()) == before) {
+                    if (alauda.isComponentSettled(this.applicationName, this.resourceType, this.name, alauda.cluster(), alauda.namespace())) {
+                        println("component ${name} is up to date, skip deploy")
+                        return null
                     }
+                    println("component ${name} runs this spec but has not settled, deploy it again")
                 }
-
-                component.updateContainers(originContainers)
                 component.updateAnnotation()
                 Kubernete kube = component.getKubernetes()
                 println("${kube}")
-                alauda.script.alaudaDeployComponent clusterName: alauda.cluster(), resourceType: resourceType, applicationName: this.applicationName,
-                        componentName: name, namespace: alauda.namespace(), payload: kube, async: async, rollback:rollback
-
-                return kube.getMetadata().getName();
+                return kube
             }
 
             // use yaml , create service or update service
@@ -881,13 +963,50 @@ class AlaudaDSL implements Serializable {
             def yamlMap = alauda.script.readYaml(file:this.yamlFile)
             def kubes = this.autoReplaceImageTagInYamlMap(yamlMap, name)
             def payload = convertKubernetePaylod(kubes)
+            if (!force) {
+                List<String> changes = null
+                try {
+                    ComponentDetails current = alauda.retrieveComponentDetails(this.applicationName, this.resourceType, this.name, alauda.cluster(), alauda.namespace(), true)
+                    changes = current == null ? null : SpecDiff.changes(current.getKubernetes(), payload)
+                } catch (Exception e) {
+                    println("can not compare with the running component: ${e.getMessage()}")
+                }
+                if (changes == null) {
+                    println("component ${name} could not be retrieved, diff skipped")
+                } else if (changes.isEmpty()) {
+                    if (alauda.isComponentSettled(this.applicationName, this.resourceType, this.name, alauda.cluster(), alauda.namespace())) {
+                        println("component ${name} is up to date, skip deploy")
+                        return null
+                    }
+                    println("component ${name} runs this spec but has not settled, deploy it again")
+                } else {
+                    println("changes: ${changes}")
+                }
+            }
             payload.updateAnnotation()
             println("${payload}")
+            return payload
+        }
 
-            alauda.script.alaudaDeployComponent clusterName: alauda.cluster(), resourceType: resourceType, applicationName: this.applicationName,
-                    componentName: name, namespace: alauda.namespace(), payload:payload, async: async, rollback:rollback
+        // null when the component is up to date
+        Map toDeployment(boolean force = false) {
+            Kubernete kube = prepare(force)
+            if (kube == null) {
+                return null
+            }
+            return [applicationName: applicationName, resourceType: resourceType, componentName: name, payload: kube]
+        }
 
-            return payload.getMetadata().getName();
+        // used by alauda.deployToClusters(): the yaml payload, or the overrides merged into the component of each target
+        Map toFanOut() {
+            if(this.yamlFile == null || this.yamlFile==""){
+                return [applicationName: applicationName, resourceType: resourceType, componentName: name, overrides: containerOverrides()]
+            }
+            return toDeployment(true)
+        }
+
+        boolean getRollback() {
+            return rollback
         }
 
 
@@ -900,7 +1019,6 @@ class AlaudaDSL implements Serializable {
                     ", currentContainerName='" + currentContainerName + '\'' +
                     '}';
         }
-
     }
 
     def interface ContainerParent {
@@ -1002,6 +1120,11 @@ class AlaudaDSL implements Serializable {
             return this;
         }
 
+        @NonCPS
+        ContainerOverride toOverride() {
+            return new ContainerOverride(image, imageTag, envVars, envFroms, command, args)
+        }
+
         @Override
         public String toString() {
             return "Container{" +
@@ -1025,6 +1148,9 @@ class AlaudaDSL implements Serializable {
         private String contextPath
         private String dockerfileLocation
         private boolean useImageCache
+        private String cacheMode = ImageCache.NONE
+        private String cacheRef
+        private String cacheCredentialsId
         private boolean ciEnabled
         private boolean isNewVersion
 
@@ -1060,6 +1186,22 @@ class AlaudaDSL implements Serializable {
             return this
         }
 
+        // none, inline or registry, see ImageCache
+        Build setCacheMode(String cacheMode){
+            this.cacheMode = ImageCache.mode(cacheMode)
+            return this
+        }
+
+        Build setCacheRef(String cacheRef){
+            this.cacheRef = cacheRef
+            return this
+        }
+
+        Build setCacheCredentialsId(String cacheCredentialsId){
+            this.cacheCredentialsId = cacheCredentialsId
+            return this
+        }
+
 
         Build withCIImage(String ciImage, String credentialsId, Closure body){
             this.ciCredentialsId = credentialsId
@@ -1146,7 +1288,6 @@ class AlaudaDSL implements Serializable {
                 dockerfile += "/";
             dockerfile += "Dockerfile";
             def context = this.contextPath
-            def useImageCache = this.useImageCache
 
             if (this.ciEnabled){
                 alauda.script.dir("__dest__"){
@@ -1154,17 +1295,53 @@ class AlaudaDSL implements Serializable {
                     if (!this.isNewVersion){
                         alauda.script.unstash "alaudaciDest"
                     }
-                    alauda.script.sh "docker build --no-cache=${useImageCache} -t ${imageFullName} -f ${dockerfile} ${context}"
+                    dockerBuild(dockerfile, context)
                     alauda.script.printf("prepare to push image")
                     return this.image(imageFullName)
                 }
             }else{
-                alauda.script.sh "docker build --no-cache=${useImageCache} -t ${imageFullName} -f ${dockerfile} ${context}"
+                dockerBuild(dockerfile, context)
                 alauda.script.printf("prepare to push image")
                 return this.image(imageFullName)
             }
         }
 
+        void dockerBuild(String dockerfile, String context){
+            if (this.cacheMode == ImageCache.NONE) {
+                alauda.script.sh ImageCache.buildCommand(ImageCache.NONE, useImageCache, imageFullName, null, dockerfile, context)
+                return
+            }
+
+            def ref = this.cacheRef
+            if (ref == null || ref == "") {
+                ref = ImageCache.cacheRef(imageFullName)
+            }
+            if (this.cacheCredentialsId != null && this.cacheCredentialsId != "") {
+                alauda.script.withEnv(["registry=${AlaudaDSL.parseRegistry(ref)}"]) {
+                    alauda.script.withCredentials([alauda.script.usernamePassword(credentialsId: this.cacheCredentialsId, usernameVariable: 'USERNAME', passwordVariable: 'PASSWORD')]) {
+                        alauda.script.sh 'docker login ${registry} -u ${USERNAME} -p ${PASSWORD}'
+                    }
+                }
+            }
+            if (this.cacheMode == ImageCache.REGISTRY) {
+                alauda.script.sh ImageCache.builderCommand()
+            }
+
+            // keep the plain BuildKit output to count the cached steps
+            def log = ".alauda-build-${UUID.randomUUID().toString()}.log"
+            def command = ImageCache.buildCommand(cacheMode, useImageCache, imageFullName, ref, dockerfile, context)
+            try {
+                alauda.script.sh ImageCache.loggedCommand(command, log)
+                alauda.script.echo ImageCache.summarize(alauda.script.readFile(log))
+            } finally {
+                alauda.script.sh ImageCache.removeLogCommand(log)
+            }
+
+            if (this.cacheMode == ImageCache.INLINE) {
+                alauda.script.sh "docker push ${ref}"
+            }
+        }
+
         ArrayList getVolumes(){
             def volumes = [alauda.script.hostPathVolume(hostPath: '/var/run/docker.sock', mountPath: '/var/run/docker.sock')]
             if (this.hostPathVolume != null) {
@@ -1241,7 +1418,7 @@ class AlaudaDSL implements Serializable {
     }
 
     Build build(Object... args){
-        def argsDefine = ["contextPath", "dockerfileLocation", "useImageCache"]
+        def argsDefine = ["contextPath", "dockerfileLocation", "useImageCache", "cacheMode", "cacheRef", "cacheCredentialsId"]
         Map map = parseArgs(argsDefine, args)
         def build = new AlaudaDSL.Build(alauda: this)
 
@@ -1249,6 +1426,9 @@ class AlaudaDSL implements Serializable {
         build.setDockerfileLocation(map.get("dockerfileLocation", './'))
         String imageCache = map.get("useImageCache", "true")
         build.useImageCache = imageCache.toLowerCase().equals("true")
+        build.setCacheMode(map.get("cacheMode", ImageCache.NONE))
+        build.cacheRef = map.get("cacheRef", null)
+        build.cacheCredentialsId = map.get("cacheCredentialsId", null)
         build.ciEnabled = false
         build.isNewVersion = false
         return build
@@ -1274,20 +1454,10 @@ class AlaudaDSL implements Serializable {
         @NonCPS
         void initByImageFullName(String imageFullName){
             this.originImageFullName = imageFullName
-            String[] segments = imageFullName.split("/")
-            this.imageRegistry = segments[0]
-            if(segments.length < 2 ){
-                throw new AbortException("${imageFullName} is invalid, format should be imageRegistry/imageRepository:imageTag")
-            }
-
-            def lastSegment = segments[segments.length-1]
-            if(!lastSegment.contains(":")){
-                this.tag = "latest"
-                this.imageRepository = imageFullName.substring(this.imageRegistry.length()+1)
-            }else{
-                this.tag = lastSegment.substring(lastSegment.indexOf(":")+1)
-                this.imageRepository = imageFullName.substring(this.imageRegistry.length()+1, imageFullName.lastIndexOf(":"))
-            }
+            ImageName parsed = ImageName.parse(imageFullName)
+            this.imageRegistry = parsed.getRegistry()
+            this.imageRepository = parsed.getRepository()
+            this.tag = parsed.getTag()
             this.alauda.script.print("registry is ${imageRegistry} repository is ${imageRepository} tag is ${tag}")
             return
         }
@@ -1341,17 +1511,7 @@ class AlaudaDSL implements Serializable {
 
     @NonCPS
     def static parseRegistry(String url){
-        String registry
-
-        String[] urlList = url.split("//")
-        if(urlList.length == 2){
-            registry = urlList[1]
-        }else {
-            registry = url
-        }
-
-        String[] registryList = registry.split("/")
-        return registryList[0]
+        return ImageName.parseRegistry(url)
     }
 
 
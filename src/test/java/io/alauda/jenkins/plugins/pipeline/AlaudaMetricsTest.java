@@ -0,0 +1,53 @@
+package io.alauda.jenkins.plugins.pipeline;
+
+import io.alauda.jenkins.plugins.pipeline.alauda.AlaudaMetrics;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class AlaudaMetricsTest {
+
+    @Test
+    public void testOperation() throws Exception {
+        AlaudaMetrics metrics = AlaudaMetrics.get();
+        assertEquals("ok", metrics.time("testOperation", () -> "ok"));
+        try {
+            metrics.time("testOperation", () -> {
+                throw new IOException("Unexpected code Response{protocol=http/1.1, code=404, message=Not Found}");
+            });
+            fail("the error should be thrown again");
+        } catch (IOException expected) {
+        }
+        metrics.rejected("testOperation");
+
+        AlaudaMetrics.Operation operation = metrics.getOperations().get("testOperation");
+        assertEquals(2, operation.getCalls());
+        assertEquals(1, operation.getErrors());
+        assertEquals(1, operation.getRejected());
+        assertEquals(Long.valueOf(1), operation.getErrorsByKind().get("PERMANENT"));
+        assertEquals(Long.valueOf(1), operation.getErrorsByClass().get(IOException.class.getName()));
+        assertEquals(2, operation.getLatencyMillis().getCount());
+    }
+
+    @Test
+    public void testWait() throws Exception {
+        AlaudaMetrics metrics = AlaudaMetrics.get();
+        metrics.waitFinished("testWait", 3, 40);
+        metrics.waitFinished("testWait", 12, 700);
+        metrics.waitFinished("testWait", 4, 90);
+        metrics.waitCancelled("testWait");
+
+        AlaudaMetrics.Wait wait = metrics.getWaits().get("testWait");
+        assertEquals(3, wait.getFinished());
+        assertEquals(1, wait.getCancelled());
+        assertEquals(700, wait.getTimeToFinalMillis().getMax());
+        assertEquals(100, wait.getTimeToFinalMillis().getP50());
+        assertEquals(700, wait.getTimeToFinalMillis().getP99());
+        assertEquals(5, wait.getPolls().getP50());
+        assertEquals(Long.valueOf(1), wait.getTimeToFinalMillis().getBuckets().get("1000"));
+        assertEquals(Long.valueOf(0), wait.getTimeToFinalMillis().getBuckets().get("+Inf"));
+    }
+}
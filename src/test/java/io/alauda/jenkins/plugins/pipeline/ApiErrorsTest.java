@@ -0,0 +1,35 @@
+package io.alauda.jenkins.plugins.pipeline;
+
+import io.alauda.jenkins.plugins.pipeline.alauda.ApiErrors;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.Assert.assertEquals;
+
+public class ApiErrorsTest {
+
+    private static IOException unexpected(int code) {
+        return new IOException("Unexpected code Response{protocol=http/1.1, code=" + code
+                + ", message=Error, url=http://api.alauda.cn/v1/services/demo}");
+    }
+
+    @Test
+    public void testClassify() throws Exception {
+        assertEquals(ApiErrors.Kind.TRANSIENT, ApiErrors.classify(unexpected(503)));
+        assertEquals(ApiErrors.Kind.TRANSIENT, ApiErrors.classify(unexpected(429)));
+        assertEquals(ApiErrors.Kind.PERMANENT, ApiErrors.classify(unexpected(404)));
+        assertEquals(ApiErrors.Kind.PERMANENT, ApiErrors.classify(unexpected(403)));
+        assertEquals(ApiErrors.Kind.TRANSIENT, ApiErrors.classify(new SocketTimeoutException("timeout")));
+        assertEquals(ApiErrors.Kind.PERMANENT, ApiErrors.classify(new IllegalStateException("bad json")));
+        assertEquals(ApiErrors.Kind.TRANSIENT, ApiErrors.classify(new RuntimeException(unexpected(502))));
+    }
+
+    @Test
+    public void testStatusCode() throws Exception {
+        assertEquals(500, ApiErrors.statusCode(unexpected(500)));
+        assertEquals(-1, ApiErrors.statusCode(new IOException("Connection reset")));
+        assertEquals(-1, ApiErrors.statusCode(new IOException()));
+    }
+}
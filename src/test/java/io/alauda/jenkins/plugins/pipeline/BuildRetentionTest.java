@@ -0,0 +1,48 @@
+package io.alauda.jenkins.plugins.pipeline;
+
+import io.alauda.jenkins.plugins.pipeline.alauda.BuildRetention;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class BuildRetentionTest {
+    private static final long NOW = TimeUnit.DAYS.toMillis(1000);
+
+    private static BuildRetention.ListedBuild build(String id, String config, int daysAgo, String status) {
+        return new BuildRetention.ListedBuild(id, config, NOW - TimeUnit.DAYS.toMillis(daysAgo), status);
+    }
+
+    private static List<String> select(BuildRetention retention, List<BuildRetention.ListedBuild> builds) {
+        return retention.select(new ArrayList<>(builds), NOW).stream()
+                .map(BuildRetention.ListedBuild::getBuildID).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    public void testKeepLastAndAge() throws Exception {
+        List<BuildRetention.ListedBuild> builds = Arrays.asList(
+                build("a1", "api", 40, "S"),
+                build("a2", "api", 20, "F"),
+                build("a3", "api", 10, "S"),
+                build("a4", "api", 1, "S"),
+                build("w1", "web", 50, "S"),
+                build("w2", "web", 45, "I"));
+
+        assertEquals(Arrays.asList("a1", "a2"), select(new BuildRetention(null, 2, -1), builds));
+        assertEquals(Arrays.asList("a1", "w1"), select(new BuildRetention(null, -1, 30), builds));
+        // the last ones of every config are kept whatever their age
+        assertEquals(Arrays.asList("a1"), select(new BuildRetention(null, 2, 30), builds));
+        // running builds are never deleted
+        assertEquals(Arrays.asList("w1"), select(new BuildRetention("web", 0, -1), builds));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPolicyNeeded() throws Exception {
+        new BuildRetention(null, -1, -1);
+    }
+}
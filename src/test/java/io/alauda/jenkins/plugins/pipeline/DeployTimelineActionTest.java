@@ -0,0 +1,51 @@
+package io.alauda.jenkins.plugins.pipeline;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DeployTimelineActionTest {
+
+    @Test
+    public void testDeployPhases() throws Exception {
+        DeployTimelineAction timeline = new DeployTimelineAction();
+        timeline.retrieved(DeployTimelineAction.SERVICE, "uuid-1", "web", 1000, 1200);
+        assertTrue("a retrieve alone is not a deploy", timeline.getDeploys().isEmpty());
+
+        timeline.phase(DeployTimelineAction.SERVICE, "uuid-1", "uuid-1", DeployTimelineAction.UPDATE, 1500, 1600);
+        timeline.waited(DeployTimelineAction.SERVICE, "uuid-1", DeployTimelineAction.ROLLOUT, null);
+
+        List<DeployTimelineAction.Deploy> deploys = timeline.getDeploys();
+        assertEquals(1, deploys.size());
+        DeployTimelineAction.Deploy deploy = deploys.get(0);
+        assertEquals("web", deploy.getName());
+        assertNull(deploy.getResult());
+        assertEquals(200, deploy.getPhaseMillis(DeployTimelineAction.RETRIEVE));
+        assertEquals(300, deploy.getPhaseMillis(DeployTimelineAction.MERGE));
+        assertEquals(100, deploy.getPhaseMillis(DeployTimelineAction.UPDATE));
+        assertEquals(DeployTimelineAction.ROLLOUT, deploy.getPhases().get(3).getName());
+        assertEquals(600, deploy.getPhases().get(3).getOffsetMillis());
+
+        timeline.waited(DeployTimelineAction.SERVICE, "uuid-1", DeployTimelineAction.ROLLBACK, DeployTimelineAction.ROLLED_BACK);
+        assertEquals(DeployTimelineAction.ROLLED_BACK, deploy.getResult());
+        assertEquals(5, deploy.getPhases().size());
+    }
+
+    @Test
+    public void testStaleRetrieveIsDropped() throws Exception {
+        DeployTimelineAction timeline = new DeployTimelineAction();
+        timeline.retrieved(DeployTimelineAction.COMPONENT, "c/ns/deployment/api", "api", 1000, 1100);
+        timeline.retrieved(DeployTimelineAction.COMPONENT, "c/ns/deployment/api", "api", 5000, 5100);
+        timeline.phase(DeployTimelineAction.COMPONENT, "c/ns/deployment/api", "api", DeployTimelineAction.UPDATE, 5200, 5300);
+
+        List<DeployTimelineAction.Deploy> deploys = timeline.getDeploys();
+        assertEquals(1, deploys.size());
+        assertEquals(5000, deploys.get(0).getStarted());
+        assertEquals(100, deploys.get(0).getPhaseMillis(DeployTimelineAction.MERGE));
+        assertEquals(300, timeline.getSpanMillis());
+    }
+}
@@ -0,0 +1,56 @@
+package io.alauda.jenkins.plugins.pipeline;
+
+import hudson.AbortException;
+import io.alauda.jenkins.plugins.pipeline.utils.DslArgs;
+import io.alauda.jenkins.plugins.pipeline.utils.ImageName;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DslArgsTest {
+
+    private static final List<String> NAMES = Arrays.asList("name", "async", "timeout");
+
+    @Test
+    public void testParse() throws Exception {
+        assertTrue(DslArgs.parse(NAMES, new Object[0]).isEmpty());
+        assertEquals(Collections.singletonMap("name", "demo"), DslArgs.parse(NAMES, new Object[]{"demo"}));
+
+        Map<String, Object> named = Collections.singletonMap("async", true);
+        assertSame(named, DslArgs.parse(NAMES, new Object[]{named}));
+
+        Map<Object, Object> positional = DslArgs.parse(NAMES, new Object[]{"demo", true, 600});
+        assertEquals("demo", positional.get("name"));
+        assertEquals("true", positional.get("async"));
+        assertEquals("600", positional.get("timeout"));
+    }
+
+    @Test
+    public void testImageName() throws Exception {
+        ImageName image = ImageName.parse("index.alauda.cn/alauda/demo:v1");
+        assertEquals("index.alauda.cn", image.getRegistry());
+        assertEquals("alauda/demo", image.getRepository());
+        assertEquals("v1", image.getTag());
+
+        image = ImageName.parse("localhost:5000/demo");
+        assertEquals("localhost:5000", image.getRegistry());
+        assertEquals("demo", image.getRepository());
+        assertEquals("latest", image.getTag());
+
+        try {
+            ImageName.parse("demo:v1");
+            throw new AssertionError("an image without registry is invalid");
+        } catch (AbortException expected) {
+        }
+
+        assertEquals("index.alauda.cn", ImageName.parseRegistry("https://index.alauda.cn/v2/"));
+        assertEquals("index.alauda.cn", ImageName.parseRegistry("index.alauda.cn/alauda"));
+    }
+}
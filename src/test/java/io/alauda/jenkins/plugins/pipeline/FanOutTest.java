@@ -0,0 +1,43 @@
+package io.alauda.jenkins.plugins.pipeline;
+
+import io.alauda.jenkins.plugins.pipeline.alauda.DeployTarget;
+import io.alauda.jenkins.plugins.pipeline.alauda.FanOut;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class FanOutTest {
+
+    @Test
+    public void testPlanWaves() throws Exception {
+        List<DeployTarget> targets = new ArrayList<>();
+        for (String target : Arrays.asList("canary", "a/prod", "b", "c")) {
+            targets.add(DeployTarget.parse(target, "default"));
+        }
+        assertEquals("a/prod", targets.get(1).getKey());
+        assertEquals("b/default", targets.get(2).getKey());
+
+        List<List<DeployTarget>> plan = FanOut.plan(targets, Collections.singletonList(1));
+        assertEquals(2, plan.size());
+        assertEquals(1, plan.get(0).size());
+        assertEquals(3, plan.get(1).size());
+
+        plan = FanOut.plan(targets, Arrays.asList(1, 5));
+        assertEquals(2, plan.size());
+        assertEquals(3, plan.get(1).size());
+
+        plan = FanOut.plan(targets, null);
+        assertEquals(1, plan.size());
+        assertEquals(4, plan.get(0).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyWave() throws Exception {
+        FanOut.plan(Collections.singletonList(new DeployTarget("a", "b")), Collections.singletonList(0));
+    }
+}
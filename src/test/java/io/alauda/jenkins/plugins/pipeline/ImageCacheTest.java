@@ -0,0 +1,103 @@
+package io.alauda.jenkins.plugins.pipeline;
+
+import hudson.AbortException;
+import io.alauda.jenkins.plugins.pipeline.utils.ImageCache;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ImageCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMode() throws Exception {
+        assertEquals(ImageCache.NONE, ImageCache.mode(null));
+        assertEquals(ImageCache.INLINE, ImageCache.mode(" Inline"));
+        assertEquals(ImageCache.REGISTRY, ImageCache.mode("registry"));
+    }
+
+    @Test(expected = AbortException.class)
+    public void testUnknownMode() throws Exception {
+        ImageCache.mode("local");
+    }
+
+    @Test
+    public void testBuildCommand() throws Exception {
+        String image = "index.alauda.cn/alauda/demo:v1";
+        String cache = ImageCache.cacheRef(image);
+        assertEquals("index.alauda.cn/alauda/demo:buildcache", cache);
+
+        assertEquals("docker build --no-cache=false -t index.alauda.cn/alauda/demo:v1 -f ./Dockerfile ./",
+                ImageCache.buildCommand(ImageCache.NONE, true, image, null, "./Dockerfile", "./"));
+        assertEquals("docker build --no-cache=true -t index.alauda.cn/alauda/demo:v1 -f ./Dockerfile ./",
+                ImageCache.buildCommand(ImageCache.NONE, false, image, null, "./Dockerfile", "./"));
+        assertEquals("DOCKER_BUILDKIT=1 docker build --progress=plain --cache-from index.alauda.cn/alauda/demo:buildcache"
+                        + " --build-arg BUILDKIT_INLINE_CACHE=1 -t index.alauda.cn/alauda/demo:buildcache"
+                        + " -t index.alauda.cn/alauda/demo:v1 -f ./Dockerfile ./",
+                ImageCache.buildCommand(ImageCache.INLINE, true, image, cache, "./Dockerfile", "./"));
+        assertEquals("docker buildx build --builder alauda-cache --progress=plain --load"
+                        + " --cache-from type=registry,ref=index.alauda.cn/alauda/demo:buildcache"
+                        + " --cache-to type=registry,ref=index.alauda.cn/alauda/demo:buildcache,mode=max"
+                        + " -t index.alauda.cn/alauda/demo:v1 -f ./Dockerfile ./",
+                ImageCache.buildCommand(ImageCache.REGISTRY, true, image, cache, "./Dockerfile", "./"));
+    }
+
+    @Test
+    public void testLoggedCommand() throws Exception {
+        assertEquals("{ docker build -t demo:v1 . || echo $? > .build.log.status; } 2>&1 | tee .build.log;"
+                        + " if [ -s .build.log.status ]; then exit $(cat .build.log.status); fi",
+                ImageCache.loggedCommand("docker build -t demo:v1 .", ".build.log"));
+        assertEquals("rm -f .build.log .build.log.status", ImageCache.removeLogCommand(".build.log"));
+    }
+
+    @Test
+    public void testLoggedCommandKeepsOutputOfFailedBuild() throws Exception {
+        Assume.assumeTrue(new File("/bin/sh").canExecute());
+
+        // the way Jenkins runs sh steps
+        Process process = new ProcessBuilder("/bin/sh", "-xe", "-c",
+                ImageCache.loggedCommand("sh -c 'echo step 1/2; exit 3'", "build.log"))
+                .directory(folder.getRoot()).redirectErrorStream(true).start();
+        String console = IOUtils.toString(process.getInputStream(), StandardCharsets.UTF_8);
+        assertEquals(3, process.waitFor());
+        assertTrue(console, console.contains("step 1/2"));
+        File log = new File(folder.getRoot(), "build.log");
+        assertEquals("step 1/2\n", new String(Files.readAllBytes(log.toPath()), StandardCharsets.UTF_8));
+
+        process = new ProcessBuilder("/bin/sh", "-xe", "-c", ImageCache.removeLogCommand("build.log"))
+                .directory(folder.getRoot()).start();
+        assertEquals(0, process.waitFor());
+        assertFalse(log.exists());
+        assertFalse(new File(folder.getRoot(), "build.log.status").exists());
+    }
+
+    @Test
+    public void testSummarize() {
+        String log = "#1 [internal] load build definition from Dockerfile\n"
+                + "#1 transferring dockerfile: 37B done\n"
+                + "#4 [1/4] FROM docker.io/library/golang:1.10\n"
+                + "#4 CACHED\n"
+                + "#5 [2/4] COPY go.mod ./\n"
+                + "#5 CACHED\n"
+                + "#6 [3/4] RUN go mod download\n"
+                + "#6 CACHED\n"
+                + "#7 [4/4] RUN go build ./...\n"
+                + "#7 0.512 building\n"
+                + "#7 DONE 12.3s\n"
+                + "#8 exporting to image\n";
+        assertEquals("Layer cache: 3 of 4 steps cached (75%)", ImageCache.summarize(log));
+        assertEquals("Layer cache: no build steps found in the build output", ImageCache.summarize("Step 1/2 : FROM alpine\n"));
+    }
+}
@@ -0,0 +1,99 @@
+package io.alauda.jenkins.plugins.pipeline;
+
+import io.alauda.jenkins.plugins.pipeline.utils.ParallelTasks;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelTasksTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @After
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void testOutcomesInOrder() throws Exception {
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int value = i;
+            tasks.add(() -> {
+                if (value == 3) {
+                    throw new IOException("failed " + value);
+                }
+                return value;
+            });
+        }
+
+        List<ParallelTasks.Outcome<Integer>> outcomes = ParallelTasks.run(pool, 3, tasks);
+        assertEquals(10, outcomes.size());
+        for (int i = 0; i < 10; i++) {
+            if (i == 3) {
+                assertTrue(outcomes.get(i).isFailed());
+                assertEquals("failed 3", outcomes.get(i).getError().getMessage());
+            } else {
+                assertFalse(outcomes.get(i).isFailed());
+                assertEquals(Integer.valueOf(i), outcomes.get(i).getValue());
+            }
+        }
+    }
+
+    @Test
+    public void testParallelismBound() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger highest = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tasks.add(() -> {
+                highest.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(10);
+                running.decrementAndGet();
+                return null;
+            });
+        }
+
+        ParallelTasks.run(pool, 2, tasks);
+        assertTrue(highest.get() <= 2);
+    }
+
+    @Test
+    public void testRunsOnTheCallerWhenThePoolIsBusy() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 4; i++) {
+            pool.submit(() -> {
+                release.await();
+                return null;
+            });
+        }
+
+        try {
+            List<Callable<String>> tasks = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                tasks.add(() -> Thread.currentThread().getName());
+            }
+            String caller = Thread.currentThread().getName();
+            for (ParallelTasks.Outcome<String> outcome : ParallelTasks.run(pool, 4, tasks)) {
+                assertEquals(caller, outcome.getValue());
+            }
+        } finally {
+            release.countDown();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+}
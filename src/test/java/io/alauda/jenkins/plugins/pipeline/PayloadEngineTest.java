@@ -0,0 +1,79 @@
+package io.alauda.jenkins.plugins.pipeline;
+
+import io.alauda.jenkins.plugins.pipeline.utils.ContainerOverride;
+import io.alauda.jenkins.plugins.pipeline.utils.PayloadEngine;
+import io.alauda.model.Kubernete;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class PayloadEngineTest {
+
+    @Test
+    public void testMergeContainers() throws Exception {
+        List<Kubernete.Container> containers = new ArrayList<>();
+        for (String name : Arrays.asList("web", "sidecar")) {
+            Map<String, Object> container = new HashMap<>();
+            container.put("name", name);
+            container.put("image", "demo:v1");
+            containers.add(PayloadEngine.convert(container, Kubernete.Container.class));
+        }
+
+        Map<String, ContainerOverride> overrides = new HashMap<>();
+        ContainerOverride first = new ContainerOverride();
+        first.setCommand("run");
+        overrides.put(PayloadEngine.FIRST_CONTAINER, first);
+        ContainerOverride sidecar = new ContainerOverride();
+        sidecar.setArgs("--verbose");
+        overrides.put("sidecar", sidecar);
+        overrides.put("missing", new ContainerOverride());
+
+        PayloadEngine.mergeContainers(containers, overrides);
+        assertEquals(Collections.singletonList("run"), containers.get(0).getCommand());
+        assertEquals(Collections.singletonList("--verbose"), containers.get(1).getArgs());
+    }
+
+    @Test
+    public void testMergeContainersWithTheSameName() throws Exception {
+        List<Kubernete.Container> containers = new ArrayList<>();
+        for (String name : Arrays.asList("web", "sidecar", "web")) {
+            Map<String, Object> container = new HashMap<>();
+            container.put("name", name);
+            container.put("image", "demo:v1");
+            containers.add(PayloadEngine.convert(container, Kubernete.Container.class));
+        }
+
+        ContainerOverride web = new ContainerOverride();
+        web.setArgs("--verbose");
+        PayloadEngine.mergeContainers(containers, Collections.singletonMap("web", web));
+        assertEquals(Collections.singletonList("--verbose"), containers.get(0).getArgs());
+        assertEquals(Collections.singletonList("--verbose"), containers.get(2).getArgs());
+        assertNotEquals(Collections.singletonList("--verbose"), containers.get(1).getArgs());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReplaceImageTag() throws Exception {
+        Map<String, Object> container = new HashMap<>();
+        container.put("image", "index.alauda.cn/alauda/demo:v1");
+        Map<String, Object> other = new HashMap<>();
+        other.put("image", "index.alauda.cn/alauda/demo-sidecar:v1");
+        Map<String, Object> deployment = new HashMap<>();
+        deployment.put("kind", "Deployment");
+        deployment.put("spec", Collections.singletonMap("template",
+                Collections.singletonMap("spec", Collections.singletonMap("containers", Arrays.asList(container, other)))));
+
+        PayloadEngine.replaceImageTag(Arrays.asList(deployment, Collections.singletonMap("kind", "Service")),
+                "Deployment", null, "index.alauda.cn/alauda/demo", "v2");
+        assertEquals("index.alauda.cn/alauda/demo:v2", container.get("image"));
+        assertEquals("index.alauda.cn/alauda/demo-sidecar:v1", other.get("image"));
+    }
+}
@@ -0,0 +1,41 @@
+package io.alauda.jenkins.plugins.pipeline;
+
+import io.alauda.jenkins.plugins.pipeline.alauda.PollPolicy;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PollPolicyTest {
+
+    @Test
+    public void testBackoffAndPhaseChange() throws Exception {
+        PollPolicy policy = new PollPolicy(0, 1000, 4000, 2, 0);
+        PollPolicy.Schedule schedule = policy.start(60000);
+
+        schedule.onPhase("Deploying");
+        assertEquals(1000, schedule.nextDelayMillis());
+        assertEquals(2000, schedule.nextDelayMillis());
+        assertEquals(4000, schedule.nextDelayMillis());
+        assertEquals(4000, schedule.nextDelayMillis());
+
+        schedule.onPhase("Deploying");
+        assertEquals(4000, schedule.nextDelayMillis());
+
+        schedule.onPhase("Running");
+        assertEquals(1000, schedule.nextDelayMillis());
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        PollPolicy policy = new PollPolicy(0, 1000, 4000, 2, 0.5);
+        PollPolicy.Schedule schedule = policy.start(500);
+        assertFalse(schedule.isExpired());
+        assertTrue(schedule.nextDelayMillis() <= 500);
+
+        schedule = policy.start(-1);
+        assertTrue(schedule.isExpired());
+        assertEquals(0, schedule.nextDelayMillis());
+    }
+}
@@ -0,0 +1,36 @@
+package io.alauda.jenkins.plugins.pipeline;
+
+import io.alauda.jenkins.plugins.pipeline.alauda.ProgressReporter;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class ProgressReporterTest {
+
+    @Test
+    public void testTransitions() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, "UTF-8");
+        ProgressReporter progress = new ProgressReporter(out, "Get service status");
+
+        progress.status("Deploying");
+        progress.status("Deploying");
+        progress.error("timeout");
+        progress.error("timeout");
+        progress.status("Deploying");
+        progress.status("Deploying");
+        progress.status("Running");
+        progress.finish();
+
+        String n = System.lineSeparator();
+        assertEquals("1. Get service status: Deploying" + n
+                        + "3. Get service status error timeout, will try again" + n
+                        + "5. Get service status: Deploying" + n
+                        + "7. Get service status: Running" + n,
+                bytes.toString("UTF-8"));
+        assertEquals(7, progress.getPolls());
+    }
+}
@@ -0,0 +1,46 @@
+package io.alauda.jenkins.plugins.pipeline;
+
+import io.alauda.jenkins.plugins.pipeline.alauda.RateLimiter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RateLimiterTest {
+
+    @Test
+    public void testPollDeferredWhenBucketEmpty() throws Exception {
+        String endpoint = "http://rate-limiter-test-poll";
+        int burst = RateLimiter.Family.BUILD.getBurst();
+        for (int i = 0; i < burst; i++) {
+            assertEquals("ok", RateLimiter.get().call(endpoint, RateLimiter.Family.BUILD, RateLimiter.Priority.POLL, () -> "ok"));
+        }
+
+        try {
+            RateLimiter.get().call(endpoint, RateLimiter.Family.BUILD, RateLimiter.Priority.POLL, () -> "ok");
+            fail("poll should be deferred");
+        } catch (RateLimiter.RateLimitedException e) {
+            assertTrue(e.isDeferred());
+        }
+        assertTrue(RateLimiter.get().getStats().get("BUILD/POLL").getDeferred() >= 1);
+
+        // other endpoints and families have their own buckets
+        assertEquals("ok", RateLimiter.get().call(endpoint, RateLimiter.Family.SERVICE, RateLimiter.Priority.POLL, () -> "ok"));
+        assertEquals("ok", RateLimiter.get().call(endpoint + "/other", RateLimiter.Family.BUILD, RateLimiter.Priority.POLL, () -> "ok"));
+    }
+
+    @Test
+    public void testMutateWaitsForToken() throws Exception {
+        String endpoint = "http://rate-limiter-test-mutate";
+        int burst = RateLimiter.Family.COMPONENT.getBurst();
+        for (int i = 0; i < burst; i++) {
+            RateLimiter.get().call(endpoint, RateLimiter.Family.COMPONENT, RateLimiter.Priority.MUTATE, () -> null);
+        }
+
+        long started = System.nanoTime();
+        assertEquals("ok", RateLimiter.get().call(endpoint, RateLimiter.Family.COMPONENT, RateLimiter.Priority.MUTATE, () -> "ok"));
+        long waitedMillis = (System.nanoTime() - started) / 1000000;
+        assertTrue("waited " + waitedMillis + " ms", waitedMillis >= 1000 / RateLimiter.Family.COMPONENT.getPermitsPerSecond() / 2);
+    }
+}
@@ -0,0 +1,59 @@
+package io.alauda.jenkins.plugins.pipeline;
+
+import io.alauda.jenkins.plugins.pipeline.utils.SpecDiff;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SpecDiffTest {
+
+    @Test
+    public void testDigestIsCanonical() throws Exception {
+        Map<String, Object> a = new LinkedHashMap<>();
+        a.put("image", "demo:v1");
+        a.put("name", "web");
+        a.put("args", null);
+        Map<String, Object> b = new LinkedHashMap<>();
+        b.put("name", "web");
+        b.put("image", "demo:v1");
+
+        assertEquals(SpecDiff.digest(a), SpecDiff.digest(b));
+        b.put("image", "demo:v2");
+        assertNotEquals(SpecDiff.digest(a), SpecDiff.digest(b));
+    }
+
+    @Test
+    public void testChangesIgnoreServerFields() throws Exception {
+        Map<String, Object> current = new HashMap<>();
+        current.put("image", "demo:v1");
+        current.put("terminationMessagePath", "/dev/termination-log");
+        Map<String, Object> desired = new HashMap<>();
+        desired.put("image", "demo:v1");
+
+        Map<String, Object> running = Collections.singletonMap("containers", Collections.singletonList(current));
+        assertTrue(SpecDiff.changes(running, Collections.singletonMap("containers", Collections.singletonList(desired))).isEmpty());
+
+        desired.put("image", "demo:v2");
+        assertEquals(Collections.singletonList("containers[0].image"),
+                SpecDiff.changes(running, Collections.singletonMap("containers", Collections.singletonList(desired))));
+    }
+
+    @Test
+    public void testChangesFindRemovedFields() throws Exception {
+        Map<String, Object> current = new HashMap<>();
+        current.put("image", "demo:v1");
+        current.put("args", Collections.singletonList("--debug"));
+        current.put("status", "Running");
+        Map<String, Object> desired = new HashMap<>();
+        desired.put("image", "demo:v1");
+
+        assertEquals(Collections.singletonList("args"), SpecDiff.changes(current, desired));
+    }
+}
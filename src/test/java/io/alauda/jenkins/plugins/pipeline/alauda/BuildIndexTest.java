@@ -0,0 +1,135 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BuildIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String key(String commitID) {
+        return BuildIndex.key("http://api.alauda.cn", "alauda", "global", "demo", commitID);
+    }
+
+    private File file() {
+        return new File(folder.getRoot(), "BuildIndex.xml");
+    }
+
+    @Test
+    public void testSecondClaimJoinsTheBuildInFlight() throws Exception {
+        BuildIndex index = new BuildIndex(file());
+        String key = key("c1");
+
+        assertNull(index.claim(key));
+        CompletableFuture<String> joined = index.claim(key);
+        assertNotNull(joined);
+        assertSame(joined, index.claim(key));
+
+        index.started(key, "build-1");
+        assertEquals("build-1", joined.get(10, TimeUnit.SECONDS));
+        // not reusable until it succeeded
+        assertNull(index.lookup(key));
+
+        index.finished(key, "build-1", true);
+        assertEquals("build-1", index.lookup(key));
+        // no longer in flight, the next claim may start a build
+        assertNull(index.claim(key));
+    }
+
+    @Test
+    public void testAbandonFailsTheJoinedClaims() throws Exception {
+        BuildIndex index = new BuildIndex(file());
+        String key = key("c1");
+
+        assertNull(index.claim(key));
+        CompletableFuture<String> joined = index.claim(key);
+        index.abandon(key, new IOException("quota exceeded"));
+        try {
+            joined.get(10, TimeUnit.SECONDS);
+            fail("the claim was abandoned");
+        } catch (ExecutionException e) {
+            assertEquals("quota exceeded", e.getCause().getMessage());
+        }
+        assertNull(index.claim(key));
+    }
+
+    @Test
+    public void testFailedBuildIsNotRecorded() throws Exception {
+        BuildIndex index = new BuildIndex(file());
+        String key = key("c1");
+
+        assertNull(index.claim(key));
+        index.started(key, "build-1");
+        index.finished(key, "build-1", false);
+        assertNull(index.lookup(key));
+        assertNull(index.claim(key));
+    }
+
+    @Test
+    public void testResumedBuildIsJoined() throws Exception {
+        BuildIndex index = new BuildIndex(file());
+        String key = key("c1");
+
+        index.resumed(key, "build-1");
+        assertEquals("build-1", index.claim(key).get(10, TimeUnit.SECONDS));
+        index.finished(key, "build-1", true);
+        assertNull(index.claim(key));
+    }
+
+    @Test
+    public void testKeptOnDiskAndForgotten() throws Exception {
+        BuildIndex index = new BuildIndex(file());
+        index.finished(key("c1"), "build-1", true);
+        assertTrue(file().exists());
+
+        BuildIndex restarted = new BuildIndex(file());
+        assertEquals("build-1", restarted.lookup(key("c1")));
+
+        // only when it still points to the same build
+        restarted.forget(key("c1"), "build-2");
+        assertEquals("build-1", restarted.lookup(key("c1")));
+        restarted.forget(key("c1"), "build-1");
+        assertNull(restarted.lookup(key("c1")));
+        assertNull(new BuildIndex(file()).lookup(key("c1")));
+    }
+
+    @Test
+    public void testExpiredEntry() throws Exception {
+        BuildIndex index = new BuildIndex(file(), 20, 1000);
+        index.finished(key("c1"), "build-1", true);
+        assertEquals("build-1", index.lookup(key("c1")));
+
+        Thread.sleep(50);
+        assertNull(index.lookup(key("c1")));
+        assertNull(new BuildIndex(file(), TimeUnit.HOURS.toMillis(1), 1000).lookup(key("c1")));
+    }
+
+    @Test
+    public void testOldestEntriesAreTrimmed() throws Exception {
+        BuildIndex index = new BuildIndex(file(), TimeUnit.HOURS.toMillis(1), 2);
+        index.finished(key("c1"), "build-1", true);
+        index.finished(key("c2"), "build-2", true);
+        // recording c1 again makes it the most recent
+        index.finished(key("c1"), "build-3", true);
+        index.finished(key("c4"), "build-4", true);
+
+        assertNull(index.lookup(key("c2")));
+        assertEquals("build-3", index.lookup(key("c1")));
+        assertEquals("build-4", index.lookup(key("c4")));
+    }
+}
@@ -0,0 +1,76 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import com.fasterxml.jackson.core.JsonParser;
+import io.alauda.jenkins.plugins.pipeline.utils.JsonMappers;
+import okhttp3.OkHttpClient;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BuildLogFollowerTest {
+
+    private final ByteArrayOutputStream console = new ByteArrayOutputStream();
+
+    private BuildLogFollower follower(OkHttpClient http, String endpoint) {
+        return new BuildLogFollower(http, endpoint, "token", "alauda", "build-1",
+                new PrintStream(console, true));
+    }
+
+    // what the console got since the last call
+    private String printed() {
+        String text = new String(console.toByteArray(), StandardCharsets.UTF_8);
+        console.reset();
+        return text;
+    }
+
+    private static void copy(BuildLogFollower follower, String page) throws Exception {
+        try (JsonParser parser = JsonMappers.factory().createParser(page)) {
+            follower.copyLines(parser);
+        }
+    }
+
+    @Test
+    public void testCopyPages() throws Exception {
+        BuildLogFollower follower = follower(null, "http://api.alauda.cn");
+
+        copy(follower, "{\"count\": 3, \"meta\": {\"next\": [1, 2]}, \"logs\": ["
+                + "{\"time\": 1, \"message\": \"a\"}, {\"time\": 2, \"message\": \"b\\n\"}, {\"time\": 2, \"message\": \"c\"}]}");
+        assertEquals("a\nb\nc\n", printed());
+
+        // asked again from time 2: the two lines of that time already printed are skipped
+        copy(follower, "[{\"time\": 2, \"message\": \"b\\n\"}, {\"time\": 2, \"message\": \"c\"}, {\"time\": 2, \"message\": \"d\"},"
+                + " {\"time\": 3, \"level\": {\"name\": \"info\"}, \"message\": \"e\"}]");
+        assertEquals("d\ne\n", printed());
+
+        copy(follower, "[{\"time\": 3, \"message\": \"e\"}, {\"time\": 3, \"message\": \"f\"}]");
+        assertEquals("f\n", printed());
+
+        copy(follower, "{\"logs\": null}");
+        copy(follower, "{}");
+        assertEquals("", printed());
+    }
+
+    @Test
+    public void testGiveUpAfterFailedPolls() throws Exception {
+        OkHttpClient http = new OkHttpClient.Builder().connectTimeout(1, TimeUnit.SECONDS).build();
+        // nothing listens on port 1
+        BuildLogFollower follower = follower(http, "http://127.0.0.1:1");
+
+        for (int i = 1; i < BuildLogFollower.MAX_FAILURES; i++) {
+            follower.poll();
+            assertEquals("", printed());
+        }
+        follower.poll();
+        assertTrue(printed().startsWith("Build log is not available"));
+
+        follower.poll();
+        follower.close();
+        assertEquals("", printed());
+    }
+}
@@ -0,0 +1,87 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FanOutStartTest {
+
+    private final Alauda.Logger logger = new Alauda.Logger(new PrintStream(new ByteArrayOutputStream()));
+    // deploys in flight, completed by the test
+    private final Map<String, CompletableFuture<Object>> deploys = new ConcurrentHashMap<>();
+
+    private final FanOut.Deployer deployer = target -> {
+        CompletableFuture<Object> deploy = new CompletableFuture<>();
+        deploys.put(target.getClusterName(), deploy);
+        return deploy;
+    };
+
+    private static List<DeployTarget> targets(String... clusters) {
+        List<DeployTarget> targets = new ArrayList<>();
+        for (String cluster : clusters) {
+            targets.add(new DeployTarget(cluster, "default"));
+        }
+        return targets;
+    }
+
+    @Test
+    public void testWavesAndParallelism() throws Exception {
+        FanOut fanOut = new FanOut(Collections.singletonList(1), 0, 2);
+        CompletableFuture<Map<String, String>> results = fanOut.start(logger, targets("canary", "a", "b", "c"), deployer);
+
+        assertEquals(Collections.singleton("canary"), deploys.keySet());
+        deploys.get("canary").complete(null);
+        assertEquals(3, deploys.size());
+        assertFalse(deploys.containsKey("c"));
+
+        deploys.get("a").complete(null);
+        assertTrue(deploys.containsKey("c"));
+        deploys.get("b").complete(null);
+        assertFalse(results.isDone());
+        deploys.get("c").complete(null);
+
+        Map<String, String> statuses = results.get(10, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("canary/default", "a/default", "b/default", "c/default"), new ArrayList<>(statuses.keySet()));
+        assertTrue(statuses.values().stream().allMatch(DeployTarget.SUCCEED::equals));
+        assertFalse(fanOut.isThresholdExceeded(statuses));
+    }
+
+    @Test
+    public void testFailureSkipsTheNextWaves() throws Exception {
+        FanOut fanOut = new FanOut(Arrays.asList(1, 1), 0, 8);
+        CompletableFuture<Map<String, String>> results = fanOut.start(logger, targets("canary", "a", "b"), deployer);
+
+        deploys.get("canary").completeExceptionally(new IOException("rollout failed"));
+
+        Map<String, String> statuses = results.get(10, TimeUnit.SECONDS);
+        assertEquals(DeployTarget.FAILED, statuses.get("canary/default"));
+        assertEquals(DeployTarget.SKIPPED, statuses.get("a/default"));
+        assertEquals(DeployTarget.SKIPPED, statuses.get("b/default"));
+        assertEquals(1, deploys.size());
+        assertTrue(fanOut.isThresholdExceeded(statuses));
+    }
+
+    @Test
+    public void testCancelStopsTheDeploysInFlight() throws Exception {
+        FanOut fanOut = new FanOut(null, 0, 1);
+        CompletableFuture<Map<String, String>> results = fanOut.start(logger, targets("a", "b"), deployer);
+
+        results.cancel(true);
+        assertTrue(deploys.get("a").isCancelled());
+        assertEquals(1, deploys.size());
+    }
+}
@@ -0,0 +1,149 @@
+package io.alauda.jenkins.plugins.pipeline.alauda;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NotificationOutboxTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // ids of the messages the sender was called with, failures included
+    private final List<String> attempts = new CopyOnWriteArrayList<>();
+    private volatile IOException failNext;
+    private volatile IOException failAlways;
+
+    private final NotificationOutbox.Sender sender = message -> {
+        attempts.add(message.getId());
+        IOException error = failNext;
+        failNext = null;
+        if (error == null) {
+            error = failAlways;
+        }
+        if (error != null) {
+            throw error;
+        }
+    };
+
+    private static NotificationOutbox.Message message(String name) {
+        return new NotificationOutbox.Message("http://api.alauda.cn", "alauda", "global", name, true, "demo",
+                "{}", "demo#1");
+    }
+
+    private static IOException unexpected(int code) {
+        return new IOException("Unexpected code Response{protocol=http/1.1, code=" + code
+                + ", message=Error, url=http://api.alauda.cn/v1/notifications/demo}");
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (!condition.getAsBoolean()) {
+            assertTrue("timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    public void testSendInOrder() throws Exception {
+        NotificationOutbox outbox = new NotificationOutbox(folder.getRoot(), sender);
+        NotificationOutbox.Message first = message("deploy");
+        NotificationOutbox.Message second = message("deploy");
+        NotificationOutbox.Message third = message("deploy");
+        outbox.enqueue(first);
+        outbox.enqueue(second);
+        outbox.enqueue(third);
+
+        await(() -> outbox.getDeliveredCount() == 3);
+        assertEquals(Arrays.asList(first.getId(), second.getId(), third.getId()), attempts);
+        assertEquals(0, outbox.getQueueDepth());
+        assertEquals(0, folder.getRoot().listFiles((d, name) -> name.endsWith(".xml")).length);
+    }
+
+    @Test
+    public void testFailureHoldsBackTheGroup() throws Exception {
+        NotificationOutbox outbox = new NotificationOutbox(folder.getRoot(), sender);
+        failNext = new IOException("Connection reset");
+        NotificationOutbox.Message first = message("deploy");
+        NotificationOutbox.Message second = message("deploy");
+        outbox.enqueue(first);
+        outbox.enqueue(second);
+
+        await(() -> outbox.getDeliveredCount() == 2);
+        assertEquals(Arrays.asList(first.getId(), first.getId(), second.getId()), attempts);
+        assertEquals(1, outbox.getRetriedCount());
+        assertEquals(0, outbox.getDeadLetteredCount());
+    }
+
+    @Test
+    public void testPermanentErrorIsDeadLettered() throws Exception {
+        NotificationOutbox outbox = new NotificationOutbox(folder.getRoot(), sender);
+        failNext = unexpected(404);
+        NotificationOutbox.Message message = message("deploy");
+        outbox.enqueue(message);
+
+        await(() -> outbox.getDeadLetteredCount() == 1);
+        assertEquals(0, outbox.getQueueDepth());
+        List<NotificationOutbox.Message> dead = outbox.getDeadLetters();
+        assertEquals(1, dead.size());
+        assertEquals(message.getId(), dead.get(0).getId());
+        assertEquals(1, dead.get(0).getAttempts());
+        assertTrue(dead.get(0).getLastError().contains("code=404"));
+        assertTrue(new File(folder.getRoot(), "dead/" + message.getId() + ".xml").exists());
+    }
+
+    @Test
+    public void testRetryAndDiscardDeadLetters() throws Exception {
+        NotificationOutbox outbox = new NotificationOutbox(folder.getRoot(), sender);
+        failAlways = unexpected(403);
+        NotificationOutbox.Message retried = message("deploy");
+        NotificationOutbox.Message discarded = message("build");
+        outbox.enqueue(retried);
+        outbox.enqueue(discarded);
+        await(() -> outbox.getDeadLetteredCount() == 2);
+
+        failAlways = null;
+        assertTrue(outbox.retry(retried.getId()));
+        await(() -> outbox.getDeliveredCount() == 1);
+        assertFalse(outbox.retry(retried.getId()));
+
+        assertTrue(outbox.discard(discarded.getId()));
+        assertFalse(outbox.discard(discarded.getId()));
+        assertTrue(outbox.getDeadLetters().isEmpty());
+        assertFalse(new File(folder.getRoot(), "dead/" + discarded.getId() + ".xml").exists());
+    }
+
+    @Test
+    public void testReloadFromDisk() throws Exception {
+        NotificationOutbox outbox = new NotificationOutbox(folder.getRoot(), sender);
+        failNext = unexpected(400);
+        NotificationOutbox.Message dead = message("build");
+        outbox.enqueue(dead);
+        await(() -> outbox.getDeadLetteredCount() == 1);
+
+        failAlways = new IOException("Connection reset");
+        NotificationOutbox.Message pending = message("deploy");
+        outbox.enqueue(pending);
+        await(() -> outbox.getRetriedCount() == 1);
+
+        // what a restart finds in JENKINS_HOME
+        NotificationOutbox restarted = new NotificationOutbox(folder.getRoot(), sender);
+        assertEquals(1, restarted.getQueueDepth());
+        List<NotificationOutbox.Message> deadLetters = restarted.getDeadLetters();
+        assertEquals(1, deadLetters.size());
+        assertEquals(dead.getId(), deadLetters.get(0).getId());
+        assertEquals("demo#1", deadLetters.get(0).getRun());
+    }
+}